@@ -0,0 +1,107 @@
+package com.netflix.eureka.benchmark;
+
+import java.util.List;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.DefaultEurekaClientConfig;
+import com.netflix.discovery.EurekaClientConfig;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.DefaultEurekaServerConfig;
+import com.netflix.eureka.EurekaServerConfig;
+import com.netflix.eureka.cluster.PeerEurekaNodes;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl;
+import com.netflix.eureka.resources.DefaultServerCodecs;
+import com.netflix.eureka.resources.ServerCodecs;
+
+/**
+ * A registry of the local region only, without peers to replicate to and without self preservation, so that the
+ * benchmarks measure the registry itself. It is not initialized as a server initializes it, which would start timers
+ * and connect to the remote regions, but only gets the response cache and its empty set of peers.
+ */
+class BenchmarkRegistry extends PeerAwareInstanceRegistryImpl {
+
+    /**
+     * Long enough for no lease to expire, and by default no change to leave the delta queue, during a benchmark run.
+     */
+    static final int LEASE_DURATION_SECS = 60 * 60;
+
+    private BenchmarkRegistry(EurekaServerConfig serverConfig, EurekaClientConfig clientConfig, ServerCodecs serverCodecs) {
+        super(serverConfig, clientConfig, serverCodecs, null);
+        this.peerEurekaNodes = new PeerEurekaNodes(this, serverConfig, clientConfig, serverCodecs, null);
+    }
+
+    static BenchmarkRegistry create() {
+        return create(LEASE_DURATION_SECS * 1000L);
+    }
+
+    /**
+     * @param deltaRetentionMs how long changes stay in the delta queue, which is only expired by
+     *                         {@link #expireDeltaQueue()}, so that no timer does it in the middle of a measurement
+     */
+    static BenchmarkRegistry create(long deltaRetentionMs) {
+        EurekaServerConfig serverConfig = new BenchmarkServerConfig(deltaRetentionMs);
+        BenchmarkRegistry registry = new BenchmarkRegistry(
+                serverConfig, new DefaultEurekaClientConfig(), new DefaultServerCodecs(serverConfig));
+        registry.initializedResponseCache();
+        return registry;
+    }
+
+    /**
+     * @return instances of one application per ten of them, with metadata, as the registry of a production server has
+     */
+    static List<InstanceInfo> generateInstances(int instanceCount) {
+        return InstanceInfoGenerator.newBuilder(instanceCount, Math.max(1, instanceCount / 10))
+                .withMetaData(true)
+                .build()
+                .toInstanceList();
+    }
+
+    void registerAll(List<InstanceInfo> instances) {
+        for (InstanceInfo instance : instances) {
+            register(instance, LEASE_DURATION_SECS, false);
+        }
+    }
+
+    void expireDeltaQueue() {
+        expireDeltas();
+    }
+
+    /**
+     * Serves payloads from the read write cache, so that they are generated on the first read after an invalidation
+     * instead of by the timer updating the read only cache, expires leases regardless of the renewal rate, and keeps
+     * changes in the delta queue for the given time, leaving the expiry of them to the benchmarks.
+     */
+    static class BenchmarkServerConfig extends DefaultEurekaServerConfig {
+
+        private final long deltaRetentionMs;
+
+        BenchmarkServerConfig(long deltaRetentionMs) {
+            this.deltaRetentionMs = deltaRetentionMs;
+        }
+
+        @Override
+        public boolean shouldUseReadOnlyResponseCache() {
+            return false;
+        }
+
+        @Override
+        public boolean shouldServeStaleResponseCacheWhileRevalidating() {
+            return false;
+        }
+
+        @Override
+        public boolean shouldEnableSelfPreservation() {
+            return false;
+        }
+
+        @Override
+        public long getRetentionTimeInMSInDeltaQueue() {
+            return deltaRetentionMs;
+        }
+
+        @Override
+        public long getDeltaRetentionTimerIntervalInMs() {
+            return LEASE_DURATION_SECS * 1000L;
+        }
+    }
+}
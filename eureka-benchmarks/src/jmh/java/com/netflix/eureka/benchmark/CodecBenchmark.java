@@ -0,0 +1,68 @@
+package com.netflix.eureka.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.discovery.converters.wrappers.CodecWrapper;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures encoding and decoding of the full registry by the codecs the server answers the clients with:
+ * {@code LegacyJacksonJson} is the full format of {@link com.netflix.discovery.converters.EurekaJacksonCodec},
+ * {@code JacksonJson} and {@code JacksonJsonMini} the full and the mini format of the newer JSON codec, and
+ * {@code EurekaBinary} the binary one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodecBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int instanceCount;
+
+    @Param({"LegacyJacksonJson", "JacksonJson", "JacksonJsonMini", "EurekaBinary"})
+    public String codecName;
+
+    private CodecWrapper codec;
+    private Applications applications;
+    private byte[] encoded;
+    private ByteArrayOutputStream output;
+
+    @Setup
+    public void setUp() throws IOException {
+        codec = CodecWrappers.getCodec(codecName);
+        applications = InstanceInfoGenerator.newBuilder(instanceCount, Math.max(1, instanceCount / 10))
+                .withMetaData(true)
+                .build()
+                .toApplications();
+        applications.setAppsHashCode(applications.getReconcileHashCode());
+
+        output = new ByteArrayOutputStream();
+        codec.encode(applications, output);
+        encoded = output.toByteArray();
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        output.reset();
+        codec.encode(applications, output);
+        return output.size();
+    }
+
+    @Benchmark
+    public Applications decode() throws IOException {
+        return codec.decode(new ByteArrayInputStream(encoded), Applications.class);
+    }
+}
@@ -0,0 +1,128 @@
+package com.netflix.eureka.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.appinfo.InstanceInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Measures the lease operations of the registry as concurrent clients and the eviction task perform them. Each thread
+ * works on its own share of the instances, so that the threads contend on the registry, but not on a single lease.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RegistryLeaseBenchmark {
+
+    private static final int THREADS = 4;
+
+    @Param({"1000", "10000", "100000"})
+    public int instanceCount;
+
+    private BenchmarkRegistry registry;
+    private List<InstanceInfo> instances;
+
+    @Setup
+    public void setUp() {
+        registry = BenchmarkRegistry.create(0);
+        instances = BenchmarkRegistry.generateInstances(instanceCount);
+        registry.registerAll(instances);
+    }
+
+    /**
+     * Drops the changes of the previous iteration from the delta queue, which the registrations and cancellations
+     * fill up at millions of changes a second, so that every iteration starts with the same heap.
+     */
+    @Setup(Level.Iteration)
+    public void expireDeltaQueue() {
+        registry.expireDeltaQueue();
+    }
+
+    @TearDown
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public void register(InstanceCursor cursor) {
+        registry.register(cursor.next(instances), BenchmarkRegistry.LEASE_DURATION_SECS, false);
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public boolean renew(InstanceCursor cursor) {
+        InstanceInfo instance = cursor.next(instances);
+        return registry.renew(instance.getAppName(), instance.getId(), false);
+    }
+
+    /**
+     * Cancels an instance and registers it again, which keeps the size of the registry constant.
+     */
+    @Benchmark
+    @Threads(THREADS)
+    public boolean cancel(InstanceCursor cursor) {
+        InstanceInfo instance = cursor.next(instances);
+        boolean cancelled = registry.cancel(instance.getAppName(), instance.getId(), false);
+        registry.register(instance, BenchmarkRegistry.LEASE_DURATION_SECS, false);
+        return cancelled;
+    }
+
+    /**
+     * Evicts while the other threads of the group renew. None of the leases is due, so this measures what the eviction
+     * task costs, and how it slows down the renewals, when the registry is healthy.
+     */
+    @Benchmark
+    @Group("evictWhileRenewing")
+    @GroupThreads(1)
+    public void evict() {
+        registry.evict();
+    }
+
+    @Benchmark
+    @Group("evictWhileRenewing")
+    @GroupThreads(THREADS - 1)
+    public boolean renewWhileEvicting(InstanceCursor cursor) {
+        return renew(cursor);
+    }
+
+    /**
+     * Walks the instances with a stride of the thread count, starting at the index of the thread, so that no two
+     * threads ever work on the same instance.
+     */
+    @State(Scope.Thread)
+    public static class InstanceCursor {
+
+        private int next;
+        private int stride;
+
+        @Setup
+        public void setUp(ThreadParams threadParams) {
+            next = threadParams.getThreadIndex();
+            stride = threadParams.getThreadCount();
+        }
+
+        InstanceInfo next(List<InstanceInfo> instances) {
+            InstanceInfo instance = instances.get(next);
+            next += stride;
+            if (next >= instances.size()) {
+                next = next % stride;
+            }
+            return instance;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.netflix.eureka.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.discovery.shared.Applications;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures how long it takes the registry to assemble the full registry, and the delta of it, which the response cache
+ * does whenever a payload of either was invalidated. All instances are registered within the retention time of the
+ * delta queue, so the delta is as large as the full registry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RegistryReadBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int instanceCount;
+
+    private BenchmarkRegistry registry;
+
+    @Setup
+    public void setUp() {
+        registry = BenchmarkRegistry.create();
+        registry.registerAll(BenchmarkRegistry.generateInstances(instanceCount));
+    }
+
+    @TearDown
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    @Benchmark
+    public Applications getApplications() {
+        return registry.getApplications();
+    }
+
+    @Benchmark
+    public Applications getApplicationDeltas() {
+        return registry.getApplicationDeltas();
+    }
+}
@@ -0,0 +1,70 @@
+package com.netflix.eureka.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.appinfo.EurekaAccept;
+import com.netflix.eureka.Version;
+import com.netflix.eureka.registry.Key;
+import com.netflix.eureka.registry.Key.EntityType;
+import com.netflix.eureka.registry.Key.KeyType;
+import com.netflix.eureka.registry.ResponseCacheImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the generation of the payloads of the full registry, and the delta of it, by the response cache. Each
+ * operation invalidates the payload and reads it again, which is what the first client asking for it after a change
+ * to the registry waits for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseCacheBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int instanceCount;
+
+    @Param({"JSON", "XML", "BINARY"})
+    public KeyType keyType;
+
+    @Param({"full", "compact"})
+    public EurekaAccept eurekaAccept;
+
+    private BenchmarkRegistry registry;
+    private ResponseCacheImpl responseCache;
+    private Key allAppsKey;
+    private Key allAppsDeltaKey;
+
+    @Setup
+    public void setUp() {
+        registry = BenchmarkRegistry.create();
+        registry.registerAll(BenchmarkRegistry.generateInstances(instanceCount));
+        responseCache = (ResponseCacheImpl) registry.getResponseCache();
+        allAppsKey = new Key(EntityType.Application, ResponseCacheImpl.ALL_APPS, keyType, Version.V2, eurekaAccept);
+        allAppsDeltaKey = new Key(EntityType.Application, ResponseCacheImpl.ALL_APPS_DELTA, keyType, Version.V2, eurekaAccept);
+    }
+
+    @TearDown
+    public void tearDown() {
+        registry.shutdown();
+    }
+
+    @Benchmark
+    public byte[] generateApplications() {
+        responseCache.invalidate(allAppsKey);
+        return responseCache.getBytes(allAppsKey);
+    }
+
+    @Benchmark
+    public byte[] generateApplicationDeltas() {
+        responseCache.invalidate(allAppsDeltaKey);
+        return responseCache.getBytes(allAppsDeltaKey);
+    }
+}
@@ -213,6 +213,16 @@ public class EurekaArchaius2ClientConfig implements EurekaClientConfig {
         return prefixedConfig.getBoolean(SHOULD_ENFORCE_REGISTRATION_AT_INIT, false);
     }
 
+    @Override
+    public int getRegistryWatchTimeoutSeconds() {
+        return prefixedConfig.getInteger(REGISTRY_WATCH_TIMEOUT_KEY, 0);
+    }
+
+    @Override
+    public boolean shouldStreamRegistryChanges() {
+        return prefixedConfig.getBoolean(REGISTRY_STREAM_ENABLED_KEY, false);
+    }
+
     @Override
     public String getEncoderName() {
         return prefixedConfig.getString(CLIENT_ENCODER_NAME_KEY, null);
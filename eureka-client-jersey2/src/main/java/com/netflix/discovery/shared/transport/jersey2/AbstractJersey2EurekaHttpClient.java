@@ -20,11 +20,14 @@ import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation.Builder;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Collections;
@@ -40,6 +43,10 @@ import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse.EurekaHttpResponseBuilder;
+import com.netflix.discovery.shared.transport.HeartbeatBatch;
+import com.netflix.discovery.shared.transport.HeartbeatBatchResponse;
+import com.netflix.discovery.shared.transport.InstanceChangeEventReader;
+import com.netflix.discovery.shared.transport.InstanceChangeListener;
 import com.netflix.discovery.util.StringUtil;
 import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
 import org.slf4j.Logger;
@@ -54,6 +61,9 @@ public abstract class AbstractJersey2EurekaHttpClient implements EurekaHttpClien
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractJersey2EurekaHttpClient.class);
 
+    private static final String HTTP_LAST_EVENT_ID = "Last-Event-ID";
+    private static final String TEXT_EVENT_STREAM = "text/event-stream";
+
     protected final Client jerseyClient;
     protected final String serviceUrl;
     private final String userName;
@@ -157,6 +167,33 @@ public abstract class AbstractJersey2EurekaHttpClient implements EurekaHttpClien
         }
     }
 
+    @Override
+    public EurekaHttpResponse<HeartbeatBatchResponse> sendHeartBeats(HeartbeatBatch heartbeats) {
+        String urlPath = "apps/heartbeats";
+        Response response = null;
+        try {
+            Builder resourceBuilder = jerseyClient.target(serviceUrl).path(urlPath).request();
+            addExtraProperties(resourceBuilder);
+            addExtraHeaders(resourceBuilder);
+            response = resourceBuilder
+                    .accept(MediaType.APPLICATION_JSON)
+                    .post(Entity.json(heartbeats));
+            HeartbeatBatchResponse batchResponse = null;
+            if (response.getStatus() == Status.OK.getStatusCode() && response.hasEntity()) {
+                batchResponse = response.readEntity(HeartbeatBatchResponse.class);
+            }
+            return anEurekaHttpResponse(response.getStatus(), batchResponse).headers(headersOf(response)).build();
+        } finally {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Jersey2 HTTP POST {}/{} with {} heartbeats; statusCode={}", serviceUrl, urlPath,
+                        heartbeats.getHeartbeats().size(), response == null ? "N/A" : response.getStatus());
+            }
+            if (response != null) {
+                response.close();
+            }
+        }
+    }
+
     @Override
     public EurekaHttpResponse<Void> statusUpdate(String appName, String id, InstanceStatus newStatus, InstanceInfo info) {
         String urlPath = "apps/" + appName + '/' + id + "/status";
@@ -206,22 +243,42 @@ public abstract class AbstractJersey2EurekaHttpClient implements EurekaHttpClien
 
     @Override
     public EurekaHttpResponse<Applications> getApplications(String... regions) {
-        return getApplicationsInternal("apps/", regions);
+        return getApplicationsInternal("apps/", null, null, null, regions);
     }
 
     @Override
     public EurekaHttpResponse<Applications> getDelta(String... regions) {
-        return getApplicationsInternal("apps/delta", regions);
+        return getApplicationsInternal("apps/delta", null, null, null, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getApplicationsIfNoneMatch(String eTag, String... regions) {
+        return getApplicationsInternal("apps/", eTag, null, null, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaIfNoneMatch(String eTag, String... regions) {
+        return getApplicationsInternal("apps/delta", eTag, null, null, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaSince(String cursor, String... regions) {
+        return getApplicationsInternal("apps/delta", null, cursor, null, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> watchDeltaSince(String cursor, long timeoutMs, String... regions) {
+        return getApplicationsInternal("apps/watch", null, cursor, timeoutMs, regions);
     }
 
     @Override
     public EurekaHttpResponse<Applications> getVip(String vipAddress, String... regions) {
-        return getApplicationsInternal("vips/" + vipAddress, regions);
+        return getApplicationsInternal("vips/" + vipAddress, null, null, null, regions);
     }
 
     @Override
     public EurekaHttpResponse<Applications> getSecureVip(String secureVipAddress, String... regions) {
-        return getApplicationsInternal("svips/" + secureVipAddress, regions);
+        return getApplicationsInternal("svips/" + secureVipAddress, null, null, null, regions);
     }
 
     @Override
@@ -249,16 +306,55 @@ public abstract class AbstractJersey2EurekaHttpClient implements EurekaHttpClien
         }
     }
 
-    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath, String[] regions) {
+    @Override
+    public EurekaHttpResponse<Void> streamInstanceChanges(String cursor, InstanceChangeListener listener) {
+        String urlPath = "apps/stream";
+        Response response = null;
+        try {
+            Builder requestBuilder = jerseyClient.target(serviceUrl).path(urlPath).request();
+            addExtraProperties(requestBuilder);
+            addExtraHeaders(requestBuilder);
+            requestBuilder.header(HTTP_LAST_EVENT_ID, cursor);
+            response = requestBuilder.accept(TEXT_EVENT_STREAM).get();
+            if (response.getStatus() == Status.OK.getStatusCode()) {
+                try {
+                    new InstanceChangeEventReader(listener).read(response.readEntity(InputStream.class));
+                } catch (IOException e) {
+                    // The stream is resumed from the last change received
+                    logger.debug("Registry change stream from {} ended", serviceUrl, e);
+                }
+            }
+            return anEurekaHttpResponse(response.getStatus()).headers(headersOf(response)).build();
+        } finally {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Jersey2 HTTP GET {}/{}; statusCode={}", serviceUrl, urlPath, response == null ? "N/A" : response.getStatus());
+            }
+            if (response != null) {
+                response.close();
+            }
+        }
+    }
+
+    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath, String eTag, String since,
+                                                                     Long timeoutMs, String[] regions) {
         Response response = null;
         try {
             WebTarget webTarget = jerseyClient.target(serviceUrl).path(urlPath);
             if (regions != null && regions.length > 0) {
                 webTarget = webTarget.queryParam("regions", StringUtil.join(regions));
             }
+            if (since != null) {
+                webTarget = webTarget.queryParam("since", since);
+            }
+            if (timeoutMs != null) {
+                webTarget = webTarget.queryParam("timeoutMs", timeoutMs.toString());
+            }
             Builder requestBuilder = webTarget.request();
             addExtraProperties(requestBuilder);
             addExtraHeaders(requestBuilder);
+            if (eTag != null) {
+                requestBuilder.header(HttpHeaders.IF_NONE_MATCH, eTag);
+            }
             response = requestBuilder.accept(MediaType.APPLICATION_JSON_TYPE).get();
 
             Applications applications = null;
@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.converters.wrappers.CodecWrappers.EurekaBinary;
 import com.netflix.discovery.converters.wrappers.CodecWrappers.JacksonJson;
 import com.netflix.discovery.converters.wrappers.CodecWrappers.JacksonJsonMini;
 import com.netflix.discovery.converters.wrappers.CodecWrappers.JacksonXml;
@@ -14,10 +15,14 @@ import com.netflix.discovery.converters.wrappers.CodecWrappers.XStreamXml;
 import com.netflix.discovery.converters.wrappers.DecoderWrapper;
 
 /**
+ * The representation of the registry a client accepts. Besides the full and compact JSON or XML content, a client may
+ * accept the content encoded by the {@link com.netflix.discovery.converters.EurekaBinaryCodec}, which is always full.
+ * A server which does not know the binary representation serves the full JSON or XML content instead.
+ *
  * @author David Liu
  */
 public enum EurekaAccept {
-    full, compact;
+    full, compact, binary;
 
     public static final String HTTP_X_EUREKA_ACCEPT = "X-Eureka-Accept";
 
@@ -32,6 +37,8 @@ public enum EurekaAccept {
 
         decoderNameToAcceptMap.put(CodecWrappers.getCodecName(JacksonJsonMini.class), compact);
         decoderNameToAcceptMap.put(CodecWrappers.getCodecName(JacksonXmlMini.class), compact);
+
+        decoderNameToAcceptMap.put(CodecWrappers.getCodecName(EurekaBinary.class), binary);
     }
 
     public static EurekaAccept getClientAccept(DecoderWrapper decoderWrapper) {
@@ -494,6 +494,18 @@ public class DefaultEurekaClientConfig implements EurekaClientConfig {
                 namespace + SHOULD_ENFORCE_REGISTRATION_AT_INIT, false).get();
     }
 
+    @Override
+    public int getRegistryWatchTimeoutSeconds() {
+        return configInstance.getIntProperty(
+                namespace + REGISTRY_WATCH_TIMEOUT_KEY, 0).get();
+    }
+
+    @Override
+    public boolean shouldStreamRegistryChanges() {
+        return configInstance.getBooleanProperty(
+                namespace + REGISTRY_STREAM_ENABLED_KEY, false).get();
+    }
+
     @Override
     public String getEncoderName() {
         return configInstance.getStringProperty(
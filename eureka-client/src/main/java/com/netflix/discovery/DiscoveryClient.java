@@ -30,6 +30,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.SynchronousQueue;
@@ -48,6 +49,7 @@ import javax.inject.Provider;
 import javax.inject.Singleton;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response.Status;
 
 import com.netflix.discovery.shared.resolver.EndpointRandomizer;
@@ -134,6 +136,7 @@ public class DiscoveryClient implements EurekaClient {
             .newTimer(PREFIX + "FetchRegistry");
     private final Counter REREGISTER_COUNTER = Monitors.newCounter(PREFIX
             + "Reregister");
+    private final Counter REGISTRY_NOT_MODIFIED_COUNTER = Monitors.newCounter(PREFIX + "RegistryNotModified");
 
     // instance variables
     /**
@@ -145,6 +148,7 @@ public class DiscoveryClient implements EurekaClient {
     // additional executors for supervised subtasks
     private final ThreadPoolExecutor heartbeatExecutor;
     private final ThreadPoolExecutor cacheRefreshExecutor;
+    private ExecutorService registryWatchExecutor;
 
     private TimedSupervisorTask cacheRefreshTask;
     private TimedSupervisorTask heartbeatTask;
@@ -156,6 +160,15 @@ public class DiscoveryClient implements EurekaClient {
     private final Lock fetchRegistryUpdateLock = new ReentrantLock();
     // monotonically increasing generation counter to ensure stale threads do not reset registry to an older version
     private final AtomicLong fetchRegistryGeneration;
+    // entity tags of the full registry and of the delta the local registry is made of, if any, so that they are
+    // not fetched and applied again while they do not change
+    private volatile String fullRegistryETag;
+    private volatile String deltaETag;
+    // cursor of the registry changes the local registry contains, if the server provides one, so that exactly the
+    // changes made since are fetched, rather than the recent changes
+    private volatile String deltaCursor;
+    // whether the changes of the registry are being streamed from a server, see #streamRegistry()
+    private volatile boolean streamingRegistry;
     private final ApplicationInfoManager applicationInfoManager;
     private final InstanceInfo instanceInfo;
     private final AtomicReference<String> remoteRegionsToFetch;
@@ -964,6 +977,14 @@ public class DiscoveryClient implements EurekaClient {
      * @return true if the registry was fetched
      */
     private boolean fetchRegistry(boolean forceFullRegistryFetch) {
+        return fetchRegistry(forceFullRegistryFetch, 0);
+    }
+
+    /**
+     * @param watchTimeoutMs if greater than 0, the delta is fetched by waiting on the server for changes for at most
+     *                       this long, see {@link #watchRegistry()}
+     */
+    private boolean fetchRegistry(boolean forceFullRegistryFetch, long watchTimeoutMs) {
         Stopwatch tracer = FETCH_REGISTRY_TIMER.start();
 
         try {
@@ -987,7 +1008,7 @@ public class DiscoveryClient implements EurekaClient {
                 logger.info("Application version is -1: {}", (applications.getVersion() == -1));
                 getAndStoreFullRegistry();
             } else {
-                getAndUpdateDelta(applications);
+                getAndUpdateDelta(applications, watchTimeoutMs);
             }
             applications.setAppsHashCode(applications.getReconcileHashCode());
             logTotalInstances();
@@ -1070,9 +1091,15 @@ public class DiscoveryClient implements EurekaClient {
         logger.info("Getting all instance registry info from the eureka server");
 
         Applications apps = null;
-        EurekaHttpResponse<Applications> httpResponse = clientConfig.getRegistryRefreshSingleVipAddress() == null
-                ? eurekaTransport.queryClient.getApplications(remoteRegionsRef.get())
+        boolean singleVip = clientConfig.getRegistryRefreshSingleVipAddress() != null;
+        EurekaHttpResponse<Applications> httpResponse = !singleVip
+                ? eurekaTransport.queryClient.getApplicationsIfNoneMatch(fullRegistryETag, remoteRegionsRef.get())
                 : eurekaTransport.queryClient.getVip(clientConfig.getRegistryRefreshSingleVipAddress(), remoteRegionsRef.get());
+        if (httpResponse.getStatusCode() == Status.NOT_MODIFIED.getStatusCode()) {
+            REGISTRY_NOT_MODIFIED_COUNTER.increment();
+            logger.info("The full registry did not change since it was last stored");
+            return;
+        }
         if (httpResponse.getStatusCode() == Status.OK.getStatusCode()) {
             apps = httpResponse.getEntity();
         }
@@ -1082,6 +1109,9 @@ public class DiscoveryClient implements EurekaClient {
             logger.error("The application is null for some reason. Not storing this information");
         } else if (fetchRegistryGeneration.compareAndSet(currentUpdateGeneration, currentUpdateGeneration + 1)) {
             localRegionApps.set(this.filterAndShuffle(apps));
+            fullRegistryETag = singleVip ? null : httpResponse.getHeaders().get(HttpHeaders.ETAG);
+            deltaETag = null;
+            deltaCursor = singleVip ? null : httpResponse.getHeaders().get(EurekaHttpClient.HTTP_X_EUREKA_DELTA_CURSOR);
             logger.debug("Got full registry with apps hashcode {}", apps.getAppsHashCode());
         } else {
             logger.warn("Not updating applications as another thread is updating it already");
@@ -1098,14 +1128,36 @@ public class DiscoveryClient implements EurekaClient {
      *   do reconciliation if reconcileHashCode clash
      * fi
      *
+     * @param watchTimeoutMs if greater than 0, and the server provides a cursor, wait on the server for the changes
+     *                       for at most this long
      * @return the client response
      * @throws Throwable on error
      */
-    private void getAndUpdateDelta(Applications applications) throws Throwable {
+    private void getAndUpdateDelta(Applications applications, long watchTimeoutMs) throws Throwable {
         long currentUpdateGeneration = fetchRegistryGeneration.get();
 
         Applications delta = null;
-        EurekaHttpResponse<Applications> httpResponse = eurekaTransport.queryClient.getDelta(remoteRegionsRef.get());
+        String cursor = deltaCursor;
+        EurekaHttpResponse<Applications> httpResponse;
+        if (cursor == null) {
+            httpResponse = eurekaTransport.queryClient.getDeltaIfNoneMatch(deltaETag, remoteRegionsRef.get());
+        } else if (watchTimeoutMs > 0) {
+            httpResponse = eurekaTransport.queryClient.watchDeltaSince(cursor, watchTimeoutMs, remoteRegionsRef.get());
+        } else {
+            httpResponse = eurekaTransport.queryClient.getDeltaSince(cursor, remoteRegionsRef.get());
+        }
+        if (httpResponse.getStatusCode() == Status.NOT_MODIFIED.getStatusCode()) {
+            REGISTRY_NOT_MODIFIED_COUNTER.increment();
+            logger.debug("The delta did not change since it was last applied");
+            return;
+        }
+        if (httpResponse.getStatusCode() == Status.GONE.getStatusCode()) {
+            logger.info("The registry changes since {} are no longer available. Hence getting the full registry.",
+                    cursor);
+            deltaCursor = null;
+            getAndStoreFullRegistry();
+            return;
+        }
         if (httpResponse.getStatusCode() == Status.OK.getStatusCode()) {
             delta = httpResponse.getEntity();
         }
@@ -1117,19 +1169,27 @@ public class DiscoveryClient implements EurekaClient {
         } else if (fetchRegistryGeneration.compareAndSet(currentUpdateGeneration, currentUpdateGeneration + 1)) {
             logger.debug("Got delta update with apps hashcode {}", delta.getAppsHashCode());
             String reconcileHashCode = "";
+            boolean applied = false;
             if (fetchRegistryUpdateLock.tryLock()) {
                 try {
                     updateDelta(delta);
                     reconcileHashCode = getReconcileHashCode(applications);
+                    applied = true;
                 } finally {
                     fetchRegistryUpdateLock.unlock();
                 }
             } else {
                 logger.warn("Cannot acquire update lock, aborting getAndUpdateDelta");
             }
+            fullRegistryETag = null;
+            deltaETag = null;
+            deltaCursor = null;
             // There is a diff in number of instances for some reason
             if (!reconcileHashCode.equals(delta.getAppsHashCode()) || clientConfig.shouldLogDeltaDiff()) {
                 reconcileAndLogDifference(delta, reconcileHashCode);  // this makes a remoteCall
+            } else if (applied) {
+                deltaETag = httpResponse.getHeaders().get(HttpHeaders.ETAG);
+                deltaCursor = httpResponse.getHeaders().get(EurekaHttpClient.HTTP_X_EUREKA_DELTA_CURSOR);
             }
         } else {
             logger.warn("Not updating application delta as another thread is updating it already");
@@ -1177,7 +1237,8 @@ public class DiscoveryClient implements EurekaClient {
 
         long currentUpdateGeneration = fetchRegistryGeneration.get();
 
-        EurekaHttpResponse<Applications> httpResponse = clientConfig.getRegistryRefreshSingleVipAddress() == null
+        boolean singleVip = clientConfig.getRegistryRefreshSingleVipAddress() != null;
+        EurekaHttpResponse<Applications> httpResponse = !singleVip
                 ? eurekaTransport.queryClient.getApplications(remoteRegionsRef.get())
                 : eurekaTransport.queryClient.getVip(clientConfig.getRegistryRefreshSingleVipAddress(), remoteRegionsRef.get());
         Applications serverApps = httpResponse.getEntity();
@@ -1190,6 +1251,7 @@ public class DiscoveryClient implements EurekaClient {
         if (fetchRegistryGeneration.compareAndSet(currentUpdateGeneration, currentUpdateGeneration + 1)) {
             localRegionApps.set(this.filterAndShuffle(serverApps));
             getApplications().setVersion(delta.getVersion());
+            deltaCursor = singleVip ? null : httpResponse.getHeaders().get(EurekaHttpClient.HTTP_X_EUREKA_DELTA_CURSOR);
             logger.debug(
                     "The Reconcile hashcodes after complete sync up, client : {}, server : {}.",
                     getApplications().getReconcileHashCode(),
@@ -1286,6 +1348,23 @@ public class DiscoveryClient implements EurekaClient {
             scheduler.schedule(
                     cacheRefreshTask,
                     registryFetchIntervalSeconds, TimeUnit.SECONDS);
+
+            Runnable registryWatcher = null;
+            if (clientConfig.shouldStreamRegistryChanges()) {
+                logger.info("Starting registry watcher: streaming registry changes");
+                registryWatcher = new RegistryStreamThread();
+            } else if (getRegistryWatchTimeoutMs() > 0) {
+                logger.info("Starting registry watcher: watch timeout is {} ms", getRegistryWatchTimeoutMs());
+                registryWatcher = new RegistryWatchThread();
+            }
+            if (registryWatcher != null) {
+                registryWatchExecutor = Executors.newSingleThreadExecutor(
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("DiscoveryClient-RegistryWatcher-%d")
+                                .setDaemon(true)
+                                .build());
+                registryWatchExecutor.execute(registryWatcher);
+            }
         }
 
         if (clientConfig.shouldRegisterWithEureka()) {
@@ -1353,6 +1432,9 @@ public class DiscoveryClient implements EurekaClient {
         if (cacheRefreshExecutor != null) {
             cacheRefreshExecutor.shutdownNow();
         }
+        if (registryWatchExecutor != null) {
+            registryWatchExecutor.shutdownNow();
+        }
         if (scheduler != null) {
             scheduler.shutdownNow();
         }
@@ -1478,6 +1560,187 @@ public class DiscoveryClient implements EurekaClient {
         }
     }
 
+    /**
+     * Keeps watching the registry for as long as the client runs. Watches start at most every half of the watch
+     * timeout, so a registry changing all the time, or a server answering right away, does not make the client
+     * fetch the changes back to back. While the registry cannot be watched, the watcher waits for the
+     * {@link CacheRefreshThread} to fetch it instead.
+     */
+    class RegistryWatchThread implements Runnable {
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                long startedAt = System.currentTimeMillis();
+                long delayMs = watchRegistry()
+                        ? startedAt + getRegistryWatchTimeoutMs() / 2 - System.currentTimeMillis()
+                        : TimeUnit.SECONDS.toMillis(clientConfig.getRegistryFetchIntervalSeconds());
+                try {
+                    if (delayMs > 0) {
+                        Thread.sleep(delayMs);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits on the server for changes of the registry made since the local registry was fetched, and applies them.
+     * This requires a server providing the cursor of the registry changes, which it does not for the registries of
+     * remote regions, and delta fetches.
+     *
+     * @return whether the registry was watched successfully
+     */
+    boolean watchRegistry() {
+        long watchTimeoutMs = getRegistryWatchTimeoutMs();
+        Applications applications = getApplications();
+        if (watchTimeoutMs <= 0
+                || deltaCursor == null
+                || clientConfig.shouldDisableDelta()
+                || !Strings.isNullOrEmpty(clientConfig.getRegistryRefreshSingleVipAddress())
+                || applications.getRegisteredApplications().isEmpty()) {
+            return false;
+        }
+        try {
+            boolean success = fetchRegistry(false, watchTimeoutMs);
+            if (success) {
+                registrySize = localRegionApps.get().size();
+                lastSuccessfulRegistryFetchTimestamp = System.currentTimeMillis();
+            }
+            return success;
+        } catch (Throwable e) {
+            logger.error("Cannot watch registry on server", e);
+            return false;
+        }
+    }
+
+    /**
+     * Keeps streaming the registry changes for as long as the client runs. Streams are opened at most once per
+     * registry fetch interval, so a server ending them right away does not make the client reconnect back to back.
+     * While the registry cannot be streamed, the {@link CacheRefreshThread} fetches it instead.
+     */
+    class RegistryStreamThread implements Runnable {
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                long startedAt = System.currentTimeMillis();
+                streamRegistry();
+                long delayMs = startedAt + TimeUnit.SECONDS.toMillis(clientConfig.getRegistryFetchIntervalSeconds())
+                        - System.currentTimeMillis();
+                try {
+                    if (delayMs > 0) {
+                        Thread.sleep(delayMs);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Streams the changes of the individual instances of the registry made since the local registry was fetched
+     * from the server, and applies them as they are received, each batch received together as one delta, until the
+     * stream ends. Like watching the registry, see {@link #watchRegistry()}, this requires a server providing the
+     * cursor of the registry changes, and only covers the registry of the local region.
+     *
+     * @return whether the registry was streamed until the server ended the stream
+     */
+    boolean streamRegistry() {
+        final String cursor = deltaCursor;
+        if (cursor == null
+                || clientConfig.shouldDisableDelta()
+                || !Strings.isNullOrEmpty(clientConfig.getRegistryRefreshSingleVipAddress())
+                || isFetchingRemoteRegionRegistries()
+                || getApplications().getRegisteredApplications().isEmpty()) {
+            return false;
+        }
+        final AtomicReference<String> appliedCursor = new AtomicReference<String>(cursor);
+        EurekaHttpResponse<Void> httpResponse;
+        streamingRegistry = true;
+        try {
+            httpResponse = eurekaTransport.queryClient.streamInstanceChanges(cursor,
+                    (changeCursor, instances) -> applyInstanceChanges(appliedCursor, changeCursor, instances));
+        } catch (Throwable e) {
+            logger.error("Cannot stream registry from server", e);
+            return false;
+        } finally {
+            streamingRegistry = false;
+        }
+        if (httpResponse.getStatusCode() == Status.GONE.getStatusCode()) {
+            // Fetching the changes since the cursor falls back to the full registry as well
+            logger.info("The registry changes since {} are no longer available. Hence fetching the registry.",
+                    appliedCursor.get());
+            fetchRegistry(false);
+        }
+        return httpResponse.getStatusCode() == Status.OK.getStatusCode();
+    }
+
+    /**
+     * Applies a batch of changes received from a registry stream as a single delta, unless the local registry was
+     * fetched meanwhile, in which case the stream is ended, to be resumed from the cursor of the fetched registry.
+     *
+     * @param appliedCursor the cursor of the local registry as of the last changes the stream applied
+     * @return whether the changes were applied
+     */
+    private boolean applyInstanceChanges(AtomicReference<String> appliedCursor, String cursor,
+                                         List<InstanceInfo> instances) {
+        fetchRegistryUpdateLock.lock();
+        try {
+            if (!appliedCursor.get().equals(deltaCursor)) {
+                return false;
+            }
+            // Makes fetches started before the changes discard their result, as it would be older
+            fetchRegistryGeneration.incrementAndGet();
+            Applications applications = getApplications();
+            Applications delta = new Applications();
+            for (InstanceInfo instance : instances) {
+                Application application = delta.getRegisteredApplications(instance.getAppName());
+                if (application == null) {
+                    application = new Application(instance.getAppName());
+                    delta.addApplication(application);
+                }
+                // A later change of the same instance replaces the earlier one
+                application.addInstance(instance);
+            }
+            delta.setVersion(applications.getVersion());
+            updateDelta(delta);
+            applications.setAppsHashCode(applications.getReconcileHashCode());
+            fullRegistryETag = null;
+            deltaETag = null;
+            deltaCursor = cursor;
+            appliedCursor.set(cursor);
+            registrySize = applications.size();
+            lastSuccessfulRegistryFetchTimestamp = System.currentTimeMillis();
+        } finally {
+            fetchRegistryUpdateLock.unlock();
+        }
+        onCacheRefreshed();
+        updateInstanceRemoteStatus();
+        return true;
+    }
+
+    /**
+     * @return whether the registry has been kept up to date by the {@link RegistryWatchThread}, or by the
+     * {@link RegistryStreamThread}, recently enough, that it does not need to be fetched periodically
+     */
+    private boolean isWatchingRegistry() {
+        return registryWatchExecutor != null
+                && deltaCursor != null
+                && (streamingRegistry
+                        || System.currentTimeMillis() - lastSuccessfulRegistryFetchTimestamp
+                                < TimeUnit.SECONDS.toMillis(clientConfig.getRegistryFetchIntervalSeconds()));
+    }
+
+    /**
+     * @return the time to wait on the server for registry changes, which is kept shorter than the read timeout of
+     * the requests, or 0 if the registry is not watched
+     */
+    private long getRegistryWatchTimeoutMs() {
+        int timeoutSeconds = Math.min(clientConfig.getRegistryWatchTimeoutSeconds(),
+                clientConfig.getEurekaServerReadTimeoutSeconds() - 1);
+        return TimeUnit.SECONDS.toMillis(Math.max(0, timeoutSeconds));
+    }
+
     @VisibleForTesting
     void refreshRegistry() {
         try {
@@ -1507,6 +1770,11 @@ public class DiscoveryClient implements EurekaClient {
                 }
             }
 
+            if (!remoteRegionsModified && isWatchingRegistry()) {
+                logger.debug("Not fetching the registry, as it is kept up to date by watching it");
+                return;
+            }
+
             boolean success = fetchRegistry(remoteRegionsModified);
             if (success) {
                 registrySize = localRegionApps.get().size();
@@ -1559,6 +1827,9 @@ public class DiscoveryClient implements EurekaClient {
                     final Applications applications = this.filterAndShuffle(apps);
                     applications.setAppsHashCode(applications.getReconcileHashCode());
                     localRegionApps.set(applications);
+                    fullRegistryETag = null;
+                    deltaETag = null;
+                    deltaCursor = null;
                     logTotalInstances();
                     logger.info("Fetched registry successfully from the backup");
                 }
@@ -531,6 +531,37 @@ public interface EurekaClientConfig {
         return false;
     }
 
+    /**
+     * Indicates how long(in seconds) to wait on the eureka server for registry changes. If greater than 0, the
+     * client watches the registry: it keeps a request waiting on the server, which is answered as soon as the
+     * registry changes, so that the changes are applied right away rather than on the next fetch as specified by
+     * {@link #getRegistryFetchIntervalSeconds()}. The periodic fetches only resume while the registry cannot be
+     * watched, e.g. as the servers do not support it.
+     *
+     * <p>
+     * The time is kept shorter than {@link #getEurekaServerReadTimeoutSeconds()}, so the read timeout has to be
+     * raised along with it.
+     * </p>
+     *
+     * @return the watch timeout in seconds, or 0 to not watch the registry.
+     */
+    default int getRegistryWatchTimeoutSeconds() {
+        return 0;
+    }
+
+    /**
+     * Indicates whether to stream the changes of the individual instances of the registry from the eureka server.
+     * The client keeps a connection to the server open, over which the server sends each change as it is made, so
+     * that it is applied right away. The streaming takes precedence over watching the registry, see
+     * {@link #getRegistryWatchTimeoutSeconds()}. The periodic fetches only resume while the registry cannot be
+     * streamed, e.g. as the servers do not support it.
+     *
+     * @return true to stream the registry changes, false otherwise.
+     */
+    default boolean shouldStreamRegistryChanges() {
+        return false;
+    }
+
     /**
      * This is a transient config and once the latest codecs are stable, can be removed (as there will only be one)
      *
@@ -15,6 +15,8 @@ final class PropertyBasedClientConfigConstants {
     static final String FETCH_REGISTRY_ENABLED_KEY = "shouldFetchRegistry";
 
     static final String REGISTRY_REFRESH_INTERVAL_KEY = "client.refresh.interval";
+    static final String REGISTRY_WATCH_TIMEOUT_KEY = "client.watch.timeout";
+    static final String REGISTRY_STREAM_ENABLED_KEY = "client.stream.enabled";
     static final String REGISTRATION_REPLICATION_INTERVAL_KEY = "appinfo.replicate.interval";
     static final String INITIAL_REGISTRATION_REPLICATION_DELAY_KEY = "appinfo.initial.replicate.time";
     static final String HEARTBEAT_THREADPOOL_SIZE_KEY = "client.heartbeat.threadPoolSize";
@@ -0,0 +1,480 @@
+package com.netflix.discovery.converters;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.netflix.appinfo.AmazonInfo;
+import com.netflix.appinfo.DataCenterInfo;
+import com.netflix.appinfo.DataCenterInfo.Name;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.ActionType;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.appinfo.InstanceInfo.PortType;
+import com.netflix.appinfo.LeaseInfo;
+import com.netflix.appinfo.MyDataCenterInfo;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+
+/**
+ * A compact binary encoding of {@link Applications}, {@link Application} and {@link InstanceInfo}, which carries the
+ * same information as the full JSON encoding.
+ *
+ * <p>
+ * Every string is written once per payload, and referred to by its index in a table of the strings written so far
+ * afterwards, so that application names, host names, zones, VIP addresses and metadata keys repeated across the
+ * instances take a byte or two each. Numbers are written as variable length integers, and enums as their ordinals.
+ * A payload starts with the version of the format, followed by the kind of the entity encoded.
+ * </p>
+ *
+ * <p>
+ * The ordinals of {@link InstanceStatus}, {@link ActionType} and {@link Name} are part of the format, so their
+ * constants may only ever be appended to. Ordinals unknown to the decoder are read as {@link InstanceStatus#UNKNOWN},
+ * or as no action type or data center respectively.
+ * </p>
+ */
+public class EurekaBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/x-eureka-binary";
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int TYPE_APPLICATIONS = 1;
+    private static final int TYPE_APPLICATION = 2;
+    private static final int TYPE_INSTANCE = 3;
+
+    // References of a string, larger ones are its index in the string table offset by FIRST_STRING_REF
+    private static final int NULL_STRING_REF = 0;
+    private static final int NEW_STRING_REF = 1;
+    private static final int FIRST_STRING_REF = 2;
+
+    private static final int UNSECURE_PORT_ENABLED = 1;
+    private static final int SECURE_PORT_ENABLED = 1 << 1;
+    private static final int COORDINATING_DISCOVERY_SERVER = 1 << 2;
+    private static final int HAS_LAST_DIRTY_TIMESTAMP = 1 << 3;
+    private static final int HAS_LEASE_INFO = 1 << 4;
+    private static final int HAS_METADATA = 1 << 5;
+
+    private static final InstanceStatus[] STATUSES = InstanceStatus.values();
+    private static final ActionType[] ACTION_TYPES = ActionType.values();
+    private static final Name[] DATA_CENTER_NAMES = Name.values();
+
+    private static final Function<String, String> NO_INTERN = s -> s;
+
+    public <T> void writeTo(T object, OutputStream outputStream) throws IOException {
+        Encoder encoder = new Encoder(outputStream);
+        encoder.writeVarInt(FORMAT_VERSION);
+        if (object instanceof Applications) {
+            encoder.writeVarInt(TYPE_APPLICATIONS);
+            writeApplications(encoder, (Applications) object);
+        } else if (object instanceof Application) {
+            encoder.writeVarInt(TYPE_APPLICATION);
+            writeApplication(encoder, (Application) object);
+        } else if (object instanceof InstanceInfo) {
+            encoder.writeVarInt(TYPE_INSTANCE);
+            writeInstanceInfo(encoder, (InstanceInfo) object);
+        } else {
+            throw new IOException("Cannot encode " + (object == null ? null : object.getClass().getName()));
+        }
+        encoder.flush();
+    }
+
+    public <T> T readValue(Class<T> type, InputStream inputStream) throws IOException {
+        Decoder decoder = new Decoder(inputStream);
+        int version = decoder.readVarInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported binary format version " + version);
+        }
+        int entityType = decoder.readVarInt();
+        Object value;
+        if (entityType == TYPE_APPLICATIONS && type.isAssignableFrom(Applications.class)) {
+            value = readApplications(decoder);
+        } else if (entityType == TYPE_APPLICATION && type.isAssignableFrom(Application.class)) {
+            value = readApplication(decoder);
+        } else if (entityType == TYPE_INSTANCE && type.isAssignableFrom(InstanceInfo.class)) {
+            value = readInstanceInfo(decoder);
+        } else {
+            throw new IOException("Cannot decode entity of type " + entityType + " as " + type.getName());
+        }
+        return type.cast(value);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void writeApplications(Encoder encoder, Applications applications) throws IOException {
+        Long version = applications.getVersion();
+        encoder.writeBoolean(version != null);
+        if (version != null) {
+            encoder.writeVarLong(version);
+        }
+        encoder.writeString(applications.getAppsHashCode());
+        List<Application> registered = applications.getRegisteredApplications();
+        encoder.writeVarInt(registered.size());
+        for (Application application : registered) {
+            writeApplication(encoder, application);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Applications readApplications(Decoder decoder) throws IOException {
+        Applications applications = new Applications();
+        if (decoder.readBoolean()) {
+            applications.setVersion(decoder.readVarLong());
+        }
+        applications.setAppsHashCode(decoder.readString());
+        int size = decoder.readVarInt();
+        for (int i = 0; i < size; i++) {
+            applications.addApplication(readApplication(decoder));
+        }
+        return applications;
+    }
+
+    private static void writeApplication(Encoder encoder, Application application) throws IOException {
+        encoder.writeString(application.getName());
+        List<InstanceInfo> instances = application.getInstances();
+        encoder.writeVarInt(instances.size());
+        for (InstanceInfo instanceInfo : instances) {
+            writeInstanceInfo(encoder, instanceInfo);
+        }
+    }
+
+    private static Application readApplication(Decoder decoder) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("processing aborted");
+        }
+        Application application = new Application();
+        application.setName(decoder.readString());
+        int size = decoder.readVarInt();
+        for (int i = 0; i < size; i++) {
+            application.addInstance(readInstanceInfo(decoder));
+        }
+        return application;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void writeInstanceInfo(Encoder encoder, InstanceInfo info) throws IOException {
+        Long lastDirtyTimestamp = info.getLastDirtyTimestamp();
+        LeaseInfo leaseInfo = info.getLeaseInfo();
+        Map<String, String> metadata = info.getMetadata();
+        int flags = (info.isPortEnabled(PortType.UNSECURE) ? UNSECURE_PORT_ENABLED : 0)
+                | (info.isPortEnabled(PortType.SECURE) ? SECURE_PORT_ENABLED : 0)
+                | (Boolean.TRUE.equals(info.isCoordinatingDiscoveryServer()) ? COORDINATING_DISCOVERY_SERVER : 0)
+                | (lastDirtyTimestamp != null ? HAS_LAST_DIRTY_TIMESTAMP : 0)
+                | (leaseInfo != null ? HAS_LEASE_INFO : 0)
+                | (metadata != null ? HAS_METADATA : 0);
+        encoder.writeVarInt(flags);
+
+        encoder.writeString(info.getInstanceId());
+        encoder.writeString(info.getHostName());
+        encoder.writeString(info.getAppName());
+        encoder.writeString(info.getIPAddr());
+        encoder.writeString(info.getSID());
+        encoder.writeEnum(info.getStatus());
+        encoder.writeEnum(info.getOverriddenStatus());
+        encoder.writeVarInt(info.getPort());
+        encoder.writeVarInt(info.getSecurePort());
+        encoder.writeVarInt(info.getCountryId());
+
+        DataCenterInfo dataCenterInfo = info.getDataCenterInfo();
+        encoder.writeEnum(dataCenterInfo == null ? null : dataCenterInfo.getName());
+        if (dataCenterInfo != null && dataCenterInfo.getName() == Name.Amazon) {
+            encoder.writeStringMap(((AmazonInfo) dataCenterInfo).getMetadata());
+        }
+        if (leaseInfo != null) {
+            encoder.writeVarInt(leaseInfo.getRenewalIntervalInSecs());
+            encoder.writeVarInt(leaseInfo.getDurationInSecs());
+            encoder.writeVarLong(leaseInfo.getRegistrationTimestamp());
+            encoder.writeVarLong(leaseInfo.getRenewalTimestamp());
+            encoder.writeVarLong(leaseInfo.getEvictionTimestamp());
+            encoder.writeVarLong(leaseInfo.getServiceUpTimestamp());
+        }
+        if (metadata != null) {
+            encoder.writeStringMap(metadata);
+        }
+
+        encoder.writeString(info.getAppGroupName());
+        encoder.writeString(info.getHomePageUrl());
+        encoder.writeString(info.getStatusPageUrl());
+        encoder.writeString(info.getHealthCheckUrl());
+        encoder.writeString(info.getSecureHealthCheckUrl());
+        encoder.writeString(info.getVIPAddress());
+        encoder.writeString(info.getSecureVipAddress());
+        encoder.writeVarLong(info.getLastUpdatedTimestamp());
+        if (lastDirtyTimestamp != null) {
+            encoder.writeVarLong(lastDirtyTimestamp);
+        }
+        encoder.writeEnum(info.getActionType());
+        encoder.writeString(info.getASGName());
+    }
+
+    @SuppressWarnings("deprecation")
+    private static InstanceInfo readInstanceInfo(Decoder decoder) throws IOException {
+        InstanceInfo.Builder builder = InstanceInfo.Builder.newBuilder(NO_INTERN);
+        int flags = decoder.readVarInt();
+        builder.enablePort(PortType.UNSECURE, (flags & UNSECURE_PORT_ENABLED) != 0);
+        builder.enablePort(PortType.SECURE, (flags & SECURE_PORT_ENABLED) != 0);
+        builder.setIsCoordinatingDiscoveryServer((flags & COORDINATING_DISCOVERY_SERVER) != 0);
+
+        builder.setInstanceId(decoder.readString());
+        builder.setHostName(decoder.readString());
+        builder.setAppNameForDeser(decoder.readString());
+        builder.setIPAddr(decoder.readString());
+        builder.setSID(decoder.readString());
+        builder.setStatus(decoder.readEnum(STATUSES, InstanceStatus.UNKNOWN));
+        builder.setOverriddenStatus(decoder.readEnum(STATUSES, InstanceStatus.UNKNOWN));
+        builder.setPort(decoder.readVarInt());
+        builder.setSecurePort(decoder.readVarInt());
+        builder.setCountryId(decoder.readVarInt());
+
+        Name dataCenterName = decoder.readEnum(DATA_CENTER_NAMES, null);
+        if (dataCenterName == Name.Amazon) {
+            builder.setDataCenterInfo(new AmazonInfo(Name.Amazon.name(), decoder.readStringMap()));
+        } else if (dataCenterName != null) {
+            builder.setDataCenterInfo(new MyDataCenterInfo(dataCenterName));
+        }
+        if ((flags & HAS_LEASE_INFO) != 0) {
+            builder.setLeaseInfo(LeaseInfo.Builder.newBuilder()
+                    .setRenewalIntervalInSecs(decoder.readVarInt())
+                    .setDurationInSecs(decoder.readVarInt())
+                    .setRegistrationTimestamp(decoder.readVarLong())
+                    .setRenewalTimestamp(decoder.readVarLong())
+                    .setEvictionTimestamp(decoder.readVarLong())
+                    .setServiceUpTimestamp(decoder.readVarLong())
+                    .build());
+        }
+        if ((flags & HAS_METADATA) != 0) {
+            Map<String, String> metadata = decoder.readStringMap();
+            builder.setMetadata(metadata.isEmpty() ? Collections.emptyMap() : Collections.synchronizedMap(metadata));
+        } else {
+            builder.setMetadata(null);
+        }
+
+        builder.setAppGroupNameForDeser(decoder.readString());
+        builder.setHomePageUrlForDeser(decoder.readString());
+        builder.setStatusPageUrlForDeser(decoder.readString());
+        builder.setHealthCheckUrlsForDeser(decoder.readString(), decoder.readString());
+        builder.setVIPAddressDeser(decoder.readString());
+        builder.setSecureVIPAddressDeser(decoder.readString());
+        builder.setLastUpdatedTimestamp(decoder.readVarLong());
+        if ((flags & HAS_LAST_DIRTY_TIMESTAMP) != 0) {
+            builder.setLastDirtyTimestamp(decoder.readVarLong());
+        }
+        builder.setActionType(decoder.readEnum(ACTION_TYPES, null));
+        builder.setASGName(decoder.readString());
+        return builder.build();
+    }
+
+    private static class Encoder {
+        private static final int BUFFER_SIZE = 8 * 1024;
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final Map<String, Integer> stringRefs = new HashMap<>();
+        private int position;
+
+        Encoder(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeBoolean(boolean value) throws IOException {
+            writeByte(value ? 1 : 0);
+        }
+
+        void writeVarInt(int value) throws IOException {
+            writeVarLong(value);
+        }
+
+        /**
+         * Writes the value zigzag encoded, seven bits a byte, so that small values of either sign take few bytes.
+         */
+        void writeVarLong(long value) throws IOException {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                writeByte((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            writeByte((int) zigzag);
+        }
+
+        void writeEnum(Enum<?> value) throws IOException {
+            writeVarInt(value == null ? 0 : value.ordinal() + 1);
+        }
+
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(NULL_STRING_REF);
+                return;
+            }
+            Integer ref = stringRefs.get(value);
+            if (ref != null) {
+                writeVarInt(ref);
+                return;
+            }
+            stringRefs.put(value, FIRST_STRING_REF + stringRefs.size());
+            writeVarInt(NEW_STRING_REF);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            writeBytes(bytes);
+        }
+
+        void writeStringMap(Map<String, String> map) throws IOException {
+            if (map == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(map.size());
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                writeString(entry.getKey());
+                writeString(entry.getValue());
+            }
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+            out.flush();
+        }
+
+        private void writeByte(int value) throws IOException {
+            if (position == buffer.length) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - position) {
+                out.write(buffer, 0, position);
+                position = 0;
+                if (bytes.length > buffer.length) {
+                    out.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+
+    private static class Decoder {
+        private static final int BUFFER_SIZE = 8 * 1024;
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final List<String> strings = new ArrayList<>();
+        private int position;
+        private int limit;
+
+        Decoder(InputStream in) {
+            this.in = in;
+        }
+
+        boolean readBoolean() throws IOException {
+            return readByte() != 0;
+        }
+
+        int readVarInt() throws IOException {
+            long value = readVarLong();
+            if (value != (int) value) {
+                throw new IOException("Integer out of range: " + value);
+            }
+            return (int) value;
+        }
+
+        long readVarLong() throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new IOException("Malformed variable length integer");
+        }
+
+        <E extends Enum<E>> E readEnum(E[] values, E unknown) throws IOException {
+            int ordinal = readVarInt() - 1;
+            if (ordinal < 0) {
+                return null;
+            }
+            return ordinal < values.length ? values[ordinal] : unknown;
+        }
+
+        String readString() throws IOException {
+            int ref = readVarInt();
+            if (ref == NULL_STRING_REF) {
+                return null;
+            }
+            if (ref == NEW_STRING_REF) {
+                int length = readVarInt();
+                if (length < 0) {
+                    throw new IOException("Negative string length " + length);
+                }
+                String value = readUtf8(length);
+                strings.add(value);
+                return value;
+            }
+            int index = ref - FIRST_STRING_REF;
+            if (index < 0 || index >= strings.size()) {
+                throw new IOException("Reference to unknown string " + index);
+            }
+            return strings.get(index);
+        }
+
+        Map<String, String> readStringMap() throws IOException {
+            int size = readVarInt();
+            Map<String, String> map = EurekaJacksonCodec.METADATA_MAP_SUPPLIER.get();
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                map.put(key, readString());
+            }
+            return map;
+        }
+
+        private int readByte() throws IOException {
+            if (position == limit) {
+                fill();
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        private String readUtf8(int length) throws IOException {
+            if (length <= limit - position) {
+                String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+                position += length;
+                return value;
+            }
+            byte[] bytes = new byte[length];
+            int offset = limit - position;
+            System.arraycopy(buffer, position, bytes, 0, offset);
+            position = limit;
+            while (offset < length) {
+                int read = in.read(bytes, offset, length - offset);
+                if (read < 0) {
+                    throw new EOFException("Unexpected end of binary payload");
+                }
+                offset += read;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void fill() throws IOException {
+            int read = in.read(buffer, 0, buffer.length);
+            if (read <= 0) {
+                throw new EOFException("Unexpected end of binary payload");
+            }
+            position = 0;
+            limit = read;
+        }
+    }
+}
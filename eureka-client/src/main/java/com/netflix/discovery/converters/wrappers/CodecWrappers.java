@@ -1,13 +1,19 @@
 package com.netflix.discovery.converters.wrappers;
 
 import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.netflix.appinfo.EurekaAccept;
+import com.netflix.discovery.converters.EurekaBinaryCodec;
 import com.netflix.discovery.converters.EurekaJacksonCodec;
 import com.netflix.discovery.converters.JsonXStream;
 import com.netflix.discovery.converters.KeyFormatter;
@@ -131,6 +137,8 @@ public final class CodecWrappers {
             return new JacksonXmlMini();
         } else if (getCodecName(XStreamXml.class).equals(name)) {
             return new XStreamXml();
+        } else if (getCodecName(EurekaBinary.class).equals(name)) {
+            return new EurekaBinary();
         } else {
             return null;
         }
@@ -336,7 +344,10 @@ public final class CodecWrappers {
 
         @Override
         public <T> void encode(T object, OutputStream outputStream) throws IOException {
-            codec.toXML(object, outputStream);
+            // XStream would write the stream in the platform charset
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            codec.toXML(object, writer);
+            writer.flush();
         }
 
         @Override
@@ -374,7 +385,10 @@ public final class CodecWrappers {
 
         @Override
         public <T> void encode(T object, OutputStream outputStream) throws IOException {
-            codec.toXML(object, outputStream);
+            // XStream would write the stream in the platform charset
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            codec.toXML(object, writer);
+            writer.flush();
         }
 
         @Override
@@ -387,4 +401,47 @@ public final class CodecWrappers {
             return (T) codec.fromXML(inputStream, type);
         }
     }
+
+    /**
+     * The binary codec is not textual, so the string variants map its bytes one to one onto the characters of the
+     * ISO-8859-1 charset.
+     */
+    public static class EurekaBinary implements CodecWrapper {
+
+        public static final MediaType MEDIA_TYPE = MediaType.valueOf(EurekaBinaryCodec.MEDIA_TYPE);
+
+        protected final EurekaBinaryCodec codec = new EurekaBinaryCodec();
+
+        @Override
+        public String codecName() {
+            return getCodecName(this.getClass());
+        }
+
+        @Override
+        public boolean support(MediaType mediaType) {
+            return mediaType.equals(MEDIA_TYPE);
+        }
+
+        @Override
+        public <T> String encode(T object) throws IOException {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            codec.writeTo(object, outputStream);
+            return new String(outputStream.toByteArray(), StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public <T> void encode(T object, OutputStream outputStream) throws IOException {
+            codec.writeTo(object, outputStream);
+        }
+
+        @Override
+        public <T> T decode(String textValue, Class<T> type) throws IOException {
+            return codec.readValue(type, new ByteArrayInputStream(textValue.getBytes(StandardCharsets.ISO_8859_1)));
+        }
+
+        @Override
+        public <T> T decode(InputStream inputStream, Class<T> type) throws IOException {
+            return codec.readValue(type, inputStream);
+        }
+    }
 }
@@ -32,7 +32,10 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.Map;
 
+import com.netflix.discovery.converters.EurekaBinaryCodec;
+import com.netflix.discovery.converters.wrappers.CodecWrapper;
 import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.converters.wrappers.CodecWrappers.EurekaBinary;
 import com.netflix.discovery.converters.wrappers.CodecWrappers.LegacyJacksonJson;
 import com.netflix.discovery.converters.wrappers.DecoderWrapper;
 import com.netflix.discovery.converters.wrappers.EncoderWrapper;
@@ -47,7 +50,7 @@ import org.slf4j.LoggerFactory;
  * @author Karthik Ranganathan
  */
 @Provider
-@Produces({"application/json", "application/xml"})
+@Produces({"application/json", "application/xml", EurekaBinaryCodec.MEDIA_TYPE})
 @Consumes("*/*")
 public class DiscoveryJerseyProvider implements MessageBodyWriter<Object>, MessageBodyReader<Object> {
     private static final Logger LOGGER = LoggerFactory.getLogger(DiscoveryJerseyProvider.class);
@@ -60,6 +63,9 @@ public class DiscoveryJerseyProvider implements MessageBodyWriter<Object>, Messa
     private final EncoderWrapper xmlEncoder;
     private final DecoderWrapper xmlDecoder;
 
+    // Binary content is only exchanged when asked for explicitly, never for a wildcard media type.
+    private final CodecWrapper binaryCodec;
+
     public DiscoveryJerseyProvider() {
         this(null, null);
     }
@@ -79,6 +85,8 @@ public class DiscoveryJerseyProvider implements MessageBodyWriter<Object>, Messa
 
         LOGGER.info("Using XML encoding codec {}", this.xmlEncoder.codecName());
         LOGGER.info("Using XML decoding codec {}", this.xmlDecoder.codecName());
+
+        this.binaryCodec = CodecWrappers.getCodec(EurekaBinary.class);
     }
 
     @Override
@@ -91,7 +99,9 @@ public class DiscoveryJerseyProvider implements MessageBodyWriter<Object>, Messa
                            Annotation[] annotations, MediaType mediaType,
                            MultivaluedMap headers, InputStream inputStream) throws IOException {
         DecoderWrapper decoder;
-        if (MediaType.MEDIA_TYPE_WILDCARD.equals(mediaType.getSubtype())) {
+        if (isBinaryMediaType(mediaType)) {
+            decoder = binaryCodec;
+        } else if (MediaType.MEDIA_TYPE_WILDCARD.equals(mediaType.getSubtype())) {
             decoder = xmlDecoder;
         } else if ("json".equalsIgnoreCase(mediaType.getSubtype())) {
             decoder = jsonDecoder;
@@ -125,7 +135,12 @@ public class DiscoveryJerseyProvider implements MessageBodyWriter<Object>, Messa
     public void writeTo(Object serializableObject, Class serializableClass,
                         Type type, Annotation[] annotations, MediaType mediaType,
                         MultivaluedMap headers, OutputStream outputStream) throws IOException, WebApplicationException {
-        EncoderWrapper encoder = "json".equalsIgnoreCase(mediaType.getSubtype()) ? jsonEncoder : xmlEncoder;
+        EncoderWrapper encoder;
+        if (isBinaryMediaType(mediaType)) {
+            encoder = binaryCodec;
+        } else {
+            encoder = "json".equalsIgnoreCase(mediaType.getSubtype()) ? jsonEncoder : xmlEncoder;
+        }
 
         // XML codec may not be available
         if (encoder == null) {
@@ -142,7 +157,12 @@ public class DiscoveryJerseyProvider implements MessageBodyWriter<Object>, Messa
         if (MediaType.APPLICATION_XML_TYPE.isCompatible(mediaType)) {
             return xmlDecoder != null;
         }
-        return false;
+        return isBinaryMediaType(mediaType);
+    }
+
+    private static boolean isBinaryMediaType(MediaType mediaType) {
+        return EurekaBinary.MEDIA_TYPE.getType().equalsIgnoreCase(mediaType.getType())
+                && EurekaBinary.MEDIA_TYPE.getSubtype().equalsIgnoreCase(mediaType.getSubtype());
     }
 
     /**
@@ -12,12 +12,28 @@ import com.netflix.discovery.shared.Applications;
  */
 public interface EurekaHttpClient {
 
+    /**
+     * Response header carrying the cursor of the registry changes contained in a full registry or delta response,
+     * from which the changes made since can be requested, see {@link #getDeltaSince(String, String...)}.
+     */
+    String HTTP_X_EUREKA_DELTA_CURSOR = "X-Eureka-Delta-Cursor";
+
     EurekaHttpResponse<Void> register(InstanceInfo info);
 
     EurekaHttpResponse<Void> cancel(String appName, String id);
 
     EurekaHttpResponse<InstanceInfo> sendHeartBeat(String appName, String id, InstanceInfo info, InstanceStatus overriddenStatus);
 
+    /**
+     * Renews the leases of many instances in a single request, e.g. of the instances a sidecar registered. The
+     * response has status 200 and the results of the individual renewals, which have the status codes of
+     * {@link #sendHeartBeat(String, String, InstanceInfo, InstanceStatus)}. Clients not supporting it return
+     * status 404 right away.
+     */
+    default EurekaHttpResponse<HeartbeatBatchResponse> sendHeartBeats(HeartbeatBatch heartbeats) {
+        return EurekaHttpResponse.anEurekaHttpResponse(404, HeartbeatBatchResponse.class).build();
+    }
+
     EurekaHttpResponse<Void> statusUpdate(String appName, String id, InstanceStatus newStatus, InstanceInfo info);
 
     EurekaHttpResponse<Void> deleteStatusOverride(String appName, String id, InstanceInfo info);
@@ -26,6 +42,51 @@ public interface EurekaHttpClient {
 
     EurekaHttpResponse<Applications> getDelta(String... regions);
 
+    /**
+     * Conditional variant of {@link #getApplications(String...)}. If the applications still have the given entity
+     * tag, the response has status 304 (not modified) and no entity. Clients not supporting conditional requests
+     * always return the applications.
+     */
+    default EurekaHttpResponse<Applications> getApplicationsIfNoneMatch(String eTag, String... regions) {
+        return getApplications(regions);
+    }
+
+    /**
+     * Conditional variant of {@link #getDelta(String...)}, see {@link #getApplicationsIfNoneMatch(String, String...)}.
+     */
+    default EurekaHttpResponse<Applications> getDeltaIfNoneMatch(String eTag, String... regions) {
+        return getDelta(regions);
+    }
+
+    /**
+     * Variant of {@link #getDelta(String...)} returning exactly the changes made since the given cursor, along with
+     * the cursor of the returned changes. If the server can no longer provide all of them, the response has status
+     * 410 (gone), and a full registry fetch is required. Servers and clients not supporting cursors return the
+     * regular delta, without a cursor.
+     */
+    default EurekaHttpResponse<Applications> getDeltaSince(String cursor, String... regions) {
+        return getDelta(regions);
+    }
+
+    /**
+     * Long polling variant of {@link #getDeltaSince(String, String...)}, which the server answers as soon as changes
+     * are made since the given cursor. If there are none within the given time, the response has status 304 (not
+     * modified) and no entity. Clients not supporting it return the changes since the cursor right away.
+     */
+    default EurekaHttpResponse<Applications> watchDeltaSince(String cursor, long timeoutMs, String... regions) {
+        return getDeltaSince(cursor, regions);
+    }
+
+    /**
+     * Streams the changes of the individual instances of the registry made since the given cursor to the listener,
+     * blocking until the server ends the stream or the connection is lost. The response has status 200 once the
+     * stream ended, or 410 (gone) if it cannot be resumed from the cursor, in which case the full registry has to be
+     * fetched. Clients not supporting it return status 404 right away.
+     */
+    default EurekaHttpResponse<Void> streamInstanceChanges(String cursor, InstanceChangeListener listener) {
+        return EurekaHttpResponse.status(404);
+    }
+
     EurekaHttpResponse<Applications> getVip(String vipAddress, String... regions);
 
     EurekaHttpResponse<Applications> getSecureVip(String secureVipAddress, String... regions);
@@ -0,0 +1,123 @@
+package com.netflix.discovery.shared.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.provider.Serializer;
+
+/**
+ * The lease renewals of many instances sent in one request, see
+ * {@link EurekaHttpClient#sendHeartBeats(HeartbeatBatch)}. Each renewal carries what a single heartbeat carries as
+ * query parameters, so that the server handles it the same way.
+ */
+@Serializer("jackson") // For DiscoveryJerseyProvider
+public class HeartbeatBatch {
+
+    private final List<Heartbeat> heartbeats;
+
+    public HeartbeatBatch() {
+        this.heartbeats = new ArrayList<>();
+    }
+
+    @JsonCreator
+    public HeartbeatBatch(@JsonProperty("heartbeats") List<Heartbeat> heartbeats) {
+        this.heartbeats = heartbeats;
+    }
+
+    public void addHeartbeat(Heartbeat heartbeat) {
+        heartbeats.add(heartbeat);
+    }
+
+    public List<Heartbeat> getHeartbeats() {
+        return heartbeats;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        HeartbeatBatch that = (HeartbeatBatch) o;
+
+        return !(heartbeats != null ? !heartbeats.equals(that.heartbeats) : that.heartbeats != null);
+    }
+
+    @Override
+    public int hashCode() {
+        return heartbeats != null ? heartbeats.hashCode() : 0;
+    }
+
+    /**
+     * The lease renewal of a single instance.
+     */
+    public static class Heartbeat {
+        private final String appName;
+        private final String id;
+        private final Long lastDirtyTimestamp;
+        private final InstanceStatus status;
+
+        @JsonCreator
+        public Heartbeat(@JsonProperty("appName") String appName,
+                         @JsonProperty("id") String id,
+                         @JsonProperty("lastDirtyTimestamp") Long lastDirtyTimestamp,
+                         @JsonProperty("status") InstanceStatus status) {
+            this.appName = appName;
+            this.id = id;
+            this.lastDirtyTimestamp = lastDirtyTimestamp;
+            this.status = status;
+        }
+
+        public static Heartbeat of(InstanceInfo info) {
+            return new Heartbeat(info.getAppName(), info.getId(), info.getLastDirtyTimestamp(), info.getStatus());
+        }
+
+        public String getAppName() {
+            return appName;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Long getLastDirtyTimestamp() {
+            return lastDirtyTimestamp;
+        }
+
+        public InstanceStatus getStatus() {
+            return status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+
+            Heartbeat that = (Heartbeat) o;
+
+            if (appName != null ? !appName.equals(that.appName) : that.appName != null)
+                return false;
+            if (id != null ? !id.equals(that.id) : that.id != null)
+                return false;
+            if (lastDirtyTimestamp != null ? !lastDirtyTimestamp.equals(that.lastDirtyTimestamp) : that.lastDirtyTimestamp != null)
+                return false;
+            return status == that.status;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = appName != null ? appName.hashCode() : 0;
+            result = 31 * result + (id != null ? id.hashCode() : 0);
+            result = 31 * result + (lastDirtyTimestamp != null ? lastDirtyTimestamp.hashCode() : 0);
+            result = 31 * result + (status != null ? status.hashCode() : 0);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.netflix.discovery.shared.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netflix.discovery.provider.Serializer;
+
+/**
+ * The results of the lease renewals of a {@link HeartbeatBatch}, as the status codes a single heartbeat would have
+ * been answered with, in the order of the renewals.
+ */
+@Serializer("jackson") // For DiscoveryJerseyProvider
+public class HeartbeatBatchResponse {
+
+    private final List<Integer> statusCodes;
+
+    public HeartbeatBatchResponse() {
+        this.statusCodes = new ArrayList<>();
+    }
+
+    @JsonCreator
+    public HeartbeatBatchResponse(@JsonProperty("statusCodes") List<Integer> statusCodes) {
+        this.statusCodes = statusCodes;
+    }
+
+    public void addStatusCode(int statusCode) {
+        statusCodes.add(statusCode);
+    }
+
+    public List<Integer> getStatusCodes() {
+        return statusCodes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        HeartbeatBatchResponse that = (HeartbeatBatchResponse) o;
+
+        return !(statusCodes != null ? !statusCodes.equals(that.statusCodes) : that.statusCodes != null);
+    }
+
+    @Override
+    public int hashCode() {
+        return statusCodes != null ? statusCodes.hashCode() : 0;
+    }
+}
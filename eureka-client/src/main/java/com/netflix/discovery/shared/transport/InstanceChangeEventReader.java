@@ -0,0 +1,108 @@
+package com.netflix.discovery.shared.transport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.ActionType;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.converters.wrappers.DecoderWrapper;
+
+/**
+ * Reads the server-sent events of a stream of instance changes, passing them to a listener. The id of an event
+ * is the cursor of the change, its name the action type, and its data the instance in JSON.
+ */
+public class InstanceChangeEventReader {
+
+    private static final DecoderWrapper DECODER = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
+
+    private final InstanceChangeListener listener;
+
+    public InstanceChangeEventReader(InstanceChangeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Reads events until the end of the given stream, or until the listener asks to end it. The events received
+     * together, that is all of those which can be read without waiting for more data, are passed to the listener
+     * at once.
+     */
+    public void read(InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        List<InstanceInfo> instances = new ArrayList<>();
+        String cursor = null;
+        String id = null;
+        String event = null;
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (id != null && data.length() > 0) {
+                    InstanceInfo instance = decode(event, data.toString());
+                    if (instance != null) {
+                        instances.add(instance);
+                        cursor = id;
+                    }
+                }
+                id = null;
+                event = null;
+                data.setLength(0);
+                if (!instances.isEmpty() && !reader.ready()) {
+                    if (!listener.onChanges(cursor, instances)) {
+                        return;
+                    }
+                    instances = new ArrayList<>();
+                }
+            } else if (!line.startsWith(":")) {
+                int colon = line.indexOf(':');
+                String field = colon < 0 ? line : line.substring(0, colon);
+                String value = colon < 0 ? "" : valueOf(line, colon);
+                if ("id".equals(field)) {
+                    id = value;
+                } else if ("event".equals(field)) {
+                    event = value;
+                } else if ("data".equals(field)) {
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                }
+            }
+        }
+        if (!instances.isEmpty()) {
+            listener.onChanges(cursor, instances);
+        }
+    }
+
+    /**
+     * @return the changed instance, with the kind of the change as its action type, or null for events of kinds
+     * this client does not know, which are skipped
+     */
+    private static InstanceInfo decode(String event, String data) throws IOException {
+        InstanceInfo instance = DECODER.decode(data, InstanceInfo.class);
+        if (event != null) {
+            try {
+                instance.setActionType(ActionType.valueOf(event));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return the value of a field, without the single space which may follow the colon
+     */
+    private static String valueOf(String line, int colon) {
+        int start = colon + 1;
+        if (start < line.length() && line.charAt(start) == ' ') {
+            start++;
+        }
+        return line.substring(start);
+    }
+}
@@ -0,0 +1,22 @@
+package com.netflix.discovery.shared.transport;
+
+import java.util.List;
+
+import com.netflix.appinfo.InstanceInfo;
+
+/**
+ * Receives the changes of the individual instances of a registry, as streamed by
+ * {@link EurekaHttpClient#streamInstanceChanges(String, InstanceChangeListener)}, a batch of those received together
+ * at a time.
+ */
+public interface InstanceChangeListener {
+
+    /**
+     * @param cursor the cursor of the registry changes up to and including the last of these, from which the stream
+     *               can be resumed
+     * @param instances the changed instances, in the order of their changes, each with the kind of its change as
+     *                  its {@link InstanceInfo#getActionType() action type}
+     * @return whether to keep receiving changes, or to end the stream
+     */
+    boolean onChanges(String cursor, List<InstanceInfo> instances);
+}
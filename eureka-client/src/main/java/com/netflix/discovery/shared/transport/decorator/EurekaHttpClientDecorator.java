@@ -22,6 +22,9 @@ import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
+import com.netflix.discovery.shared.transport.HeartbeatBatch;
+import com.netflix.discovery.shared.transport.HeartbeatBatchResponse;
+import com.netflix.discovery.shared.transport.InstanceChangeListener;
 
 /**
  * @author Tomasz Bak
@@ -99,6 +102,21 @@ public abstract class EurekaHttpClientDecorator implements EurekaHttpClient {
         });
     }
 
+    @Override
+    public EurekaHttpResponse<HeartbeatBatchResponse> sendHeartBeats(final HeartbeatBatch heartbeats) {
+        return execute(new RequestExecutor<HeartbeatBatchResponse>() {
+            @Override
+            public EurekaHttpResponse<HeartbeatBatchResponse> execute(EurekaHttpClient delegate) {
+                return delegate.sendHeartBeats(heartbeats);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.SendHeartBeat;
+            }
+        });
+    }
+
     @Override
     public EurekaHttpResponse<Void> statusUpdate(final String appName, final String id, final InstanceStatus newStatus, final InstanceInfo info) {
         return execute(new RequestExecutor<Void>() {
@@ -159,6 +177,82 @@ public abstract class EurekaHttpClientDecorator implements EurekaHttpClient {
         });
     }
 
+    @Override
+    public EurekaHttpResponse<Applications> getApplicationsIfNoneMatch(final String eTag, final String... regions) {
+        return execute(new RequestExecutor<Applications>() {
+            @Override
+            public EurekaHttpResponse<Applications> execute(EurekaHttpClient delegate) {
+                return delegate.getApplicationsIfNoneMatch(eTag, regions);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetApplications;
+            }
+        });
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaIfNoneMatch(final String eTag, final String... regions) {
+        return execute(new RequestExecutor<Applications>() {
+            @Override
+            public EurekaHttpResponse<Applications> execute(EurekaHttpClient delegate) {
+                return delegate.getDeltaIfNoneMatch(eTag, regions);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetDelta;
+            }
+        });
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaSince(final String cursor, final String... regions) {
+        return execute(new RequestExecutor<Applications>() {
+            @Override
+            public EurekaHttpResponse<Applications> execute(EurekaHttpClient delegate) {
+                return delegate.getDeltaSince(cursor, regions);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetDelta;
+            }
+        });
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> watchDeltaSince(final String cursor, final long timeoutMs,
+                                                            final String... regions) {
+        return execute(new RequestExecutor<Applications>() {
+            @Override
+            public EurekaHttpResponse<Applications> execute(EurekaHttpClient delegate) {
+                return delegate.watchDeltaSince(cursor, timeoutMs, regions);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetDelta;
+            }
+        });
+    }
+
+    @Override
+    public EurekaHttpResponse<Void> streamInstanceChanges(final String cursor, final InstanceChangeListener listener) {
+        return execute(new RequestExecutor<Void>() {
+            @Override
+            public EurekaHttpResponse<Void> execute(EurekaHttpClient delegate) {
+                return delegate.streamInstanceChanges(cursor, listener);
+            }
+
+            @Override
+            public RequestType getRequestType() {
+                return RequestType.GetDelta;
+            }
+        });
+    }
+
     @Override
     public EurekaHttpResponse<Applications> getVip(final String vipAddress, final String... regions) {
         return execute(new RequestExecutor<Applications>() {
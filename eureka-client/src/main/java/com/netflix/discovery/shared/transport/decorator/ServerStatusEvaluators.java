@@ -36,6 +36,11 @@ public final class ServerStatusEvaluators {
                 return true;
             } else if (requestType == RequestType.GetDelta && (statusCode == 403 || statusCode == 404)) {
                 return true;
+            } else if ((requestType == RequestType.GetApplications || requestType == RequestType.GetDelta)
+                    && statusCode == 304) {  // conditional fetch of unchanged data
+                return true;
+            } else if (requestType == RequestType.GetDelta && statusCode == 410) {  // changes since a stale cursor
+                return true;
             }
             return false;
         }
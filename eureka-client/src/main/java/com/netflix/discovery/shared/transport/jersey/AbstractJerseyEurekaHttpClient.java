@@ -1,8 +1,10 @@
 package com.netflix.discovery.shared.transport.jersey;
 
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response.Status;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -16,6 +18,10 @@ import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse.EurekaHttpResponseBuilder;
+import com.netflix.discovery.shared.transport.HeartbeatBatch;
+import com.netflix.discovery.shared.transport.HeartbeatBatchResponse;
+import com.netflix.discovery.shared.transport.InstanceChangeEventReader;
+import com.netflix.discovery.shared.transport.InstanceChangeListener;
 import com.netflix.discovery.util.StringUtil;
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.ClientResponse;
@@ -33,6 +39,9 @@ public abstract class AbstractJerseyEurekaHttpClient implements EurekaHttpClient
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractJerseyEurekaHttpClient.class);
 
+    private static final String HTTP_LAST_EVENT_ID = "Last-Event-ID";
+    private static final String TEXT_EVENT_STREAM = "text/event-stream";
+
     protected final Client jerseyClient;
     protected final String serviceUrl;
 
@@ -115,6 +124,34 @@ public abstract class AbstractJerseyEurekaHttpClient implements EurekaHttpClient
         }
     }
 
+    @Override
+    public EurekaHttpResponse<HeartbeatBatchResponse> sendHeartBeats(HeartbeatBatch heartbeats) {
+        String urlPath = "apps/heartbeats";
+        ClientResponse response = null;
+        try {
+            Builder resourceBuilder = jerseyClient.resource(serviceUrl).path(urlPath).getRequestBuilder();
+            addExtraHeaders(resourceBuilder);
+            response = resourceBuilder
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .post(ClientResponse.class, heartbeats);
+            EurekaHttpResponseBuilder<HeartbeatBatchResponse> eurekaResponseBuilder =
+                    anEurekaHttpResponse(response.getStatus(), HeartbeatBatchResponse.class).headers(headersOf(response));
+            if (response.getStatus() == Status.OK.getStatusCode() && response.hasEntity()) {
+                eurekaResponseBuilder.entity(response.getEntity(HeartbeatBatchResponse.class));
+            }
+            return eurekaResponseBuilder.build();
+        } finally {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Jersey HTTP POST {}/{} with {} heartbeats; statusCode={}", serviceUrl, urlPath,
+                        heartbeats.getHeartbeats().size(), response == null ? "N/A" : response.getStatus());
+            }
+            if (response != null) {
+                response.close();
+            }
+        }
+    }
+
     @Override
     public EurekaHttpResponse<Void> statusUpdate(String appName, String id, InstanceStatus newStatus, InstanceInfo info) {
         String urlPath = "apps/" + appName + '/' + id + "/status";
@@ -162,25 +199,74 @@ public abstract class AbstractJerseyEurekaHttpClient implements EurekaHttpClient
 
     @Override
     public EurekaHttpResponse<Applications> getApplications(String... regions) {
-        return getApplicationsInternal("apps/", regions);
+        return getApplicationsInternal("apps/", null, null, null, regions);
     }
 
     @Override
     public EurekaHttpResponse<Applications> getDelta(String... regions) {
-        return getApplicationsInternal("apps/delta", regions);
+        return getApplicationsInternal("apps/delta", null, null, null, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getApplicationsIfNoneMatch(String eTag, String... regions) {
+        return getApplicationsInternal("apps/", eTag, null, null, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaIfNoneMatch(String eTag, String... regions) {
+        return getApplicationsInternal("apps/delta", eTag, null, null, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> getDeltaSince(String cursor, String... regions) {
+        return getApplicationsInternal("apps/delta", null, cursor, null, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Applications> watchDeltaSince(String cursor, long timeoutMs, String... regions) {
+        return getApplicationsInternal("apps/watch", null, cursor, timeoutMs, regions);
+    }
+
+    @Override
+    public EurekaHttpResponse<Void> streamInstanceChanges(String cursor, InstanceChangeListener listener) {
+        String urlPath = "apps/stream";
+        ClientResponse response = null;
+        try {
+            Builder requestBuilder = jerseyClient.resource(serviceUrl).path(urlPath).getRequestBuilder();
+            addExtraHeaders(requestBuilder);
+            requestBuilder.header(HTTP_LAST_EVENT_ID, cursor);
+            response = requestBuilder.accept(TEXT_EVENT_STREAM).get(ClientResponse.class);
+            if (response.getStatus() == Status.OK.getStatusCode()) {
+                try {
+                    new InstanceChangeEventReader(listener).read(response.getEntityInputStream());
+                } catch (IOException e) {
+                    // The stream is resumed from the last change received
+                    logger.debug("Registry change stream from {} ended", serviceUrl, e);
+                }
+            }
+            return anEurekaHttpResponse(response.getStatus()).headers(headersOf(response)).build();
+        } finally {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Jersey HTTP GET {}/{}; statusCode={}", serviceUrl, urlPath, response == null ? "N/A" : response.getStatus());
+            }
+            if (response != null) {
+                response.close();
+            }
+        }
     }
 
     @Override
     public EurekaHttpResponse<Applications> getVip(String vipAddress, String... regions) {
-        return getApplicationsInternal("vips/" + vipAddress, regions);
+        return getApplicationsInternal("vips/" + vipAddress, null, null, null, regions);
     }
 
     @Override
     public EurekaHttpResponse<Applications> getSecureVip(String secureVipAddress, String... regions) {
-        return getApplicationsInternal("svips/" + secureVipAddress, regions);
+        return getApplicationsInternal("svips/" + secureVipAddress, null, null, null, regions);
     }
 
-    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath, String[] regions) {
+    private EurekaHttpResponse<Applications> getApplicationsInternal(String urlPath, String eTag, String since,
+                                                                     Long timeoutMs, String[] regions) {
         ClientResponse response = null;
         String regionsParamValue = null;
         try {
@@ -189,8 +275,17 @@ public abstract class AbstractJerseyEurekaHttpClient implements EurekaHttpClient
                 regionsParamValue = StringUtil.join(regions);
                 webResource = webResource.queryParam("regions", regionsParamValue);
             }
+            if (since != null) {
+                webResource = webResource.queryParam("since", since);
+            }
+            if (timeoutMs != null) {
+                webResource = webResource.queryParam("timeoutMs", timeoutMs.toString());
+            }
             Builder requestBuilder = webResource.getRequestBuilder();
             addExtraHeaders(requestBuilder);
+            if (eTag != null) {
+                requestBuilder.header(HttpHeaders.IF_NONE_MATCH, eTag);
+            }
             response = requestBuilder.accept(MediaType.APPLICATION_JSON_TYPE).get(ClientResponse.class);
 
             Applications applications = null;
@@ -194,7 +194,7 @@ public class JerseyEurekaHttpClientFactory implements TransportClientFactory {
             if (allowRedirect) {
                 additionalHeaders.put(HTTP_X_DISCOVERY_ALLOW_REDIRECT, "true");
             }
-            if (EurekaAccept.compact == eurekaAccept) {
+            if (eurekaAccept != null && EurekaAccept.full != eurekaAccept) {
                 additionalHeaders.put(EurekaAccept.HTTP_X_EUREKA_ACCEPT, eurekaAccept.name());
             }
 
@@ -0,0 +1,122 @@
+package com.netflix.discovery.converters;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.netflix.appinfo.DataCenterInfo.Name;
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.ActionType;
+import com.netflix.appinfo.MyDataCenterInfo;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.converters.wrappers.CodecWrappers.EurekaBinary;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.EurekaEntityComparators;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class EurekaBinaryCodecTest {
+
+    private final EurekaBinaryCodec codec = new EurekaBinaryCodec();
+    private final InstanceInfoGenerator infoGenerator = InstanceInfoGenerator.newBuilder(40, 4).withMetaData(true).build();
+
+    @Test
+    public void testApplicationsEncodeDecode() throws Exception {
+        Applications applications = infoGenerator.takeDelta(40);
+        applications.setAppsHashCode(applications.getReconcileHashCode());
+        applications.setVersion(42L);
+
+        Applications decoded = roundTrip(applications, Applications.class);
+
+        assertThat(EurekaEntityComparators.equal(applications, decoded), is(true));
+        assertThat(decoded.getAppsHashCode(), is(applications.getAppsHashCode()));
+        assertThat(decoded.getVersion(), is(42L));
+    }
+
+    @Test
+    public void testApplicationEncodeDecode() throws Exception {
+        Application application = infoGenerator.toApplications().getRegisteredApplications().get(0);
+
+        assertThat(EurekaEntityComparators.equal(application, roundTrip(application, Application.class)), is(true));
+    }
+
+    @Test
+    public void testInstanceInfoEncodeDecode() throws Exception {
+        InstanceInfo instanceInfo = infoGenerator.serviceIterator().next();
+
+        assertThat(EurekaEntityComparators.equal(instanceInfo, roundTrip(instanceInfo, InstanceInfo.class)), is(true));
+    }
+
+    @Test
+    public void testInstanceInfoWithoutOptionalFieldsEncodeDecode() throws Exception {
+        InstanceInfo instanceInfo = InstanceInfo.Builder.newBuilder()
+                .setAppName("app")
+                .setHostName("host")
+                .setDataCenterInfo(new MyDataCenterInfo(Name.MyOwn))
+                .setMetadata(null)
+                .build();
+
+        assertThat(EurekaEntityComparators.equal(instanceInfo, roundTrip(instanceInfo, InstanceInfo.class)), is(true));
+    }
+
+    @Test
+    public void testNonAsciiStringsEncodeDecode() throws Exception {
+        InstanceInfo instanceInfo = new InstanceInfo.Builder(infoGenerator.serviceIterator().next())
+                .add("description", "\u00e9\u00e8\u4e2d\u6587")
+                .setActionType(ActionType.MODIFIED)
+                .build();
+
+        assertThat(EurekaEntityComparators.equal(instanceInfo, roundTrip(instanceInfo, InstanceInfo.class)), is(true));
+    }
+
+    @Test
+    public void testBinaryIsSmallerThanJson() throws Exception {
+        Applications applications = infoGenerator.toApplications();
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        codec.writeTo(applications, binary);
+        String json = CodecWrappers.getEncoder(CodecWrappers.LegacyJacksonJson.class).encode(applications);
+
+        assertTrue(binary.size() * 2 < json.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    public void testStringEncodingOfWrapper() throws Exception {
+        Applications applications = infoGenerator.toApplications();
+        EurekaBinary wrapper = (EurekaBinary) CodecWrappers.getCodec(EurekaBinary.class);
+
+        Applications decoded = wrapper.decode(wrapper.encode(applications), Applications.class);
+
+        assertThat(EurekaEntityComparators.equal(applications, decoded), is(true));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecodeOfOtherEntityFails() throws Exception {
+        InstanceInfo instanceInfo = infoGenerator.serviceIterator().next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.writeTo(instanceInfo, out);
+
+        codec.readValue(Applications.class, new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecodeOfTruncatedPayloadFails() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.writeTo(infoGenerator.toApplications(), out);
+        byte[] bytes = out.toByteArray();
+
+        codec.readValue(Applications.class, new ByteArrayInputStream(bytes, 0, bytes.length / 2));
+    }
+
+    private <T> T roundTrip(T value, Class<T> type) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.writeTo(value, out);
+        return codec.readValue(type, new ByteArrayInputStream(out.toByteArray()));
+    }
+}
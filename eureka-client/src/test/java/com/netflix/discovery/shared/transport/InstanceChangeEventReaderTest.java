@@ -0,0 +1,136 @@
+package com.netflix.discovery.shared.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.ActionType;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class InstanceChangeEventReaderTest {
+
+    private final List<String> cursors = new ArrayList<>();
+    private final List<List<InstanceInfo>> batches = new ArrayList<>();
+
+    @Test
+    public void testEventsAreDispatchedInOrder() throws Exception {
+        InstanceInfo first = InstanceInfoGenerator.newBuilder(2, 1).build().take(0);
+        InstanceInfo second = InstanceInfoGenerator.newBuilder(2, 1).build().take(1);
+        String events = ":\n\n"
+                + event("e.1", "ADDED", first)
+                + ":\n\n"
+                + event("e.2", "DELETED", second);
+
+        read(Integer.MAX_VALUE, events);
+
+        assertEquals(1, batches.size());
+        assertEquals("e.2", cursors.get(0));
+        List<InstanceInfo> instances = batches.get(0);
+        assertEquals(2, instances.size());
+        assertEquals(first.getId(), instances.get(0).getId());
+        assertEquals(ActionType.ADDED, instances.get(0).getActionType());
+        assertEquals(second.getId(), instances.get(1).getId());
+        assertEquals(ActionType.DELETED, instances.get(1).getActionType());
+    }
+
+    @Test
+    public void testEventsReceivedSeparatelyAreDispatchedInSeparateBatches() throws Exception {
+        InstanceInfo instance = InstanceInfoGenerator.takeOne();
+
+        read(Integer.MAX_VALUE,
+                event("e.1", "MODIFIED", instance) + event("e.2", "MODIFIED", instance),
+                event("e.3", "DELETED", instance));
+
+        assertEquals(2, batches.size());
+        assertEquals("e.2", cursors.get(0));
+        assertEquals(2, batches.get(0).size());
+        assertEquals("e.3", cursors.get(1));
+        assertEquals(1, batches.get(1).size());
+        assertEquals(ActionType.DELETED, batches.get(1).get(0).getActionType());
+    }
+
+    @Test
+    public void testListenerCanEndStream() throws Exception {
+        InstanceInfo instance = InstanceInfoGenerator.takeOne();
+
+        read(1, event("e.1", "MODIFIED", instance), event("e.2", "MODIFIED", instance));
+
+        assertEquals(1, batches.size());
+        assertEquals("e.1", cursors.get(0));
+    }
+
+    @Test
+    public void testUnknownEventsAreSkipped() throws Exception {
+        InstanceInfo instance = InstanceInfoGenerator.takeOne();
+        String events = event("e.1", "RESTARTED", instance) + event("e.2", "MODIFIED", instance);
+
+        read(Integer.MAX_VALUE, events);
+
+        assertEquals(1, batches.size());
+        assertEquals(1, batches.get(0).size());
+        assertEquals("e.2", cursors.get(0));
+    }
+
+    /**
+     * Reads the given chunks of events, each of which is only available once the previous one was consumed.
+     */
+    private void read(final int maxBatches, String... chunks) throws Exception {
+        InstanceChangeEventReader reader = new InstanceChangeEventReader(new InstanceChangeListener() {
+            @Override
+            public boolean onChanges(String cursor, List<InstanceInfo> instances) {
+                cursors.add(cursor);
+                batches.add(instances);
+                return batches.size() < maxBatches;
+            }
+        });
+        reader.read(new ChunkedInputStream(chunks));
+    }
+
+    private static String event(String id, String name, InstanceInfo instance) throws Exception {
+        String data = CodecWrappers.getEncoder(CodecWrappers.LegacyJacksonJson.class).encode(instance);
+        return "id: " + id + "\nevent: " + name + "\ndata: " + data + "\n\n";
+    }
+
+    private static class ChunkedInputStream extends InputStream {
+
+        private final Deque<ByteArrayInputStream> chunks = new ArrayDeque<>();
+
+        ChunkedInputStream(String... chunks) {
+            for (String chunk : chunks) {
+                this.chunks.add(new ByteArrayInputStream(chunk.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        @Override
+        public int read() {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            while (!chunks.isEmpty()) {
+                int read = chunks.peek().read(b, off, len);
+                if (read > 0) {
+                    return read;
+                }
+                chunks.poll();
+            }
+            return -1;
+        }
+
+        @Override
+        public int available() {
+            return chunks.isEmpty() ? 0 : chunks.peek().available();
+        }
+    }
+}
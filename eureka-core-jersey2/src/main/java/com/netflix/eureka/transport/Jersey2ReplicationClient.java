@@ -29,6 +29,7 @@ import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.EurekaServerIdentity;
 import com.netflix.eureka.cluster.HttpReplicationClient;
 import com.netflix.eureka.cluster.PeerEurekaNode;
+import com.netflix.eureka.cluster.protocol.ReplicationHeartbeatList;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
 import com.netflix.eureka.resources.ASGResource.ASGStatus;
@@ -108,12 +109,21 @@ public class Jersey2ReplicationClient extends AbstractJersey2EurekaHttpClient im
 
     @Override
     public EurekaHttpResponse<ReplicationListResponse> submitBatchUpdates(ReplicationList replicationList) {
+        return submitBatch(PeerEurekaNode.BATCH_URL_PATH, replicationList);
+    }
+
+    @Override
+    public EurekaHttpResponse<ReplicationListResponse> submitBatchHeartbeats(ReplicationHeartbeatList heartbeatList) {
+        return submitBatch(PeerEurekaNode.HEARTBEAT_BATCH_URL_PATH, heartbeatList);
+    }
+
+    private EurekaHttpResponse<ReplicationListResponse> submitBatch(String path, Object batch) {
         Response response = null;
         try {
             response = jerseyClient.target(serviceUrl)
-                    .path(PeerEurekaNode.BATCH_URL_PATH)
+                    .path(path)
                     .request(MediaType.APPLICATION_JSON_TYPE)
-                    .post(Entity.json(replicationList));
+                    .post(Entity.json(batch));
             if (!isSuccess(response.getStatus())) {
                 return anEurekaHttpResponse(response.getStatus(), ReplicationListResponse.class).build();
             }
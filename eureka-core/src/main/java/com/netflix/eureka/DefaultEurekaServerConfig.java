@@ -351,12 +351,66 @@ public class DefaultEurekaServerConfig implements EurekaServerConfig {
                 namespace + "responseCacheUpdateIntervalMs", (30 * 1000)).get();
     }
 
+    @Override
+    public long getMinResponseCacheRefreshIntervalMs() {
+        return configInstance.getIntProperty(
+                namespace + "minResponseCacheRefreshIntervalMs", 1000).get();
+    }
+
+    @Override
+    public long getResponseCacheInvalidationCoalescingWindowMs() {
+        return configInstance.getLongProperty(
+                namespace + "responseCacheInvalidationCoalescingWindowMs", 0).get();
+    }
+
+    @Override
+    public int getMaxWatchRequests() {
+        return configInstance.getIntProperty(
+                namespace + "maxWatchRequests", 50).get();
+    }
+
+    @Override
+    public long getMaxWatchTimeoutMs() {
+        return configInstance.getLongProperty(
+                namespace + "maxWatchTimeoutMs", 30 * 1000).get();
+    }
+
+    @Override
+    public int getMaxEventStreams() {
+        return configInstance.getIntProperty(
+                namespace + "maxEventStreams", 20).get();
+    }
+
+    @Override
+    public int getMaxHeartbeatBatchSize() {
+        return configInstance.getIntProperty(
+                namespace + "maxHeartbeatBatchSize", 1000).get();
+    }
+
+    @Override
+    public int getMaxEventStreamBacklog() {
+        return configInstance.getIntProperty(
+                namespace + "maxEventStreamBacklog", 1000).get();
+    }
+
+    @Override
+    public long getEventStreamKeepAliveIntervalMs() {
+        return configInstance.getLongProperty(
+                namespace + "eventStreamKeepAliveIntervalMs", 5 * 1000).get();
+    }
+
     @Override
     public boolean shouldUseReadOnlyResponseCache() {
         return configInstance.getBooleanProperty(
                 namespace + "shouldUseReadOnlyResponseCache", true).get();
     }
 
+    @Override
+    public boolean shouldServeStaleResponseCacheWhileRevalidating() {
+        return configInstance.getBooleanProperty(
+                namespace + "shouldServeStaleResponseCacheWhileRevalidating", false).get();
+    }
+
     @Override
     public boolean shouldDisableDelta() {
         return configInstance.getBooleanProperty(namespace + "disableDelta",
@@ -439,6 +493,12 @@ public class DefaultEurekaServerConfig implements EurekaServerConfig {
                 TIME_TO_WAIT_FOR_REPLICATION).get();
     }
 
+    @Override
+    public String getPeerReplicationTrafficShapingPolicy() {
+        return configInstance.getStringProperty(
+                namespace + "peerReplicationTrafficShapingPolicy", "Fixed").get();
+    }
+
     @Override
     public boolean shouldPrimeAwsReplicaConnections() {
         return configInstance.getBooleanProperty(
@@ -707,4 +767,15 @@ public class DefaultEurekaServerConfig implements EurekaServerConfig {
     public int getInitialCapacityOfResponseCache() {
         return configInstance.getIntProperty(namespace + "initialCapacityOfResponseCache", 1000).get();
     }
+
+    @Override
+    public long getResponseCacheMaxSizeInBytes() {
+        return configInstance.getLongProperty(namespace + "responseCacheMaxSizeInBytes", 0).get();
+    }
+
+    @Override
+    public boolean shouldStoreResponseCachePayloadsOffHeap() {
+        return configInstance.getBooleanProperty(
+                namespace + "shouldStoreResponseCachePayloadsOffHeap", false).get();
+    }
 }
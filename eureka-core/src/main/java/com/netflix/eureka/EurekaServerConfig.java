@@ -305,12 +305,107 @@ public interface EurekaServerConfig {
 
     /**
      * Gets the time interval with which the payload cache of the client should
-     * be updated.
+     * be checked for payloads older than {@link #getResponseCacheAutoExpirationInSeconds()}.
+     * Payloads invalidated by change events are updated as they happen.
      *
      * @return time in milliseconds.
      */
     long getResponseCacheUpdateIntervalMs();
 
+    /**
+     * Gets the minimum time between two updates of the same payload in the
+     * payload cache of the client, when it is invalidated by change events.
+     * Change events arriving within this interval are coalesced into one update.
+     * Unless configured otherwise, it is the {@link #getResponseCacheUpdateIntervalMs() update interval}.
+     *
+     * @return time in milliseconds.
+     */
+    default long getMinResponseCacheRefreshIntervalMs() {
+        return getResponseCacheUpdateIntervalMs();
+    }
+
+    /**
+     * Gets the time during which invalidations of the {@link com.netflix.eureka.registry.ResponseCache} caused by
+     * registry changes are collected before they are applied, so that the keys changed many times in a row, e.g. all
+     * applications during a mass deployment, are invalidated once. A value of 0 or less applies each invalidation
+     * right away, which is the default.
+     *
+     * @return time in milliseconds.
+     */
+    default long getResponseCacheInvalidationCoalescingWindowMs() {
+        return 0;
+    }
+
+    /**
+     * Gets the maximum number of requests waiting for registry changes at once. Without asynchronous request
+     * processing in the servlet container, each waiting request holds one of its threads, so the limit has to stay
+     * well below the size of the thread pool. Watch requests beyond the limit are answered right away. A value of 0
+     * disables waiting altogether.
+     *
+     * <p>
+     * <em>The changes are effective only at restart.</em>
+     * </p>
+     *
+     * @return the maximum number of waiting watch requests.
+     */
+    default int getMaxWatchRequests() {
+        return 0;
+    }
+
+    /**
+     * Gets the longest time a watch request waits for registry changes, regardless of the time requested.
+     *
+     * @return time in milliseconds.
+     */
+    default long getMaxWatchTimeoutMs() {
+        return 0;
+    }
+
+    /**
+     * Gets the maximum number of streams of registry change events open at once. Like a waiting watch request, see
+     * {@link #getMaxWatchRequests()}, each stream holds a thread of the servlet container for as long as it is
+     * open. Streams beyond the limit are rejected. A value of 0 disables the streams altogether.
+     *
+     * <p>
+     * <em>The changes are effective only at restart.</em>
+     * </p>
+     *
+     * @return the maximum number of open event streams.
+     */
+    default int getMaxEventStreams() {
+        return 0;
+    }
+
+    /**
+     * Gets the maximum number of lease renewals accepted in a single batch of heartbeats. Larger batches are
+     * rejected as a whole, and have to be split by the client.
+     *
+     * @return the maximum number of heartbeats in a batch.
+     */
+    default int getMaxHeartbeatBatchSize() {
+        return 0;
+    }
+
+    /**
+     * Gets the maximum number of registry changes a subscriber of an event stream may fall behind. A slower
+     * subscriber is disconnected, and has to resume from the last event it received, or fetch the full registry.
+     *
+     * @return the maximum number of changes not yet sent to a subscriber.
+     */
+    default int getMaxEventStreamBacklog() {
+        return 1000;
+    }
+
+    /**
+     * Gets the interval at which an event stream without changes sends a comment to keep the connection alive,
+     * which has to be shorter than the read timeout of the subscribers.
+     *
+     * @return time in milliseconds.
+     */
+    default long getEventStreamKeepAliveIntervalMs() {
+        return 5 * 1000;
+    }
+
     /**
      * The {@link com.netflix.eureka.registry.ResponseCache} currently uses a two level caching
      * strategy to responses. A readWrite cache with an expiration policy, and a readonly cache
@@ -320,6 +415,17 @@ public interface EurekaServerConfig {
      */
     boolean shouldUseReadOnlyResponseCache();
 
+    /**
+     * Whether the readWrite cache of the {@link com.netflix.eureka.registry.ResponseCache} keeps serving the
+     * previous payload of a key, when it is invalidated or expires, while a single new one is generated in the
+     * background, instead of blocking the requests until the payload is generated again.
+     *
+     * @return true if stale payloads are to be served while they are generated again
+     */
+    default boolean shouldServeStaleResponseCacheWhileRevalidating() {
+        return false;
+    }
+
     /**
      * Checks to see if the delta information can be served to client or not.
      * <p>
@@ -450,6 +556,19 @@ public interface EurekaServerConfig {
      */
     int getMaxTimeForReplication();
 
+    /**
+     * Gets the policy pacing the batches replicated to each peer, either <code>Fixed</code>, which sends batches of
+     * the maximum size and pauses for a fixed delay after the peer is busy or unreachable, or <code>Adaptive</code>,
+     * which increases the number of batches sent at once and their size additively while the peer keeps up, halves
+     * them when it is busy, and waits for partial batches to fill up for about as long as the peer takes to process
+     * one. The default is <code>Fixed</code>.
+     *
+     * @return the name of the traffic shaping policy for peer replication.
+     */
+    default String getPeerReplicationTrafficShapingPolicy() {
+        return "Fixed";
+    }
+
     /**
      * Checks whether the connections to replicas should be primed. In AWS, the
      * firewall requires sometime to establish network connection for new nodes.
@@ -705,4 +824,27 @@ public interface EurekaServerConfig {
      * @return the capacity of responseCache.
      */
     int getInitialCapacityOfResponseCache();
+
+    /**
+     * Get the maximum size of the payloads in the responseCache, compressed and uncompressed, in bytes. Once it is
+     * reached, the least recently used payloads are evicted. A value of 0 or less leaves the size unbounded, which
+     * is the default.
+     *
+     * @return the maximum size of the responseCache in bytes.
+     */
+    default long getResponseCacheMaxSizeInBytes() {
+        return 0;
+    }
+
+    /**
+     * Whether the payloads of the responseCache are stored off heap, in pooled direct memory, and streamed to the
+     * clients from there, rather than held in large heap arrays which put pressure on the garbage collector. The
+     * memory taken up by the pool is the most the payloads ever took up at once, so bounding the size of the cache
+     * with {@link #getResponseCacheMaxSizeInBytes()} bounds the pool as well.
+     *
+     * @return true if the payloads are to be stored off heap
+     */
+    default boolean shouldStoreResponseCachePayloadsOffHeap() {
+        return false;
+    }
 }
@@ -2,6 +2,7 @@ package com.netflix.eureka.cluster;
 
 import com.netflix.discovery.shared.transport.EurekaHttpClient;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
+import com.netflix.eureka.cluster.protocol.ReplicationHeartbeatList;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
 import com.netflix.eureka.resources.ASGResource.ASGStatus;
@@ -14,4 +15,13 @@ public interface HttpReplicationClient extends EurekaHttpClient {
     EurekaHttpResponse<Void> statusUpdate(String asgName, ASGStatus newStatus);
 
     EurekaHttpResponse<ReplicationListResponse> submitBatchUpdates(ReplicationList replicationList);
+
+    /**
+     * Renews the leases of many instances on the peer, which answers them as it answers heartbeats submitted with
+     * {@link #submitBatchUpdates(ReplicationList)}. Peers not accepting it, and clients not supporting it, return
+     * status 404.
+     */
+    default EurekaHttpResponse<ReplicationListResponse> submitBatchHeartbeats(ReplicationHeartbeatList heartbeatList) {
+        return EurekaHttpResponse.anEurekaHttpResponse(404, ReplicationListResponse.class).build();
+    }
 }
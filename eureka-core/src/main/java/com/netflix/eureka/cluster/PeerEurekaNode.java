@@ -29,6 +29,7 @@ import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
 import com.netflix.eureka.resources.ASGResource.ASGStatus;
 import com.netflix.eureka.util.batcher.TaskDispatcher;
 import com.netflix.eureka.util.batcher.TaskDispatchers;
+import com.netflix.eureka.util.batcher.TrafficShapingPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -71,6 +72,8 @@ public class PeerEurekaNode {
 
     public static final String BATCH_URL_PATH = "peerreplication/batch/";
 
+    public static final String HEARTBEAT_BATCH_URL_PATH = "peerreplication/heartbeats/";
+
     public static final String HEADER_REPLICATION = "x-netflix-discovery-replication";
 
     private final String serviceUrl;
@@ -82,6 +85,7 @@ public class PeerEurekaNode {
 
     private final TaskDispatcher<String, ReplicationTask> batchingDispatcher;
     private final TaskDispatcher<String, ReplicationTask> nonBatchingDispatcher;
+    private final ReplicationTaskProcessor taskProcessor;
 
     public PeerEurekaNode(PeerAwareInstanceRegistry registry, String targetHost, String serviceUrl, HttpReplicationClient replicationClient, EurekaServerConfig config) {
         this(registry, targetHost, serviceUrl, replicationClient, config, BATCH_SIZE, MAX_BATCHING_DELAY_MS, RETRY_SLEEP_TIME_MS, SERVER_UNAVAILABLE_SLEEP_TIME_MS);
@@ -100,7 +104,7 @@ public class PeerEurekaNode {
         this.maxProcessingDelayMs = config.getMaxTimeForReplication();
 
         String batcherName = getBatcherName();
-        ReplicationTaskProcessor taskProcessor = new ReplicationTaskProcessor(targetHost, replicationClient);
+        this.taskProcessor = new ReplicationTaskProcessor(targetHost, replicationClient);
         this.batchingDispatcher = TaskDispatchers.createBatchingTaskDispatcher(
                 batcherName,
                 config.getMaxElementsInPeerReplicationPool(),
@@ -109,6 +113,8 @@ public class PeerEurekaNode {
                 maxBatchingDelayMs,
                 serverUnavailableSleepTimeMs,
                 retrySleepTimeMs,
+                PeerEurekaNode::instanceKeyOf,
+                trafficShapingPolicyOf(config),
                 taskProcessor
         );
         this.nonBatchingDispatcher = TaskDispatchers.createNonBatchingTaskDispatcher(
@@ -349,6 +355,7 @@ public class PeerEurekaNode {
     public void shutDown() {
         batchingDispatcher.shutdown();
         nonBatchingDispatcher.shutdown();
+        taskProcessor.shutdown();
         replicationClient.shutdown();
     }
 
@@ -391,6 +398,27 @@ public class PeerEurekaNode {
         return taskId(requestType, info.getAppName(), info.getId());
     }
 
+    private static TrafficShapingPolicy trafficShapingPolicyOf(EurekaServerConfig config) {
+        String policyName = config.getPeerReplicationTrafficShapingPolicy();
+        if (policyName != null) {
+            for (TrafficShapingPolicy policy : TrafficShapingPolicy.values()) {
+                if (policy.name().equalsIgnoreCase(policyName)) {
+                    return policy;
+                }
+            }
+            logger.warn("Unknown peer replication traffic shaping policy {}; using {}", policyName, TrafficShapingPolicy.Fixed);
+        }
+        return TrafficShapingPolicy.Fixed;
+    }
+
+    /**
+     * Tasks for the same instance are replicated in the order they were submitted in, even though several batches
+     * are replicated to the peer concurrently.
+     */
+    private static String instanceKeyOf(String taskId) {
+        return taskId.substring(taskId.indexOf('#') + 1);
+    }
+
     private static int getLeaseRenewalOf(InstanceInfo info) {
         return (info.getLeaseInfo() == null ? Lease.DEFAULT_DURATION_IN_SECS : info.getLeaseInfo().getRenewalIntervalInSecs()) * 1000;
     }
@@ -1,17 +1,28 @@
 package com.netflix.eureka.cluster;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
+import com.netflix.eureka.cluster.protocol.ReplicationHeartbeat;
+import com.netflix.eureka.cluster.protocol.ReplicationHeartbeatList;
 import com.netflix.eureka.cluster.protocol.ReplicationInstance;
 import com.netflix.eureka.cluster.protocol.ReplicationInstance.ReplicationInstanceBuilder;
 import com.netflix.eureka.cluster.protocol.ReplicationInstanceResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
 import com.netflix.eureka.util.batcher.TaskProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,17 +36,34 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
 
     private static final Logger logger = LoggerFactory.getLogger(ReplicationTaskProcessor.class);
 
+    /**
+     * How long heartbeats are sent in a {@link ReplicationList} to a peer which does not accept a
+     * {@link ReplicationHeartbeatList}, before trying again whether it does, e.g. because it got upgraded.
+     */
+    private static final long HEARTBEAT_LIST_RETRY_INTERVAL_MS = 5 * 60 * 1000;
+
     private final HttpReplicationClient replicationClient;
 
     private final String peerId;
 
     private volatile long lastNetworkErrorTime;
+
+    private volatile long heartbeatListRejectionTime = -1;
     
     private static final Pattern READ_TIME_OUT_PATTERN = Pattern.compile(".*read.*time.*out.*"); 
 
+    private static final ProcessingResult[] RESULTS_BY_SEVERITY = {
+            ProcessingResult.Congestion, ProcessingResult.TransientError, ProcessingResult.PermanentError
+    };
+
+    private final ExecutorService heartbeatListExecutor;
+
     ReplicationTaskProcessor(String peerId, HttpReplicationClient replicationClient) {
         this.replicationClient = replicationClient;
         this.peerId = peerId;
+        // Each batch worker waits for its heartbeat list, so there are at most as many threads as there are workers
+        this.heartbeatListExecutor = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat("Eureka-PeerHeartbeatList-" + peerId + "-%d").setDaemon(true).build());
     }
 
     @Override
@@ -75,35 +103,164 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
 
     @Override
     public ProcessingResult process(List<ReplicationTask> tasks) {
-        ReplicationList list = createReplicationListOf(tasks);
-        try {
-            EurekaHttpResponse<ReplicationListResponse> response = replicationClient.submitBatchUpdates(list);
-            int statusCode = response.getStatusCode();
-            if (!isSuccess(statusCode)) {
-                if (statusCode == 503) {
-                    logger.warn("Server busy (503) HTTP status code received from the peer {}; rescheduling tasks after delay", peerId);
-                    return ProcessingResult.Congestion;
-                } else {
-                    // Unexpected error returned from the server. This should ideally never happen.
-                    logger.error("Batch update failure with HTTP status code {}; discarding {} replication tasks", statusCode, tasks.size());
-                    return ProcessingResult.PermanentError;
-                }
+        return process(tasks, new ArrayList<ReplicationTask>());
+    }
+
+    /**
+     * Sends the heartbeats among the tasks as a {@link ReplicationHeartbeatList}, and the other tasks as a
+     * {@link ReplicationList}, at the same time. A heartbeat for an instance with other tasks in the batch is sent with
+     * them instead, so that the two requests are independent of each other, and only the tasks of a failed one are
+     * processed again.
+     */
+    @Override
+    public ProcessingResult process(List<ReplicationTask> tasks, List<ReplicationTask> failedTasks) {
+        Set<String> otherTaskInstances = new HashSet<>();
+        for (ReplicationTask task : tasks) {
+            InstanceReplicationTask instanceTask = (InstanceReplicationTask) task;
+            if (instanceTask.getAction() != Action.Heartbeat) {
+                otherTaskInstances.add(instanceOf(instanceTask));
+            }
+        }
+        List<ReplicationTask> heartbeatTasks = new ArrayList<>();
+        List<ReplicationTask> otherTasks = new ArrayList<>();
+        boolean sendHeartbeatList = shouldSendHeartbeatList();
+        for (ReplicationTask task : tasks) {
+            InstanceReplicationTask instanceTask = (InstanceReplicationTask) task;
+            if (sendHeartbeatList && instanceTask.getAction() == Action.Heartbeat
+                    && !otherTaskInstances.contains(instanceOf(instanceTask))) {
+                heartbeatTasks.add(task);
             } else {
-                handleBatchResponse(tasks, response.getEntity().getResponseList());
+                otherTasks.add(task);
             }
+        }
+
+        if (heartbeatTasks.isEmpty()) {
+            return collectFailed(otherTasks, sendReplicationList(otherTasks), failedTasks);
+        }
+        if (otherTasks.isEmpty()) {
+            return collectFailed(heartbeatTasks, sendHeartbeatList(heartbeatTasks), failedTasks);
+        }
+        Future<ProcessingResult> heartbeatListResult = heartbeatListExecutor.submit(() -> sendHeartbeatList(heartbeatTasks));
+        ProcessingResult replicationListResult = sendReplicationList(otherTasks);
+        ProcessingResult heartbeatResult;
+        try {
+            heartbeatResult = heartbeatListResult.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            heartbeatResult = ProcessingResult.TransientError;
+        } catch (ExecutionException e) {
+            heartbeatResult = handleBatchFailure(e.getCause());
+        }
+
+        ProcessingResult result = worstOf(replicationListResult, heartbeatResult);
+        if (isFailedPart(replicationListResult, result)) {
+            failedTasks.addAll(otherTasks);
+        }
+        if (isFailedPart(heartbeatResult, result)) {
+            failedTasks.addAll(heartbeatTasks);
+        }
+        return result;
+    }
+
+    /**
+     * Shuts down the executor sending the heartbeat lists next to the replication lists.
+     */
+    void shutdown() {
+        heartbeatListExecutor.shutdown();
+    }
+
+    private ProcessingResult sendReplicationList(List<ReplicationTask> tasks) {
+        try {
+            return handleBatchReply(tasks, replicationClient.submitBatchUpdates(createReplicationListOf(tasks)));
         } catch (Throwable e) {
-            if (maybeReadTimeOut(e)) {
-                logger.error("It seems to be a socket read timeout exception, it will retry later. if it continues to happen and some eureka node occupied all the cpu time, you should set property 'eureka.server.peer-node-read-timeout-ms' to a bigger value", e);
-            	//read timeout exception is more Congestion then TransientError, return Congestion for longer delay 
+            return handleBatchFailure(e);
+        }
+    }
+
+    private ProcessingResult sendHeartbeatList(List<ReplicationTask> heartbeatTasks) {
+        try {
+            EurekaHttpResponse<ReplicationListResponse> response =
+                    replicationClient.submitBatchHeartbeats(createHeartbeatListOf(heartbeatTasks));
+            if (response.getStatusCode() == 404) {
+                logger.info("Peer {} does not accept heartbeat lists; sending heartbeats as replication lists", peerId);
+                heartbeatListRejectionTime = System.currentTimeMillis();
+                response = replicationClient.submitBatchUpdates(createReplicationListOf(heartbeatTasks));
+            }
+            return handleBatchReply(heartbeatTasks, response);
+        } catch (Throwable e) {
+            return handleBatchFailure(e);
+        }
+    }
+
+    private ProcessingResult handleBatchFailure(Throwable e) {
+        if (maybeReadTimeOut(e)) {
+            logger.error("It seems to be a socket read timeout exception, it will retry later. if it continues to happen and some eureka node occupied all the cpu time, you should set property 'eureka.server.peer-node-read-timeout-ms' to a bigger value", e);
+            //read timeout exception is more Congestion then TransientError, return Congestion for longer delay
+            return ProcessingResult.Congestion;
+        } else if (isNetworkConnectException(e)) {
+            logNetworkErrorSample(null, e);
+            return ProcessingResult.TransientError;
+        } else {
+            logger.error("Not re-trying this exception because it does not seem to be a network exception", e);
+            return ProcessingResult.PermanentError;
+        }
+    }
+
+    private static ProcessingResult collectFailed(List<ReplicationTask> tasks, ProcessingResult result,
+                                                  List<ReplicationTask> failedTasks) {
+        if (result != ProcessingResult.Success) {
+            failedTasks.addAll(tasks);
+        }
+        return result;
+    }
+
+    /**
+     * @return the result calling for the longest delay before processing the tasks again, and the permanent error
+     *         only if there is nothing to process again
+     */
+    private static ProcessingResult worstOf(ProcessingResult first, ProcessingResult second) {
+        for (ProcessingResult result : RESULTS_BY_SEVERITY) {
+            if (first == result || second == result) {
+                return result;
+            }
+        }
+        return ProcessingResult.Success;
+    }
+
+    /**
+     * A part which failed permanently is given up on, unless the batch failed permanently as a whole, so that the
+     * other part is processed again on its own.
+     */
+    private static boolean isFailedPart(ProcessingResult partResult, ProcessingResult batchResult) {
+        return partResult != ProcessingResult.Success && (isRetryable(partResult) || !isRetryable(batchResult));
+    }
+
+    private static boolean isRetryable(ProcessingResult result) {
+        return result == ProcessingResult.Congestion || result == ProcessingResult.TransientError;
+    }
+
+    private static String instanceOf(InstanceReplicationTask task) {
+        return task.getAppName() + '/' + task.getId();
+    }
+
+    private boolean shouldSendHeartbeatList() {
+        long rejectionTime = heartbeatListRejectionTime;
+        return rejectionTime == -1 || System.currentTimeMillis() - rejectionTime >= HEARTBEAT_LIST_RETRY_INTERVAL_MS;
+    }
+
+    private ProcessingResult handleBatchReply(List<ReplicationTask> tasks, EurekaHttpResponse<ReplicationListResponse> response) {
+        int statusCode = response.getStatusCode();
+        if (!isSuccess(statusCode)) {
+            if (statusCode == 503) {
+                logger.warn("Server busy (503) HTTP status code received from the peer {}; rescheduling tasks after delay", peerId);
                 return ProcessingResult.Congestion;
-            } else if (isNetworkConnectException(e)) {
-                logNetworkErrorSample(null, e);
-                return ProcessingResult.TransientError;
             } else {
-                logger.error("Not re-trying this exception because it does not seem to be a network exception", e);
+                // Unexpected error returned from the server. This should ideally never happen.
+                logger.error("Batch update failure with HTTP status code {}; discarding {} replication tasks", statusCode, tasks.size());
                 return ProcessingResult.PermanentError;
             }
         }
+        handleBatchResponse(tasks, response.getEntity().getResponseList());
         return ProcessingResult.Success;
     }
 
@@ -161,6 +318,14 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
         return list;
     }
 
+    private static ReplicationHeartbeatList createHeartbeatListOf(List<ReplicationTask> tasks) {
+        ReplicationHeartbeatList list = new ReplicationHeartbeatList();
+        for (ReplicationTask task : tasks) {
+            list.addHeartbeat(createReplicationHeartbeatOf((InstanceReplicationTask) task));
+        }
+        return list;
+    }
+
     private static boolean isSuccess(int statusCode) {
         return statusCode >= 200 && statusCode < 300;
     }
@@ -223,5 +388,14 @@ class ReplicationTaskProcessor implements TaskProcessor<ReplicationTask> {
         instanceBuilder.withAction(task.getAction());
         return instanceBuilder.build();
     }
+
+    private static ReplicationHeartbeat createReplicationHeartbeatOf(InstanceReplicationTask task) {
+        InstanceInfo instanceInfo = task.getInstanceInfo();
+        if (instanceInfo == null) {
+            return new ReplicationHeartbeat(task.getAppName(), task.getId(), null, null, null);
+        }
+        return new ReplicationHeartbeat(task.getAppName(), task.getId(), instanceInfo.getLastDirtyTimestamp(),
+                instanceInfo.getStatus(), task.getOverriddenStatus());
+    }
 }
 
@@ -0,0 +1,86 @@
+package com.netflix.eureka.cluster.protocol;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+
+/**
+ * The lease renewal of a single instance replicated to a peer, as part of a {@link ReplicationHeartbeatList}. It
+ * carries only what a peer needs to renew the lease, and to detect that its copy of the instance is stale, and is
+ * serialized as an array of its fields, instead of an object.
+ */
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+@JsonPropertyOrder({"appName", "id", "lastDirtyTimestamp", "status", "overriddenStatus"})
+public class ReplicationHeartbeat {
+
+    private final String appName;
+    private final String id;
+    private final Long lastDirtyTimestamp;
+    private final InstanceStatus status;
+    private final InstanceStatus overriddenStatus;
+
+    @JsonCreator
+    public ReplicationHeartbeat(@JsonProperty("appName") String appName,
+                                @JsonProperty("id") String id,
+                                @JsonProperty("lastDirtyTimestamp") Long lastDirtyTimestamp,
+                                @JsonProperty("status") InstanceStatus status,
+                                @JsonProperty("overriddenStatus") InstanceStatus overriddenStatus) {
+        this.appName = appName;
+        this.id = id;
+        this.lastDirtyTimestamp = lastDirtyTimestamp;
+        this.status = status;
+        this.overriddenStatus = overriddenStatus;
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getLastDirtyTimestamp() {
+        return lastDirtyTimestamp;
+    }
+
+    public InstanceStatus getStatus() {
+        return status;
+    }
+
+    public InstanceStatus getOverriddenStatus() {
+        return overriddenStatus;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        ReplicationHeartbeat that = (ReplicationHeartbeat) o;
+
+        if (appName != null ? !appName.equals(that.appName) : that.appName != null)
+            return false;
+        if (id != null ? !id.equals(that.id) : that.id != null)
+            return false;
+        if (lastDirtyTimestamp != null ? !lastDirtyTimestamp.equals(that.lastDirtyTimestamp) : that.lastDirtyTimestamp != null)
+            return false;
+        if (status != that.status)
+            return false;
+        return overriddenStatus == that.overriddenStatus;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = appName != null ? appName.hashCode() : 0;
+        result = 31 * result + (id != null ? id.hashCode() : 0);
+        result = 31 * result + (lastDirtyTimestamp != null ? lastDirtyTimestamp.hashCode() : 0);
+        result = 31 * result + (status != null ? status.hashCode() : 0);
+        result = 31 * result + (overriddenStatus != null ? overriddenStatus.hashCode() : 0);
+        return result;
+    }
+}
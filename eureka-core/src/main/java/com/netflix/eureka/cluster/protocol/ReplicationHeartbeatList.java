@@ -0,0 +1,53 @@
+package com.netflix.eureka.cluster.protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.netflix.discovery.provider.Serializer;
+
+/**
+ * The lease renewals replicated to a peer in one request. Heartbeats make up most of the replication traffic, so
+ * they are sent in this compact form rather than as a {@link ReplicationList}. The peer answers with a
+ * {@link ReplicationListResponse} that holds one response per heartbeat, in the same order.
+ */
+@Serializer("jackson") // For DiscoveryJerseyProvider
+public class ReplicationHeartbeatList {
+
+    private final List<ReplicationHeartbeat> heartbeats;
+
+    public ReplicationHeartbeatList() {
+        this.heartbeats = new ArrayList<>();
+    }
+
+    @JsonCreator
+    public ReplicationHeartbeatList(@JsonProperty("heartbeats") List<ReplicationHeartbeat> heartbeats) {
+        this.heartbeats = heartbeats;
+    }
+
+    public void addHeartbeat(ReplicationHeartbeat heartbeat) {
+        heartbeats.add(heartbeat);
+    }
+
+    public List<ReplicationHeartbeat> getHeartbeats() {
+        return heartbeats;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        ReplicationHeartbeatList that = (ReplicationHeartbeatList) o;
+
+        return !(heartbeats != null ? !heartbeats.equals(that.heartbeats) : that.heartbeats != null);
+    }
+
+    @Override
+    public int hashCode() {
+        return heartbeats != null ? heartbeats.hashCode() : 0;
+    }
+}
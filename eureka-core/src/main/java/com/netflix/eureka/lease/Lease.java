@@ -46,6 +46,10 @@ public class Lease<T> {
     private volatile long lastUpdateTimestamp;
     private long duration;
 
+    // Maintained by the expiry index this lease was added to, if any
+    volatile LeaseExpiryIndex<T> expiryIndex;
+    volatile long expiryBucket;
+
     public Lease(T r, int durationInSecs) {
         holder = r;
         registrationTimestamp = System.currentTimeMillis();
@@ -61,7 +65,10 @@ public class Lease<T> {
      */
     public void renew() {
         lastUpdateTimestamp = System.currentTimeMillis() + duration;
-
+        LeaseExpiryIndex<T> index = expiryIndex;
+        if (index != null) {
+            index.update(this);
+        }
     }
 
     /**
@@ -111,6 +118,13 @@ public class Lease<T> {
         return (evictionTimestamp > 0 || System.currentTimeMillis() > (lastUpdateTimestamp + duration + additionalLeaseMs));
     }
 
+    /**
+     * Gets the milliseconds since epoch after which the lease is expired, as evaluated by {@link #isExpired()}.
+     */
+    long getExpiryTimestamp() {
+        return lastUpdateTimestamp + duration;
+    }
+
     /**
      * Gets the milliseconds since epoch when the lease was registered.
      *
@@ -0,0 +1,157 @@
+package com.netflix.eureka.lease;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * An index of {@link Lease}s by the time they expire at, so that finding the expired leases does not require
+ * walking all of them.
+ *
+ * <p>
+ * Leases are kept in buckets of {@code bucketWidthMs} wide expiry time ranges. A lease added to the index moves
+ * itself to its new bucket on {@link Lease#renew()}, which is a constant time operation. Finding the expired leases
+ * only visits the buckets that are due, so its cost is proportional to the number of expired leases, plus the
+ * leases of the last, partially due bucket.
+ * </p>
+ *
+ * @param <T> the lease holder type
+ */
+public class LeaseExpiryIndex<T> {
+
+    private final long bucketWidthMs;
+    private final ConcurrentSkipListMap<Long, Set<Lease<T>>> buckets = new ConcurrentSkipListMap<>();
+
+    public LeaseExpiryIndex(long bucketWidthMs) {
+        this.bucketWidthMs = bucketWidthMs;
+    }
+
+    /**
+     * Adds the lease to this index, and keeps it updated on subsequent renewals.
+     */
+    public void add(Lease<T> lease) {
+        synchronized (lease) {
+            if (lease.expiryIndex != null) {
+                lease.expiryIndex.remove(lease);
+            }
+            long bucket = bucketOf(lease.getExpiryTimestamp());
+            addToBucket(bucket, lease);
+            lease.expiryBucket = bucket;
+            lease.expiryIndex = this;
+        }
+    }
+
+    /**
+     * Removes the lease from this index. Removed leases are no longer updated on renewals.
+     */
+    public void remove(Lease<T> lease) {
+        synchronized (lease) {
+            if (lease.expiryIndex != this) {
+                return;
+            }
+            removeFromBucket(lease.expiryBucket, lease);
+            lease.expiryIndex = null;
+        }
+    }
+
+    /**
+     * Moves the lease to the bucket of its current expiry time, if it changed.
+     */
+    void update(Lease<T> lease) {
+        if (lease.expiryBucket == bucketOf(lease.getExpiryTimestamp())) {
+            return;
+        }
+        synchronized (lease) {
+            if (lease.expiryIndex != this) {
+                return;
+            }
+            long bucket = bucketOf(lease.getExpiryTimestamp());
+            if (bucket != lease.expiryBucket) {
+                addToBucket(bucket, lease);
+                removeFromBucket(lease.expiryBucket, lease);
+                lease.expiryBucket = bucket;
+            }
+        }
+    }
+
+    /**
+     * Gets all leases in this index, which are expired as defined by {@link Lease#isExpired(long)}.
+     *
+     * @param additionalLeaseMs any additional lease time to add to the lease evaluation in ms.
+     */
+    public List<Lease<T>> getExpired(long additionalLeaseMs) {
+        long now = System.currentTimeMillis();
+        long lastDueBucket = bucketOf(now - additionalLeaseMs);
+        long currentBucket = bucketOf(now);
+
+        List<Lease<T>> expired = new ArrayList<>();
+        ConcurrentNavigableMap<Long, Set<Lease<T>>> dueBuckets = buckets.headMap(lastDueBucket, true);
+        for (Map.Entry<Long, Set<Lease<T>>> bucketEntry : dueBuckets.entrySet()) {
+            Set<Lease<T>> leases = bucketEntry.getValue();
+            if (leases.isEmpty()) {
+                // No new leases are added to past buckets, so they can be dropped once they get empty
+                if (bucketEntry.getKey() < currentBucket - 1) {
+                    pruneBucket(bucketEntry.getKey(), leases);
+                }
+                continue;
+            }
+            for (Lease<T> lease : leases) {
+                if (lease.isExpired(additionalLeaseMs)) {
+                    expired.add(lease);
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Removes all leases from this index.
+     */
+    public void clear() {
+        for (Set<Lease<T>> leases : buckets.values()) {
+            for (Lease<T> lease : leases) {
+                remove(lease);
+            }
+        }
+    }
+
+    private long bucketOf(long timestamp) {
+        return timestamp / bucketWidthMs;
+    }
+
+    private void addToBucket(long bucket, Lease<T> lease) {
+        Set<Lease<T>> leases = buckets.get(bucket);
+        if (leases == null) {
+            Set<Lease<T>> newLeases = ConcurrentHashMap.newKeySet();
+            leases = buckets.putIfAbsent(bucket, newLeases);
+            if (leases == null) {
+                leases = newLeases;
+            }
+        }
+        leases.add(lease);
+    }
+
+    private void removeFromBucket(long bucket, Lease<T> lease) {
+        Set<Lease<T>> leases = buckets.get(bucket);
+        if (leases != null) {
+            leases.remove(lease);
+        }
+    }
+
+    private void pruneBucket(long bucket, Set<Lease<T>> leases) {
+        if (buckets.remove(bucket, leases) && !leases.isEmpty()) {
+            // Lost a race with a (very late) addition, so put the leases back
+            for (Lease<T> lease : leases) {
+                synchronized (lease) {
+                    if (lease.expiryIndex == this && lease.expiryBucket == bucket) {
+                        addToBucket(bucket, lease);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -21,8 +21,10 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.AbstractQueue;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -31,15 +33,16 @@ import java.util.Random;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.TreeMap;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 import com.google.common.cache.CacheBuilder;
 import com.netflix.appinfo.InstanceInfo;
@@ -52,6 +55,7 @@ import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.shared.Pair;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.lease.Lease;
+import com.netflix.eureka.lease.LeaseExpiryIndex;
 import com.netflix.eureka.registry.rule.InstanceStatusOverrideRule;
 import com.netflix.eureka.resources.ServerCodecs;
 import com.netflix.eureka.util.MeasuredRate;
@@ -77,8 +81,16 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     private static final Logger logger = LoggerFactory.getLogger(AbstractInstanceRegistry.class);
 
     private static final String[] EMPTY_STR_ARRAY = new String[0];
+    private static final char DELTA_CURSOR_SEPARATOR = '.';
+    private static final long LEASE_EXPIRY_BUCKET_WIDTH_MS = 1000;
     private final ConcurrentHashMap<String, Map<String, Lease<InstanceInfo>>> registry
             = new ConcurrentHashMap<String, Map<String, Lease<InstanceInfo>>>();
+    private final LeaseExpiryIndex<InstanceInfo> leaseExpiryIndex =
+            new LeaseExpiryIndex<InstanceInfo>(LEASE_EXPIRY_BUCKET_WIDTH_MS);
+    private final InstanceStatusCounter instanceStatusCounter = new InstanceStatusCounter(this::isRegistered);
+    private final InstanceIndex instanceIdIndex = InstanceIndex.byId();
+    private final InstanceIndex vipIndex = InstanceIndex.byVipAddress(InstanceInfo::getVIPAddress);
+    private final InstanceIndex secureVipIndex = InstanceIndex.byVipAddress(InstanceInfo::getSecureVipAddress);
     protected Map<String, RemoteRegionRegistry> regionNameVSRemoteRegistry = new HashMap<String, RemoteRegionRegistry>();
     protected final ConcurrentMap<String, InstanceStatus> overriddenInstanceStatusMap = CacheBuilder
             .newBuilder().initialCapacity(500)
@@ -88,11 +100,20 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     // CircularQueues here for debugging/statistics purposes only
     private final CircularQueue<Pair<Long, String>> recentRegisteredQueue;
     private final CircularQueue<Pair<Long, String>> recentCanceledQueue;
-    private ConcurrentLinkedQueue<RecentlyChangedItem> recentlyChangedQueue = new ConcurrentLinkedQueue<RecentlyChangedItem>();
-
-    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-    private final Lock read = readWriteLock.readLock();
-    private final Lock write = readWriteLock.writeLock();
+    private final RecentlyChangedLog recentlyChangedQueue = new RecentlyChangedLog();
+    // Tells the delta cursors of this registry apart from the ones of other servers, and of its previous runs
+    private final String deltaCursorEpoch = Long.toHexString(new Random().nextLong());
+    // Bound the number of request threads waiting for, and streaming, registry changes at once
+    private final Semaphore watchPermits;
+    private final Semaphore eventStreamPermits;
+
+    // Makes updating the instance counts and logging the change one step, see logChange
+    private final Object changeLogLock = new Object();
+    // The local registry snapshot is rebuilt lazily, replacing only the apps changed since the previous one
+    private final AtomicLong registryVersion = new AtomicLong();
+    private final Set<String> changedApps = ConcurrentHashMap.newKeySet();
+    private final Object snapshotLock = new Object();
+    private volatile RegistrySnapshot registrySnapshot = RegistrySnapshot.EMPTY;
     protected final Object lock = new Object();
 
     private Timer deltaRetentionTimer = new Timer("Eureka-DeltaRetentionTimer", true);
@@ -121,6 +142,8 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         this.recentRegisteredQueue = new CircularQueue<Pair<Long, String>>(1000);
 
         this.renewsLastMin = new MeasuredRate(1000 * 60 * 1);
+        this.watchPermits = new Semaphore(Math.max(0, serverConfig.getMaxWatchRequests()));
+        this.eventStreamPermits = new Semaphore(Math.max(0, serverConfig.getMaxEventStreams()));
 
         this.deltaRetentionTimer.schedule(getDeltaRetentionTask(),
                 serverConfig.getDeltaRetentionTimerIntervalInMs(),
@@ -167,6 +190,12 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         return total;
     }
 
+    private boolean isRegistered(Lease<InstanceInfo> lease) {
+        InstanceInfo instanceInfo = lease.getHolder();
+        Map<String, Lease<InstanceInfo>> gMap = registry.get(instanceInfo.getAppName());
+        return gMap != null && gMap.get(instanceInfo.getId()) == lease;
+    }
+
     /**
      * Completely clear the registry.
      */
@@ -175,8 +204,18 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         overriddenInstanceStatusMap.clear();
         recentCanceledQueue.clear();
         recentRegisteredQueue.clear();
-        recentlyChangedQueue.clear();
+        for (String appName : registry.keySet()) {
+            markChanged(appName);
+        }
         registry.clear();
+        leaseExpiryIndex.clear();
+        instanceIdIndex.clear();
+        vipIndex.clear();
+        secureVipIndex.clear();
+        synchronized (changeLogLock) {
+            instanceStatusCounter.clear();
+            recentlyChangedQueue.clear(instanceStatusCounter.getCounts());
+        }
     }
 
     // for server info use
@@ -191,83 +230,94 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      * @see com.netflix.eureka.lease.LeaseManager#register(java.lang.Object, int, boolean)
      */
     public void register(InstanceInfo registrant, int leaseDuration, boolean isReplication) {
-        try {
-            read.lock();
-            Map<String, Lease<InstanceInfo>> gMap = registry.get(registrant.getAppName());
-            REGISTER.increment(isReplication);
+        Map<String, Lease<InstanceInfo>> gMap = registry.get(registrant.getAppName());
+        REGISTER.increment(isReplication);
+        if (gMap == null) {
+            final ConcurrentHashMap<String, Lease<InstanceInfo>> gNewMap = new ConcurrentHashMap<String, Lease<InstanceInfo>>();
+            gMap = registry.putIfAbsent(registrant.getAppName(), gNewMap);
             if (gMap == null) {
-                final ConcurrentHashMap<String, Lease<InstanceInfo>> gNewMap = new ConcurrentHashMap<String, Lease<InstanceInfo>>();
-                gMap = registry.putIfAbsent(registrant.getAppName(), gNewMap);
-                if (gMap == null) {
-                    gMap = gNewMap;
-                }
+                gMap = gNewMap;
             }
-            Lease<InstanceInfo> existingLease = gMap.get(registrant.getId());
-            // Retain the last dirty timestamp without overwriting it, if there is already a lease
-            if (existingLease != null && (existingLease.getHolder() != null)) {
-                Long existingLastDirtyTimestamp = existingLease.getHolder().getLastDirtyTimestamp();
-                Long registrationLastDirtyTimestamp = registrant.getLastDirtyTimestamp();
-                logger.debug("Existing lease found (existing={}, provided={}", existingLastDirtyTimestamp, registrationLastDirtyTimestamp);
-
-                // this is a > instead of a >= because if the timestamps are equal, we still take the remote transmitted
-                // InstanceInfo instead of the server local copy.
-                if (existingLastDirtyTimestamp > registrationLastDirtyTimestamp) {
-                    logger.warn("There is an existing lease and the existing lease's dirty timestamp {} is greater" +
-                            " than the one that is being registered {}", existingLastDirtyTimestamp, registrationLastDirtyTimestamp);
-                    logger.warn("Using the existing instanceInfo instead of the new instanceInfo as the registrant");
-                    registrant = existingLease.getHolder();
-                }
-            } else {
-                // The lease does not exist and hence it is a new registration
-                synchronized (lock) {
-                    if (this.expectedNumberOfClientsSendingRenews > 0) {
-                        // Since the client wants to register it, increase the number of clients sending renews
-                        this.expectedNumberOfClientsSendingRenews = this.expectedNumberOfClientsSendingRenews + 1;
-                        updateRenewsPerMinThreshold();
-                    }
-                }
-                logger.debug("No previous lease information found; it is new registration");
-            }
-            Lease<InstanceInfo> lease = new Lease<InstanceInfo>(registrant, leaseDuration);
-            if (existingLease != null) {
-                lease.setServiceUpTimestamp(existingLease.getServiceUpTimestamp());
+        }
+        Lease<InstanceInfo> existingLease = gMap.get(registrant.getId());
+        // Retain the last dirty timestamp without overwriting it, if there is already a lease
+        if (existingLease != null && (existingLease.getHolder() != null)) {
+            Long existingLastDirtyTimestamp = existingLease.getHolder().getLastDirtyTimestamp();
+            Long registrationLastDirtyTimestamp = registrant.getLastDirtyTimestamp();
+            logger.debug("Existing lease found (existing={}, provided={}", existingLastDirtyTimestamp, registrationLastDirtyTimestamp);
+
+            // this is a > instead of a >= because if the timestamps are equal, we still take the remote transmitted
+            // InstanceInfo instead of the server local copy.
+            if (existingLastDirtyTimestamp > registrationLastDirtyTimestamp) {
+                logger.warn("There is an existing lease and the existing lease's dirty timestamp {} is greater" +
+                        " than the one that is being registered {}", existingLastDirtyTimestamp, registrationLastDirtyTimestamp);
+                logger.warn("Using the existing instanceInfo instead of the new instanceInfo as the registrant");
+                registrant = existingLease.getHolder();
             }
-            gMap.put(registrant.getId(), lease);
-            recentRegisteredQueue.add(new Pair<Long, String>(
-                    System.currentTimeMillis(),
-                    registrant.getAppName() + "(" + registrant.getId() + ")"));
-            // This is where the initial state transfer of overridden status happens
-            if (!InstanceStatus.UNKNOWN.equals(registrant.getOverriddenStatus())) {
-                logger.debug("Found overridden status {} for instance {}. Checking to see if needs to be add to the "
-                                + "overrides", registrant.getOverriddenStatus(), registrant.getId());
-                if (!overriddenInstanceStatusMap.containsKey(registrant.getId())) {
-                    logger.info("Not found overridden id {} and hence adding it", registrant.getId());
-                    overriddenInstanceStatusMap.put(registrant.getId(), registrant.getOverriddenStatus());
+        } else {
+            // The lease does not exist and hence it is a new registration
+            synchronized (lock) {
+                if (this.expectedNumberOfClientsSendingRenews > 0) {
+                    // Since the client wants to register it, increase the number of clients sending renews
+                    this.expectedNumberOfClientsSendingRenews = this.expectedNumberOfClientsSendingRenews + 1;
+                    updateRenewsPerMinThreshold();
                 }
             }
-            InstanceStatus overriddenStatusFromMap = overriddenInstanceStatusMap.get(registrant.getId());
-            if (overriddenStatusFromMap != null) {
-                logger.info("Storing overridden status {} from map", overriddenStatusFromMap);
-                registrant.setOverriddenStatus(overriddenStatusFromMap);
+            logger.debug("No previous lease information found; it is new registration");
+        }
+        Lease<InstanceInfo> lease = new Lease<InstanceInfo>(registrant, leaseDuration);
+        if (existingLease != null) {
+            lease.setServiceUpTimestamp(existingLease.getServiceUpTimestamp());
+        }
+        leaseExpiryIndex.add(lease);
+        instanceIdIndex.add(lease);
+        vipIndex.add(lease);
+        secureVipIndex.add(lease);
+        Lease<InstanceInfo> replacedLease = gMap.put(registrant.getId(), lease);
+        if (replacedLease != null) {
+            leaseExpiryIndex.remove(replacedLease);
+            instanceIdIndex.remove(replacedLease);
+            vipIndex.remove(replacedLease);
+            secureVipIndex.remove(replacedLease);
+        }
+        markChanged(registrant.getAppName());
+        recentRegisteredQueue.add(new Pair<Long, String>(
+                System.currentTimeMillis(),
+                registrant.getAppName() + "(" + registrant.getId() + ")"));
+        // This is where the initial state transfer of overridden status happens
+        if (!InstanceStatus.UNKNOWN.equals(registrant.getOverriddenStatus())) {
+            logger.debug("Found overridden status {} for instance {}. Checking to see if needs to be add to the "
+                            + "overrides", registrant.getOverriddenStatus(), registrant.getId());
+            if (!overriddenInstanceStatusMap.containsKey(registrant.getId())) {
+                logger.info("Not found overridden id {} and hence adding it", registrant.getId());
+                overriddenInstanceStatusMap.put(registrant.getId(), registrant.getOverriddenStatus());
             }
+        }
+        InstanceStatus overriddenStatusFromMap = overriddenInstanceStatusMap.get(registrant.getId());
+        if (overriddenStatusFromMap != null) {
+            logger.info("Storing overridden status {} from map", overriddenStatusFromMap);
+            registrant.setOverriddenStatus(overriddenStatusFromMap);
+        }
 
-            // Set the status based on the overridden status rules
-            InstanceStatus overriddenInstanceStatus = getOverriddenInstanceStatus(registrant, existingLease, isReplication);
-            registrant.setStatusWithoutDirty(overriddenInstanceStatus);
+        // Set the status based on the overridden status rules
+        InstanceStatus overriddenInstanceStatus = getOverriddenInstanceStatus(registrant, existingLease, isReplication);
+        registrant.setStatusWithoutDirty(overriddenInstanceStatus);
 
-            // If the lease is registered with UP status, set lease service up timestamp
-            if (InstanceStatus.UP.equals(registrant.getStatus())) {
-                lease.serviceUp();
-            }
-            registrant.setActionType(ActionType.ADDED);
-            recentlyChangedQueue.add(new RecentlyChangedItem(lease));
-            registrant.setLastUpdatedTimestamp();
-            invalidateCache(registrant.getAppName(), registrant.getVIPAddress(), registrant.getSecureVipAddress());
-            logger.info("Registered instance {}/{} with status {} (replication={})",
-                    registrant.getAppName(), registrant.getId(), registrant.getStatus(), isReplication);
-        } finally {
-            read.unlock();
+        // If the lease is registered with UP status, set lease service up timestamp
+        if (InstanceStatus.UP.equals(registrant.getStatus())) {
+            lease.serviceUp();
         }
+        registrant.setActionType(ActionType.ADDED);
+        logChange(lease, added -> {
+            if (replacedLease != null) {
+                instanceStatusCounter.untrack(replacedLease);
+            }
+            instanceStatusCounter.track(added);
+        });
+        registrant.setLastUpdatedTimestamp();
+        invalidateCache(registrant.getAppName(), registrant.getVIPAddress(), registrant.getSecureVipAddress());
+        logger.info("Registered instance {}/{} with status {} (replication={})",
+                registrant.getAppName(), registrant.getId(), registrant.getStatus(), isReplication);
     }
 
     /**
@@ -295,41 +345,43 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
      * in the remote peers as valid cancellations, so self preservation mode would not kick-in.
      */
     protected boolean internalCancel(String appName, String id, boolean isReplication) {
-        try {
-            read.lock();
-            CANCEL.increment(isReplication);
-            Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
-            Lease<InstanceInfo> leaseToCancel = null;
-            if (gMap != null) {
-                leaseToCancel = gMap.remove(id);
-            }
-            recentCanceledQueue.add(new Pair<Long, String>(System.currentTimeMillis(), appName + "(" + id + ")"));
-            InstanceStatus instanceStatus = overriddenInstanceStatusMap.remove(id);
-            if (instanceStatus != null) {
-                logger.debug("Removed instance id {} from the overridden map which has value {}", id, instanceStatus.name());
-            }
-            if (leaseToCancel == null) {
-                CANCEL_NOT_FOUND.increment(isReplication);
-                logger.warn("DS: Registry: cancel failed because Lease is not registered for: {}/{}", appName, id);
-                return false;
-            } else {
-                leaseToCancel.cancel();
-                InstanceInfo instanceInfo = leaseToCancel.getHolder();
-                String vip = null;
-                String svip = null;
-                if (instanceInfo != null) {
-                    instanceInfo.setActionType(ActionType.DELETED);
-                    recentlyChangedQueue.add(new RecentlyChangedItem(leaseToCancel));
-                    instanceInfo.setLastUpdatedTimestamp();
-                    vip = instanceInfo.getVIPAddress();
-                    svip = instanceInfo.getSecureVipAddress();
-                }
-                invalidateCache(appName, vip, svip);
-                logger.info("Cancelled instance {}/{} (replication={})", appName, id, isReplication);
-                return true;
+        CANCEL.increment(isReplication);
+        Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
+        Lease<InstanceInfo> leaseToCancel = null;
+        if (gMap != null) {
+            leaseToCancel = gMap.remove(id);
+        }
+        if (leaseToCancel != null) {
+            leaseExpiryIndex.remove(leaseToCancel);
+            instanceIdIndex.remove(leaseToCancel);
+            vipIndex.remove(leaseToCancel);
+            secureVipIndex.remove(leaseToCancel);
+            markChanged(appName);
+        }
+        recentCanceledQueue.add(new Pair<Long, String>(System.currentTimeMillis(), appName + "(" + id + ")"));
+        InstanceStatus instanceStatus = overriddenInstanceStatusMap.remove(id);
+        if (instanceStatus != null) {
+            logger.debug("Removed instance id {} from the overridden map which has value {}", id, instanceStatus.name());
+        }
+        if (leaseToCancel == null) {
+            CANCEL_NOT_FOUND.increment(isReplication);
+            logger.warn("DS: Registry: cancel failed because Lease is not registered for: {}/{}", appName, id);
+            return false;
+        } else {
+            leaseToCancel.cancel();
+            InstanceInfo instanceInfo = leaseToCancel.getHolder();
+            String vip = null;
+            String svip = null;
+            if (instanceInfo != null) {
+                instanceInfo.setActionType(ActionType.DELETED);
+                logChange(leaseToCancel, instanceStatusCounter::untrack);
+                instanceInfo.setLastUpdatedTimestamp();
+                vip = instanceInfo.getVIPAddress();
+                svip = instanceInfo.getSecureVipAddress();
             }
-        } finally {
-            read.unlock();
+            invalidateCache(appName, vip, svip);
+            logger.info("Cancelled instance {}/{} (replication={})", appName, id, isReplication);
+            return true;
         }
     }
 
@@ -369,6 +421,8 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                                     instanceInfo.getOverriddenStatus().name(),
                                     instanceInfo.getId());
                     instanceInfo.setStatusWithoutDirty(overriddenInstanceStatus);
+                    instanceStatusCounter.track(leaseToRenew);
+                    markChanged(appName);
 
                 }
             }
@@ -453,53 +507,49 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     public boolean statusUpdate(String appName, String id,
                                 InstanceStatus newStatus, String lastDirtyTimestamp,
                                 boolean isReplication) {
-        try {
-            read.lock();
-            STATUS_UPDATE.increment(isReplication);
-            Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
-            Lease<InstanceInfo> lease = null;
-            if (gMap != null) {
-                lease = gMap.get(id);
+        STATUS_UPDATE.increment(isReplication);
+        Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
+        Lease<InstanceInfo> lease = null;
+        if (gMap != null) {
+            lease = gMap.get(id);
+        }
+        if (lease == null) {
+            return false;
+        } else {
+            lease.renew();
+            InstanceInfo info = lease.getHolder();
+            // Lease is always created with its instance info object.
+            // This log statement is provided as a safeguard, in case this invariant is violated.
+            if (info == null) {
+                logger.error("Found Lease without a holder for instance id {}", id);
             }
-            if (lease == null) {
-                return false;
-            } else {
-                lease.renew();
-                InstanceInfo info = lease.getHolder();
-                // Lease is always created with its instance info object.
-                // This log statement is provided as a safeguard, in case this invariant is violated.
-                if (info == null) {
-                    logger.error("Found Lease without a holder for instance id {}", id);
+            if ((info != null) && !(info.getStatus().equals(newStatus))) {
+                // Mark service as UP if needed
+                if (InstanceStatus.UP.equals(newStatus)) {
+                    lease.serviceUp();
                 }
-                if ((info != null) && !(info.getStatus().equals(newStatus))) {
-                    // Mark service as UP if needed
-                    if (InstanceStatus.UP.equals(newStatus)) {
-                        lease.serviceUp();
-                    }
-                    // This is NAC overriden status
-                    overriddenInstanceStatusMap.put(id, newStatus);
-                    // Set it for transfer of overridden status to replica on
-                    // replica start up
-                    info.setOverriddenStatus(newStatus);
-                    long replicaDirtyTimestamp = 0;
-                    info.setStatusWithoutDirty(newStatus);
-                    if (lastDirtyTimestamp != null) {
-                        replicaDirtyTimestamp = Long.valueOf(lastDirtyTimestamp);
-                    }
-                    // If the replication's dirty timestamp is more than the existing one, just update
-                    // it to the replica's.
-                    if (replicaDirtyTimestamp > info.getLastDirtyTimestamp()) {
-                        info.setLastDirtyTimestamp(replicaDirtyTimestamp);
-                    }
-                    info.setActionType(ActionType.MODIFIED);
-                    recentlyChangedQueue.add(new RecentlyChangedItem(lease));
-                    info.setLastUpdatedTimestamp();
-                    invalidateCache(appName, info.getVIPAddress(), info.getSecureVipAddress());
+                // This is NAC overriden status
+                overriddenInstanceStatusMap.put(id, newStatus);
+                // Set it for transfer of overridden status to replica on
+                // replica start up
+                info.setOverriddenStatus(newStatus);
+                long replicaDirtyTimestamp = 0;
+                info.setStatusWithoutDirty(newStatus);
+                markChanged(appName);
+                if (lastDirtyTimestamp != null) {
+                    replicaDirtyTimestamp = Long.valueOf(lastDirtyTimestamp);
+                }
+                // If the replication's dirty timestamp is more than the existing one, just update
+                // it to the replica's.
+                if (replicaDirtyTimestamp > info.getLastDirtyTimestamp()) {
+                    info.setLastDirtyTimestamp(replicaDirtyTimestamp);
                 }
-                return true;
+                info.setActionType(ActionType.MODIFIED);
+                logChange(lease, instanceStatusCounter::track);
+                info.setLastUpdatedTimestamp();
+                invalidateCache(appName, info.getVIPAddress(), info.getSecureVipAddress());
             }
-        } finally {
-            read.unlock();
+            return true;
         }
     }
 
@@ -519,48 +569,44 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                                         InstanceStatus newStatus,
                                         String lastDirtyTimestamp,
                                         boolean isReplication) {
-        try {
-            read.lock();
-            STATUS_OVERRIDE_DELETE.increment(isReplication);
-            Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
-            Lease<InstanceInfo> lease = null;
-            if (gMap != null) {
-                lease = gMap.get(id);
+        STATUS_OVERRIDE_DELETE.increment(isReplication);
+        Map<String, Lease<InstanceInfo>> gMap = registry.get(appName);
+        Lease<InstanceInfo> lease = null;
+        if (gMap != null) {
+            lease = gMap.get(id);
+        }
+        if (lease == null) {
+            return false;
+        } else {
+            lease.renew();
+            InstanceInfo info = lease.getHolder();
+
+            // Lease is always created with its instance info object.
+            // This log statement is provided as a safeguard, in case this invariant is violated.
+            if (info == null) {
+                logger.error("Found Lease without a holder for instance id {}", id);
             }
-            if (lease == null) {
-                return false;
-            } else {
-                lease.renew();
-                InstanceInfo info = lease.getHolder();
-
-                // Lease is always created with its instance info object.
-                // This log statement is provided as a safeguard, in case this invariant is violated.
-                if (info == null) {
-                    logger.error("Found Lease without a holder for instance id {}", id);
-                }
 
-                InstanceStatus currentOverride = overriddenInstanceStatusMap.remove(id);
-                if (currentOverride != null && info != null) {
-                    info.setOverriddenStatus(InstanceStatus.UNKNOWN);
-                    info.setStatusWithoutDirty(newStatus);
-                    long replicaDirtyTimestamp = 0;
-                    if (lastDirtyTimestamp != null) {
-                        replicaDirtyTimestamp = Long.valueOf(lastDirtyTimestamp);
-                    }
-                    // If the replication's dirty timestamp is more than the existing one, just update
-                    // it to the replica's.
-                    if (replicaDirtyTimestamp > info.getLastDirtyTimestamp()) {
-                        info.setLastDirtyTimestamp(replicaDirtyTimestamp);
-                    }
-                    info.setActionType(ActionType.MODIFIED);
-                    recentlyChangedQueue.add(new RecentlyChangedItem(lease));
-                    info.setLastUpdatedTimestamp();
-                    invalidateCache(appName, info.getVIPAddress(), info.getSecureVipAddress());
+            InstanceStatus currentOverride = overriddenInstanceStatusMap.remove(id);
+            if (currentOverride != null && info != null) {
+                info.setOverriddenStatus(InstanceStatus.UNKNOWN);
+                info.setStatusWithoutDirty(newStatus);
+                markChanged(appName);
+                long replicaDirtyTimestamp = 0;
+                if (lastDirtyTimestamp != null) {
+                    replicaDirtyTimestamp = Long.valueOf(lastDirtyTimestamp);
                 }
-                return true;
+                // If the replication's dirty timestamp is more than the existing one, just update
+                // it to the replica's.
+                if (replicaDirtyTimestamp > info.getLastDirtyTimestamp()) {
+                    info.setLastDirtyTimestamp(replicaDirtyTimestamp);
+                }
+                info.setActionType(ActionType.MODIFIED);
+                logChange(lease, instanceStatusCounter::track);
+                info.setLastUpdatedTimestamp();
+                invalidateCache(appName, info.getVIPAddress(), info.getSecureVipAddress());
             }
-        } finally {
-            read.unlock();
+            return true;
         }
     }
 
@@ -585,16 +631,11 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         // We collect first all expired items, to evict them in random order. For large eviction sets,
         // if we do not that, we might wipe out whole apps before self preservation kicks in. By randomizing it,
         // the impact should be evenly distributed across all applications.
+        // The expiry index only visits the leases that are due, instead of walking the whole registry.
         List<Lease<InstanceInfo>> expiredLeases = new ArrayList<>();
-        for (Entry<String, Map<String, Lease<InstanceInfo>>> groupEntry : registry.entrySet()) {
-            Map<String, Lease<InstanceInfo>> leaseMap = groupEntry.getValue();
-            if (leaseMap != null) {
-                for (Entry<String, Lease<InstanceInfo>> leaseEntry : leaseMap.entrySet()) {
-                    Lease<InstanceInfo> lease = leaseEntry.getValue();
-                    if (lease.isExpired(additionalLeaseMs) && lease.getHolder() != null) {
-                        expiredLeases.add(lease);
-                    }
-                }
+        for (Lease<InstanceInfo> lease : leaseExpiryIndex.getExpired(additionalLeaseMs)) {
+            if (lease.getHolder() != null) {
+                expiredLeases.add(lease);
             }
         }
 
@@ -735,6 +776,8 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         } else {
             GET_ALL_CACHE_MISS.increment();
         }
+        Map<String, AtomicInteger> instanceCountMap = new TreeMap<String, AtomicInteger>();
+        instanceStatusCounter.populateInstanceCountMap(instanceCountMap);
         Applications apps = new Applications();
         apps.setVersion(1L);
         for (Entry<String, Map<String, Lease<InstanceInfo>>> entry : registry.entrySet()) {
@@ -770,6 +813,7 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                             }
                             for (InstanceInfo instanceInfo : application.getInstances()) {
                                 appInstanceTillNow.addInstance(instanceInfo);
+                                countInstance(instanceInfo, instanceCountMap);
                             }
                         } else {
                             logger.debug("Application {} not fetched from the remote region {} as there exists a "
@@ -782,10 +826,133 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                 }
             }
         }
+        apps.setAppsHashCode(Applications.getReconcileHashCode(instanceCountMap));
+        return apps;
+    }
+
+    /**
+     * Gets the same applications as {@link #getApplications()}, for read only use. If they are only the local ones,
+     * they are served from the current {@link RegistrySnapshot}, which is shared between all the callers.
+     */
+    Applications getApplicationsForReadOnly() {
+        boolean disableTransparentFallback = serverConfig.disableTransparentFallbackToOtherRegion();
+        if (!disableTransparentFallback && allKnownRemoteRegions.length != 0) {
+            return getApplicationsFromAllRemoteRegions();
+        }
+        GET_ALL_CACHE_MISS.increment();
+        return getRegistrySnapshot().getApplications();
+    }
+
+    /**
+     * Gets the current snapshot of the local registry, if the registry did not change since it was built. Otherwise
+     * a new snapshot is derived from it, rebuilding only the applications that changed. The lease information of the
+     * instances is refreshed on all applications once the snapshot is older than
+     * {@link EurekaServerConfig#getResponseCacheAutoExpirationInSeconds()}, which bounds its staleness the same
+     * way as the response cache entries.
+     */
+    RegistrySnapshot getRegistrySnapshot() {
+        RegistrySnapshot snapshot = registrySnapshot;
+        if (snapshot.getVersion() == registryVersion.get() && !isExpired(snapshot)) {
+            return snapshot;
+        }
+        synchronized (snapshotLock) {
+            snapshot = registrySnapshot;
+            long version = registryVersion.get();
+            boolean expired = isExpired(snapshot);
+            if (snapshot.getVersion() == version && !expired) {
+                return snapshot;
+            }
+            // Claim the changed apps after reading the version; changes marked after that get a newer version
+            Set<String> appNames = new HashSet<String>();
+            for (Iterator<String> it = changedApps.iterator(); it.hasNext(); ) {
+                appNames.add(it.next());
+                it.remove();
+            }
+            if (expired) {
+                appNames.addAll(registry.keySet());
+                for (Application application : snapshot.getApplications().getRegisteredApplications()) {
+                    appNames.add(application.getName());
+                }
+            }
+            Map<String, Application> changedApplications = new HashMap<String, Application>();
+            for (String appName : appNames) {
+                changedApplications.put(appName, buildApplication(appName));
+            }
+            snapshot = snapshot.next(version, changedApplications, instanceStatusCounter.getReconcileHashCode());
+            registrySnapshot = snapshot;
+            return snapshot;
+        }
+    }
+
+    /**
+     * Gets the same applications as {@link #getApplications()}, restricted to the instances of the given VIP, or
+     * secure VIP. The local instances are looked up in the VIP index, so the cost is proportional to the size of the
+     * VIP rather than that of the registry.
+     */
+    Applications getApplicationsForVip(String vip, boolean secure) {
+        Applications apps = new Applications();
+        for (Lease<InstanceInfo> lease : (secure ? secureVipIndex : vipIndex).get(vip)) {
+            if (isRegistered(lease)) {
+                addInstance(apps, lease.getHolder().getAppName(), decorateInstanceInfo(lease));
+            }
+        }
+        boolean disableTransparentFallback = serverConfig.disableTransparentFallbackToOtherRegion();
+        if (!disableTransparentFallback) {
+            for (String remoteRegion : allKnownRemoteRegions) {
+                RemoteRegionRegistry remoteRegistry = regionNameVSRemoteRegistry.get(remoteRegion);
+                if (null == remoteRegistry) {
+                    continue;
+                }
+                for (Application application : remoteRegistry.getApplications().getRegisteredApplications()) {
+                    if (shouldFetchFromRemoteRegistry(application.getName(), remoteRegion)) {
+                        for (InstanceInfo instanceInfo : application.getInstances()) {
+                            String vipAddress = secure ? instanceInfo.getSecureVipAddress() : instanceInfo.getVIPAddress();
+                            if (vipAddress != null && Arrays.asList(vipAddress.split(",")).contains(vip)) {
+                                addInstance(apps, application.getName(), instanceInfo);
+                            }
+                        }
+                    }
+                }
+            }
+        }
         apps.setAppsHashCode(apps.getReconcileHashCode());
         return apps;
     }
 
+    private static void addInstance(Applications apps, String appName, InstanceInfo instanceInfo) {
+        Application app = apps.getRegisteredApplications(appName);
+        if (app == null) {
+            app = new Application(appName);
+            apps.addApplication(app);
+        }
+        app.addInstance(instanceInfo);
+    }
+
+    private boolean isExpired(RegistrySnapshot snapshot) {
+        long maxAgeMs = TimeUnit.SECONDS.toMillis(serverConfig.getResponseCacheAutoExpirationInSeconds());
+        return System.currentTimeMillis() - snapshot.getCreatedAt() > maxAgeMs;
+    }
+
+    private Application buildApplication(String appName) {
+        Map<String, Lease<InstanceInfo>> leaseMap = registry.get(appName);
+        if (leaseMap == null) {
+            return null;
+        }
+        Application app = null;
+        for (Lease<InstanceInfo> lease : leaseMap.values()) {
+            if (app == null) {
+                app = new Application(lease.getHolder().getAppName());
+            }
+            app.addInstance(decorateInstanceInfo(lease));
+        }
+        return app;
+    }
+
+    private void markChanged(String appName) {
+        changedApps.add(appName);
+        registryVersion.incrementAndGet();
+    }
+
     private boolean shouldFetchFromRemoteRegistry(String appName, String remoteRegion) {
         Set<String> whiteList = serverConfig.getRemoteRegionAppWhitelist(remoteRegion);
         if (null == whiteList) {
@@ -809,6 +976,8 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     @Deprecated
     public Applications getApplications(boolean includeRemoteRegion) {
         GET_ALL_CACHE_MISS.increment();
+        Map<String, AtomicInteger> instanceCountMap = new TreeMap<String, AtomicInteger>();
+        instanceStatusCounter.populateInstanceCountMap(instanceCountMap);
         Applications apps = new Applications();
         apps.setVersion(1L);
         for (Entry<String, Map<String, Lease<InstanceInfo>>> entry : registry.entrySet()) {
@@ -839,14 +1008,102 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                             .getRegisteredApplications(application.getName());
                     if (appInLocalRegistry == null) {
                         apps.addApplication(application);
+                        countInstances(application, instanceCountMap);
                     }
                 }
             }
         }
-        apps.setAppsHashCode(apps.getReconcileHashCode());
+        apps.setAppsHashCode(Applications.getReconcileHashCode(instanceCountMap));
         return apps;
     }
 
+    /**
+     * Gets the reconcile hash code of {@link #getApplications(boolean)}, without building the applications.
+     *
+     * @param statusCounts the local instance counts to compute it from, as returned by
+     *                     {@link InstanceStatusCounter#getCounts()}
+     */
+    private String getReconcileHashCode(int[] statusCounts, boolean includeRemoteRegion) {
+        Map<String, AtomicInteger> instanceCountMap = new TreeMap<String, AtomicInteger>();
+        InstanceStatusCounter.populateInstanceCountMap(statusCounts, instanceCountMap);
+        if (includeRemoteRegion) {
+            Set<String> remoteAppNames = new HashSet<String>();
+            for (RemoteRegionRegistry remoteRegistry : this.regionNameVSRemoteRegistry.values()) {
+                for (Application application : remoteRegistry.getApplications().getRegisteredApplications()) {
+                    if (!hasLocalInstances(application.getName()) && remoteAppNames.add(application.getName())) {
+                        countInstances(application, instanceCountMap);
+                    }
+                }
+            }
+        }
+        return Applications.getReconcileHashCode(instanceCountMap);
+    }
+
+    /**
+     * Gets the reconcile hash code of {@link #getApplicationsFromMultipleRegions(String[])}, without building the
+     * applications.
+     *
+     * @param statusCounts the local instance counts to compute it from, as returned by
+     *                     {@link InstanceStatusCounter#getCounts()}
+     */
+    private String getReconcileHashCodeFromMultipleRegions(int[] statusCounts, String[] remoteRegions) {
+        Map<String, AtomicInteger> instanceCountMap = new TreeMap<String, AtomicInteger>();
+        InstanceStatusCounter.populateInstanceCountMap(statusCounts, instanceCountMap);
+        for (String remoteRegion : remoteRegions) {
+            RemoteRegionRegistry remoteRegistry = regionNameVSRemoteRegistry.get(remoteRegion);
+            if (null != remoteRegistry) {
+                for (Application application : remoteRegistry.getApplications().getRegisteredApplications()) {
+                    if (shouldFetchFromRemoteRegistry(application.getName(), remoteRegion)) {
+                        for (InstanceInfo instanceInfo : application.getInstances()) {
+                            countInstance(instanceInfo, instanceCountMap);
+                        }
+                    }
+                }
+            }
+        }
+        return Applications.getReconcileHashCode(instanceCountMap);
+    }
+
+    /**
+     * The reconcile hash code that goes with a delta must describe the registry state the delta leads up to,
+     * otherwise clients applying the delta see a hash code mismatch and fall back to a full fetch. Hence it is
+     * computed from the instance counts recorded with the last change in the delta, rather than from the current
+     * ones, which may already include changes made after the delta was read.
+     */
+    private int[] getStatusCounts(RecentlyChangedLog.Snapshot recentlyChanged) {
+        int[] statusCounts = recentlyChanged.getLastStatusCounts();
+        // Before the first change is logged, there are none the current counts could be ahead of
+        return statusCounts == null ? instanceStatusCounter.getCounts() : statusCounts;
+    }
+
+    /**
+     * Logs a change of the given lease to the {@link #recentlyChangedQueue}, applying its update of the instance
+     * counts at the same time, so that the counts recorded with each change include exactly the changes logged up
+     * to it. Only this short step is serialized; neither the rest of the registry updates nor the readers of the
+     * log wait for it.
+     */
+    private void logChange(Lease<InstanceInfo> lease, Consumer<Lease<InstanceInfo>> countsUpdate) {
+        synchronized (changeLogLock) {
+            countsUpdate.accept(lease);
+            recentlyChangedQueue.append(lease, instanceStatusCounter.getCounts());
+        }
+    }
+
+    private boolean hasLocalInstances(String appName) {
+        Map<String, Lease<InstanceInfo>> leaseMap = registry.get(appName);
+        return leaseMap != null && !leaseMap.isEmpty();
+    }
+
+    private static void countInstances(Application application, Map<String, AtomicInteger> instanceCountMap) {
+        for (InstanceInfo instanceInfo : application.getInstancesAsIsFromEureka()) {
+            countInstance(instanceInfo, instanceCountMap);
+        }
+    }
+
+    private static void countInstance(InstanceInfo instanceInfo, Map<String, AtomicInteger> instanceCountMap) {
+        instanceCountMap.computeIfAbsent(instanceInfo.getStatus().name(), k -> new AtomicInteger(0)).incrementAndGet();
+    }
+
     /**
      * Get the registry information about the delta changes. The deltas are
      * cached for a window specified by
@@ -865,50 +1122,39 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         Applications apps = new Applications();
         apps.setVersion(responseCache.getVersionDelta().get());
         Map<String, Application> applicationInstancesMap = new HashMap<String, Application>();
-        try {
-            write.lock();
-            Iterator<RecentlyChangedItem> iter = this.recentlyChangedQueue.iterator();
-            logger.debug("The number of elements in the delta queue is : {}",
-                    this.recentlyChangedQueue.size());
-            while (iter.hasNext()) {
-                Lease<InstanceInfo> lease = iter.next().getLeaseInfo();
-                InstanceInfo instanceInfo = lease.getHolder();
-                logger.debug(
-                        "The instance id {} is found with status {} and actiontype {}",
-                        instanceInfo.getId(), instanceInfo.getStatus().name(), instanceInfo.getActionType().name());
-                Application app = applicationInstancesMap.get(instanceInfo
-                        .getAppName());
-                if (app == null) {
-                    app = new Application(instanceInfo.getAppName());
-                    applicationInstancesMap.put(instanceInfo.getAppName(), app);
-                    apps.addApplication(app);
-                }
-                app.addInstance(new InstanceInfo(decorateInstanceInfo(lease)));
+        RecentlyChangedLog.Snapshot recentlyChanged = this.recentlyChangedQueue.snapshot();
+        logger.debug("The number of elements in the delta queue is : {}", recentlyChanged.size());
+        for (RecentlyChangedLog.RecentlyChangedItem item : recentlyChanged) {
+            Lease<InstanceInfo> lease = item.getLeaseInfo();
+            InstanceInfo instanceInfo = lease.getHolder();
+            logger.debug(
+                    "The instance id {} is found with status {} and actiontype {}",
+                    instanceInfo.getId(), instanceInfo.getStatus().name(), instanceInfo.getActionType().name());
+            Application app = applicationInstancesMap.get(instanceInfo
+                    .getAppName());
+            if (app == null) {
+                app = new Application(instanceInfo.getAppName());
+                applicationInstancesMap.put(instanceInfo.getAppName(), app);
+                apps.addApplication(app);
             }
+            app.addInstance(new InstanceInfo(decorateInstanceInfo(lease)));
+        }
 
-            boolean disableTransparentFallback = serverConfig.disableTransparentFallbackToOtherRegion();
-
-            if (!disableTransparentFallback) {
-                Applications allAppsInLocalRegion = getApplications(false);
+        boolean disableTransparentFallback = serverConfig.disableTransparentFallbackToOtherRegion();
 
-                for (RemoteRegionRegistry remoteRegistry : this.regionNameVSRemoteRegistry.values()) {
-                    Applications applications = remoteRegistry.getApplicationDeltas();
-                    for (Application application : applications.getRegisteredApplications()) {
-                        Application appInLocalRegistry =
-                                allAppsInLocalRegion.getRegisteredApplications(application.getName());
-                        if (appInLocalRegistry == null) {
-                            apps.addApplication(application);
-                        }
+        if (!disableTransparentFallback) {
+            for (RemoteRegionRegistry remoteRegistry : this.regionNameVSRemoteRegistry.values()) {
+                Applications applications = remoteRegistry.getApplicationDeltas();
+                for (Application application : applications.getRegisteredApplications()) {
+                    if (!hasLocalInstances(application.getName())) {
+                        apps.addApplication(application);
                     }
                 }
             }
-
-            Applications allApps = getApplications(!disableTransparentFallback);
-            apps.setAppsHashCode(allApps.getReconcileHashCode());
-            return apps;
-        } finally {
-            write.unlock();
         }
+
+        apps.setAppsHashCode(getReconcileHashCode(getStatusCounts(recentlyChanged), !disableTransparentFallback));
+        return apps;
     }
 
     /**
@@ -945,53 +1191,131 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         Applications apps = new Applications();
         apps.setVersion(responseCache.getVersionDeltaWithRegions().get());
         Map<String, Application> applicationInstancesMap = new HashMap<String, Application>();
-        try {
-            write.lock();
-            Iterator<RecentlyChangedItem> iter = this.recentlyChangedQueue.iterator();
-            logger.debug("The number of elements in the delta queue is :{}", this.recentlyChangedQueue.size());
-            while (iter.hasNext()) {
-                Lease<InstanceInfo> lease = iter.next().getLeaseInfo();
-                InstanceInfo instanceInfo = lease.getHolder();
-                logger.debug("The instance id {} is found with status {} and actiontype {}",
-                        instanceInfo.getId(), instanceInfo.getStatus().name(), instanceInfo.getActionType().name());
-                Application app = applicationInstancesMap.get(instanceInfo.getAppName());
-                if (app == null) {
-                    app = new Application(instanceInfo.getAppName());
-                    applicationInstancesMap.put(instanceInfo.getAppName(), app);
-                    apps.addApplication(app);
-                }
-                app.addInstance(new InstanceInfo(decorateInstanceInfo(lease)));
+        RecentlyChangedLog.Snapshot recentlyChanged = this.recentlyChangedQueue.snapshot();
+        logger.debug("The number of elements in the delta queue is :{}", recentlyChanged.size());
+        for (RecentlyChangedLog.RecentlyChangedItem item : recentlyChanged) {
+            Lease<InstanceInfo> lease = item.getLeaseInfo();
+            InstanceInfo instanceInfo = lease.getHolder();
+            logger.debug("The instance id {} is found with status {} and actiontype {}",
+                    instanceInfo.getId(), instanceInfo.getStatus().name(), instanceInfo.getActionType().name());
+            Application app = applicationInstancesMap.get(instanceInfo.getAppName());
+            if (app == null) {
+                app = new Application(instanceInfo.getAppName());
+                applicationInstancesMap.put(instanceInfo.getAppName(), app);
+                apps.addApplication(app);
             }
+            app.addInstance(new InstanceInfo(decorateInstanceInfo(lease)));
+        }
 
-            if (includeRemoteRegion) {
-                for (String remoteRegion : remoteRegions) {
-                    RemoteRegionRegistry remoteRegistry = regionNameVSRemoteRegistry.get(remoteRegion);
-                    if (null != remoteRegistry) {
-                        Applications remoteAppsDelta = remoteRegistry.getApplicationDeltas();
-                        if (null != remoteAppsDelta) {
-                            for (Application application : remoteAppsDelta.getRegisteredApplications()) {
-                                if (shouldFetchFromRemoteRegistry(application.getName(), remoteRegion)) {
-                                    Application appInstanceTillNow =
-                                            apps.getRegisteredApplications(application.getName());
-                                    if (appInstanceTillNow == null) {
-                                        appInstanceTillNow = new Application(application.getName());
-                                        apps.addApplication(appInstanceTillNow);
-                                    }
-                                    for (InstanceInfo instanceInfo : application.getInstances()) {
-                                        appInstanceTillNow.addInstance(new InstanceInfo(instanceInfo));
-                                    }
+        if (includeRemoteRegion) {
+            for (String remoteRegion : remoteRegions) {
+                RemoteRegionRegistry remoteRegistry = regionNameVSRemoteRegistry.get(remoteRegion);
+                if (null != remoteRegistry) {
+                    Applications remoteAppsDelta = remoteRegistry.getApplicationDeltas();
+                    if (null != remoteAppsDelta) {
+                        for (Application application : remoteAppsDelta.getRegisteredApplications()) {
+                            if (shouldFetchFromRemoteRegistry(application.getName(), remoteRegion)) {
+                                Application appInstanceTillNow =
+                                        apps.getRegisteredApplications(application.getName());
+                                if (appInstanceTillNow == null) {
+                                    appInstanceTillNow = new Application(application.getName());
+                                    apps.addApplication(appInstanceTillNow);
+                                }
+                                for (InstanceInfo instanceInfo : application.getInstances()) {
+                                    appInstanceTillNow.addInstance(new InstanceInfo(instanceInfo));
                                 }
                             }
                         }
                     }
                 }
             }
+        }
 
-            Applications allApps = getApplicationsFromMultipleRegions(remoteRegions);
-            apps.setAppsHashCode(allApps.getReconcileHashCode());
-            return apps;
+        apps.setAppsHashCode(getReconcileHashCodeFromMultipleRegions(getStatusCounts(recentlyChanged), remoteRegions));
+        return apps;
+    }
+
+    @Override
+    public String getDeltaCursor() {
+        if (!serverConfig.disableTransparentFallbackToOtherRegion() && allKnownRemoteRegions.length != 0) {
+            // The changes of the applications transparently served from the remote regions are not logged
+            return null;
+        }
+        return deltaCursorEpoch + DELTA_CURSOR_SEPARATOR + recentlyChangedQueue.getLastSequence();
+    }
+
+    @Override
+    public Applications getApplicationDeltasSince(String cursor) {
+        long sequence = parseDeltaCursor(cursor);
+        if (sequence < 0) {
+            return null;
+        }
+        RecentlyChangedLog.Snapshot recentlyChanged = this.recentlyChangedQueue.snapshotSince(sequence);
+        if (recentlyChanged == null) {
+            return null;
+        }
+        Applications apps = new Applications();
+        apps.setVersion(responseCache.getVersionDelta().get());
+        Map<String, Application> applicationInstancesMap = new HashMap<String, Application>();
+        for (RecentlyChangedLog.RecentlyChangedItem item : recentlyChanged) {
+            Lease<InstanceInfo> lease = item.getLeaseInfo();
+            InstanceInfo instanceInfo = lease.getHolder();
+            Application app = applicationInstancesMap.get(instanceInfo.getAppName());
+            if (app == null) {
+                app = new Application(instanceInfo.getAppName());
+                applicationInstancesMap.put(instanceInfo.getAppName(), app);
+                apps.addApplication(app);
+            }
+            app.addInstance(new InstanceInfo(decorateInstanceInfo(lease)));
+        }
+        apps.setAppsHashCode(getReconcileHashCode(getStatusCounts(recentlyChanged), false));
+        return apps;
+    }
+
+    @Override
+    public boolean awaitChangesSince(String cursor, long timeoutMs) throws InterruptedException {
+        long sequence = parseDeltaCursor(cursor);
+        if (sequence < 0 || sequence > recentlyChangedQueue.getLastSequence()) {
+            // Let the caller find out that the changes are not available
+            return true;
+        }
+        if (timeoutMs <= 0 || !watchPermits.tryAcquire()) {
+            return recentlyChangedQueue.getLastSequence() > sequence;
+        }
+        try {
+            return recentlyChangedQueue.awaitAppendedAfter(sequence, timeoutMs, TimeUnit.MILLISECONDS);
         } finally {
-            write.unlock();
+            watchPermits.release();
+        }
+    }
+
+    @Override
+    public RegistryChangeStream openChangeStream(String cursor) {
+        if (!eventStreamPermits.tryAcquire()) {
+            return null;
+        }
+        long sequence = parseDeltaCursor(cursor);
+        if (sequence > recentlyChangedQueue.getLastSequence()) {
+            sequence = -1;
+        }
+        return new RegistryChangeStream(recentlyChangedQueue, deltaCursorEpoch + DELTA_CURSOR_SEPARATOR,
+                this::decorateInstanceInfo, sequence, serverConfig.getMaxEventStreamBacklog(),
+                eventStreamPermits::release);
+    }
+
+    /**
+     * @return the sequence number of the given cursor, or -1 if it was not obtained from this registry, or the
+     * changes since a cursor are not available
+     */
+    private long parseDeltaCursor(String cursor) {
+        int separator = cursor.indexOf(DELTA_CURSOR_SEPARATOR);
+        if (separator < 0 || !deltaCursorEpoch.equals(cursor.substring(0, separator)) || getDeltaCursor() == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(cursor.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
         }
     }
 
@@ -1065,32 +1389,18 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
     public List<InstanceInfo> getInstancesById(String id, boolean includeRemoteRegions) {
         List<InstanceInfo> list = new ArrayList<InstanceInfo>();
 
-        for (Iterator<Entry<String, Map<String, Lease<InstanceInfo>>>> iter =
-                     registry.entrySet().iterator(); iter.hasNext(); ) {
-
-            Map<String, Lease<InstanceInfo>> leaseMap = iter.next().getValue();
-            if (leaseMap != null) {
-                Lease<InstanceInfo> lease = leaseMap.get(id);
-
-                if (lease == null || (isLeaseExpirationEnabled() && lease.isExpired())) {
-                    continue;
-                }
-
-                if (list == Collections.EMPTY_LIST) {
-                    list = new ArrayList<InstanceInfo>();
-                }
-                list.add(decorateInstanceInfo(lease));
+        for (Lease<InstanceInfo> lease : instanceIdIndex.get(id)) {
+            if (!isRegistered(lease) || (isLeaseExpirationEnabled() && lease.isExpired())) {
+                continue;
             }
+            list.add(decorateInstanceInfo(lease));
         }
         if (list.isEmpty() && includeRemoteRegions) {
             for (RemoteRegionRegistry remoteRegistry : this.regionNameVSRemoteRegistry.values()) {
-                for (Application application : remoteRegistry.getApplications()
-                        .getRegisteredApplications()) {
-                    InstanceInfo instanceInfo = application.getByInstanceId(id);
-                    if (instanceInfo != null) {
-                        list.add(instanceInfo);
-                        return list;
-                    }
+                InstanceInfo instanceInfo = remoteRegistry.getInstanceById(id);
+                if (instanceInfo != null) {
+                    list.add(instanceInfo);
+                    return list;
                 }
             }
         }
@@ -1182,24 +1492,6 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
                 * serverConfig.getRenewalPercentThreshold());
     }
 
-    private static final class RecentlyChangedItem {
-        private long lastUpdateTime;
-        private Lease<InstanceInfo> leaseInfo;
-
-        public RecentlyChangedItem(Lease<InstanceInfo> lease) {
-            this.leaseInfo = lease;
-            lastUpdateTime = System.currentTimeMillis();
-        }
-
-        public long getLastUpdateTime() {
-            return this.lastUpdateTime;
-        }
-
-        public Lease<InstanceInfo> getLeaseInfo() {
-            return this.leaseInfo;
-        }
-    }
-
     protected void postInit() {
         renewsLastMin.start();
         if (evictionTaskRef.get() != null) {
@@ -1328,20 +1620,21 @@ public abstract class AbstractInstanceRegistry implements InstanceRegistry {
         return rule.apply(r, existingLease, isReplication).status();
     }
 
+    /**
+     * Drops the changes retained for longer than {@link EurekaServerConfig#getRetentionTimeInMSInDeltaQueue()} from
+     * the delta queue, as the delta retention timer does periodically.
+     */
+    protected void expireDeltas() {
+        recentlyChangedQueue.expireOlderThan(
+                System.currentTimeMillis() - serverConfig.getRetentionTimeInMSInDeltaQueue());
+    }
+
     private TimerTask getDeltaRetentionTask() {
         return new TimerTask() {
 
             @Override
             public void run() {
-                Iterator<RecentlyChangedItem> it = recentlyChangedQueue.iterator();
-                while (it.hasNext()) {
-                    if (it.next().getLastUpdateTime() <
-                            System.currentTimeMillis() - serverConfig.getRetentionTimeInMSInDeltaQueue()) {
-                        it.remove();
-                    } else {
-                        break;
-                    }
-                }
+                expireDeltas();
             }
 
         };
@@ -0,0 +1,151 @@
+package com.netflix.eureka.registry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.converters.wrappers.EncoderWrapper;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Composes the JSON payload of all applications from the encoded fragments of the individual applications, so that
+ * only the applications which changed since the previous payload are encoded again.
+ *
+ * <p>
+ * An application is considered unchanged as long as it is the same {@link Application} object, as is the case for
+ * the applications of consecutive {@link RegistrySnapshot}s. The header and the footer of the payload, and the
+ * fragments, are cut out of the output of the encoder itself, so the composed payload is identical to the encoded
+ * one. Should the output of the encoder not allow that, the composer disables itself.
+ * </p>
+ */
+class ApplicationsPayloadComposer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApplicationsPayloadComposer.class);
+
+    private static final byte[] EMPTY_LIST = {'[', ']'};
+    private static final byte SEPARATOR = ',';
+
+    private final EncoderWrapper encoder;
+    private volatile Map<String, Fragment> fragments = Collections.emptyMap();
+    private volatile boolean enabled = true;
+
+    ApplicationsPayloadComposer(EncoderWrapper encoder) {
+        this.encoder = encoder;
+    }
+
+    /**
+     * @return whether payloads of the given encoder can be composed
+     */
+    static boolean supports(EncoderWrapper encoder) {
+        return encoder instanceof CodecWrappers.LegacyJacksonJson
+                || encoder instanceof CodecWrappers.JacksonJson
+                || encoder instanceof CodecWrappers.JacksonJsonMini;
+    }
+
+    /**
+     * Writes the payload of the given applications, unless the composer is disabled.
+     *
+     * @return {@code false} if nothing was written, and the applications have to be encoded as a whole
+     */
+    boolean compose(Applications apps, OutputStream out) throws IOException {
+        if (!enabled) {
+            return false;
+        }
+        byte[] template = encode(new Applications(apps.getAppsHashCode(), apps.getVersion(),
+                Collections.<Application>emptyList()));
+        int listStart = lastIndexOf(template, EMPTY_LIST);
+        if (listStart < 0) {
+            return disable();
+        }
+        int headLength = listStart + 1;
+        int tailLength = template.length - headLength;
+
+        Map<String, Fragment> previousFragments = fragments;
+        List<Application> registeredApps = apps.getRegisteredApplications();
+        Map<String, Fragment> nextFragments = new HashMap<String, Fragment>(registeredApps.size() * 2);
+        List<Fragment> payloadFragments = new ArrayList<Fragment>(registeredApps.size());
+        for (Application app : registeredApps) {
+            Fragment fragment = previousFragments.get(app.getName());
+            if (fragment == null || fragment.application != app) {
+                byte[] encoded = encode(new Applications(apps.getAppsHashCode(), apps.getVersion(),
+                        Collections.singletonList(app)));
+                if (encoded.length <= template.length
+                        || !regionMatches(encoded, 0, template, 0, headLength)
+                        || !regionMatches(encoded, encoded.length - tailLength, template, headLength, tailLength)) {
+                    return disable();
+                }
+                fragment = new Fragment(app, encoded, headLength, encoded.length - template.length);
+            }
+            nextFragments.put(app.getName(), fragment);
+            payloadFragments.add(fragment);
+        }
+
+        out.write(template, 0, headLength);
+        for (int i = 0; i < payloadFragments.size(); i++) {
+            if (i > 0) {
+                out.write(SEPARATOR);
+            }
+            Fragment fragment = payloadFragments.get(i);
+            out.write(fragment.bytes, fragment.offset, fragment.length);
+        }
+        out.write(template, headLength, tailLength);
+
+        fragments = nextFragments;
+        return true;
+    }
+
+    private byte[] encode(Applications apps) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(apps, out);
+        return out.toByteArray();
+    }
+
+    private boolean disable() {
+        logger.warn("Payloads of {} cannot be composed from the applications; encoding them as a whole instead",
+                encoder.codecName());
+        enabled = false;
+        fragments = Collections.emptyMap();
+        return false;
+    }
+
+    private static int lastIndexOf(byte[] bytes, byte[] target) {
+        for (int i = bytes.length - target.length; i >= 0; i--) {
+            if (regionMatches(bytes, i, target, 0, target.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(byte[] bytes, int offset, byte[] other, int otherOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] != other[otherOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Fragment {
+        private final Application application;
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        private Fragment(Application application, byte[] bytes, int offset, int length) {
+            this.application = application;
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
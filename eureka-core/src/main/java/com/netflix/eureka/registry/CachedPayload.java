@@ -0,0 +1,50 @@
+package com.netflix.eureka.registry;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A payload of the {@link ResponseCache}, held for the caller until it is released. While it is held, its bytes
+ * stay valid even if the payload is replaced in the cache.
+ */
+public interface CachedPayload {
+
+    /**
+     * @return whether the payload is stored off heap, in which case it is best written with
+     * {@link #writeTo(OutputStream)} rather than copied with {@link #toByteArray()}
+     */
+    boolean isDirect();
+
+    int size();
+
+    /**
+     * @return a strong entity tag derived from the content of the payload, which differs between its uncompressed
+     * and compressed forms, or {@code null} if the cache does not tag its payloads
+     */
+    @Nullable
+    String getETag();
+
+    /**
+     * @return the cursor of the registry changes the payload contains, from which a client can request the changes
+     * made since, see {@link InstanceRegistry#getApplicationDeltasSince(String)}, or {@code null} if there is none
+     */
+    @Nullable
+    String getDeltaCursor();
+
+    /**
+     * @return the bytes of the payload, which are only copied if they are stored off heap, or the first time if they
+     * do not fill the heap array they were written to
+     */
+    byte[] toByteArray();
+
+    /**
+     * Writes the payload to the given stream, without copying it onto the heap as a whole.
+     */
+    void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * Releases the payload. It may not be used afterwards, and releasing it again has no effect.
+     */
+    void release();
+}
@@ -0,0 +1,52 @@
+package com.netflix.eureka.registry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A payload held in a heap array, handed out by the {@link ResponseCache caches} which keep no payloads of their
+ * own, see {@link ResponseCache#getCachedPayload(Key, boolean)}. It has neither an entity tag nor a delta cursor,
+ * and releasing it has no effect.
+ */
+final class HeapCachedPayload implements CachedPayload {
+
+    private final byte[] bytes;
+
+    HeapCachedPayload(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public boolean isDirect() {
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return bytes.length;
+    }
+
+    @Override
+    public String getETag() {
+        return null;
+    }
+
+    @Override
+    public String getDeltaCursor() {
+        return null;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        return bytes;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes);
+    }
+
+    @Override
+    public void release() {
+    }
+}
@@ -0,0 +1,94 @@
+package com.netflix.eureka.registry;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.lease.Lease;
+
+/**
+ * A secondary index of leases by an attribute of their holders, e.g. the instance id or the virtual addresses, so
+ * that the matching instances can be found without walking the whole registry.
+ *
+ * <p>
+ * The keys of a lease are read from its holder when the lease is added and removed, which is fine as a registered
+ * {@link InstanceInfo} is replaced, rather than modified, when its id or virtual addresses change. The index may
+ * briefly contain a lease which is being replaced, so readers should only use leases which are still registered.
+ * </p>
+ */
+class InstanceIndex {
+
+    private final ConcurrentHashMap<String, Set<Lease<InstanceInfo>>> leasesByKey = new ConcurrentHashMap<>();
+    private final Function<InstanceInfo, String[]> keysOf;
+
+    private InstanceIndex(Function<InstanceInfo, String[]> keysOf) {
+        this.keysOf = keysOf;
+    }
+
+    /**
+     * Creates an index by instance id.
+     */
+    static InstanceIndex byId() {
+        return new InstanceIndex(instanceInfo -> new String[]{instanceInfo.getId()});
+    }
+
+    /**
+     * Creates an index by each of the VIPs in a comma separated virtual address.
+     *
+     * @param vipAddressOf the function reading the virtual address, e.g. the VIP or the secure VIP
+     */
+    static InstanceIndex byVipAddress(Function<InstanceInfo, String> vipAddressOf) {
+        return new InstanceIndex(instanceInfo -> {
+            String vipAddress = vipAddressOf.apply(instanceInfo);
+            return vipAddress == null ? null : vipAddress.split(",");
+        });
+    }
+
+    void add(Lease<InstanceInfo> lease) {
+        String[] keys = keysOf(lease);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            leasesByKey.compute(key, (k, leases) -> {
+                if (leases == null) {
+                    leases = ConcurrentHashMap.newKeySet();
+                }
+                leases.add(lease);
+                return leases;
+            });
+        }
+    }
+
+    void remove(Lease<InstanceInfo> lease) {
+        String[] keys = keysOf(lease);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            leasesByKey.computeIfPresent(key, (k, leases) -> {
+                leases.remove(lease);
+                return leases.isEmpty() ? null : leases;
+            });
+        }
+    }
+
+    /**
+     * @return the leases indexed under the given key; the result is a live view, which may change while iterated
+     */
+    Set<Lease<InstanceInfo>> get(String key) {
+        Set<Lease<InstanceInfo>> leases = leasesByKey.get(key);
+        return leases == null ? Collections.<Lease<InstanceInfo>>emptySet() : leases;
+    }
+
+    void clear() {
+        leasesByKey.clear();
+    }
+
+    private String[] keysOf(Lease<InstanceInfo> lease) {
+        InstanceInfo instanceInfo = lease.getHolder();
+        return instanceInfo == null ? null : keysOf.apply(instanceInfo);
+    }
+}
@@ -9,6 +9,7 @@ import com.netflix.discovery.shared.LookupService;
 import com.netflix.discovery.shared.Pair;
 import com.netflix.eureka.lease.LeaseManager;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Map;
 
@@ -38,6 +39,57 @@ public interface InstanceRegistry extends LeaseManager<InstanceInfo>, LookupServ
 
     List<Application> getSortedApplications();
 
+    /**
+     * Gets the cursor of the registry changes made so far. A client holding registry information which includes all
+     * of them, e.g. as the cursor was obtained before the information, can fetch only the changes made after it with
+     * {@link #getApplicationDeltasSince(String)}.
+     *
+     * @return the cursor, or {@code null} if the changes since a cursor are not available
+     */
+    @Nullable
+    default String getDeltaCursor() {
+        return null;
+    }
+
+    /**
+     * Gets the changes of the local registry made after the given cursor, in the same form as the deltas.
+     *
+     * @param cursor a cursor obtained from {@link #getDeltaCursor()}
+     * @return the changes, or {@code null} if they are not all available any more, or the cursor was not obtained
+     * from this registry
+     */
+    @Nullable
+    default Applications getApplicationDeltasSince(String cursor) {
+        return null;
+    }
+
+    /**
+     * Waits until changes are made to the local registry after the given cursor, or the timeout elapses. The
+     * number of callers waiting at once is limited by {@link com.netflix.eureka.EurekaServerConfig#getMaxWatchRequests()}; beyond
+     * that, the call returns right away.
+     *
+     * @param cursor a cursor obtained from {@link #getDeltaCursor()}
+     * @param timeoutMs the longest time to wait in milliseconds
+     * @return {@code false} if no changes were made after the cursor, {@code true} if there are changes, or if they
+     * are not available, see {@link #getApplicationDeltasSince(String)}
+     */
+    default boolean awaitChangesSince(String cursor, long timeoutMs) throws InterruptedException {
+        return true;
+    }
+
+    /**
+     * Opens a stream of the changes of the individual instances of the local registry made after the given cursor.
+     * The number of streams open at once is limited by
+     * {@link com.netflix.eureka.EurekaServerConfig#getMaxEventStreams()}.
+     *
+     * @param cursor a cursor obtained from {@link #getDeltaCursor()}, or from a change of another stream
+     * @return the stream, which has to be closed, or {@code null} if too many streams are open
+     */
+    @Nullable
+    default RegistryChangeStream openChangeStream(String cursor) {
+        return null;
+    }
+
     /**
      * Get application information.
      *
@@ -0,0 +1,117 @@
+package com.netflix.eureka.registry;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Predicate;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.eureka.lease.Lease;
+
+/**
+ * Keeps the number of registered instances per {@link InstanceStatus}, so that the reconcile hash code of the
+ * registry (see {@link Applications#getReconcileHashCode()}) can be computed without walking all instances.
+ *
+ * <p>
+ * The registry calls {@link #track(Lease)} whenever it sets the status of a lease holder, and {@link #untrack(Lease)}
+ * after it removes a lease. The status last counted for each lease is remembered, and leases which are no longer
+ * registered are not counted, so a lease is accounted for exactly once no matter the order of concurrent updates.
+ * </p>
+ */
+class InstanceStatusCounter {
+
+    private static final InstanceStatus[] STATUSES = InstanceStatus.values();
+
+    private final ConcurrentHashMap<Lease<InstanceInfo>, InstanceStatus> countedStatuses = new ConcurrentHashMap<>();
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(STATUSES.length);
+    private final Predicate<Lease<InstanceInfo>> isRegistered;
+
+    InstanceStatusCounter(Predicate<Lease<InstanceInfo>> isRegistered) {
+        this.isRegistered = isRegistered;
+    }
+
+    /**
+     * Counts the lease with the current status of its holder, replacing the status it was counted with before.
+     */
+    void track(Lease<InstanceInfo> lease) {
+        InstanceInfo instanceInfo = lease.getHolder();
+        if (instanceInfo == null) {
+            return;
+        }
+        final InstanceStatus status = instanceInfo.getStatus();
+        countedStatuses.compute(lease, (key, previous) -> {
+            if (!isRegistered.test(key)) {
+                // Removed concurrently; it is up to the remover to untrack it
+                return previous;
+            }
+            if (previous != status) {
+                if (previous != null) {
+                    counts.decrementAndGet(previous.ordinal());
+                }
+                counts.incrementAndGet(status.ordinal());
+            }
+            return status;
+        });
+    }
+
+    /**
+     * Stops counting the lease.
+     */
+    void untrack(Lease<InstanceInfo> lease) {
+        countedStatuses.computeIfPresent(lease, (key, previous) -> {
+            counts.decrementAndGet(previous.ordinal());
+            return null;
+        });
+    }
+
+    void clear() {
+        for (Lease<InstanceInfo> lease : countedStatuses.keySet()) {
+            untrack(lease);
+        }
+    }
+
+    /**
+     * @return the number of counted instances per status, indexed by the ordinal of the status
+     */
+    int[] getCounts() {
+        int[] copy = new int[STATUSES.length];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Adds the counted instances to the provided instance count map, in the format used by
+     * {@link Applications#populateInstanceCountMap(Map)}.
+     */
+    void populateInstanceCountMap(Map<String, AtomicInteger> instanceCountMap) {
+        populateInstanceCountMap(getCounts(), instanceCountMap);
+    }
+
+    /**
+     * Adds the given instance counts, as returned by {@link #getCounts()}, to the provided instance count map, in the
+     * format used by {@link Applications#populateInstanceCountMap(Map)}.
+     */
+    static void populateInstanceCountMap(int[] counts, Map<String, AtomicInteger> instanceCountMap) {
+        for (InstanceStatus status : STATUSES) {
+            int count = counts[status.ordinal()];
+            if (count > 0) {
+                instanceCountMap.computeIfAbsent(status.name(), k -> new AtomicInteger(0)).addAndGet(count);
+            }
+        }
+    }
+
+    /**
+     * @return the reconcile hash code of the counted instances
+     */
+    String getReconcileHashCode() {
+        TreeMap<String, AtomicInteger> instanceCountMap = new TreeMap<String, AtomicInteger>();
+        populateInstanceCountMap(instanceCountMap);
+        return Applications.getReconcileHashCode(instanceCountMap);
+    }
+}
@@ -9,7 +9,13 @@ import java.util.Arrays;
 public class Key {
 
     public enum KeyType {
-        JSON, XML
+        JSON, XML,
+
+        /**
+         * The encoding of {@link com.netflix.discovery.converters.EurekaBinaryCodec}, which is always full, so is
+         * keyed with {@link EurekaAccept#full} only.
+         */
+        BINARY
     }
 
     /**
@@ -0,0 +1,286 @@
+package com.netflix.eureka.registry;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+
+/**
+ * The bytes of a cached payload, held either in a heap array, or off heap in the chunks of a
+ * {@link PayloadBufferPool}. A buffer is immutable once built, until it is freed.
+ */
+abstract class PayloadBuffer {
+
+    static PayloadBuffer wrap(byte[] bytes) {
+        return new HeapPayloadBuffer(bytes, bytes.length);
+    }
+
+    /**
+     * Creates a builder of a buffer, which stores the written bytes in the chunks of the given pool, or on the heap
+     * if there is none.
+     */
+    static Builder newBuilder(@Nullable PayloadBufferPool pool) {
+        return pool == null ? new HeapBuilder() : new DirectBuilder(pool);
+    }
+
+    abstract int size();
+
+    /**
+     * @return whether the bytes are stored off heap
+     */
+    abstract boolean isDirect();
+
+    /**
+     * @return the bytes, which are only copied if they are stored off heap, or the first time if they do not fill the
+     * heap array they were written to
+     */
+    abstract byte[] toByteArray();
+
+    /**
+     * Writes the bytes to the given stream, without copying them onto the heap as a whole.
+     */
+    abstract void writeTo(OutputStream out) throws IOException;
+
+    abstract HashCode hash(HashFunction hashFunction);
+
+    /**
+     * Returns the chunks of the buffer to their pool. The buffer may not be used afterwards.
+     */
+    abstract void free();
+
+    /**
+     * An output stream building a {@link PayloadBuffer}.
+     */
+    abstract static class Builder extends OutputStream {
+
+        /**
+         * @return the buffer of the bytes written so far; nothing may be written afterwards
+         */
+        abstract PayloadBuffer build();
+
+        /**
+         * Frees the bytes written so far, e.g. as the payload could not be written completely.
+         */
+        abstract void discard();
+    }
+
+    private static final class HeapPayloadBuffer extends PayloadBuffer {
+        private final int size;
+        // The array the bytes were written to, until it is trimmed by the first copy
+        private volatile byte[] bytes;
+
+        private HeapPayloadBuffer(byte[] bytes, int size) {
+            this.bytes = bytes;
+            this.size = size;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        boolean isDirect() {
+            return false;
+        }
+
+        @Override
+        byte[] toByteArray() {
+            byte[] current = bytes;
+            if (current.length != size) {
+                current = Arrays.copyOf(current, size);
+                bytes = current;
+            }
+            return current;
+        }
+
+        @Override
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+
+        @Override
+        HashCode hash(HashFunction hashFunction) {
+            return hashFunction.hashBytes(bytes, 0, size);
+        }
+
+        @Override
+        void free() {
+        }
+    }
+
+    private static final class DirectPayloadBuffer extends PayloadBuffer {
+        private static final int HASH_BUFFER_SIZE = 4 * 1024;
+
+        private final PayloadBufferPool pool;
+        private final List<ByteBuffer> chunks;
+        private final int size;
+
+        private DirectPayloadBuffer(PayloadBufferPool pool, List<ByteBuffer> chunks, int size) {
+            this.pool = pool;
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        boolean isDirect() {
+            return true;
+        }
+
+        @Override
+        byte[] toByteArray() {
+            byte[] bytes = new byte[size];
+            int offset = 0;
+            for (ByteBuffer chunk : chunks) {
+                ByteBuffer view = chunk.duplicate();
+                int length = view.remaining();
+                view.get(bytes, offset, length);
+                offset += length;
+            }
+            return bytes;
+        }
+
+        @Override
+        void writeTo(OutputStream out) throws IOException {
+            // Copies through a small buffer of the channel, rather than the whole payload
+            WritableByteChannel channel = Channels.newChannel(out);
+            for (ByteBuffer chunk : chunks) {
+                ByteBuffer view = chunk.duplicate();
+                while (view.hasRemaining()) {
+                    channel.write(view);
+                }
+            }
+        }
+
+        @Override
+        HashCode hash(HashFunction hashFunction) {
+            Hasher hasher = hashFunction.newHasher();
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            for (ByteBuffer chunk : chunks) {
+                ByteBuffer view = chunk.duplicate();
+                while (view.hasRemaining()) {
+                    int length = Math.min(buffer.length, view.remaining());
+                    view.get(buffer, 0, length);
+                    hasher.putBytes(buffer, 0, length);
+                }
+            }
+            return hasher.hash();
+        }
+
+        @Override
+        void free() {
+            for (ByteBuffer chunk : chunks) {
+                pool.release(chunk);
+            }
+        }
+    }
+
+    private static final class HeapBuilder extends Builder {
+        private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+        private final ExposedByteArrayOutputStream bytes = new ExposedByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+
+        @Override
+        public void write(int b) {
+            bytes.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes.write(b, off, len);
+        }
+
+        @Override
+        PayloadBuffer build() {
+            return new HeapPayloadBuffer(bytes.getBuffer(), bytes.size());
+        }
+
+        @Override
+        void discard() {
+        }
+    }
+
+    /**
+     * Hands out its buffer as is, so that a payload written on the heap is not copied once more when it is built.
+     */
+    private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+
+        private ExposedByteArrayOutputStream(int size) {
+            super(size);
+        }
+
+        private byte[] getBuffer() {
+            return buf;
+        }
+    }
+
+    private static final class DirectBuilder extends Builder {
+        private final PayloadBufferPool pool;
+        private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+        private ByteBuffer current;
+        private int size;
+
+        private DirectBuilder(PayloadBufferPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void write(int b) {
+            nextChunkIfFull();
+            current.put((byte) b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                nextChunkIfFull();
+                int length = Math.min(len, current.remaining());
+                current.put(b, off, length);
+                off += length;
+                len -= length;
+                size += length;
+            }
+        }
+
+        @Override
+        PayloadBuffer build() {
+            for (ByteBuffer chunk : chunks) {
+                chunk.flip();
+            }
+            return new DirectPayloadBuffer(pool, chunks, size);
+        }
+
+        @Override
+        void discard() {
+            for (ByteBuffer chunk : chunks) {
+                pool.release(chunk);
+            }
+            chunks.clear();
+            current = null;
+            size = 0;
+        }
+
+        private void nextChunkIfFull() {
+            if (current == null || !current.hasRemaining()) {
+                current = pool.acquire();
+                chunks.add(current);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.netflix.eureka.registry;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of fixed size chunks of direct memory, in which the payloads of the response cache are stored off heap.
+ *
+ * <p>
+ * The chunks are recycled rather than freed, so that replacing a payload neither allocates nor frees any memory once
+ * the pool has grown to the size of the payloads. The free chunks are kept up to a high-water mark of the size of the
+ * chunks in use, which is enough to build a replacement of the payloads while they are in use. The chunks returned
+ * beyond it, e.g. once the payloads retained by a burst of slow responses are released, are dropped, so that the
+ * pool shrinks back. Each chunk is allocated on its own, so a chunk which is dropped, or never returned, is reclaimed
+ * by the garbage collector.
+ * </p>
+ */
+class PayloadBufferPool {
+
+    static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    private final int chunkSize;
+    private final ConcurrentLinkedQueue<ByteBuffer> freeChunks = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong freeBytes = new AtomicLong();
+
+    PayloadBufferPool(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return an empty chunk, allocating a new one if none is free
+     */
+    ByteBuffer acquire() {
+        ByteBuffer chunk = freeChunks.poll();
+        if (chunk == null) {
+            allocatedBytes.addAndGet(chunkSize);
+            return ByteBuffer.allocateDirect(chunkSize);
+        }
+        freeBytes.addAndGet(-chunkSize);
+        return chunk;
+    }
+
+    /**
+     * Returns a chunk to the pool, dropping free chunks while they are above the high-water mark. The chunk may not be
+     * used afterwards.
+     */
+    void release(ByteBuffer chunk) {
+        chunk.clear();
+        freeBytes.addAndGet(chunkSize);
+        freeChunks.offer(chunk);
+        while (freeBytes.get() > allocatedBytes.get() - freeBytes.get()) {
+            if (freeChunks.poll() == null) {
+                return;
+            }
+            freeBytes.addAndGet(-chunkSize);
+            allocatedBytes.addAndGet(-chunkSize);
+        }
+    }
+
+    /**
+     * @return the size of the direct memory allocated by the pool and not dropped, including chunks which were not
+     * returned
+     */
+    long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * @return the size of the chunks which are not in use
+     */
+    long getFreeBytes() {
+        return freeBytes.get();
+    }
+}
@@ -0,0 +1,74 @@
+package com.netflix.eureka.registry;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An output stream collecting the encoded payload both as is and gzip compressed, so that the payload is
+ * compressed while it is being encoded, instead of being copied and compressed afterwards.
+ */
+class PayloadOutputStream extends OutputStream {
+
+    private static final int GZIP_BUFFER_SIZE = 8 * 1024;
+
+    private final PayloadBuffer.Builder raw;
+    private final PayloadBuffer.Builder compressed;
+    private final GZIPOutputStream gzip;
+
+    PayloadOutputStream() throws IOException {
+        this(null);
+    }
+
+    /**
+     * @param pool the pool to store the payload in off heap, or {@code null} to store it on the heap
+     */
+    PayloadOutputStream(@Nullable PayloadBufferPool pool) throws IOException {
+        this.raw = PayloadBuffer.newBuilder(pool);
+        this.compressed = PayloadBuffer.newBuilder(pool);
+        this.gzip = new GZIPOutputStream(compressed, GZIP_BUFFER_SIZE);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        raw.write(b);
+        gzip.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        raw.write(b, off, len);
+        gzip.write(b, off, len);
+    }
+
+    /**
+     * Finishes the compressed payload. Nothing may be written afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        gzip.close();
+    }
+
+    /**
+     * Frees the payload written so far, e.g. as it could not be encoded completely.
+     */
+    void discard() {
+        raw.discard();
+        compressed.discard();
+    }
+
+    /**
+     * @return the payload as written
+     */
+    PayloadBuffer getPayload() {
+        return raw.build();
+    }
+
+    /**
+     * @return the gzip compressed payload; only complete once this stream is closed
+     */
+    PayloadBuffer getGzippedPayload() {
+        return compressed.build();
+    }
+}
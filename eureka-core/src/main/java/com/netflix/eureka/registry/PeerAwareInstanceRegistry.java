@@ -22,6 +22,7 @@ import com.netflix.eureka.cluster.PeerEurekaNodes;
 import com.netflix.eureka.resources.ASGResource;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * @author Tomasz Bak
@@ -52,4 +53,12 @@ public interface PeerAwareInstanceRegistry extends InstanceRegistry {
      void register(InstanceInfo info, boolean isReplication);
 
      void statusUpdate(final String asgName, final ASGResource.ASGStatus newStatus, final boolean isReplication);
+
+    /**
+     * Gets the executor applying the partitions of the large replication batches received from the peers, next to
+     * the request threads. It runs a partition on the calling thread once it is saturated, or shut down.
+     */
+    default Executor getReplicationBatchExecutor() {
+        return Runnable::run;
+    }
 }
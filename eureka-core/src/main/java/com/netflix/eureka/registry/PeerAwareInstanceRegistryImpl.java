@@ -23,7 +23,12 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.appinfo.AmazonInfo;
 import com.netflix.appinfo.AmazonInfo.MetaDataKey;
 import com.netflix.appinfo.ApplicationInfoManager;
@@ -94,6 +99,7 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
 
     private static final String US_EAST_1 = "us-east-1";
     private static final int PRIME_PEER_NODES_RETRY_MS = 30000;
+    private static final int REPLICATION_BATCH_QUEUE_SIZE_PER_THREAD = 2;
 
     private long startupTime = 0;
     private boolean peerInstancesTransferEmptyOnStartup = true;
@@ -124,6 +130,8 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
     private Timer timer = new Timer(
             "ReplicaAwareInstanceRegistry - RenewalThresholdUpdater", true);
 
+    private final ThreadPoolExecutor replicationBatchExecutor = createReplicationBatchExecutor();
+
     @Inject
     public PeerAwareInstanceRegistryImpl(
             EurekaServerConfig serverConfig,
@@ -140,6 +148,18 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
                 new OverrideExistsRule(overriddenInstanceStatusMap), new LeaseExistsRule());
     }
 
+    private static ThreadPoolExecutor createReplicationBatchExecutor() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * REPLICATION_BATCH_QUEUE_SIZE_PER_THREAD),
+                new ThreadFactoryBuilder().setNameFormat("Eureka-PeerReplicationBatch-%d").setDaemon(true).build(),
+                // Unlike CallerRunsPolicy, this also runs the partitions handed over after a shutdown, which the
+                // request threads are waiting for
+                (task, rejectingExecutor) -> task.run());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     @Override
     protected InstanceStatusOverrideRule getInstanceInfoOverrideRule() {
         return this.instanceStatusOverrideRule;
@@ -177,10 +197,16 @@ public class PeerAwareInstanceRegistryImpl extends AbstractInstanceRegistry impl
         }
         numberOfReplicationsLastMin.stop();
         timer.cancel();
+        replicationBatchExecutor.shutdown();
 
         super.shutdown();
     }
 
+    @Override
+    public Executor getReplicationBatchExecutor() {
+        return replicationBatchExecutor;
+    }
+
     /**
      * Schedule the task that updates <em>renewal threshold</em> periodically.
      * The renewal threshold would be used to determine if the renewals drop
@@ -0,0 +1,249 @@
+package com.netflix.eureka.registry;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.lease.Lease;
+
+/**
+ * An append-only log of the recently changed leases, from which the registry deltas are generated.
+ *
+ * <p>
+ * Every item gets the sequence number of its predecessor plus one, so the sequence order is the order in which
+ * the changes become visible to readers. Writers append without taking any lock. Readers take a {@link Snapshot},
+ * which is bounded by the last item appended at the time it was taken, so iterating it neither blocks nor is
+ * affected by concurrent writers. Old items are dropped from the head of the log by {@link #expireOlderThan(long)}.
+ * </p>
+ *
+ * <p>
+ * Each item also carries the number of registered instances per status as of its change, which writers record
+ * when appending it. A snapshot thereby comes with the counts of the registry state it leads up to, from which the
+ * reconcile hash code of a delta is computed, without readers having to hold off writers.
+ * </p>
+ *
+ * <p>
+ * Readers may also wait for items to be appended. All of them wait on a single latch, which an append only
+ * replaces and releases if anyone is waiting, so appending costs nothing extra while nobody is.
+ * </p>
+ */
+class RecentlyChangedLog {
+
+    /**
+     * Sentinel item; the first retained item is its successor.
+     */
+    private final AtomicReference<RecentlyChangedItem> head;
+    private final AtomicReference<RecentlyChangedItem> tail;
+    private final AtomicReference<CountDownLatch> appended = new AtomicReference<>(new CountDownLatch(1));
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    RecentlyChangedLog() {
+        RecentlyChangedItem sentinel = new RecentlyChangedItem(0, null, null);
+        this.head = new AtomicReference<>(sentinel);
+        this.tail = new AtomicReference<>(sentinel);
+    }
+
+    /**
+     * Appends a change of the given lease to the end of the log.
+     *
+     * @param statusCounts the number of registered instances per status, including the change, as returned by
+     *                     {@link InstanceStatusCounter#getCounts()}
+     * @return the appended item
+     */
+    RecentlyChangedItem append(Lease<InstanceInfo> lease, int[] statusCounts) {
+        while (true) {
+            RecentlyChangedItem last = getLast();
+            RecentlyChangedItem item = new RecentlyChangedItem(last.getSequence() + 1, lease, statusCounts);
+            if (last.next.compareAndSet(null, item)) {
+                tail.compareAndSet(last, item);
+                // A reader starting to wait after this check sees the item when it checks for one
+                if (waiting.get() != 0) {
+                    appended.getAndSet(new CountDownLatch(1)).countDown();
+                }
+                return item;
+            }
+        }
+    }
+
+    /**
+     * @return all items currently in the log, in sequence order
+     */
+    Snapshot snapshot() {
+        RecentlyChangedItem first = head.get();
+        return new Snapshot(first, getLast());
+    }
+
+    /**
+     * @return the items appended after the given sequence number, in sequence order, or {@code null} if some of them
+     * were dropped from the log already, or the sequence number was never reached
+     */
+    Snapshot snapshotSince(long sequence) {
+        RecentlyChangedItem last = getLast();
+        RecentlyChangedItem before = head.get();
+        if (sequence < before.getSequence() || sequence > last.getSequence()) {
+            return null;
+        }
+        while (before.getSequence() < sequence) {
+            before = before.next.get();
+        }
+        return new Snapshot(before, last);
+    }
+
+    /**
+     * @return the sequence number of the last appended item, or the sequence number the log was cleared at
+     */
+    long getLastSequence() {
+        return getLast().getSequence();
+    }
+
+    /**
+     * Waits until an item is appended after the given sequence number, unless there is one already.
+     *
+     * @return whether there is such an item, {@code false} if the timeout elapsed first
+     */
+    boolean awaitAppendedAfter(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+        waiting.incrementAndGet();
+        try {
+            CountDownLatch latch = appended.get();
+            if (getLastSequence() > sequence) {
+                return true;
+            }
+            latch.await(timeout, unit);
+            return getLastSequence() > sequence;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Drops all items from the head of the log, that were appended before the given time.
+     */
+    void expireOlderThan(long timestamp) {
+        while (true) {
+            RecentlyChangedItem first = head.get();
+            RecentlyChangedItem next = first.next.get();
+            if (next == null || next.getLastUpdateTime() >= timestamp) {
+                return;
+            }
+            // The expired item becomes the new sentinel
+            head.compareAndSet(first, next);
+        }
+    }
+
+    /**
+     * Drops all items from the log. The sequence numbering continues from where it was. Unlike appending, clearing
+     * the log must not happen concurrently with appends.
+     *
+     * @param statusCounts the number of registered instances per status once cleared
+     */
+    void clear(int[] statusCounts) {
+        RecentlyChangedItem sentinel = new RecentlyChangedItem(getLastSequence(), null, statusCounts);
+        tail.set(sentinel);
+        head.set(sentinel);
+    }
+
+    int size() {
+        return (int) (getLast().getSequence() - head.get().getSequence());
+    }
+
+    private RecentlyChangedItem getLast() {
+        RecentlyChangedItem last = tail.get();
+        RecentlyChangedItem next;
+        while ((next = last.next.get()) != null) {
+            tail.compareAndSet(last, next);
+            last = next;
+        }
+        return last;
+    }
+
+    static final class RecentlyChangedItem {
+        private final long sequence;
+        private final long lastUpdateTime;
+        private final Lease<InstanceInfo> leaseInfo;
+        private final int[] statusCounts;
+        private final AtomicReference<RecentlyChangedItem> next = new AtomicReference<>();
+
+        RecentlyChangedItem(long sequence, Lease<InstanceInfo> lease, int[] statusCounts) {
+            this.sequence = sequence;
+            this.leaseInfo = lease;
+            this.statusCounts = statusCounts;
+            this.lastUpdateTime = System.currentTimeMillis();
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getLastUpdateTime() {
+            return this.lastUpdateTime;
+        }
+
+        public Lease<InstanceInfo> getLeaseInfo() {
+            return this.leaseInfo;
+        }
+
+        /**
+         * @return the number of registered instances per status as of this change
+         */
+        public int[] getStatusCounts() {
+            return statusCounts;
+        }
+    }
+
+    /**
+     * An immutable view of the items in the log between two sequence numbers.
+     */
+    static final class Snapshot implements Iterable<RecentlyChangedItem> {
+        private final RecentlyChangedItem before;
+        private final RecentlyChangedItem last;
+
+        private Snapshot(RecentlyChangedItem before, RecentlyChangedItem last) {
+            this.before = before;
+            this.last = last;
+        }
+
+        /**
+         * @return the sequence number of the last item in this snapshot
+         */
+        public long getLastSequence() {
+            return last.getSequence();
+        }
+
+        /**
+         * @return the number of registered instances per status as of the last item in this snapshot, or as of the
+         * item it starts after if it is empty, which is {@code null} only if no change was logged yet
+         */
+        public int[] getLastStatusCounts() {
+            return last.getStatusCounts();
+        }
+
+        public int size() {
+            return (int) (last.getSequence() - before.getSequence());
+        }
+
+        @Override
+        public Iterator<RecentlyChangedItem> iterator() {
+            return new Iterator<RecentlyChangedItem>() {
+                private RecentlyChangedItem current = before;
+
+                @Override
+                public boolean hasNext() {
+                    return current != last;
+                }
+
+                @Override
+                public RecentlyChangedItem next() {
+                    if (current == last) {
+                        throw new NoSuchElementException();
+                    }
+                    current = current.next.get();
+                    return current;
+                }
+            };
+        }
+    }
+}
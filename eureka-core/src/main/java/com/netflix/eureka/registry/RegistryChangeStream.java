@@ -0,0 +1,105 @@
+package com.netflix.eureka.registry;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.lease.Lease;
+
+/**
+ * A subscription to the changes of the individual instances of the local registry, in the order they are made.
+ *
+ * <p>
+ * The changes are read from the {@link RecentlyChangedLog}, which buffers them for all subscribers at once, so a
+ * subscriber only holds its position in it. A subscriber which falls behind by more than its backlog limit, or
+ * behind the changes still retained in the log, cannot continue, and has to fetch the full registry instead.
+ * </p>
+ */
+public class RegistryChangeStream implements Closeable {
+
+    private final RecentlyChangedLog log;
+    private final String cursorPrefix;
+    private final Function<Lease<InstanceInfo>, InstanceInfo> decorator;
+    private final int maxBacklog;
+    private final Runnable onClose;
+    private long sequence;
+    private boolean closed;
+
+    /**
+     * @param sequence the sequence number after which to start, or -1 if the changes cannot be streamed
+     */
+    RegistryChangeStream(RecentlyChangedLog log, String cursorPrefix,
+                         Function<Lease<InstanceInfo>, InstanceInfo> decorator,
+                         long sequence, int maxBacklog, Runnable onClose) {
+        this.log = log;
+        this.cursorPrefix = cursorPrefix;
+        this.decorator = decorator;
+        this.sequence = sequence;
+        this.maxBacklog = maxBacklog;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Waits for changes after the current position of the stream for at most the given time, and moves past them.
+     *
+     * @return the changes, which are empty if none were made in time, or {@code null} if the stream cannot continue
+     */
+    @Nullable
+    public List<Change> next(long timeoutMs) throws InterruptedException {
+        if (sequence < 0) {
+            return null;
+        }
+        if (!log.awaitAppendedAfter(sequence, timeoutMs, TimeUnit.MILLISECONDS)) {
+            return Collections.emptyList();
+        }
+        RecentlyChangedLog.Snapshot snapshot = log.snapshotSince(sequence);
+        if (snapshot == null || snapshot.size() > maxBacklog) {
+            sequence = -1;
+            return null;
+        }
+        List<Change> changes = new ArrayList<>(snapshot.size());
+        for (RecentlyChangedLog.RecentlyChangedItem item : snapshot) {
+            InstanceInfo instanceInfo = new InstanceInfo(decorator.apply(item.getLeaseInfo()));
+            changes.add(new Change(cursorPrefix + item.getSequence(), instanceInfo));
+        }
+        sequence = snapshot.getLastSequence();
+        return changes;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            onClose.run();
+        }
+    }
+
+    /**
+     * A change of an instance, of the kind given by its {@link InstanceInfo#getActionType()}.
+     */
+    public static class Change {
+        private final String cursor;
+        private final InstanceInfo instanceInfo;
+
+        Change(String cursor, InstanceInfo instanceInfo) {
+            this.cursor = cursor;
+            this.instanceInfo = instanceInfo;
+        }
+
+        /**
+         * @return the cursor of the registry changes up to and including this one
+         */
+        public String getCursor() {
+            return cursor;
+        }
+
+        public InstanceInfo getInstanceInfo() {
+            return instanceInfo;
+        }
+    }
+}
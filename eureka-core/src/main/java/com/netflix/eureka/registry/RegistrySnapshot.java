@@ -0,0 +1,81 @@
+package com.netflix.eureka.registry;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+
+/**
+ * A versioned, read-only view of the applications in the local registry.
+ *
+ * <p>
+ * A new snapshot is derived from the previous one by replacing only the applications that changed since, so the
+ * {@link Application}s of unchanged applications are shared between consecutive snapshots. Snapshots are shared by
+ * all readers, and must not be modified.
+ * </p>
+ */
+final class RegistrySnapshot {
+
+    static final RegistrySnapshot EMPTY = new RegistrySnapshot(-1, 0, Collections.<String, Application>emptyMap(),
+            Applications.getReconcileHashCode(Collections.<String, AtomicInteger>emptyMap()));
+
+    private final long version;
+    private final long createdAt;
+    private final Map<String, Application> applicationsByName;
+    private final Applications applications;
+
+    private RegistrySnapshot(long version, long createdAt, Map<String, Application> applicationsByName,
+                             String appsHashCode) {
+        this.version = version;
+        this.createdAt = createdAt;
+        this.applicationsByName = applicationsByName;
+        this.applications = new Applications();
+        this.applications.setVersion(1L);
+        for (Application application : applicationsByName.values()) {
+            this.applications.addApplication(application);
+        }
+        this.applications.setAppsHashCode(appsHashCode);
+    }
+
+    /**
+     * @return the registry version this snapshot was built at
+     */
+    long getVersion() {
+        return version;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    Application getApplication(String appName) {
+        return applicationsByName.get(appName);
+    }
+
+    /**
+     * @return all applications in this snapshot; the result is shared and must not be modified
+     */
+    Applications getApplications() {
+        return applications;
+    }
+
+    /**
+     * Creates the next snapshot, in which the given applications are replaced. A {@code null} application removes
+     * the application of that name.
+     */
+    RegistrySnapshot next(long version, Map<String, Application> changedApplications, String appsHashCode) {
+        Map<String, Application> nextApplicationsByName = new HashMap<String, Application>(applicationsByName);
+        for (Map.Entry<String, Application> entry : changedApplications.entrySet()) {
+            if (entry.getValue() == null) {
+                nextApplicationsByName.remove(entry.getKey());
+            } else {
+                nextApplicationsByName.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new RegistrySnapshot(version, System.currentTimeMillis(),
+                Collections.unmodifiableMap(nextApplicationsByName), appsHashCode);
+    }
+}
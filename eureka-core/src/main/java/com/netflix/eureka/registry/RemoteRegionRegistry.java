@@ -22,6 +22,8 @@ import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.SynchronousQueue;
@@ -86,6 +88,9 @@ public class RemoteRegionRegistry implements LookupService<String> {
 
     private final AtomicReference<Applications> applications = new AtomicReference<Applications>(new Applications());
     private final AtomicReference<Applications> applicationsDelta = new AtomicReference<Applications>(new Applications());
+    // Index of the instances in applications by id, kept up to date with the deltas
+    private final AtomicReference<ConcurrentMap<String, InstanceInfo>> instancesById =
+            new AtomicReference<ConcurrentMap<String, InstanceInfo>>(new ConcurrentHashMap<String, InstanceInfo>());
     private final EurekaServerConfig serverConfig;
     private volatile boolean readyForServingData;
     private final EurekaHttpClient eurekaHttpClient;
@@ -304,6 +309,7 @@ public class RemoteRegionRegistry implements LookupService<String> {
                             instance.getId());
                     getApplications().getRegisteredApplications(
                             instance.getAppName()).addInstance(instance);
+                    instancesById.get().put(instance.getId(), instance);
                 } else if (ActionType.MODIFIED.equals(instance.getActionType())) {
                     Application existingApp = getApplications()
                             .getRegisteredApplications(instance.getAppName());
@@ -315,6 +321,7 @@ public class RemoteRegionRegistry implements LookupService<String> {
 
                     getApplications().getRegisteredApplications(
                             instance.getAppName()).addInstance(instance);
+                    instancesById.get().put(instance.getId(), instance);
 
                 } else if (ActionType.DELETED.equals(instance.getActionType())) {
                     Application existingApp = getApplications()
@@ -326,6 +333,7 @@ public class RemoteRegionRegistry implements LookupService<String> {
                             instance.getId());
                     getApplications().getRegisteredApplications(
                             instance.getAppName()).removeInstance(instance);
+                    instancesById.get().remove(instance.getId());
                 }
             }
         }
@@ -363,8 +371,7 @@ public class RemoteRegionRegistry implements LookupService<String> {
         if (apps == null) {
             logger.error("The application is null for some reason. Not storing this information");
         } else if (fetchRegistryGeneration.compareAndSet(currentGeneration, currentGeneration + 1)) {
-            applications.set(apps);
-            applicationsDelta.set(apps);
+            setApplications(apps);
             logger.info("Successfully updated registry with the latest content");
             return true;
         } else {
@@ -373,6 +380,18 @@ public class RemoteRegionRegistry implements LookupService<String> {
         return false;
     }
 
+    private void setApplications(Applications apps) {
+        ConcurrentMap<String, InstanceInfo> appsInstancesById = new ConcurrentHashMap<String, InstanceInfo>();
+        for (Application application : apps.getRegisteredApplications()) {
+            for (InstanceInfo instanceInfo : application.getInstancesAsIsFromEureka()) {
+                appsInstancesById.put(instanceInfo.getId(), instanceInfo);
+            }
+        }
+        applications.set(apps);
+        applicationsDelta.set(apps);
+        instancesById.set(appsInstancesById);
+    }
+
     /**
      * Fetch registry information from the remote region.
      * @param delta - true, if the fetch needs to get deltas, false otherwise
@@ -437,8 +456,7 @@ public class RemoteRegionRegistry implements LookupService<String> {
         }
 
         if (fetchRegistryGeneration.compareAndSet(currentGeneration, currentGeneration + 1)) {
-            applications.set(apps);
-            applicationsDelta.set(apps);
+            setApplications(apps);
             logger.warn("The Reconcile hashcodes after complete sync up, client : {}, server : {}.",
                     getApplications().getReconcileHashCode(),
                     delta.getAppsHashCode());
@@ -477,16 +495,21 @@ public class RemoteRegionRegistry implements LookupService<String> {
 
     @Override
     public List<InstanceInfo> getInstancesById(String id) {
-        List<InstanceInfo> list = Collections.emptyList();
-
-        for (Application app : applications.get().getRegisteredApplications()) {
-            InstanceInfo info = app.getByInstanceId(id);
-            if (info != null) {
-                list.add(info);
-                return list;
-            }
+        InstanceInfo info = getInstanceById(id);
+        if (info == null) {
+            return Collections.emptyList();
         }
-        return list;
+        return Collections.singletonList(info);
+    }
+
+    /**
+     * Gets the instance with the given id from the registry of the remote region.
+     *
+     * @param id the unique identifier of the instance.
+     * @return the instance, or null if the remote region has no instance with the given id
+     */
+    public InstanceInfo getInstanceById(String id) {
+        return instancesById.get().get(id);
     }
 
     public Applications getApplicationDeltas() {
@@ -1,6 +1,7 @@
 package com.netflix.eureka.registry;
 
 import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -28,6 +29,17 @@ public interface ResponseCache {
      */
      String get(Key key);
 
+    /**
+     * Get the cached information about applications, as UTF-8 encoded bytes.
+     *
+     * @param key the key for which the cached information needs to be obtained.
+     * @return payload which contains information about the applications.
+     */
+    default byte[] getBytes(Key key) {
+        String payload = get(key);
+        return payload == null ? null : payload.getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * Get the compressed information about the applications.
      *
@@ -36,6 +48,21 @@ public interface ResponseCache {
      */
     byte[] getGZIP(Key key);
 
+    /**
+     * Get the cached information about applications, in either form, held until it is released. Unlike
+     * {@link #getBytes(Key)} and {@link #getGZIP(Key)}, it does not copy information which is stored off heap, and it
+     * comes with its entity tag and delta cursor, which thereby always describe the very information sent along.
+     *
+     * @param key the key for which the cached information needs to be obtained.
+     * @param gzipped whether the compressed information is to be obtained.
+     * @return payload which contains information about the applications, or {@code null} if there is none.
+     */
+    @Nullable
+    default CachedPayload getCachedPayload(Key key, boolean gzipped) {
+        byte[] payload = gzipped ? getGZIP(key) : getBytes(key);
+        return payload == null ? null : new HeapCachedPayload(payload);
+    }
+
     /**
      * Performs a shutdown of this cache by stopping internal threads and unregistering
      * Servo monitors.
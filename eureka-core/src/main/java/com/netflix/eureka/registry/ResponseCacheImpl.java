@@ -19,15 +19,26 @@ package com.netflix.eureka.registry;
 import javax.annotation.Nullable;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
-import java.util.Date;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.TimerTask;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPOutputStream;
 
@@ -36,12 +47,15 @@ import com.google.common.base.Supplier;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.appinfo.EurekaAccept;
-import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.converters.wrappers.EncoderWrapper;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
@@ -51,6 +65,7 @@ import com.netflix.eureka.resources.CurrentRequestVersion;
 import com.netflix.eureka.resources.ServerCodecs;
 import com.netflix.servo.annotations.DataSourceType;
 import com.netflix.servo.annotations.Monitor;
+import com.netflix.servo.monitor.Counter;
 import com.netflix.servo.monitor.Monitors;
 import com.netflix.servo.monitor.Stopwatch;
 import com.netflix.servo.monitor.Timer;
@@ -85,7 +100,10 @@ public class ResponseCacheImpl implements ResponseCache {
     private static final AtomicLong versionDeltaWithRegionsLegacy = new AtomicLong(0);
 
     private static final String EMPTY_PAYLOAD = "";
-    private final java.util.Timer timer = new java.util.Timer("Eureka-CacheFillTimer", true);
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
+    private static final int MAX_RETAIN_ATTEMPTS = 3;
+    private final ScheduledExecutorService cacheFillExecutor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Eureka-CacheFillTimer").setDaemon(true).build());
     private final AtomicLong versionDelta = new AtomicLong(0);
     private final AtomicLong versionDeltaWithRegions = new AtomicLong(0);
 
@@ -96,6 +114,10 @@ public class ResponseCacheImpl implements ResponseCache {
     private final Timer serializeOneApptimer = Monitors.newTimer("serialize-one");
     private final Timer serializeViptimer = Monitors.newTimer("serialize-one-vip");
     private final Timer compressPayloadTimer = Monitors.newTimer("compress-payload");
+    private final Timer regeneratePayloadTimer = Monitors.newTimer("regenerate-payload");
+    private final Counter staleServeCounter = Monitors.newCounter("stale-serve");
+    private final Counter invalidationsReceivedCounter = Monitors.newCounter("invalidations-received");
+    private final Counter invalidationsAppliedCounter = Monitors.newCounter("invalidations-applied");
 
     /**
      * This map holds mapping of keys without regions to a list of keys with region (provided by clients)
@@ -113,9 +135,33 @@ public class ResponseCacheImpl implements ResponseCache {
             });
 
     private final ConcurrentMap<Key, Value> readOnlyCacheMap = new ConcurrentHashMap<Key, Value>();
+    // Keys of the read only cache with an update scheduled
+    private final Set<Key> pendingReadOnlyUpdates = ConcurrentHashMap.newKeySet();
+    private final AtomicLong readOnlyHits = new AtomicLong();
+    // Composers of the payloads of all local applications, by encoder
+    private final ConcurrentMap<EncoderWrapper, ApplicationsPayloadComposer> allAppsComposers =
+            new ConcurrentHashMap<EncoderWrapper, ApplicationsPayloadComposer>();
+
+    // Applications and virtual addresses changed during the current invalidation coalescing window
+    private final Set<String> dirtyAppNames = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtyVipAddresses = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtySecureVipAddresses = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean invalidationFlushScheduled = new AtomicBoolean();
+
+    // Keys of the read write cache being regenerated in the background, with whether they were invalidated again
+    private final ConcurrentMap<Key, AtomicBoolean> regenerations = new ConcurrentHashMap<Key, AtomicBoolean>();
+    private final ExecutorService regenerationExecutor;
+
+    // Pool of the payloads stored off heap, if they are
+    private final PayloadBufferPool payloadBufferPool;
 
     private final LoadingCache<Key, Value> readWriteCacheMap;
     private final boolean shouldUseReadOnlyResponseCache;
+    private final boolean shouldServeStaleWhileRevalidating;
+    private final boolean isSizeBounded;
+    private final long minReadOnlyRefreshIntervalMs;
+    private final long invalidationCoalescingWindowMs;
+    private final long payloadMaxAgeMs;
     private final AbstractInstanceRegistry registry;
     private final EurekaServerConfig serverConfig;
     private final ServerCodecs serverCodecs;
@@ -124,20 +170,57 @@ public class ResponseCacheImpl implements ResponseCache {
         this.serverConfig = serverConfig;
         this.serverCodecs = serverCodecs;
         this.shouldUseReadOnlyResponseCache = serverConfig.shouldUseReadOnlyResponseCache();
+        this.shouldServeStaleWhileRevalidating = serverConfig.shouldServeStaleResponseCacheWhileRevalidating();
+        this.minReadOnlyRefreshIntervalMs = serverConfig.getMinResponseCacheRefreshIntervalMs();
+        this.invalidationCoalescingWindowMs = serverConfig.getResponseCacheInvalidationCoalescingWindowMs();
+        this.payloadMaxAgeMs = TimeUnit.SECONDS.toMillis(serverConfig.getResponseCacheAutoExpirationInSeconds());
+        this.isSizeBounded = serverConfig.getResponseCacheMaxSizeInBytes() > 0;
+        this.payloadBufferPool = serverConfig.shouldStoreResponseCachePayloadsOffHeap()
+                ? new PayloadBufferPool(PayloadBufferPool.DEFAULT_CHUNK_SIZE) : null;
         this.registry = registry;
 
         long responseCacheUpdateIntervalMs = serverConfig.getResponseCacheUpdateIntervalMs();
-        this.readWriteCacheMap =
+        CacheBuilder<Object, Object> cacheBuilder =
                 CacheBuilder.newBuilder().initialCapacity(serverConfig.getInitialCapacityOfResponseCache())
-                        .expireAfterWrite(serverConfig.getResponseCacheAutoExpirationInSeconds(), TimeUnit.SECONDS)
+                        .recordStats();
+        if (isSizeBounded) {
+            cacheBuilder.maximumWeight(serverConfig.getResponseCacheMaxSizeInBytes())
+                    .weigher(new Weigher<Key, Value>() {
+                        @Override
+                        public int weigh(Key key, Value value) {
+                            return value.getSizeInBytes();
+                        }
+                    });
+        }
+        if (shouldServeStaleWhileRevalidating) {
+            // Payloads in use are regenerated once expired, so only the unused ones reach twice the age
+            this.regenerationExecutor = Executors.newFixedThreadPool(
+                    Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+                    new ThreadFactoryBuilder().setNameFormat("Eureka-CacheRegeneration-%d").setDaemon(true).build());
+            cacheBuilder.expireAfterWrite(2 * payloadMaxAgeMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.regenerationExecutor = null;
+            cacheBuilder.expireAfterWrite(serverConfig.getResponseCacheAutoExpirationInSeconds(), TimeUnit.SECONDS);
+        }
+        this.readWriteCacheMap =
+                cacheBuilder
                         .removalListener(new RemovalListener<Key, Value>() {
                             @Override
                             public void onRemoval(RemovalNotification<Key, Value> notification) {
                                 Key removedKey = notification.getKey();
-                                if (removedKey.hasRegions()) {
+                                // A regenerated payload replaces the previous one, the key stays cached
+                                if (removedKey.hasRegions() && notification.getCause() != RemovalCause.REPLACED) {
                                     Key cloneWithNoRegions = removedKey.cloneWithoutRegions();
                                     regionSpecificKeys.remove(cloneWithNoRegions, removedKey);
                                 }
+                                // The read only cache is bounded along with the read write one
+                                if (notification.getCause() == RemovalCause.SIZE) {
+                                    removeReadOnly(removedKey);
+                                }
+                                Value removedValue = notification.getValue();
+                                if (removedValue != null) {
+                                    removedValue.release();
+                                }
                             }
                         })
                         .build(new CacheLoader<Key, Value>() {
@@ -153,10 +236,8 @@ public class ResponseCacheImpl implements ResponseCache {
                         });
 
         if (shouldUseReadOnlyResponseCache) {
-            timer.schedule(getCacheUpdateTask(),
-                    new Date(((System.currentTimeMillis() / responseCacheUpdateIntervalMs) * responseCacheUpdateIntervalMs)
-                            + responseCacheUpdateIntervalMs),
-                    responseCacheUpdateIntervalMs);
+            cacheFillExecutor.scheduleWithFixedDelay(getCacheUpdateTask(),
+                    responseCacheUpdateIntervalMs, responseCacheUpdateIntervalMs, TimeUnit.MILLISECONDS);
         }
 
         try {
@@ -166,33 +247,106 @@ public class ResponseCacheImpl implements ResponseCache {
         }
     }
 
-    private TimerTask getCacheUpdateTask() {
-        return new TimerTask() {
+    /**
+     * Payloads of the read only cache are updated when they are invalidated. This task only updates the payloads
+     * which were not invalidated for longer than the read write cache keeps them, e.g. the deltas, which change as
+     * the changes age out of the delta queue.
+     */
+    private Runnable getCacheUpdateTask() {
+        return new Runnable() {
             @Override
             public void run() {
-                logger.debug("Updating the client cache from response cache");
-                for (Key key : readOnlyCacheMap.keySet()) {
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Updating the client cache from response cache for key : {} {} {} {}",
-                                key.getEntityType(), key.getName(), key.getVersion(), key.getType());
-                    }
-                    try {
-                        CurrentRequestVersion.set(key.getVersion());
-                        Value cacheValue = readWriteCacheMap.get(key);
-                        Value currentCacheValue = readOnlyCacheMap.get(key);
-                        if (cacheValue != currentCacheValue) {
-                            readOnlyCacheMap.put(key, cacheValue);
-                        }
-                    } catch (Throwable th) {
-                        logger.error("Error while updating the client cache from response cache for key {}", key.toStringCompact(), th);
-                    } finally {
-                        CurrentRequestVersion.remove();
+                logger.debug("Updating the expired client cache entries from response cache");
+                long expiredBefore = System.currentTimeMillis() - payloadMaxAgeMs;
+                for (Map.Entry<Key, Value> entry : readOnlyCacheMap.entrySet()) {
+                    if (entry.getValue().getGeneratedAt() < expiredBefore) {
+                        scheduleReadOnlyUpdate(entry.getKey());
                     }
                 }
             }
         };
     }
 
+    /**
+     * Schedules an update of the payload of the given key in the read only cache. Updates of the same key are
+     * coalesced, and are at least {@link EurekaServerConfig#getMinResponseCacheRefreshIntervalMs()} apart. A payload
+     * which was not read since it was cached is dropped instead, so that unused keys cost nothing; it is generated
+     * again on the next request.
+     */
+    private void scheduleReadOnlyUpdate(final Key key) {
+        Value currentValue = readOnlyCacheMap.get(key);
+        if (currentValue == null) {
+            return;
+        }
+        if (!currentValue.isAccessed()) {
+            removeReadOnly(key, currentValue);
+            return;
+        }
+        if (pendingReadOnlyUpdates.add(key)) {
+            long delayMs = currentValue.getGeneratedAt() + minReadOnlyRefreshIntervalMs - System.currentTimeMillis();
+            try {
+                cacheFillExecutor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        updateReadOnly(key);
+                    }
+                }, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                pendingReadOnlyUpdates.remove(key);
+                logger.debug("Not updating the client cache for key {} as the cache is stopped", key.toStringCompact());
+            }
+        }
+    }
+
+    private void updateReadOnly(Key key) {
+        // Invalidations arriving from now on schedule a new update
+        pendingReadOnlyUpdates.remove(key);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Updating the client cache from response cache for key : {} {} {} {}",
+                    key.getEntityType(), key.getName(), key.getVersion(), key.getType());
+        }
+        try {
+            CurrentRequestVersion.set(key.getVersion());
+            Value cacheValue = getReadWriteValue(key);
+            Value currentCacheValue = readOnlyCacheMap.get(key);
+            if (cacheValue != currentCacheValue) {
+                putReadOnly(key, cacheValue);
+            }
+        } catch (Throwable th) {
+            logger.error("Error while updating the client cache from response cache for key {}", key.toStringCompact(), th);
+        } finally {
+            CurrentRequestVersion.remove();
+        }
+    }
+
+    /**
+     * Caches the given payload in the read only cache, unless it was released already. A payload it replaces is
+     * released.
+     */
+    private boolean putReadOnly(Key key, Value value) {
+        if (!value.retain()) {
+            return false;
+        }
+        Value previousValue = readOnlyCacheMap.put(key, value);
+        if (previousValue != null) {
+            previousValue.release();
+        }
+        return true;
+    }
+
+    private void removeReadOnly(Key key) {
+        Value previousValue = readOnlyCacheMap.remove(key);
+        if (previousValue != null) {
+            previousValue.release();
+        }
+    }
+
+    private void removeReadOnly(Key key, Value value) {
+        if (readOnlyCacheMap.remove(key, value)) {
+            value.release();
+        }
+    }
+
     /**
      * Get the cached information about applications.
      *
@@ -211,11 +365,33 @@ public class ResponseCacheImpl implements ResponseCache {
 
     @VisibleForTesting
     String get(final Key key, boolean useReadOnlyCache) {
-        Value payload = getValue(key, useReadOnlyCache);
-        if (payload == null || payload.getPayload().equals(EMPTY_PAYLOAD)) {
+        Value payload = retainValue(key, useReadOnlyCache);
+        if (payload == null) {
             return null;
-        } else {
-            return payload.getPayload();
+        }
+        try {
+            return payload.isEmpty() ? null : payload.getPayload();
+        } finally {
+            payload.release();
+        }
+    }
+
+    /**
+     * Get the cached information about applications, as UTF-8 encoded bytes.
+     *
+     * @param key the key for which the cached information needs to be obtained.
+     * @return payload which contains information about the applications.
+     */
+    @Override
+    public byte[] getBytes(final Key key) {
+        Value payload = retainValue(key, shouldUseReadOnlyResponseCache);
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return payload.isEmpty() ? null : payload.getBytes();
+        } finally {
+            payload.release();
         }
     }
 
@@ -229,40 +405,140 @@ public class ResponseCacheImpl implements ResponseCache {
      *         applications.
      */
     public byte[] getGZIP(Key key) {
-        Value payload = getValue(key, shouldUseReadOnlyResponseCache);
+        Value payload = retainValue(key, shouldUseReadOnlyResponseCache);
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return payload.getGzipped();
+        } finally {
+            payload.release();
+        }
+    }
+
+    /**
+     * Get the cached information about applications, in either form, held until it is released.
+     *
+     * @param key the key for which the cached information needs to be obtained.
+     * @param gzipped whether the compressed information is to be obtained.
+     * @return payload which contains information about the applications.
+     */
+    @Override
+    public CachedPayload getCachedPayload(Key key, boolean gzipped) {
+        Value payload = retainValue(key, shouldUseReadOnlyResponseCache);
         if (payload == null) {
             return null;
         }
-        return payload.getGzipped();
+        PayloadBuffer buffer = payload.getPayloadBuffer(gzipped);
+        if (buffer == null) {
+            payload.release();
+            return null;
+        }
+        return new RetainedPayload(payload, buffer, gzipped);
     }
 
     @Override
     public void stop() {
-        timer.cancel();
+        cacheFillExecutor.shutdownNow();
+        if (regenerationExecutor != null) {
+            regenerationExecutor.shutdownNow();
+        }
         Monitors.unregisterObject(this);
     }
 
     /**
      * Invalidate the cache of a particular application.
      *
+     * <p>
+     * When invalidations are coalesced, the application and its virtual addresses are only marked as changed, and
+     * are invalidated along with all the others changed within
+     * {@link EurekaServerConfig#getResponseCacheInvalidationCoalescingWindowMs()}.
+     * </p>
+     *
      * @param appName the application name of the application.
      */
     @Override
     public void invalidate(String appName, @Nullable String vipAddress, @Nullable String secureVipAddress) {
+        int variants = Key.KeyType.values().length * Version.values().length;
+        invalidationsReceivedCounter.increment(
+                variants * (6 + (vipAddress == null ? 0 : 1) + (secureVipAddress == null ? 0 : 1)));
+        if (invalidationCoalescingWindowMs <= 0) {
+            invalidate(Collections.singleton(appName),
+                    vipAddress == null ? Collections.<String>emptySet() : Collections.singleton(vipAddress),
+                    secureVipAddress == null ? Collections.<String>emptySet() : Collections.singleton(secureVipAddress));
+            return;
+        }
+        dirtyAppNames.add(appName);
+        if (null != vipAddress) {
+            dirtyVipAddresses.add(vipAddress);
+        }
+        if (null != secureVipAddress) {
+            dirtySecureVipAddresses.add(secureVipAddress);
+        }
+        if (invalidationFlushScheduled.compareAndSet(false, true)) {
+            try {
+                cacheFillExecutor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        flushInvalidations();
+                    }
+                }, invalidationCoalescingWindowMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                invalidationFlushScheduled.set(false);
+                logger.debug("Not invalidating the response cache for application {} as the cache is stopped", appName);
+            }
+        }
+    }
+
+    /**
+     * Invalidates the applications and virtual addresses changed since the previous flush.
+     */
+    private void flushInvalidations() {
+        // Changes marked from now on schedule a new flush
+        invalidationFlushScheduled.set(false);
+        try {
+            invalidate(drain(dirtyAppNames), drain(dirtyVipAddresses), drain(dirtySecureVipAddresses));
+        } catch (Throwable th) {
+            logger.error("Error while invalidating the response cache", th);
+        }
+    }
+
+    private static Set<String> drain(Set<String> names) {
+        Set<String> drained = new HashSet<String>();
+        for (Iterator<String> it = names.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    /**
+     * Invalidates the keys of the given applications and virtual addresses, along with the keys of all applications,
+     * which are invalidated once however many applications changed.
+     */
+    private void invalidate(Collection<String> appNames, Collection<String> vipAddresses,
+                            Collection<String> secureVipAddresses) {
+        if (appNames.isEmpty() && vipAddresses.isEmpty() && secureVipAddresses.isEmpty()) {
+            return;
+        }
         for (Key.KeyType type : Key.KeyType.values()) {
             for (Version v : Version.values()) {
                 invalidate(
-                        new Key(Key.EntityType.Application, appName, type, v, EurekaAccept.full),
-                        new Key(Key.EntityType.Application, appName, type, v, EurekaAccept.compact),
                         new Key(Key.EntityType.Application, ALL_APPS, type, v, EurekaAccept.full),
                         new Key(Key.EntityType.Application, ALL_APPS, type, v, EurekaAccept.compact),
                         new Key(Key.EntityType.Application, ALL_APPS_DELTA, type, v, EurekaAccept.full),
                         new Key(Key.EntityType.Application, ALL_APPS_DELTA, type, v, EurekaAccept.compact)
                 );
-                if (null != vipAddress) {
+                for (String appName : appNames) {
+                    invalidate(
+                            new Key(Key.EntityType.Application, appName, type, v, EurekaAccept.full),
+                            new Key(Key.EntityType.Application, appName, type, v, EurekaAccept.compact)
+                    );
+                }
+                for (String vipAddress : vipAddresses) {
                     invalidate(new Key(Key.EntityType.VIP, vipAddress, type, v, EurekaAccept.full));
                 }
-                if (null != secureVipAddress) {
+                for (String secureVipAddress : secureVipAddresses) {
                     invalidate(new Key(Key.EntityType.SVIP, secureVipAddress, type, v, EurekaAccept.full));
                 }
             }
@@ -275,22 +551,47 @@ public class ResponseCacheImpl implements ResponseCache {
      * @param keys the list of keys for which the cache information needs to be invalidated.
      */
     public void invalidate(Key... keys) {
+        invalidationsAppliedCounter.increment(keys.length);
         for (Key key : keys) {
             logger.debug("Invalidating the response cache key : {} {} {} {}, {}",
                     key.getEntityType(), key.getName(), key.getVersion(), key.getType(), key.getEurekaAccept());
 
-            readWriteCacheMap.invalidate(key);
+            invalidateReadWrite(key);
+            if (shouldUseReadOnlyResponseCache) {
+                scheduleReadOnlyUpdate(key);
+            }
             Collection<Key> keysWithRegions = regionSpecificKeys.get(key);
             if (null != keysWithRegions && !keysWithRegions.isEmpty()) {
                 for (Key keysWithRegion : keysWithRegions) {
                     logger.debug("Invalidating the response cache key : {} {} {} {} {}",
                             key.getEntityType(), key.getName(), key.getVersion(), key.getType(), key.getEurekaAccept());
-                    readWriteCacheMap.invalidate(keysWithRegion);
+                    invalidateReadWrite(keysWithRegion);
+                    if (shouldUseReadOnlyResponseCache) {
+                        scheduleReadOnlyUpdate(keysWithRegion);
+                    }
                 }
             }
         }
     }
 
+    /**
+     * Drops the payload of the given key from the read write cache, or when serving stale payloads, marks it to be
+     * regenerated on its next use. A key which is being regenerated is regenerated once more.
+     */
+    private void invalidateReadWrite(Key key) {
+        if (shouldServeStaleWhileRevalidating) {
+            Value payload = readWriteCacheMap.getIfPresent(key);
+            if (payload != null) {
+                payload.markInvalidated();
+            }
+            if (regenerations.containsKey(key)) {
+                regenerate(key, true);
+            }
+        } else {
+            readWriteCacheMap.invalidate(key);
+        }
+    }
+
     /**
      * Gets the version number of the cached data.
      *
@@ -345,6 +646,64 @@ public class ResponseCacheImpl implements ResponseCache {
         return readWriteCacheMap.asMap().size();
     }
 
+    @Monitor(name = "responseCacheApplicationBytes", type = DataSourceType.GAUGE)
+    public long getApplicationPayloadBytes() {
+        return getPayloadBytes(Key.EntityType.Application);
+    }
+
+    @Monitor(name = "responseCacheVipBytes", type = DataSourceType.GAUGE)
+    public long getVipPayloadBytes() {
+        return getPayloadBytes(Key.EntityType.VIP);
+    }
+
+    @Monitor(name = "responseCacheSvipBytes", type = DataSourceType.GAUGE)
+    public long getSvipPayloadBytes() {
+        return getPayloadBytes(Key.EntityType.SVIP);
+    }
+
+    @Monitor(name = "responseCacheHits", type = DataSourceType.COUNTER)
+    public long getHitCount() {
+        return readWriteCacheMap.stats().hitCount();
+    }
+
+    @Monitor(name = "responseCacheMisses", type = DataSourceType.COUNTER)
+    public long getMissCount() {
+        return readWriteCacheMap.stats().missCount();
+    }
+
+    @Monitor(name = "responseCacheEvictions", type = DataSourceType.COUNTER)
+    public long getEvictionCount() {
+        return readWriteCacheMap.stats().evictionCount();
+    }
+
+    @Monitor(name = "responseCacheReadOnlyHits", type = DataSourceType.COUNTER)
+    public long getReadOnlyHitCount() {
+        return readOnlyHits.get();
+    }
+
+    @Monitor(name = "responseCacheOffHeapAllocatedBytes", type = DataSourceType.GAUGE)
+    public long getOffHeapAllocatedBytes() {
+        return payloadBufferPool == null ? 0 : payloadBufferPool.getAllocatedBytes();
+    }
+
+    @Monitor(name = "responseCacheOffHeapFreeBytes", type = DataSourceType.GAUGE)
+    public long getOffHeapFreeBytes() {
+        return payloadBufferPool == null ? 0 : payloadBufferPool.getFreeBytes();
+    }
+
+    /**
+     * Get the size of the payloads of the given entity type in the read write cache, compressed and uncompressed.
+     */
+    private long getPayloadBytes(Key.EntityType entityType) {
+        long bytes = 0;
+        for (Map.Entry<Key, Value> entry : readWriteCacheMap.asMap().entrySet()) {
+            if (entry.getKey().getEntityType() == entityType) {
+                bytes += entry.getValue().getSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
     /**
      * Get the payload in both compressed and uncompressed form.
      */
@@ -355,13 +714,23 @@ public class ResponseCacheImpl implements ResponseCache {
             if (useReadOnlyCache) {
                 final Value currentPayload = readOnlyCacheMap.get(key);
                 if (currentPayload != null) {
+                    currentPayload.markAccessed();
                     payload = currentPayload;
+                    readOnlyHits.incrementAndGet();
+                    if (isSizeBounded) {
+                        // Keeps the key recently used in the read write cache, without counting a hit there
+                        readWriteCacheMap.asMap().get(key);
+                    }
                 } else {
-                    payload = readWriteCacheMap.get(key);
-                    readOnlyCacheMap.put(key, payload);
+                    payload = getReadWriteValue(key);
+                    payload.markAccessed();
+                    putReadOnly(key, payload);
                 }
             } else {
-                payload = readWriteCacheMap.get(key);
+                payload = getReadWriteValue(key);
+                if (shouldServeStaleWhileRevalidating && isStale(payload)) {
+                    staleServeCounter.increment();
+                }
             }
         } catch (Throwable t) {
             logger.error("Cannot get value for key : {}", key, t);
@@ -369,17 +738,90 @@ public class ResponseCacheImpl implements ResponseCache {
         return payload;
     }
 
+    /**
+     * Get the payload, retained until the caller releases it. A payload stored off heap may be released by the caches
+     * at any time, in which case the payload which replaced it is used instead.
+     */
+    private Value retainValue(Key key, boolean useReadOnlyCache) {
+        for (int attempt = 0; attempt < MAX_RETAIN_ATTEMPTS; attempt++) {
+            Value payload = getValue(key, useReadOnlyCache);
+            if (payload == null || payload.retain()) {
+                return payload;
+            }
+        }
+        // The payload is released as soon as it is cached, e.g. as it alone exceeds the size of the cache
+        return generatePayload(key);
+    }
+
+    /**
+     * Gets the payload of the read write cache. When serving stale payloads, a payload which was invalidated or
+     * expired is returned as is, while it is regenerated in the background.
+     */
+    private Value getReadWriteValue(Key key) throws ExecutionException {
+        Value payload = readWriteCacheMap.get(key);
+        if (shouldServeStaleWhileRevalidating && isStale(payload)) {
+            regenerate(key, false);
+        }
+        return payload;
+    }
+
+    private boolean isStale(Value payload) {
+        return payload.isInvalidated() || payload.getGeneratedAt() < System.currentTimeMillis() - payloadMaxAgeMs;
+    }
+
+    /**
+     * Regenerates the payload of the given key in the background, unless it is being regenerated already. A key
+     * invalidated while being regenerated is regenerated once more afterwards, as its new payload may have missed
+     * the change.
+     */
+    private void regenerate(final Key key, final boolean invalidated) {
+        final AtomicBoolean regeneration = new AtomicBoolean();
+        AtomicBoolean current = regenerations.merge(key, regeneration, (running, ignored) -> {
+            if (invalidated) {
+                running.set(true);
+            }
+            return running;
+        });
+        if (current != regeneration) {
+            return;
+        }
+        try {
+            regenerationExecutor.execute(() -> {
+                do {
+                    regeneration.set(false);
+                    Stopwatch tracer = regeneratePayloadTimer.start();
+                    try {
+                        CurrentRequestVersion.set(key.getVersion());
+                        readWriteCacheMap.put(key, generatePayload(key));
+                    } catch (Throwable th) {
+                        logger.error("Error while regenerating the response cache for key {}",
+                                key.toStringCompact(), th);
+                    } finally {
+                        CurrentRequestVersion.remove();
+                        tracer.stop();
+                    }
+                } while (regenerations.computeIfPresent(key, (k, again) -> again.get() ? again : null) != null);
+                if (shouldUseReadOnlyResponseCache) {
+                    scheduleReadOnlyUpdate(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            regenerations.remove(key, regeneration);
+            logger.debug("Not regenerating the response cache for key {} as the cache is stopped",
+                    key.toStringCompact());
+        }
+    }
+
     /**
      * Generate pay load with both JSON and XML formats for all applications.
      */
-    private String getPayLoad(Key key, Applications apps) {
-        EncoderWrapper encoderWrapper = serverCodecs.getEncoder(key.getType(), key.getEurekaAccept());
-        String result;
+    private Value getPayLoad(Key key, Applications apps) {
+        Value result;
         try {
-            result = encoderWrapper.encode(apps);
+            result = encode(key, apps);
         } catch (Exception e) {
             logger.error("Failed to encode the payload for all apps", e);
-            return "";
+            return new Value(EMPTY_PAYLOAD);
         }
         if(logger.isDebugEnabled()) {
             logger.debug("New application cache entry {} with apps hashcode {}", key.toStringCompact(), apps.getAppsHashCode());
@@ -387,30 +829,81 @@ public class ResponseCacheImpl implements ResponseCache {
         return result;
     }
 
+    /**
+     * Generate pay load for all applications of the local registry. If the encoder allows it, the payload is composed
+     * from the encoded applications, re-encoding only the applications which changed since the previous payload.
+     */
+    private Value getAllAppsPayLoad(Key key, Applications apps) {
+        EncoderWrapper encoderWrapper = serverCodecs.getEncoder(key.getType(), key.getEurekaAccept());
+        if (ApplicationsPayloadComposer.supports(encoderWrapper)) {
+            ApplicationsPayloadComposer composer =
+                    allAppsComposers.computeIfAbsent(encoderWrapper, ApplicationsPayloadComposer::new);
+            try {
+                PayloadOutputStream out = new PayloadOutputStream(payloadBufferPool);
+                boolean composed = false;
+                try {
+                    try {
+                        composed = composer.compose(apps, out);
+                    } finally {
+                        out.close();
+                    }
+                } finally {
+                    if (!composed) {
+                        out.discard();
+                    }
+                }
+                if (composed) {
+                    return new Value(out.getPayload(), out.getGzippedPayload());
+                }
+            } catch (Exception e) {
+                logger.error("Failed to compose the payload for all apps", e);
+            }
+        }
+        return getPayLoad(key, apps);
+    }
+
     /**
      * Generate pay load with both JSON and XML formats for a given application.
      */
-    private String getPayLoad(Key key, Application app) {
+    private Value getPayLoad(Key key, Application app) {
         if (app == null) {
-            return EMPTY_PAYLOAD;
+            return new Value(EMPTY_PAYLOAD);
         }
 
-        EncoderWrapper encoderWrapper = serverCodecs.getEncoder(key.getType(), key.getEurekaAccept());
         try {
-            return encoderWrapper.encode(app);
+            return encode(key, app);
         } catch (Exception e) {
             logger.error("Failed to encode the payload for application {}", app.getName(), e);
-            return "";
+            return new Value(EMPTY_PAYLOAD);
         }
     }
 
+    /**
+     * Encodes the entity as UTF-8, compressing it in the same pass.
+     */
+    private Value encode(Key key, Object entity) throws IOException {
+        EncoderWrapper encoderWrapper = serverCodecs.getEncoder(key.getType(), key.getEurekaAccept());
+        PayloadOutputStream out = new PayloadOutputStream(payloadBufferPool);
+        try {
+            try {
+                encoderWrapper.encode(entity, out);
+            } finally {
+                out.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            out.discard();
+            throw e;
+        }
+        return new Value(out.getPayload(), out.getGzippedPayload());
+    }
+
     /*
      * Generate pay load for the given key.
      */
     private Value generatePayload(Key key) {
         Stopwatch tracer = null;
         try {
-            String payload;
+            Value payload;
             switch (key.getEntityType()) {
                 case Application:
                     boolean isRemoteRegionRequested = key.hasRegions();
@@ -421,7 +914,12 @@ public class ResponseCacheImpl implements ResponseCache {
                             payload = getPayLoad(key, registry.getApplicationsFromMultipleRegions(key.getRegions()));
                         } else {
                             tracer = serializeAllAppsTimer.start();
-                            payload = getPayLoad(key, registry.getApplications());
+                            // Obtained before the applications, so they contain at least the changes up to it
+                            String deltaCursor = registry.getDeltaCursor();
+                            payload = getAllAppsPayLoad(key, registry.getApplicationsForReadOnly());
+                            if (!payload.isEmpty()) {
+                                payload.setDeltaCursor(deltaCursor);
+                            }
                         }
                     } else if (ALL_APPS_DELTA.equals(key.getName())) {
                         if (isRemoteRegionRequested) {
@@ -448,10 +946,10 @@ public class ResponseCacheImpl implements ResponseCache {
                     break;
                 default:
                     logger.error("Unidentified entity type: {} found in the cache key.", key.getEntityType());
-                    payload = "";
+                    payload = new Value(EMPTY_PAYLOAD);
                     break;
             }
-            return new Value(payload);
+            return payload;
         } finally {
             if (tracer != null) {
                 tracer.stop();
@@ -463,84 +961,249 @@ public class ResponseCacheImpl implements ResponseCache {
         logger.debug(
                 "Retrieving applications from registry for key : {} {} {} {}",
                 key.getEntityType(), key.getName(), key.getVersion(), key.getType());
-        Applications toReturn = new Applications();
-        Applications applications = registry.getApplications();
-        for (Application application : applications.getRegisteredApplications()) {
-            Application appToAdd = null;
-            for (InstanceInfo instanceInfo : application.getInstances()) {
-                String vipAddress;
-                if (Key.EntityType.VIP.equals(key.getEntityType())) {
-                    vipAddress = instanceInfo.getVIPAddress();
-                } else if (Key.EntityType.SVIP.equals(key.getEntityType())) {
-                    vipAddress = instanceInfo.getSecureVipAddress();
-                } else {
-                    // should not happen, but just in case.
-                    continue;
-                }
-
-                if (null != vipAddress) {
-                    String[] vipAddresses = vipAddress.split(",");
-                    Arrays.sort(vipAddresses);
-                    if (Arrays.binarySearch(vipAddresses, key.getName()) >= 0) {
-                        if (null == appToAdd) {
-                            appToAdd = new Application(application.getName());
-                            toReturn.addApplication(appToAdd);
-                        }
-                        appToAdd.addInstance(instanceInfo);
-                    }
-                }
-            }
+        Applications toReturn;
+        if (Key.EntityType.VIP.equals(key.getEntityType())) {
+            toReturn = registry.getApplicationsForVip(key.getName(), false);
+        } else if (Key.EntityType.SVIP.equals(key.getEntityType())) {
+            toReturn = registry.getApplicationsForVip(key.getName(), true);
+        } else {
+            // should not happen, but just in case.
+            toReturn = new Applications();
+            toReturn.setAppsHashCode(toReturn.getReconcileHashCode());
         }
-        toReturn.setAppsHashCode(toReturn.getReconcileHashCode());
         logger.debug(
                 "Retrieved applications from registry for key : {} {} {} {}, reconcile hashcode: {}",
                 key.getEntityType(), key.getName(), key.getVersion(), key.getType(),
-                toReturn.getReconcileHashCode());
+                toReturn.getAppsHashCode());
         return toReturn;
     }
 
     /**
      * The class that stores payload in both compressed and uncompressed form.
      *
+     * <p>
+     * A payload stored off heap is reference counted: it is referenced by the caches holding it and by the readers
+     * writing it, and its memory is returned to the pool once the last of them releases it.
+     * </p>
      */
     public class Value {
-        private final String payload;
-        private byte[] gzipped;
+        private final PayloadBuffer payload;
+        private final PayloadBuffer gzipped;
+        private final long generatedAt = System.currentTimeMillis();
+        // The read write cache holds the first reference
+        private final AtomicInteger references = new AtomicInteger(1);
+        private volatile boolean accessed;
+        private volatile boolean invalidated;
+        private volatile String contentHash;
+        private volatile String deltaCursor;
 
         public Value(String payload) {
-            this.payload = payload;
+            byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+            this.payload = PayloadBuffer.wrap(bytes);
             if (!EMPTY_PAYLOAD.equals(payload)) {
                 Stopwatch tracer = compressPayloadTimer.start();
+                PayloadBuffer compressed;
                 try {
                     ByteArrayOutputStream bos = new ByteArrayOutputStream();
                     GZIPOutputStream out = new GZIPOutputStream(bos);
-                    byte[] rawBytes = payload.getBytes();
-                    out.write(rawBytes);
+                    out.write(bytes);
                     // Finish creation of gzip file
                     out.finish();
                     out.close();
                     bos.close();
-                    gzipped = bos.toByteArray();
+                    compressed = PayloadBuffer.wrap(bos.toByteArray());
                 } catch (IOException e) {
-                    gzipped = null;
+                    compressed = null;
                 } finally {
                     if (tracer != null) {
                         tracer.stop();
                     }
                 }
+                gzipped = compressed;
             } else {
                 gzipped = null;
             }
         }
 
+        /**
+         * @param payload the UTF-8 encoded payload
+         * @param gzipped the gzip compressed payload
+         */
+        Value(PayloadBuffer payload, PayloadBuffer gzipped) {
+            this.payload = payload;
+            if (payload.size() == 0) {
+                gzipped.free();
+                this.gzipped = null;
+            } else {
+                this.gzipped = gzipped;
+            }
+        }
+
         public String getPayload() {
-            return payload;
+            return new String(payload.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return the UTF-8 encoded payload
+         */
+        public byte[] getBytes() {
+            return payload.toByteArray();
+        }
+
+        public boolean isEmpty() {
+            return payload.size() == 0;
         }
 
         public byte[] getGzipped() {
-            return gzipped;
+            return gzipped == null ? null : gzipped.toByteArray();
         }
 
+        /**
+         * @return the payload in the given form, or {@code null} if there is none
+         */
+        PayloadBuffer getPayloadBuffer(boolean compressed) {
+            if (compressed) {
+                return gzipped;
+            }
+            return isEmpty() ? null : payload;
+        }
+
+        /**
+         * @return a strong entity tag derived from the content of the payload, or {@code null} if the payload is
+         * empty. The compressed form gets a tag of its own, as it is a different representation of the content.
+         */
+        public String getETag(boolean compressed) {
+            if (contentHash == null && !isEmpty()) {
+                contentHash = payload.hash(Hashing.sha256()).toString();
+            }
+            if (contentHash == null) {
+                return null;
+            }
+            return '"' + contentHash + (compressed ? GZIP_ETAG_SUFFIX : "") + '"';
+        }
+
+        /**
+         * @return the cursor of the registry changes the payload contains, or {@code null} if there is none
+         */
+        String getDeltaCursor() {
+            return deltaCursor;
+        }
+
+        void setDeltaCursor(String deltaCursor) {
+            this.deltaCursor = deltaCursor;
+        }
+
+        long getGeneratedAt() {
+            return generatedAt;
+        }
+
+        boolean isAccessed() {
+            return accessed;
+        }
+
+        void markAccessed() {
+            if (!accessed) {
+                accessed = true;
+            }
+        }
+
+        /**
+         * @return the size of the payload, compressed and uncompressed
+         */
+        int getSizeInBytes() {
+            return payload.size() + (gzipped == null ? 0 : gzipped.size());
+        }
+
+        boolean isInvalidated() {
+            return invalidated;
+        }
+
+        void markInvalidated() {
+            invalidated = true;
+        }
+
+        /**
+         * Adds a reference to a payload stored off heap.
+         *
+         * @return {@code false} if the payload was released already, and may not be used
+         */
+        boolean retain() {
+            if (!payload.isDirect()) {
+                return true;
+            }
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /**
+         * Removes a reference to a payload stored off heap, returning its memory to the pool with the last one.
+         */
+        void release() {
+            if (payload.isDirect() && references.decrementAndGet() == 0) {
+                payload.free();
+                if (gzipped != null) {
+                    gzipped.free();
+                }
+            }
+        }
     }
 
+    /**
+     * A payload handed out by {@link #getCachedPayload(Key, boolean)}, which holds a reference until it is released.
+     */
+    private static final class RetainedPayload implements CachedPayload {
+        private final Value value;
+        private final PayloadBuffer buffer;
+        private final boolean compressed;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private RetainedPayload(Value value, PayloadBuffer buffer, boolean compressed) {
+            this.value = value;
+            this.buffer = buffer;
+            this.compressed = compressed;
+        }
+
+        @Override
+        public boolean isDirect() {
+            return buffer.isDirect();
+        }
+
+        @Override
+        public int size() {
+            return buffer.size();
+        }
+
+        @Override
+        public String getETag() {
+            return value.getETag(compressed);
+        }
+
+        @Override
+        public String getDeltaCursor() {
+            return value.getDeltaCursor();
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            buffer.writeTo(out);
+        }
+
+        @Override
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                value.release();
+            }
+        }
+    }
 }
@@ -55,25 +55,22 @@ abstract class AbstractVIPResource {
             return Response.status(Response.Status.FORBIDDEN).build();
         }
         CurrentRequestVersion.set(Version.toEnum(version));
-        Key.KeyType keyType = Key.KeyType.JSON;
-        if (acceptHeader == null || !acceptHeader.contains("json")) {
-            keyType = Key.KeyType.XML;
-        }
+        Key.KeyType keyType = RegistryMediaTypes.keyTypeOf(acceptHeader, eurekaAccept);
 
         Key cacheKey = new Key(
                 entityType,
                 entityName,
                 keyType,
                 CurrentRequestVersion.get(),
-                eurekaAccept
+                RegistryMediaTypes.eurekaAcceptOf(keyType, eurekaAccept)
         );
 
-        String payLoad = responseCache.get(cacheKey);
+        byte[] payLoad = responseCache.getBytes(cacheKey);
         CurrentRequestVersion.remove();
 
         if (payLoad != null) {
             logger.debug("Found: {}", entityName);
-            return Response.ok(payLoad).build();
+            return Response.ok(payLoad).type(RegistryMediaTypes.mediaTypeOf(keyType)).build();
         } else {
             logger.debug("Not Found: {}", entityName);
             return Response.status(Response.Status.NOT_FOUND).build();
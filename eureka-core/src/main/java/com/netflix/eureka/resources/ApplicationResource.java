@@ -31,6 +31,7 @@ import com.netflix.appinfo.DataCenterInfo;
 import com.netflix.appinfo.EurekaAccept;
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.appinfo.UniqueIdentifier;
+import com.netflix.discovery.converters.EurekaBinaryCodec;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
 import com.netflix.eureka.Version;
@@ -49,7 +50,7 @@ import org.slf4j.LoggerFactory;
  * @author Karthik Ranganathan, Greg Kim
  *
  */
-@Produces({"application/xml", "application/json"})
+@Produces({"application/xml", "application/json", EurekaBinaryCodec.MEDIA_TYPE})
 public class ApplicationResource {
     private static final Logger logger = LoggerFactory.getLogger(ApplicationResource.class);
 
@@ -93,25 +94,22 @@ public class ApplicationResource {
         EurekaMonitors.GET_APPLICATION.increment();
 
         CurrentRequestVersion.set(Version.toEnum(version));
-        KeyType keyType = Key.KeyType.JSON;
-        if (acceptHeader == null || !acceptHeader.contains("json")) {
-            keyType = Key.KeyType.XML;
-        }
+        KeyType keyType = RegistryMediaTypes.keyTypeOf(acceptHeader, EurekaAccept.fromString(eurekaAccept));
 
         Key cacheKey = new Key(
                 Key.EntityType.Application,
                 appName,
                 keyType,
                 CurrentRequestVersion.get(),
-                EurekaAccept.fromString(eurekaAccept)
+                RegistryMediaTypes.eurekaAcceptOf(keyType, EurekaAccept.fromString(eurekaAccept))
         );
 
-        String payLoad = responseCache.get(cacheKey);
+        byte[] payLoad = responseCache.getBytes(cacheKey);
         CurrentRequestVersion.remove();
 
         if (payLoad != null) {
             logger.debug("Found: {}", appName);
-            return Response.ok(payLoad).build();
+            return Response.ok(payLoad).type(RegistryMediaTypes.mediaTypeOf(keyType)).build();
         } else {
             logger.debug("Not Found: {}", appName);
             return Response.status(Status.NOT_FOUND).build();
@@ -145,21 +143,46 @@ public class ApplicationResource {
     public Response addInstance(InstanceInfo info,
                                 @HeaderParam(PeerEurekaNode.HEADER_REPLICATION) String isReplication) {
         logger.debug("Registering instance {} (replication={})", info.getId(), isReplication);
+        String invalidReason = checkRegistration(appName, info, serverConfig);
+        if (invalidReason != null) {
+            return Response.status(400).entity(invalidReason).build();
+        }
+
+        registry.register(info, "true".equals(isReplication));
+        return Response.status(204).build();  // 204 to be backwards compatible
+    }
+
+    /**
+     * Returns the application name of a particular application.
+     *
+     * @return the application name of a particular application.
+     */
+    String getName() {
+        return appName;
+    }
+
+    /**
+     * Validates that the instance information contains all the fields necessary to register it in the given
+     * application, and fills in the id of its data center information if it is missing and can be derived.
+     *
+     * @return the reason the instance cannot be registered, or {@code null} if it can
+     */
+    static String checkRegistration(String appName, InstanceInfo info, EurekaServerConfig serverConfig) {
         // validate that the instanceinfo contains all the necessary required fields
         if (isBlank(info.getId())) {
-            return Response.status(400).entity("Missing instanceId").build();
+            return "Missing instanceId";
         } else if (isBlank(info.getHostName())) {
-            return Response.status(400).entity("Missing hostname").build();
+            return "Missing hostname";
         } else if (isBlank(info.getIPAddr())) {
-            return Response.status(400).entity("Missing ip address").build();
+            return "Missing ip address";
         } else if (isBlank(info.getAppName())) {
-            return Response.status(400).entity("Missing appName").build();
+            return "Missing appName";
         } else if (!appName.equals(info.getAppName())) {
-            return Response.status(400).entity("Mismatched appName, expecting " + appName + " but was " + info.getAppName()).build();
+            return "Mismatched appName, expecting " + appName + " but was " + info.getAppName();
         } else if (info.getDataCenterInfo() == null) {
-            return Response.status(400).entity("Missing dataCenterInfo").build();
+            return "Missing dataCenterInfo";
         } else if (info.getDataCenterInfo().getName() == null) {
-            return Response.status(400).entity("Missing dataCenterInfo Name").build();
+            return "Missing dataCenterInfo Name";
         }
 
         // handle cases where clients may be registering with bad DataCenterInfo with missing data
@@ -169,8 +192,7 @@ public class ApplicationResource {
             if (isBlank(dataCenterInfoId)) {
                 boolean experimental = "true".equalsIgnoreCase(serverConfig.getExperimental("registration.validation.dataCenterInfoId"));
                 if (experimental) {
-                    String entity = "DataCenterInfo of type " + dataCenterInfo.getClass() + " must contain a valid id";
-                    return Response.status(400).entity(entity).build();
+                    return "DataCenterInfo of type " + dataCenterInfo.getClass() + " must contain a valid id";
                 } else if (dataCenterInfo instanceof AmazonInfo) {
                     AmazonInfo amazonInfo = (AmazonInfo) dataCenterInfo;
                     String effectiveId = amazonInfo.get(AmazonInfo.MetaDataKey.instanceId);
@@ -182,21 +204,10 @@ public class ApplicationResource {
                 }
             }
         }
-
-        registry.register(info, "true".equals(isReplication));
-        return Response.status(204).build();  // 204 to be backwards compatible
-    }
-
-    /**
-     * Returns the application name of a particular application.
-     *
-     * @return the application name of a particular application.
-     */
-    String getName() {
-        return appName;
+        return null;
     }
 
-    private boolean isBlank(String str) {
+    private static boolean isBlank(String str) {
         return str == null || str.isEmpty();
     }
 }
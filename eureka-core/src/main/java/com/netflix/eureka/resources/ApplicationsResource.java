@@ -20,29 +20,42 @@ import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 
 import com.netflix.appinfo.EurekaAccept;
+import com.netflix.discovery.converters.EurekaBinaryCodec;
+import com.netflix.discovery.converters.wrappers.EncoderWrapper;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.transport.HeartbeatBatch;
+import com.netflix.discovery.shared.transport.HeartbeatBatchResponse;
 import com.netflix.eureka.EurekaServerContext;
 import com.netflix.eureka.EurekaServerContextHolder;
 import com.netflix.eureka.registry.AbstractInstanceRegistry;
+import com.netflix.eureka.registry.CachedPayload;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
+import com.netflix.eureka.registry.RegistryChangeStream;
 import com.netflix.eureka.Version;
 import com.netflix.eureka.registry.ResponseCache;
 import com.netflix.eureka.registry.Key.KeyType;
 import com.netflix.eureka.registry.ResponseCacheImpl;
 import com.netflix.eureka.registry.Key;
 import com.netflix.eureka.util.EurekaMonitors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.netflix.discovery.shared.transport.EurekaHttpClient;
 
 /**
  * A <em>jersey</em> resource that handles request related to all
@@ -52,24 +65,33 @@ import com.netflix.eureka.util.EurekaMonitors;
  *
  */
 @Path("/{version}/apps")
-@Produces({"application/xml", "application/json"})
+@Produces({"application/xml", "application/json", EurekaBinaryCodec.MEDIA_TYPE})
 public class ApplicationsResource {
+    private static final Logger logger = LoggerFactory.getLogger(ApplicationsResource.class);
+
     private static final String HEADER_ACCEPT = "Accept";
     private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
     private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
     private static final String HEADER_CONTENT_TYPE = "Content-Type";
     private static final String HEADER_GZIP_VALUE = "gzip";
-    private static final String HEADER_JSON_VALUE = "json";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_VARY = "Vary";
+    private static final String HEADER_DELTA_CURSOR = EurekaHttpClient.HTTP_X_EUREKA_DELTA_CURSOR;
+    private static final String HEADER_LAST_EVENT_ID = "Last-Event-ID";
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
 
     private final EurekaServerConfig serverConfig;
     private final PeerAwareInstanceRegistry registry;
     private final ResponseCache responseCache;
+    private final ServerCodecs serverCodecs;
 
     @Inject
     ApplicationsResource(EurekaServerContext eurekaServer) {
         this.serverConfig = eurekaServer.getServerConfig();
         this.registry = eurekaServer.getRegistry();
         this.responseCache = registry.getResponseCache();
+        this.serverCodecs = eurekaServer.getServerCodecs();
     }
 
     public ApplicationsResource() {
@@ -102,16 +124,17 @@ public class ApplicationsResource {
      * Get information about all {@link com.netflix.discovery.shared.Applications}.
      *
      * @param version the version of the request.
-     * @param acceptHeader the accept header to indicate whether to serve JSON or XML data.
+     * @param acceptHeader the accept header to indicate whether to serve JSON, XML or binary data.
      * @param acceptEncoding the accept header to indicate whether to serve compressed or uncompressed data.
      * @param eurekaAccept an eureka accept extension, see {@link com.netflix.appinfo.EurekaAccept}
      * @param uriInfo the {@link java.net.URI} information of the request made.
      * @param regionsStr A comma separated list of remote regions from which the instances will also be returned.
      *                   The applications returned from the remote region can be limited to the applications
      *                   returned by {@link EurekaServerConfig#getRemoteRegionAppWhitelist(String)}
+     * @param ifNoneMatch the entity tags of the information the client already has, if any.
      *
      * @return a response containing information about all {@link com.netflix.discovery.shared.Applications}
-     *         from the {@link AbstractInstanceRegistry}.
+     *         from the {@link AbstractInstanceRegistry}, or a response without content if the client already has it.
      */
     @GET
     public Response getContainers(@PathParam("version") String version,
@@ -119,7 +142,8 @@ public class ApplicationsResource {
                                   @HeaderParam(HEADER_ACCEPT_ENCODING) String acceptEncoding,
                                   @HeaderParam(EurekaAccept.HTTP_X_EUREKA_ACCEPT) String eurekaAccept,
                                   @Context UriInfo uriInfo,
-                                  @Nullable @QueryParam("regions") String regionsStr) {
+                                  @Nullable @QueryParam("regions") String regionsStr,
+                                  @Nullable @HeaderParam(HEADER_IF_NONE_MATCH) String ifNoneMatch) {
 
         boolean isRemoteRegionRequested = null != regionsStr && !regionsStr.isEmpty();
         String[] regions = null;
@@ -138,28 +162,18 @@ public class ApplicationsResource {
             return Response.status(Status.FORBIDDEN).build();
         }
         CurrentRequestVersion.set(Version.toEnum(version));
-        KeyType keyType = Key.KeyType.JSON;
-        String returnMediaType = MediaType.APPLICATION_JSON;
-        if (acceptHeader == null || !acceptHeader.contains(HEADER_JSON_VALUE)) {
-            keyType = Key.KeyType.XML;
-            returnMediaType = MediaType.APPLICATION_XML;
-        }
+        KeyType keyType = RegistryMediaTypes.keyTypeOf(acceptHeader, EurekaAccept.fromString(eurekaAccept));
+        String returnMediaType = RegistryMediaTypes.mediaTypeOf(keyType);
 
         Key cacheKey = new Key(Key.EntityType.Application,
                 ResponseCacheImpl.ALL_APPS,
-                keyType, CurrentRequestVersion.get(), EurekaAccept.fromString(eurekaAccept), regions
+                keyType, CurrentRequestVersion.get(),
+                RegistryMediaTypes.eurekaAcceptOf(keyType, EurekaAccept.fromString(eurekaAccept)), regions
         );
 
-        Response response;
-        if (acceptEncoding != null && acceptEncoding.contains(HEADER_GZIP_VALUE)) {
-            response = Response.ok(responseCache.getGZIP(cacheKey))
-                    .header(HEADER_CONTENT_ENCODING, HEADER_GZIP_VALUE)
-                    .header(HEADER_CONTENT_TYPE, returnMediaType)
-                    .build();
-        } else {
-            response = Response.ok(responseCache.get(cacheKey))
-                    .build();
-        }
+        boolean gzipped = acceptEncoding != null && acceptEncoding.contains(HEADER_GZIP_VALUE);
+        Response response = getCachedResponse(cacheKey, gzipped, returnMediaType, ifNoneMatch,
+                EurekaMonitors.GET_ALL_NOT_MODIFIED);
         CurrentRequestVersion.remove();
         return response;
     }
@@ -184,13 +198,22 @@ public class ApplicationsResource {
      * are expected to handle this duplicate information.
      * <p>
      *
+     * <p>
+     * A client passing the cursor of the registry information it has, as returned along with the full registry or
+     * a previous delta, gets exactly the changes made since instead, which are not cached. If some of these changes
+     * are no longer retained, or the cursor is not one of this server, the response has status
+     * {@link Status#GONE}, and the client has to fetch the full registry.
+     * </p>
+     *
      * @param version the version of the request.
-     * @param acceptHeader the accept header to indicate whether to serve  JSON or XML data.
+     * @param acceptHeader the accept header to indicate whether to serve JSON, XML or binary data.
      * @param acceptEncoding the accept header to indicate whether to serve compressed or uncompressed data.
      * @param eurekaAccept an eureka accept extension, see {@link com.netflix.appinfo.EurekaAccept}
      * @param uriInfo  the {@link java.net.URI} information of the request made.
+     * @param ifNoneMatch the entity tags of the delta information the client already has, if any.
+     * @param since the cursor of the registry information the client has, if any.
      * @return response containing the delta information of the
-     *         {@link AbstractInstanceRegistry}.
+     *         {@link AbstractInstanceRegistry}, or a response without content if the client already has it.
      */
     @Path("delta")
     @GET
@@ -199,7 +222,9 @@ public class ApplicationsResource {
             @HeaderParam(HEADER_ACCEPT) String acceptHeader,
             @HeaderParam(HEADER_ACCEPT_ENCODING) String acceptEncoding,
             @HeaderParam(EurekaAccept.HTTP_X_EUREKA_ACCEPT) String eurekaAccept,
-            @Context UriInfo uriInfo, @Nullable @QueryParam("regions") String regionsStr) {
+            @Context UriInfo uriInfo, @Nullable @QueryParam("regions") String regionsStr,
+            @Nullable @HeaderParam(HEADER_IF_NONE_MATCH) String ifNoneMatch,
+            @Nullable @QueryParam("since") String since) {
 
         boolean isRemoteRegionRequested = null != regionsStr && !regionsStr.isEmpty();
 
@@ -219,30 +244,270 @@ public class ApplicationsResource {
         }
 
         CurrentRequestVersion.set(Version.toEnum(version));
-        KeyType keyType = Key.KeyType.JSON;
-        String returnMediaType = MediaType.APPLICATION_JSON;
-        if (acceptHeader == null || !acceptHeader.contains(HEADER_JSON_VALUE)) {
-            keyType = Key.KeyType.XML;
-            returnMediaType = MediaType.APPLICATION_XML;
+        KeyType keyType = RegistryMediaTypes.keyTypeOf(acceptHeader, EurekaAccept.fromString(eurekaAccept));
+        String returnMediaType = RegistryMediaTypes.mediaTypeOf(keyType);
+
+        if (since != null && !isRemoteRegionRequested) {
+            // The cursor is read first, so it is never newer than the changes
+            String deltaCursor = registry.getDeltaCursor();
+            if (deltaCursor != null) {
+                Response response = getDeltaSince(since, deltaCursor, keyType, returnMediaType, eurekaAccept);
+                CurrentRequestVersion.remove();
+                return response;
+            }
         }
 
         Key cacheKey = new Key(Key.EntityType.Application,
                 ResponseCacheImpl.ALL_APPS_DELTA,
-                keyType, CurrentRequestVersion.get(), EurekaAccept.fromString(eurekaAccept), regions
+                keyType, CurrentRequestVersion.get(),
+                RegistryMediaTypes.eurekaAcceptOf(keyType, EurekaAccept.fromString(eurekaAccept)), regions
         );
 
-        final Response response;
+        boolean gzipped = acceptEncoding != null && acceptEncoding.contains(HEADER_GZIP_VALUE);
+        Response response = getCachedResponse(cacheKey, gzipped, returnMediaType, ifNoneMatch,
+                EurekaMonitors.GET_ALL_DELTA_NOT_MODIFIED);
 
-        if (acceptEncoding != null && acceptEncoding.contains(HEADER_GZIP_VALUE)) {
-             response = Response.ok(responseCache.getGZIP(cacheKey))
-                    .header(HEADER_CONTENT_ENCODING, HEADER_GZIP_VALUE)
-                    .header(HEADER_CONTENT_TYPE, returnMediaType)
-                    .build();
+        CurrentRequestVersion.remove();
+        return response;
+    }
+
+    /**
+     * Waits for changes of the registry made after the given cursor, and gets them in the same form as
+     * {@link #getContainerDifferential}, so that clients learn about changes as soon as they are made, rather than on
+     * their next poll. If there are no changes within the timeout, the response has status
+     * {@link Status#NOT_MODIFIED}. The changes since the cursor are obtained from the registry rather than from
+     * the response cache, so they are not delayed by the cache either.
+     *
+     * <p>
+     * The request holds a thread of the container while it waits, as there is no asynchronous request processing
+     * with this servlet and JAX-RS version. Hence the number of waiting requests is limited by
+     * {@link EurekaServerConfig#getMaxWatchRequests()}, and requests beyond it are answered right away.
+     * </p>
+     *
+     * @param version the version of the request.
+     * @param acceptHeader the accept header to indicate whether to serve JSON, XML or binary data.
+     * @param eurekaAccept an eureka accept extension, see {@link com.netflix.appinfo.EurekaAccept}
+     * @param since the cursor of the registry information the client has.
+     * @param timeoutMs the longest time to wait for changes in milliseconds, which is limited by
+     *                  {@link EurekaServerConfig#getMaxWatchTimeoutMs()}.
+     * @return response containing the changes since the cursor, or a response without content if there are none.
+     */
+    @Path("watch")
+    @GET
+    public Response watchContainers(
+            @PathParam("version") String version,
+            @HeaderParam(HEADER_ACCEPT) String acceptHeader,
+            @HeaderParam(EurekaAccept.HTTP_X_EUREKA_ACCEPT) String eurekaAccept,
+            @Nullable @QueryParam("since") String since,
+            @Nullable @QueryParam("timeoutMs") Long timeoutMs) {
+
+        if ((serverConfig.shouldDisableDelta()) || (!registry.shouldAllowAccess(false))) {
+            return Response.status(Status.FORBIDDEN).build();
+        }
+        if (since == null) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+        EurekaMonitors.WATCH.increment();
+
+        CurrentRequestVersion.set(Version.toEnum(version));
+        KeyType keyType = RegistryMediaTypes.keyTypeOf(acceptHeader, EurekaAccept.fromString(eurekaAccept));
+        String returnMediaType = RegistryMediaTypes.mediaTypeOf(keyType);
+
+        Response response;
+        if (registry.getDeltaCursor() == null) {
+            // The client has to fetch the full registry, which comes without a cursor, and stop watching
+            response = Response.status(Status.GONE).build();
+        } else if (!awaitChangesSince(since, timeoutMs == null ? 0 : timeoutMs)) {
+            EurekaMonitors.WATCH_NOT_MODIFIED.increment();
+            response = Response.status(Status.NOT_MODIFIED).header(HEADER_DELTA_CURSOR, since).build();
         } else {
-            response = Response.ok(responseCache.get(cacheKey)).build();
+            // The cursor is read first, so it is never newer than the changes
+            String deltaCursor = registry.getDeltaCursor();
+            response = deltaCursor == null
+                    ? Response.status(Status.GONE).build()
+                    : getDeltaSince(since, deltaCursor, keyType, returnMediaType, eurekaAccept);
         }
 
         CurrentRequestVersion.remove();
         return response;
     }
+
+    /**
+     * Streams the changes of the individual instances of the local registry as server-sent events, see
+     * {@link InstanceChangeEventOutput}. The stream resumes after the cursor of the <em>Last-Event-ID</em> header, or
+     * of the <em>since</em> parameter, or starts with the changes made from now on if neither is given. The client
+     * is disconnected if it falls behind, and is answered with <em>410 Gone</em> if it cannot resume from its cursor,
+     * in both cases it has to fetch the full registry to catch up.
+     *
+     * @param version the version of the request.
+     * @param eurekaAccept the eureka accept header, which selects the encoding of the instances.
+     * @param lastEventId the cursor of the last event received before reconnecting.
+     * @param since the cursor of the registry to start the stream from.
+     * @param appName the name of the application to send the instances of, or all if null.
+     * @param vipAddress the VIP address to send the instances of, or all if null.
+     * @return a response streaming the registry changes.
+     */
+    @Path("stream")
+    @GET
+    @Produces("text/event-stream")
+    public Response streamContainers(
+            @PathParam("version") String version,
+            @HeaderParam(EurekaAccept.HTTP_X_EUREKA_ACCEPT) String eurekaAccept,
+            @Nullable @HeaderParam(HEADER_LAST_EVENT_ID) String lastEventId,
+            @Nullable @QueryParam("since") String since,
+            @Nullable @QueryParam("app") String appName,
+            @Nullable @QueryParam("vip") String vipAddress) {
+
+        if ((serverConfig.shouldDisableDelta()) || (!registry.shouldAllowAccess(false))) {
+            return Response.status(Status.FORBIDDEN).build();
+        }
+        String deltaCursor = registry.getDeltaCursor();
+        if (deltaCursor == null) {
+            return Response.status(Status.GONE).build();
+        }
+        String cursor = lastEventId != null ? lastEventId : (since != null ? since : deltaCursor);
+
+        RegistryChangeStream stream = registry.openChangeStream(cursor);
+        if (stream == null) {
+            EurekaMonitors.EVENT_STREAM_REJECTED.increment();
+            return Response.status(Status.SERVICE_UNAVAILABLE).build();
+        }
+        EurekaMonitors.EVENT_STREAM.increment();
+
+        // The first changes are read before the response is committed, so a client which cannot resume is told so
+        List<RegistryChangeStream.Change> first;
+        try {
+            first = stream.next(0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            first = null;
+        }
+        if (first == null) {
+            stream.close();
+            return Response.status(Status.GONE).build();
+        }
+        EncoderWrapper encoder = serverCodecs.getEncoder(KeyType.JSON, EurekaAccept.fromString(eurekaAccept));
+        InstanceChangeEventOutput output = new InstanceChangeEventOutput(stream, first, encoder, appName,
+                vipAddress, serverConfig.getEventStreamKeepAliveIntervalMs());
+        return Response.ok(output)
+                .header(HEADER_CACHE_CONTROL, "no-cache")
+                .build();
+    }
+
+    /**
+     * Renews the leases of many instances in a single request. Each renewal is handled like a heartbeat of the
+     * instance, see {@link InstanceResource#renewLease(String, String, String, String)}, so it is replicated to the
+     * peers the same way, in their batches of replication tasks.
+     *
+     * @param heartbeats the lease renewals.
+     * @return a response with the status codes the heartbeats would have been answered with, in their order.
+     */
+    @Path("heartbeats")
+    @POST
+    public Response renewLeases(HeartbeatBatch heartbeats) {
+        if (heartbeats == null || heartbeats.getHeartbeats() == null
+                || heartbeats.getHeartbeats().size() > serverConfig.getMaxHeartbeatBatchSize()) {
+            return Response.status(Status.BAD_REQUEST).build();
+        }
+        EurekaMonitors.RENEW_BATCH.increment();
+        HeartbeatBatchResponse batchResponse = new HeartbeatBatchResponse();
+        for (HeartbeatBatch.Heartbeat heartbeat : heartbeats.getHeartbeats()) {
+            int statusCode;
+            try {
+                statusCode = InstanceResource.renew(registry, serverConfig, heartbeat.getAppName().toUpperCase(),
+                        heartbeat.getId(), heartbeat.getLastDirtyTimestamp(), null, false);
+            } catch (Exception e) {
+                statusCode = Status.INTERNAL_SERVER_ERROR.getStatusCode();
+                logger.error("Renew failed for batch item {}/{}", heartbeat.getAppName(), heartbeat.getId(), e);
+            }
+            batchResponse.addStatusCode(statusCode);
+        }
+        return Response.ok(batchResponse).build();
+    }
+
+    private boolean awaitChangesSince(String since, long timeoutMs) {
+        try {
+            return registry.awaitChangesSince(since, Math.min(timeoutMs, serverConfig.getMaxWatchTimeoutMs()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Response getDeltaSince(String since, String deltaCursor, KeyType keyType, String returnMediaType,
+                                   String eurekaAccept) {
+        EurekaMonitors.GET_ALL_DELTA_SINCE.increment();
+        Applications apps = registry.getApplicationDeltasSince(since);
+        if (apps == null) {
+            EurekaMonitors.GET_ALL_DELTA_SINCE_GONE.increment();
+            return Response.status(Status.GONE).build();
+        }
+        EncoderWrapper encoder = serverCodecs.getEncoder(keyType, EurekaAccept.fromString(eurekaAccept));
+        Object payload;
+        try {
+            if (keyType == KeyType.BINARY) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                encoder.encode(apps, out);
+                payload = out.toByteArray();
+            } else {
+                payload = encoder.encode(apps);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to encode the registry changes since {}", since, e);
+            return Response.serverError().build();
+        }
+        return Response.ok(payload)
+                .header(HEADER_CONTENT_TYPE, returnMediaType)
+                .header(HEADER_DELTA_CURSOR, deltaCursor)
+                .build();
+    }
+
+    /**
+     * Answers with the cached payload of the given key, in the form the client accepts, along with the entity tag and
+     * the delta cursor of that very payload, or without content if the client has the payload already. As the
+     * compressed and uncompressed forms have different entity tags, the responses vary by the accepted encoding.
+     */
+    private Response getCachedResponse(Key cacheKey, boolean gzipped, String returnMediaType,
+                                       @Nullable String ifNoneMatch, EurekaMonitors notModifiedCounter) {
+        CachedPayload payload = responseCache.getCachedPayload(cacheKey, gzipped);
+        String eTag = payload == null ? null : payload.getETag();
+        String deltaCursor = payload == null ? null : payload.getDeltaCursor();
+        if (matches(ifNoneMatch, eTag)) {
+            payload.release();
+            notModifiedCounter.increment();
+            return Response.status(Status.NOT_MODIFIED)
+                    .header(HEADER_ETAG, eTag)
+                    .header(HEADER_VARY, HEADER_ACCEPT_ENCODING)
+                    .build();
+        }
+        Response.ResponseBuilder builder = CachedPayloadOutput.ok(payload);
+        if (gzipped) {
+            builder.header(HEADER_CONTENT_ENCODING, HEADER_GZIP_VALUE);
+        }
+        return builder.header(HEADER_CONTENT_TYPE, returnMediaType)
+                .header(HEADER_ETAG, eTag)
+                .header(HEADER_DELTA_CURSOR, deltaCursor)
+                .header(HEADER_VARY, HEADER_ACCEPT_ENCODING)
+                .build();
+    }
+
+    /**
+     * Checks whether any of the entity tags of an If-None-Match header matches the given one. As the header is only
+     * used with GET requests, the comparison is weak, i.e. ignores the weakness indicator.
+     */
+    static boolean matches(@Nullable String ifNoneMatch, @Nullable String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,57 @@
+package com.netflix.eureka.resources;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.netflix.eureka.registry.CachedPayload;
+
+/**
+ * Streams a payload of the response cache which is stored off heap to the response, releasing it once written, so
+ * that it is never copied onto the heap as a whole. A payload which is never written, e.g. as the response is
+ * abandoned before its entity is written, is released once the output is garbage collected.
+ */
+class CachedPayloadOutput implements StreamingOutput {
+
+    private final CachedPayload payload;
+
+    private CachedPayloadOutput(CachedPayload payload) {
+        this.payload = payload;
+    }
+
+    /**
+     * Creates an OK response with the given payload. A payload stored on the heap is sent as is, as an array.
+     */
+    static Response.ResponseBuilder ok(@Nullable CachedPayload payload) {
+        if (payload == null) {
+            return Response.ok();
+        }
+        if (!payload.isDirect()) {
+            byte[] bytes = payload.toByteArray();
+            payload.release();
+            return Response.ok(bytes);
+        }
+        return Response.ok(new CachedPayloadOutput(payload)).header(HttpHeaders.CONTENT_LENGTH, payload.size());
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try {
+            payload.writeTo(output);
+        } finally {
+            payload.release();
+        }
+    }
+
+    @Override
+    protected void finalize() throws Throwable {
+        try {
+            payload.release();
+        } finally {
+            super.finalize();
+        }
+    }
+}
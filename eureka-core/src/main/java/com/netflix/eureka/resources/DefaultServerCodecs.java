@@ -22,6 +22,8 @@ public class DefaultServerCodecs implements ServerCodecs {
     protected final CodecWrapper fullXmlCodec;
     protected final CodecWrapper compactXmlCodec;
 
+    protected final CodecWrapper binaryCodec;
+
     private static CodecWrapper getFullJson(EurekaServerConfig serverConfig) {
         CodecWrapper codec = CodecWrappers.getCodec(serverConfig.getJsonCodecName());
         return codec == null ? CodecWrappers.getCodec(CodecWrappers.LegacyJacksonJson.class) : codec;
@@ -38,7 +40,8 @@ public class DefaultServerCodecs implements ServerCodecs {
                 getFullJson(serverConfig),
                 CodecWrappers.getCodec(CodecWrappers.JacksonJsonMini.class),
                 getFullXml(serverConfig),
-                CodecWrappers.getCodec(CodecWrappers.JacksonXmlMini.class)
+                CodecWrappers.getCodec(CodecWrappers.JacksonXmlMini.class),
+                CodecWrappers.getCodec(CodecWrappers.EurekaBinary.class)
         );
     }
 
@@ -46,10 +49,20 @@ public class DefaultServerCodecs implements ServerCodecs {
                                   CodecWrapper compactJsonCodec,
                                   CodecWrapper fullXmlCodec,
                                   CodecWrapper compactXmlCodec) {
+        this(fullJsonCodec, compactJsonCodec, fullXmlCodec, compactXmlCodec,
+                CodecWrappers.getCodec(CodecWrappers.EurekaBinary.class));
+    }
+
+    protected DefaultServerCodecs(CodecWrapper fullJsonCodec,
+                                  CodecWrapper compactJsonCodec,
+                                  CodecWrapper fullXmlCodec,
+                                  CodecWrapper compactXmlCodec,
+                                  CodecWrapper binaryCodec) {
         this.fullJsonCodec = fullJsonCodec;
         this.compactJsonCodec = compactJsonCodec;
         this.fullXmlCodec = fullXmlCodec;
         this.compactXmlCodec = compactXmlCodec;
+        this.binaryCodec = binaryCodec;
     }
 
     @Override
@@ -72,9 +85,16 @@ public class DefaultServerCodecs implements ServerCodecs {
         return compactXmlCodec;
     }
 
+    @Override
+    public CodecWrapper getBinaryCodec() {
+        return binaryCodec;
+    }
+
     @Override
     public EncoderWrapper getEncoder(Key.KeyType keyType, boolean compact) {
         switch (keyType) {
+            case BINARY:
+                return binaryCodec;
             case JSON:
                 return compact ? compactJsonCodec : fullJsonCodec;
             case XML:
@@ -105,6 +125,8 @@ public class DefaultServerCodecs implements ServerCodecs {
         protected CodecWrapper fullXmlCodec;
         protected CodecWrapper compactXmlCodec;
 
+        protected CodecWrapper binaryCodec;
+
         protected Builder() {}
 
         public Builder withFullJsonCodec(CodecWrapper fullJsonCodec) {
@@ -127,6 +149,11 @@ public class DefaultServerCodecs implements ServerCodecs {
             return this;
         }
 
+        public Builder withBinaryCodec(CodecWrapper binaryCodec) {
+            this.binaryCodec = binaryCodec;
+            return this;
+        }
+
         public Builder withEurekaServerConfig(EurekaServerConfig config) {
             fullJsonCodec = CodecWrappers.getCodec(config.getJsonCodecName());
             fullXmlCodec = CodecWrappers.getCodec(config.getXmlCodecName());
@@ -150,11 +177,16 @@ public class DefaultServerCodecs implements ServerCodecs {
                 compactXmlCodec = CodecWrappers.getCodec(CodecWrappers.JacksonXmlMini.class);
             }
 
+            if (binaryCodec == null) {
+                binaryCodec = CodecWrappers.getCodec(CodecWrappers.EurekaBinary.class);
+            }
+
             return new DefaultServerCodecs(
                     fullJsonCodec,
                     compactJsonCodec,
                     fullXmlCodec,
-                    compactXmlCodec
+                    compactXmlCodec,
+                    binaryCodec
             );
         }
     }
@@ -0,0 +1,99 @@
+package com.netflix.eureka.resources;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.converters.wrappers.EncoderWrapper;
+import com.netflix.eureka.registry.RegistryChangeStream;
+
+/**
+ * Writes the changes of a {@link RegistryChangeStream} to the response as server-sent events, one per instance, until
+ * the stream cannot continue or the client goes away. The id of an event is the cursor to resume the stream from
+ * after it, its name the action type of the change, and its data the instance.
+ *
+ * <p>
+ * A comment is written whenever there were no changes to send for the keep-alive interval, so that neither the
+ * client nor a proxy in between times the connection out, and so that a client which went away is noticed.
+ * </p>
+ */
+class InstanceChangeEventOutput implements StreamingOutput {
+
+    private final RegistryChangeStream stream;
+    private final List<RegistryChangeStream.Change> first;
+    private final EncoderWrapper encoder;
+    private final String appName;
+    private final String vipAddress;
+    private final long keepAliveIntervalMs;
+
+    /**
+     * @param first the changes already read from the stream, which are written first
+     * @param appName the name of the application whose instances to send, or {@code null} for all of them
+     * @param vipAddress the VIP address whose instances to send, or {@code null} for all of them
+     */
+    InstanceChangeEventOutput(RegistryChangeStream stream, List<RegistryChangeStream.Change> first,
+                              EncoderWrapper encoder, String appName, String vipAddress, long keepAliveIntervalMs) {
+        this.stream = stream;
+        this.first = first;
+        this.encoder = encoder;
+        this.appName = appName;
+        this.vipAddress = vipAddress;
+        this.keepAliveIntervalMs = keepAliveIntervalMs;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        try {
+            List<RegistryChangeStream.Change> changes = first;
+            while (changes != null) {
+                boolean written = false;
+                for (RegistryChangeStream.Change change : changes) {
+                    if (matches(change.getInstanceInfo())) {
+                        writeEvent(writer, change);
+                        written = true;
+                    }
+                }
+                if (!written) {
+                    writer.write(":\n\n");
+                }
+                writer.flush();
+                changes = stream.next(keepAliveIntervalMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for registry changes");
+        } finally {
+            stream.close();
+        }
+    }
+
+    private boolean matches(InstanceInfo instanceInfo) {
+        if (appName != null && !appName.equalsIgnoreCase(instanceInfo.getAppName())) {
+            return false;
+        }
+        if (vipAddress != null) {
+            String vipAddresses = instanceInfo.getVIPAddress();
+            return vipAddresses != null && Arrays.asList(vipAddresses.split(",")).contains(vipAddress);
+        }
+        return true;
+    }
+
+    private void writeEvent(Writer writer, RegistryChangeStream.Change change) throws IOException {
+        InstanceInfo instanceInfo = change.getInstanceInfo();
+        writer.write("id: ");
+        writer.write(change.getCursor());
+        writer.write("\nevent: ");
+        writer.write(String.valueOf(instanceInfo.getActionType()));
+        writer.write("\ndata: ");
+        writer.write(encoder.encode(instanceInfo).replace("\n", "\ndata: "));
+        writer.write("\n\n");
+    }
+}
@@ -295,6 +295,38 @@ public class InstanceResource {
 
     }
 
+    /**
+     * Renews the lease of an instance and checks its last dirty timestamp as
+     * {@link #renewLease(String, String, String, String)} does, without building a response, for the requests that
+     * renew many leases at once.
+     *
+     * @return {@code 404} if the instance has to be registered again, either because it is not registered here or
+     *         because the renewing copy is newer, {@code 409} if the copy here is newer and the renewal is replicated,
+     *         and {@code 200} otherwise.
+     */
+    static int renew(PeerAwareInstanceRegistry registry, EurekaServerConfig serverConfig, String appName, String id,
+                     Long lastDirtyTimestamp, String overriddenStatus, boolean isReplication) {
+        if (!registry.renew(appName, id, isReplication)) {
+            logger.warn("Not Found (Renew): {} - {}", appName, id);
+            return Status.NOT_FOUND.getStatusCode();
+        }
+        if (lastDirtyTimestamp == null || !serverConfig.shouldSyncWhenTimestampDiffers()) {
+            return Status.OK.getStatusCode();
+        }
+        InstanceInfo appInfo = registry.getInstanceByAppAndId(appName, id, false);
+        if (appInfo == null || lastDirtyTimestamp.equals(appInfo.getLastDirtyTimestamp())) {
+            return Status.OK.getStatusCode();
+        }
+        if (lastDirtyTimestamp > appInfo.getLastDirtyTimestamp()) {
+            // Store the overridden status since the node that replicates wins
+            if (isReplication && overriddenStatus != null && !InstanceStatus.UNKNOWN.name().equals(overriddenStatus)) {
+                registry.storeOverriddenStatusIfRequired(appName, id, InstanceStatus.valueOf(overriddenStatus));
+            }
+            return Status.NOT_FOUND.getStatusCode();
+        }
+        return isReplication ? Status.CONFLICT.getStatusCode() : Status.OK.getStatusCode();
+    }
+
     private Response validateDirtyTimestamp(Long lastDirtyTimestamp,
                                             boolean isReplication) {
         InstanceInfo appInfo = registry.getInstanceByAppAndId(app.getName(), id, false);
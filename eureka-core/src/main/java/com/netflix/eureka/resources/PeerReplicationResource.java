@@ -22,11 +22,22 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.eureka.EurekaServerContext;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.EurekaServerContextHolder;
+import com.netflix.eureka.cluster.protocol.ReplicationHeartbeatList;
 import com.netflix.eureka.cluster.protocol.ReplicationInstance;
 import com.netflix.eureka.cluster.protocol.ReplicationInstanceResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationInstanceResponse.Builder;
@@ -48,7 +59,15 @@ public class PeerReplicationResource {
 
     private static final Logger logger = LoggerFactory.getLogger(PeerReplicationResource.class);
 
-    private static final String REPLICATION = "true";
+    /**
+     * The number of partitions a batch is applied in at most, one of which by the request thread.
+     */
+    private static final int BATCH_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of items below which a partition is not worth handing over to another thread.
+     */
+    private static final int MIN_BATCH_PARTITION_SIZE = 16;
 
     private final EurekaServerConfig serverConfig;
     private final PeerAwareInstanceRegistry registry;
@@ -67,8 +86,11 @@ public class PeerReplicationResource {
      * Process batched replication events from peer eureka nodes.
      *
      * <p>
-     *  The batched events are delegated to underlying resources to generate a
-     *  {@link ReplicationListResponse} containing the individual responses to the batched events
+     *  The batched events are applied directly to the registry, the way the corresponding resources apply them, to
+     *  generate a {@link ReplicationListResponse} containing the individual responses to the batched events, in the
+     *  same order. Events for different instances are independent of each other, so large batches are split by
+     *  instance and applied concurrently, while the events for the same instance are applied in the order they were
+     *  sent in.
      * </p>
      *
      * @param replicationList
@@ -79,16 +101,17 @@ public class PeerReplicationResource {
     @POST
     public Response batchReplication(ReplicationList replicationList) {
         try {
-            ReplicationListResponse batchResponse = new ReplicationListResponse();
-            for (ReplicationInstance instanceInfo : replicationList.getReplicationList()) {
-                try {
-                    batchResponse.addResponse(dispatch(instanceInfo));
-                } catch (Exception e) {
-                    batchResponse.addResponse(new ReplicationInstanceResponse(Status.INTERNAL_SERVER_ERROR.getStatusCode(), null));
-                    logger.error("{} request processing failed for batch item {}/{}",
-                            instanceInfo.getAction(), instanceInfo.getAppName(), instanceInfo.getId(), e);
-                }
-            }
+            ReplicationListResponse batchResponse = applyAll(replicationList.getReplicationList(),
+                    instanceInfo -> instanceHashOf(instanceInfo.getAppName(), instanceInfo.getId()),
+                    instanceInfo -> {
+                        try {
+                            return dispatch(instanceInfo);
+                        } catch (Exception e) {
+                            logger.error("{} request processing failed for batch item {}/{}",
+                                    instanceInfo.getAction(), instanceInfo.getAppName(), instanceInfo.getId(), e);
+                            return new ReplicationInstanceResponse(Status.INTERNAL_SERVER_ERROR.getStatusCode(), null);
+                        }
+                    });
             return Response.ok(batchResponse).build();
         } catch (Throwable e) {
             logger.error("Cannot execute batch Request", e);
@@ -96,81 +119,173 @@ public class PeerReplicationResource {
         }
     }
 
-    private ReplicationInstanceResponse dispatch(ReplicationInstance instanceInfo) {
-        ApplicationResource applicationResource = createApplicationResource(instanceInfo);
-        InstanceResource resource = createInstanceResource(instanceInfo, applicationResource);
+    /**
+     * Process batched lease renewals from peer eureka nodes.
+     *
+     * <p>
+     *  Each renewal is handled as a heartbeat in a {@link ReplicationList} is, and the response holds the individual
+     *  responses in the same order. The instance information is only returned for the renewals the peer has to
+     *  reconcile, i.e. the ones for which the copy of the instance here is newer than the one of the peer.
+     * </p>
+     *
+     * @param heartbeatList
+     *            The List of lease renewals from peer eureka nodes
+     * @return A batched response containing the information about the responses of individual renewals
+     */
+    @Path("heartbeats")
+    @POST
+    public Response batchHeartbeatReplication(ReplicationHeartbeatList heartbeatList) {
+        try {
+            ReplicationListResponse batchResponse = applyAll(heartbeatList.getHeartbeats(),
+                    heartbeat -> instanceHashOf(heartbeat.getAppName(), heartbeat.getId()),
+                    heartbeat -> {
+                        try {
+                            return handleHeartbeat(heartbeat.getAppName().toUpperCase(), heartbeat.getId(),
+                                    heartbeat.getLastDirtyTimestamp(), toString(heartbeat.getOverriddenStatus()));
+                        } catch (Exception e) {
+                            logger.error("Heartbeat processing failed for batch item {}/{}",
+                                    heartbeat.getAppName(), heartbeat.getId(), e);
+                            return new ReplicationInstanceResponse(Status.INTERNAL_SERVER_ERROR.getStatusCode(), null);
+                        }
+                    });
+            return Response.ok(batchResponse).build();
+        } catch (Throwable e) {
+            logger.error("Cannot execute batch Request", e);
+            return Response.status(Status.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Applies the items of a batch, splitting them into partitions by the hash of the instance they are for if there
+     * are enough of them. The partitions are applied concurrently, one of them by the calling thread, and the others by
+     * the {@link PeerAwareInstanceRegistry#getReplicationBatchExecutor() executor} shared by all requests. The items of
+     * each partition are applied in order.
+     *
+     * @return the responses to the items, in the order of the items
+     */
+    private <T> ReplicationListResponse applyAll(List<T> items,
+                                                 ToIntFunction<T> instanceHashOf,
+                                                 Function<T, ReplicationInstanceResponse> handler)
+            throws InterruptedException, ExecutionException {
+        ReplicationInstanceResponse[] responses = new ReplicationInstanceResponse[items.size()];
+        int partitionCount = Math.min(BATCH_PARALLELISM, items.size() / MIN_BATCH_PARTITION_SIZE);
+        if (partitionCount <= 1) {
+            for (int i = 0; i < items.size(); i++) {
+                responses[i] = handler.apply(items.get(i));
+            }
+            return new ReplicationListResponse(Arrays.asList(responses));
+        }
+
+        List<List<Integer>> partitions = new ArrayList<>(partitionCount);
+        for (int p = 0; p < partitionCount; p++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < items.size(); i++) {
+            int hash = instanceHashOf.applyAsInt(items.get(i));
+            partitions.get((hash & Integer.MAX_VALUE) % partitionCount).add(i);
+        }
+
+        Executor batchExecutor = registry.getReplicationBatchExecutor();
+        List<FutureTask<?>> futures = new ArrayList<>(partitionCount - 1);
+        for (List<Integer> partition : partitions.subList(1, partitionCount)) {
+            FutureTask<?> future = new FutureTask<>(() -> applyPartition(items, partition, handler, responses), null);
+            batchExecutor.execute(future);
+            futures.add(future);
+        }
+        applyPartition(items, partitions.get(0), handler, responses);
+        for (FutureTask<?> future : futures) {
+            future.get();
+        }
+        return new ReplicationListResponse(Arrays.asList(responses));
+    }
 
-        String lastDirtyTimestamp = toString(instanceInfo.getLastDirtyTimestamp());
-        String overriddenStatus = toString(instanceInfo.getOverriddenStatus());
-        String instanceStatus = toString(instanceInfo.getStatus());
+    /**
+     * Hashes the application name the way it is upper-cased when applied, so that all the items for an instance land
+     * in the same partition regardless of the case of the name they were sent with.
+     */
+    private static int instanceHashOf(String appName, String id) {
+        return Objects.hash(appName.toUpperCase(), id);
+    }
+
+    private static <T> void applyPartition(List<T> items, List<Integer> partition,
+                                           Function<T, ReplicationInstanceResponse> handler,
+                                           ReplicationInstanceResponse[] responses) {
+        for (int i : partition) {
+            responses[i] = handler.apply(items.get(i));
+        }
+    }
+
+    private ReplicationInstanceResponse dispatch(ReplicationInstance instanceInfo) {
+        String appName = instanceInfo.getAppName().toUpperCase();
+        String id = instanceInfo.getId();
 
-        Builder singleResponseBuilder = new Builder();
         switch (instanceInfo.getAction()) {
             case Register:
-                singleResponseBuilder = handleRegister(instanceInfo, applicationResource);
-                break;
+                return handleRegister(appName, instanceInfo.getInstanceInfo());
             case Heartbeat:
-                singleResponseBuilder = handleHeartbeat(serverConfig, resource, lastDirtyTimestamp, overriddenStatus, instanceStatus);
-                break;
+                return handleHeartbeat(appName, id, instanceInfo.getLastDirtyTimestamp(), instanceInfo.getOverriddenStatus());
             case Cancel:
-                singleResponseBuilder = handleCancel(resource);
-                break;
+                return handleCancel(appName, id);
             case StatusUpdate:
-                singleResponseBuilder = handleStatusUpdate(instanceInfo, resource);
-                break;
+                return handleStatusUpdate(appName, id, instanceInfo);
             case DeleteStatusOverride:
-                singleResponseBuilder = handleDeleteStatusOverride(instanceInfo, resource);
-                break;
+                return handleDeleteStatusOverride(appName, id, instanceInfo);
         }
-        return singleResponseBuilder.build();
-    }
-
-    /* Visible for testing */ ApplicationResource createApplicationResource(ReplicationInstance instanceInfo) {
-        return new ApplicationResource(instanceInfo.getAppName(), serverConfig, registry);
+        return new Builder().build();
     }
 
-    /* Visible for testing */ InstanceResource createInstanceResource(ReplicationInstance instanceInfo,
-                                                                      ApplicationResource applicationResource) {
-        return new InstanceResource(applicationResource, instanceInfo.getId(), serverConfig, registry);
+    /**
+     * Registers the instance as {@link ApplicationResource#addInstance(InstanceInfo, String)} does, but replies with
+     * {@code 200} even if the instance is not valid, as the replication of it cannot be retried.
+     */
+    private ReplicationInstanceResponse handleRegister(String appName, InstanceInfo info) {
+        String invalidReason = ApplicationResource.checkRegistration(appName, info, serverConfig);
+        if (invalidReason == null) {
+            registry.register(info, true);
+        } else {
+            logger.warn("Not registering replicated instance {}/{}: {}", appName, info.getId(), invalidReason);
+        }
+        return new ReplicationInstanceResponse(Status.OK.getStatusCode(), null);
     }
 
-    private static Builder handleRegister(ReplicationInstance instanceInfo, ApplicationResource applicationResource) {
-        applicationResource.addInstance(instanceInfo.getInstanceInfo(), REPLICATION);
-        return new Builder().setStatusCode(Status.OK.getStatusCode());
+    /**
+     * Renews the lease as {@link InstanceResource#renewLease(String, String, String, String)} does for a replica.
+     * The reply is {@code 404} if the peer has to register the instance again, either because it is not registered
+     * here, or because the copy of the peer is newer, and {@code 409} with the copy here if that is the newer one.
+     */
+    private ReplicationInstanceResponse handleHeartbeat(String appName, String id, Long lastDirtyTimestamp, String overriddenStatus) {
+        int statusCode = InstanceResource.renew(registry, serverConfig, appName, id, lastDirtyTimestamp, overriddenStatus, true);
+        InstanceInfo responseEntity = null;
+        if (statusCode == Status.CONFLICT.getStatusCode() && !"false".equals(serverConfig.getExperimental("bugfix.934"))) {
+            responseEntity = registry.getInstanceByAppAndId(appName, id, false);
+        }
+        return new ReplicationInstanceResponse(statusCode, responseEntity);
     }
 
-    private static Builder handleCancel(InstanceResource resource) {
-        Response response = resource.cancelLease(REPLICATION);
-        return new Builder().setStatusCode(response.getStatus());
+    private ReplicationInstanceResponse handleCancel(String appName, String id) {
+        boolean isSuccess = registry.cancel(appName, id, true);
+        return new ReplicationInstanceResponse(isSuccess ? Status.OK.getStatusCode() : Status.NOT_FOUND.getStatusCode(), null);
     }
 
-    private static Builder handleHeartbeat(EurekaServerConfig config, InstanceResource resource, String lastDirtyTimestamp, String overriddenStatus, String instanceStatus) {
-        Response response = resource.renewLease(REPLICATION, overriddenStatus, instanceStatus, lastDirtyTimestamp);
-        int responseStatus = response.getStatus();
-        Builder responseBuilder = new Builder().setStatusCode(responseStatus);
-
-        if ("false".equals(config.getExperimental("bugfix.934"))) {
-            if (responseStatus == Status.OK.getStatusCode() && response.getEntity() != null) {
-                responseBuilder.setResponseEntity((InstanceInfo) response.getEntity());
-            }
-        } else {
-            if ((responseStatus == Status.OK.getStatusCode() || responseStatus == Status.CONFLICT.getStatusCode())
-                    && response.getEntity() != null) {
-                responseBuilder.setResponseEntity((InstanceInfo) response.getEntity());
-            }
+    private ReplicationInstanceResponse handleStatusUpdate(String appName, String id, ReplicationInstance instanceInfo) {
+        if (registry.getInstanceByAppAndId(appName, id) == null) {
+            logger.warn("Instance not found: {}/{}", appName, id);
+            return new ReplicationInstanceResponse(Status.NOT_FOUND.getStatusCode(), null);
         }
-        return responseBuilder;
+        boolean isSuccess = registry.statusUpdate(appName, id, InstanceStatus.valueOf(instanceInfo.getStatus()),
+                toString(instanceInfo.getLastDirtyTimestamp()), true);
+        return new ReplicationInstanceResponse(isSuccess ? Status.OK.getStatusCode() : Status.INTERNAL_SERVER_ERROR.getStatusCode(), null);
     }
 
-    private static Builder handleStatusUpdate(ReplicationInstance instanceInfo, InstanceResource resource) {
-        Response response = resource.statusUpdate(instanceInfo.getStatus(), REPLICATION, toString(instanceInfo.getLastDirtyTimestamp()));
-        return new Builder().setStatusCode(response.getStatus());
-    }
-
-    private static Builder handleDeleteStatusOverride(ReplicationInstance instanceInfo, InstanceResource resource) {
-        Response response = resource.deleteStatusUpdate(REPLICATION, instanceInfo.getStatus(),
-                instanceInfo.getLastDirtyTimestamp().toString());
-        return new Builder().setStatusCode(response.getStatus());
+    private ReplicationInstanceResponse handleDeleteStatusOverride(String appName, String id, ReplicationInstance instanceInfo) {
+        if (registry.getInstanceByAppAndId(appName, id) == null) {
+            logger.warn("Instance not found: {}/{}", appName, id);
+            return new ReplicationInstanceResponse(Status.NOT_FOUND.getStatusCode(), null);
+        }
+        InstanceStatus newStatus = instanceInfo.getStatus() == null ? InstanceStatus.UNKNOWN : InstanceStatus.valueOf(instanceInfo.getStatus());
+        boolean isSuccess = registry.deleteStatusOverride(appName, id, newStatus,
+                toString(instanceInfo.getLastDirtyTimestamp()), true);
+        return new ReplicationInstanceResponse(isSuccess ? Status.OK.getStatusCode() : Status.INTERNAL_SERVER_ERROR.getStatusCode(), null);
     }
 
     private static <T> String toString(T value) {
@@ -0,0 +1,52 @@
+package com.netflix.eureka.resources;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.core.MediaType;
+
+import com.netflix.appinfo.EurekaAccept;
+import com.netflix.discovery.converters.EurekaBinaryCodec;
+import com.netflix.eureka.registry.Key.KeyType;
+
+/**
+ * Negotiates the encoding of the registry information served to a client. A client gets the binary encoding if it
+ * asks for it in either its <em>Accept</em> header, or its <em>X-Eureka-Accept</em> header, the latter of which is
+ * how the Eureka clients ask for it, so that servers which do not know it serve them JSON instead. Otherwise the
+ * client gets JSON if it accepts it, and XML if not.
+ */
+final class RegistryMediaTypes {
+
+    private static final String JSON_SUBTYPE = "json";
+
+    private RegistryMediaTypes() {
+    }
+
+    static KeyType keyTypeOf(@Nullable String acceptHeader, EurekaAccept eurekaAccept) {
+        if (eurekaAccept == EurekaAccept.binary
+                || (acceptHeader != null && acceptHeader.contains(EurekaBinaryCodec.MEDIA_TYPE))) {
+            return KeyType.BINARY;
+        }
+        if (acceptHeader == null || !acceptHeader.contains(JSON_SUBTYPE)) {
+            return KeyType.XML;
+        }
+        return KeyType.JSON;
+    }
+
+    /**
+     * @return the representation to key the cache with for the given encoding, which is full for the binary one
+     */
+    static EurekaAccept eurekaAcceptOf(KeyType keyType, EurekaAccept eurekaAccept) {
+        return keyType == KeyType.BINARY ? EurekaAccept.full : eurekaAccept;
+    }
+
+    static String mediaTypeOf(KeyType keyType) {
+        switch (keyType) {
+            case BINARY:
+                return EurekaBinaryCodec.MEDIA_TYPE;
+            case JSON:
+                return MediaType.APPLICATION_JSON;
+            case XML:
+            default:
+                return MediaType.APPLICATION_XML;
+        }
+    }
+}
@@ -18,6 +18,8 @@ public interface ServerCodecs {
 
     CodecWrapper getCompactXmlCodecr();
 
+    CodecWrapper getBinaryCodec();
+
     EncoderWrapper getEncoder(Key.KeyType keyType, boolean compact);
 
     EncoderWrapper getEncoder(Key.KeyType keyType, EurekaAccept eurekaAccept);
@@ -17,6 +17,7 @@
 package com.netflix.eureka.resources;
 
 import com.netflix.appinfo.EurekaAccept;
+import com.netflix.discovery.converters.EurekaBinaryCodec;
 import com.netflix.eureka.EurekaServerContext;
 import com.netflix.eureka.EurekaServerContextHolder;
 import com.netflix.eureka.registry.Key;
@@ -36,7 +37,7 @@ import javax.ws.rs.core.Response;
  *
  */
 @Path("/{version}/vips")
-@Produces({"application/xml", "application/json"})
+@Produces({"application/xml", "application/json", EurekaBinaryCodec.MEDIA_TYPE})
 public class VIPResource extends AbstractVIPResource {
 
     @Inject
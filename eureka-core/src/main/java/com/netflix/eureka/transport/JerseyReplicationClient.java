@@ -19,6 +19,7 @@ import com.netflix.eureka.EurekaServerIdentity;
 import com.netflix.eureka.cluster.DynamicGZIPContentEncodingFilter;
 import com.netflix.eureka.cluster.HttpReplicationClient;
 import com.netflix.eureka.cluster.PeerEurekaNode;
+import com.netflix.eureka.cluster.protocol.ReplicationHeartbeatList;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
 import com.netflix.eureka.resources.ASGResource.ASGStatus;
@@ -108,13 +109,22 @@ public class JerseyReplicationClient extends AbstractJerseyEurekaHttpClient impl
 
     @Override
     public EurekaHttpResponse<ReplicationListResponse> submitBatchUpdates(ReplicationList replicationList) {
+        return submitBatch(PeerEurekaNode.BATCH_URL_PATH, replicationList);
+    }
+
+    @Override
+    public EurekaHttpResponse<ReplicationListResponse> submitBatchHeartbeats(ReplicationHeartbeatList heartbeatList) {
+        return submitBatch(PeerEurekaNode.HEARTBEAT_BATCH_URL_PATH, heartbeatList);
+    }
+
+    private EurekaHttpResponse<ReplicationListResponse> submitBatch(String path, Object batch) {
         ClientResponse response = null;
         try {
             response = jerseyApacheClient.resource(serviceUrl)
-                    .path(PeerEurekaNode.BATCH_URL_PATH)
+                    .path(path)
                     .accept(MediaType.APPLICATION_JSON_TYPE)
                     .type(MediaType.APPLICATION_JSON_TYPE)
-                    .post(ClientResponse.class, replicationList);
+                    .post(ClientResponse.class, batch);
             if (!isSuccess(response.getStatus())) {
                 return anEurekaHttpResponse(response.getStatus(), ReplicationListResponse.class).build();
             }
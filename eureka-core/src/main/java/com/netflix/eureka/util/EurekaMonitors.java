@@ -41,6 +41,7 @@ import com.netflix.servo.monitor.Monitors;
  */
 public enum EurekaMonitors {
     RENEW("renewCounter", "Number of total renews seen since startup"),
+    RENEW_BATCH("renewBatchCounter", "Number of total batches of renews seen since startup"),
     CANCEL("cancelCounter", "Number of total cancels seen since startup"),
     GET_ALL_CACHE_MISS("getAllCacheMissCounter", "Number of total registery queries seen since startup"),
     GET_ALL_CACHE_MISS_DELTA("getAllCacheMissDeltaCounter",
@@ -55,6 +56,20 @@ public enum EurekaMonitors {
     GET_ALL("getAllCounter", "Number of total registry queries seen since startup"),
     GET_ALL_WITH_REMOTE_REGIONS("getAllWithRemoteRegionCounter",
             "Number of total registry queries with remote regions, seen since startup"),
+    GET_ALL_NOT_MODIFIED("getAllNotModifiedCounter",
+            "Number of total registry queries answered as not modified since startup"),
+    GET_ALL_DELTA_NOT_MODIFIED("getAllDeltaNotModifiedCounter",
+            "Number of total delta queries answered as not modified since startup"),
+    GET_ALL_DELTA_SINCE("getAllDeltaSinceCounter",
+            "Number of total delta queries for the changes since a cursor, seen since startup"),
+    GET_ALL_DELTA_SINCE_GONE("getAllDeltaSinceGoneCounter",
+            "Number of total delta queries for the changes since a cursor no longer retained, seen since startup"),
+    WATCH("watchCounter", "Number of total watch requests for registry changes seen since startup"),
+    WATCH_NOT_MODIFIED("watchNotModifiedCounter",
+            "Number of total watch requests answered as not modified since startup"),
+    EVENT_STREAM("eventStreamCounter", "Number of total registry event streams opened since startup"),
+    EVENT_STREAM_REJECTED("eventStreamRejectedCounter",
+            "Number of total registry event streams rejected because too many were open, since startup"),
     GET_APPLICATION("getApplicationCounter", "Number of total application queries seen since startup"),
     REGISTER("registerCounter", "Number of total registers seen since startup"),
     EXPIRED("expiredCounter", "Number of total expired leases since startup"),
@@ -1,18 +1,24 @@
 package com.netflix.eureka.util.batcher;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingDeque;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
 
 import com.netflix.eureka.util.batcher.TaskProcessor.ProcessingResult;
 import com.netflix.servo.annotations.DataSourceType;
@@ -41,6 +47,20 @@ import static com.netflix.eureka.Names.METRIC_REPLICATION_PREFIX;
  * task(s) back to the {@link AcceptorExecutor}. This data will be merged with current workload, possibly discarded if
  * a newer version has been already received.
  *
+ * <h3>Scheduling</h3>
+ * The internal thread only runs when there is something to do. Clients accepting tasks, re-processing them,
+ * requesting work or completing batches wake it up, and otherwise it sleeps until the next point in time something
+ * becomes due, which is either the end of the batching delay of the oldest task, or the end of the delay imposed by
+ * the {@link TrafficShaper}. A task is therefore dispatched as soon as it is eligible, and an idle executor costs no
+ * CPU. The {@link TrafficShaper} also decides the size of the batches, the batching delay, up to the configured
+ * maximum of each, and how many batches may be processed at once.
+ *
+ * <h3>Ordering</h3>
+ * Batches are processed by several workers concurrently, so tasks in different batches may complete in any order.
+ * Tasks which must not be reordered, such as those for the same instance, can be given the same ordering key. A task
+ * is not dispatched while a batch with a task of the same ordering key is being processed, and stays pending, ahead of
+ * any later task with that key, until that batch is either completed or put back for re-processing.
+ *
  * @author Tomasz Bak
  */
 class AcceptorExecutor<ID, T> {
@@ -51,15 +71,23 @@ class AcceptorExecutor<ID, T> {
     private final int maxBufferSize;
     private final int maxBatchingSize;
     private final long maxBatchingDelay;
+    private final Function<ID, ?> orderingKeyOf;
 
     private final AtomicBoolean isShutdown = new AtomicBoolean(false);
 
-    private final BlockingQueue<TaskHolder<ID, T>> acceptorQueue = new LinkedBlockingQueue<>();
-    private final BlockingDeque<TaskHolder<ID, T>> reprocessQueue = new LinkedBlockingDeque<>();
+    private final Queue<TaskHolder<ID, T>> acceptorQueue = new ConcurrentLinkedQueue<>();
+    private final Queue<List<TaskHolder<ID, T>>> reprocessQueue = new ConcurrentLinkedQueue<>();
+    private final Queue<List<TaskHolder<ID, T>>> completedQueue = new ConcurrentLinkedQueue<>();
     private final Thread acceptorThread;
 
+    /**
+     * Set by the first client which has something for the acceptor thread to do since the thread last looked, so that
+     * the thread gets woken up once, and not by every client.
+     */
+    private final AtomicBoolean wakeupRequested = new AtomicBoolean(false);
+
     private final Map<ID, TaskHolder<ID, T>> pendingTasks = new HashMap<>();
-    private final Deque<ID> processingOrder = new LinkedList<>();
+    private final Deque<ID> processingOrder = new ArrayDeque<>();
 
     private final Semaphore singleItemWorkRequests = new Semaphore(0);
     private final BlockingQueue<TaskHolder<ID, T>> singleItemWorkQueue = new LinkedBlockingQueue<>();
@@ -67,6 +95,12 @@ class AcceptorExecutor<ID, T> {
     private final Semaphore batchWorkRequests = new Semaphore(0);
     private final BlockingQueue<List<TaskHolder<ID, T>>> batchWorkQueue = new LinkedBlockingQueue<>();
 
+    /**
+     * Ordering keys of the tasks in the batches being processed, only used by the acceptor thread.
+     */
+    private final Set<Object> inFlightKeys = new HashSet<>();
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+
     private final TrafficShaper trafficShaper;
 
     /*
@@ -95,11 +129,40 @@ class AcceptorExecutor<ID, T> {
                      long maxBatchingDelay,
                      long congestionRetryDelayMs,
                      long networkFailureRetryMs) {
+        this(id, maxBufferSize, maxBatchingSize, maxBatchingDelay, congestionRetryDelayMs, networkFailureRetryMs, null);
+    }
+
+    /**
+     * @param orderingKeyOf maps a task id to the ordering key of the task, or {@code null} if batches may be
+     *                      processed concurrently regardless of the tasks in them
+     */
+    AcceptorExecutor(String id,
+                     int maxBufferSize,
+                     int maxBatchingSize,
+                     long maxBatchingDelay,
+                     long congestionRetryDelayMs,
+                     long networkFailureRetryMs,
+                     Function<ID, ?> orderingKeyOf) {
+        this(id, maxBufferSize, maxBatchingSize, maxBatchingDelay,
+                new TrafficShaper(congestionRetryDelayMs, networkFailureRetryMs), orderingKeyOf);
+    }
+
+    /**
+     * @param orderingKeyOf maps a task id to the ordering key of the task, or {@code null} if batches may be
+     *                      processed concurrently regardless of the tasks in them
+     */
+    AcceptorExecutor(String id,
+                     int maxBufferSize,
+                     int maxBatchingSize,
+                     long maxBatchingDelay,
+                     TrafficShaper trafficShaper,
+                     Function<ID, ?> orderingKeyOf) {
         this.id = id;
         this.maxBufferSize = maxBufferSize;
         this.maxBatchingSize = maxBatchingSize;
         this.maxBatchingDelay = maxBatchingDelay;
-        this.trafficShaper = new TrafficShaper(congestionRetryDelayMs, networkFailureRetryMs);
+        this.orderingKeyOf = orderingKeyOf;
+        this.trafficShaper = trafficShaper;
 
         ThreadGroup threadGroup = new ThreadGroup("eurekaTaskExecutors");
         this.acceptorThread = new Thread(threadGroup, new AcceptorRunner(), "TaskAcceptor-" + id);
@@ -124,30 +187,56 @@ class AcceptorExecutor<ID, T> {
     void process(ID id, T task, long expiryTime) {
         acceptorQueue.add(new TaskHolder<ID, T>(id, task, expiryTime));
         acceptedTasks++;
+        wakeUpAcceptor();
     }
 
     void reprocess(List<TaskHolder<ID, T>> holders, ProcessingResult processingResult) {
-        reprocessQueue.addAll(holders);
-        replayedTasks += holders.size();
         trafficShaper.registerFailure(processingResult);
+        reprocessQueue.add(holders);
+        replayedTasks += holders.size();
+        wakeUpAcceptor();
     }
 
     void reprocess(TaskHolder<ID, T> taskHolder, ProcessingResult processingResult) {
-        reprocessQueue.add(taskHolder);
-        replayedTasks++;
-        trafficShaper.registerFailure(processingResult);
+        reprocess(Collections.singletonList(taskHolder), processingResult);
+    }
+
+    /**
+     * Called by a worker once it is done with a batch, after putting it back for re-processing if it has to be.
+     */
+    void complete(List<TaskHolder<ID, T>> holders, ProcessingResult processingResult, long processingTimeMs) {
+        trafficShaper.registerBatch(holders.size(), processingTimeMs, processingResult);
+        inFlightBatches.decrementAndGet();
+        if (orderingKeyOf != null) {
+            completedQueue.add(holders);
+        }
+        wakeUpAcceptor();
     }
 
     BlockingQueue<TaskHolder<ID, T>> requestWorkItem() {
         singleItemWorkRequests.release();
+        wakeUpAcceptor();
         return singleItemWorkQueue;
     }
 
     BlockingQueue<List<TaskHolder<ID, T>>> requestWorkItems() {
         batchWorkRequests.release();
+        wakeUpAcceptor();
         return batchWorkQueue;
     }
 
+    /**
+     * Called after each change the acceptor thread has to look at. The thread clears the request before it looks at
+     * the changes, so a change made after that either finds the request cleared and wakes the thread up, or finds it
+     * set by another change made after that, which already woke the thread up. As a wake up is remembered by a thread
+     * which is not sleeping, it is never lost.
+     */
+    private void wakeUpAcceptor() {
+        if (!wakeupRequested.get() && wakeupRequested.compareAndSet(false, true)) {
+            LockSupport.unpark(acceptorThread);
+        }
+    }
+
     void shutdown() {
         if (isShutdown.compareAndSet(false, true)) {
             Monitors.unregisterObject(id, this);
@@ -162,7 +251,16 @@ class AcceptorExecutor<ID, T> {
 
     @Monitor(name = METRIC_REPLICATION_PREFIX + "reprocessQueueSize", description = "Number of tasks waiting in the reprocess queue", type = DataSourceType.GAUGE)
     public long getReprocessQueueSize() {
-        return reprocessQueue.size();
+        long size = 0;
+        for (List<TaskHolder<ID, T>> holders : reprocessQueue) {
+            size += holders.size();
+        }
+        return size;
+    }
+
+    @Monitor(name = METRIC_REPLICATION_PREFIX + "inFlightBatches", description = "Number of batches being processed by the workers", type = DataSourceType.GAUGE)
+    public long getInFlightBatches() {
+        return inFlightBatches.get();
     }
 
     @Monitor(name = METRIC_REPLICATION_PREFIX + "queueSize", description = "Task queue size", type = DataSourceType.GAUGE)
@@ -183,29 +281,26 @@ class AcceptorExecutor<ID, T> {
     class AcceptorRunner implements Runnable {
         @Override
         public void run() {
-            long scheduleTime = 0;
             while (!isShutdown.get()) {
                 try {
-                    drainInputQueues();
-
-                    int totalItems = processingOrder.size();
+                    wakeupRequested.set(false);
+                    drainCompletedQueue();
+                    drainReprocessQueue();
+                    drainAcceptorQueue();
 
                     long now = System.currentTimeMillis();
-                    if (scheduleTime < now) {
-                        scheduleTime = now + trafficShaper.transmissionDelay();
-                    }
-                    if (scheduleTime <= now) {
-                        assignBatchWork();
-                        assignSingleItemWork();
-                    }
-
-                    // If no worker is requesting data or there is a delay injected by the traffic shaper,
-                    // sleep for some time to avoid tight loop.
-                    if (totalItems == processingOrder.size()) {
-                        Thread.sleep(10);
+                    long wakeupTime = Long.MAX_VALUE;
+                    if (!processingOrder.isEmpty()) {
+                        long transmissionDelay = trafficShaper.transmissionDelay();
+                        if (transmissionDelay > 0) {
+                            wakeupTime = now + transmissionDelay;
+                        } else {
+                            boolean batchesHeldBack = assignBatchWork(now);
+                            assignSingleItemWork(now);
+                            wakeupTime = batchesHeldBack ? Long.MAX_VALUE : nextBatchDueTime();
+                        }
                     }
-                } catch (InterruptedException ex) {
-                    // Ignore
+                    awaitWakeup(wakeupTime);
                 } catch (Throwable e) {
                     // Safe-guard, so we never exit this loop in an uncontrolled way.
                     logger.warn("Discovery AcceptorThread error", e);
@@ -213,37 +308,62 @@ class AcceptorExecutor<ID, T> {
             }
         }
 
+        /**
+         * Sleeps until the given time, or until a client wakes the thread up, whichever comes first.
+         */
+        private void awaitWakeup(long wakeupTime) {
+            if (wakeupTime == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else {
+                long delay = wakeupTime - System.currentTimeMillis();
+                if (delay > 0) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(delay));
+                }
+            }
+        }
+
         private boolean isFull() {
             return pendingTasks.size() >= maxBufferSize;
         }
 
-        private void drainInputQueues() throws InterruptedException {
-            do {
-                drainReprocessQueue();
-                drainAcceptorQueue();
-
-                if (!isShutdown.get()) {
-                    // If all queues are empty, block for a while on the acceptor queue
-                    if (reprocessQueue.isEmpty() && acceptorQueue.isEmpty() && pendingTasks.isEmpty()) {
-                        TaskHolder<ID, T> taskHolder = acceptorQueue.poll(10, TimeUnit.MILLISECONDS);
-                        if (taskHolder != null) {
-                            appendTaskHolder(taskHolder);
-                        }
-                    }
-                }
-            } while (!reprocessQueue.isEmpty() || !acceptorQueue.isEmpty() || pendingTasks.isEmpty());
+        private void drainAcceptorQueue() {
+            TaskHolder<ID, T> taskHolder;
+            while ((taskHolder = acceptorQueue.poll()) != null) {
+                appendTaskHolder(taskHolder);
+            }
         }
 
-        private void drainAcceptorQueue() {
-            while (!acceptorQueue.isEmpty()) {
-                appendTaskHolder(acceptorQueue.poll());
+        /**
+         * Releases the ordering keys of the completed batches. As a worker puts a batch back for re-processing before
+         * it completes it, and the completed batches are drained before the re-processed ones, the tasks of a batch
+         * are always back in front of the later tasks with the same keys by the time those can be dispatched.
+         */
+        private void drainCompletedQueue() {
+            List<TaskHolder<ID, T>> holders;
+            while ((holders = completedQueue.poll()) != null) {
+                for (TaskHolder<ID, T> holder : holders) {
+                    inFlightKeys.remove(orderingKeyOf.apply(holder.getId()));
+                }
             }
         }
 
+        /**
+         * Puts re-processed tasks in front of the others, in the order they were originally processed in.
+         */
         private void drainReprocessQueue() {
+            if (reprocessQueue.isEmpty()) {
+                return;
+            }
+            List<TaskHolder<ID, T>> taskHolders = new ArrayList<>();
+            List<TaskHolder<ID, T>> holders;
+            while ((holders = reprocessQueue.poll()) != null) {
+                taskHolders.addAll(holders);
+            }
+
             long now = System.currentTimeMillis();
-            while (!reprocessQueue.isEmpty() && !isFull()) {
-                TaskHolder<ID, T> taskHolder = reprocessQueue.pollLast();
+            int idx = taskHolders.size() - 1;
+            for (; idx >= 0 && !isFull(); idx--) {
+                TaskHolder<ID, T> taskHolder = taskHolders.get(idx);
                 ID id = taskHolder.getId();
                 if (taskHolder.getExpiryTime() <= now) {
                     expiredTasks++;
@@ -254,10 +374,7 @@ class AcceptorExecutor<ID, T> {
                     processingOrder.addFirst(id);
                 }
             }
-            if (isFull()) {
-                queueOverflows += reprocessQueue.size();
-                reprocessQueue.clear();
-            }
+            queueOverflows += idx + 1;
         }
 
         private void appendTaskHolder(TaskHolder<ID, T> taskHolder) {
@@ -273,60 +390,122 @@ class AcceptorExecutor<ID, T> {
             }
         }
 
-        void assignSingleItemWork() {
-            if (!processingOrder.isEmpty()) {
-                if (singleItemWorkRequests.tryAcquire(1)) {
-                    long now = System.currentTimeMillis();
-                    while (!processingOrder.isEmpty()) {
-                        ID id = processingOrder.poll();
-                        TaskHolder<ID, T> holder = pendingTasks.remove(id);
-                        if (holder.getExpiryTime() > now) {
-                            singleItemWorkQueue.add(holder);
-                            return;
-                        }
+        void assignSingleItemWork(long now) {
+            while (!processingOrder.isEmpty() && singleItemWorkRequests.tryAcquire(1)) {
+                TaskHolder<ID, T> holder = null;
+                while (holder == null && !processingOrder.isEmpty()) {
+                    holder = pendingTasks.remove(processingOrder.poll());
+                    if (holder.getExpiryTime() <= now) {
                         expiredTasks++;
+                        holder = null;
                     }
+                }
+                if (holder == null) {
                     singleItemWorkRequests.release();
+                } else {
+                    singleItemWorkQueue.add(holder);
                 }
             }
         }
 
-        void assignBatchWork() {
-            if (hasEnoughTasksForNextBatch()) {
-                if (batchWorkRequests.tryAcquire(1)) {
-                    long now = System.currentTimeMillis();
-                    int len = Math.min(maxBatchingSize, processingOrder.size());
-                    List<TaskHolder<ID, T>> holders = new ArrayList<>(len);
-                    while (holders.size() < len && !processingOrder.isEmpty()) {
-                        ID id = processingOrder.poll();
-                        TaskHolder<ID, T> holder = pendingTasks.remove(id);
-                        if (holder.getExpiryTime() > now) {
-                            holders.add(holder);
-                        } else {
-                            expiredTasks++;
-                        }
-                    }
-                    if (holders.isEmpty()) {
-                        batchWorkRequests.release();
-                    } else {
-                        batchSizeMetric.record(holders.size(), TimeUnit.MILLISECONDS);
-                        batchWorkQueue.add(holders);
+        /**
+         * @return {@code true} if a worker waits for a batch, but the {@link TrafficShaper} allows no more batches
+         * to be processed at once, or all pending tasks are held back by the batches being processed, in which case
+         * there is nothing to do until one of those batches completes, or a new task is accepted
+         */
+        boolean assignBatchWork(long now) {
+            while (hasEnoughTasksForNextBatch(now)) {
+                if (!trafficShaper.canDispatchBatch(inFlightBatches.get())) {
+                    return batchWorkRequests.availablePermits() > 0;
+                }
+                if (!batchWorkRequests.tryAcquire(1)) {
+                    break;
+                }
+                List<TaskHolder<ID, T>> holders = orderingKeyOf == null ? nextBatch(now) : nextOrderedBatch(now);
+                if (holders.isEmpty()) {
+                    batchWorkRequests.release();
+                    if (!processingOrder.isEmpty()) {
+                        return true;
                     }
+                } else {
+                    batchSizeMetric.record(holders.size(), TimeUnit.MILLISECONDS);
+                    inFlightBatches.incrementAndGet();
+                    batchWorkQueue.add(holders);
+                }
+            }
+            return false;
+        }
+
+        private List<TaskHolder<ID, T>> nextBatch(long now) {
+            int len = Math.min(trafficShaper.batchSize(maxBatchingSize), processingOrder.size());
+            List<TaskHolder<ID, T>> holders = new ArrayList<>(len);
+            while (holders.size() < len && !processingOrder.isEmpty()) {
+                ID id = processingOrder.poll();
+                TaskHolder<ID, T> holder = pendingTasks.remove(id);
+                if (holder.getExpiryTime() > now) {
+                    holders.add(holder);
+                } else {
+                    expiredTasks++;
                 }
             }
+            return holders;
         }
 
-        private boolean hasEnoughTasksForNextBatch() {
+        /**
+         * Takes the tasks for the next batch in processing order, skipping those whose ordering key is held by a batch
+         * being processed. The skipped tasks are put back in front, in the order they were in.
+         */
+        private List<TaskHolder<ID, T>> nextOrderedBatch(long now) {
+            int batchSize = trafficShaper.batchSize(maxBatchingSize);
+            List<TaskHolder<ID, T>> holders = new ArrayList<>(Math.min(batchSize, processingOrder.size()));
+            Set<Object> batchKeys = new HashSet<>();
+            List<ID> heldBack = new ArrayList<>();
+            while (holders.size() < batchSize && !processingOrder.isEmpty()) {
+                ID id = processingOrder.poll();
+                Object key = orderingKeyOf.apply(id);
+                if (inFlightKeys.contains(key)) {
+                    heldBack.add(id);
+                    continue;
+                }
+                TaskHolder<ID, T> holder = pendingTasks.remove(id);
+                if (holder.getExpiryTime() > now) {
+                    holders.add(holder);
+                    batchKeys.add(key);
+                } else {
+                    expiredTasks++;
+                }
+            }
+            for (int i = heldBack.size() - 1; i >= 0; i--) {
+                processingOrder.addFirst(heldBack.get(i));
+            }
+            inFlightKeys.addAll(batchKeys);
+            return holders;
+        }
+
+        /**
+         * A batch is sent once it is full, or once its oldest task waited for the batching delay, as waiting longer
+         * would not make it larger, or would delay that task too much.
+         */
+        private boolean hasEnoughTasksForNextBatch(long now) {
             if (processingOrder.isEmpty()) {
                 return false;
             }
-            if (pendingTasks.size() >= maxBufferSize) {
+            if (processingOrder.size() >= trafficShaper.batchSize(maxBatchingSize) || isFull()) {
                 return true;
             }
+            return now >= nextBatchDueTime();
+        }
 
+        /**
+         * @return the time at which the pending tasks make a batch a waiting worker should be given, or
+         * {@link Long#MAX_VALUE} if no worker is waiting for a batch, or there is no task for it
+         */
+        private long nextBatchDueTime() {
+            if (processingOrder.isEmpty() || batchWorkRequests.availablePermits() == 0) {
+                return Long.MAX_VALUE;
+            }
             TaskHolder<ID, T> nextHolder = pendingTasks.get(processingOrder.peek());
-            long delay = System.currentTimeMillis() - nextHolder.getSubmitTimestamp();
-            return delay >= maxBatchingDelay;
+            return nextHolder.getSubmitTimestamp() + trafficShaper.batchingDelay(maxBatchingDelay);
         }
     }
 }
@@ -0,0 +1,87 @@
+package com.netflix.eureka.util.batcher;
+
+import com.netflix.eureka.util.batcher.TaskProcessor.ProcessingResult;
+
+/**
+ * The {@link TrafficShapingPolicy#Adaptive} policy. It keeps a window of batches which may be processed at once, and
+ * the size of those batches, both of which grow additively with every successful batch, up to the configured
+ * maximum, and are halved on congestion, as the receiving end is either busy or too slow to process a batch before
+ * the read timeout. As the batches being processed at once tend to fail together, they are halved at most once in
+ * the time a batch takes to process. Once the window is down to a single batch, further congestion pauses the
+ * dispatching as the {@link TrafficShapingPolicy#Fixed fixed} policy does. A network failure, which says nothing about
+ * the load of the receiving end, shrinks the window to a single batch and pauses the dispatching, but leaves the batch
+ * size alone.
+ *
+ * <p>
+ * A partial batch is dispatched once its oldest task waited for about as long as batches take to process, which is
+ * tracked as a moving average the way TCP does, so that tasks go out promptly to a fast receiving end, and fill up
+ * larger batches for a slow one.
+ * </p>
+ */
+class AdaptiveTrafficShaper extends TrafficShaper {
+
+    private final int maxInFlightBatches;
+    private final int maxBatchingSize;
+    private final int batchSizeIncrement;
+
+    private double window;
+    private int batchSize;
+    private long smoothedProcessingTimeMs = -1;
+    private long lastDecreaseTime = -1;
+
+    AdaptiveTrafficShaper(long congestionRetryDelayMs, long networkFailureRetryMs, int maxBatchingSize, int maxInFlightBatches) {
+        super(congestionRetryDelayMs, networkFailureRetryMs);
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.maxBatchingSize = maxBatchingSize;
+        this.batchSizeIncrement = Math.max(1, maxBatchingSize / 25);
+        this.window = maxInFlightBatches;
+        this.batchSize = maxBatchingSize;
+    }
+
+    @Override
+    synchronized void registerBatch(int batchSize, long processingTimeMs, ProcessingResult processingResult) {
+        if (processingResult != ProcessingResult.Success) {
+            return;
+        }
+        if (smoothedProcessingTimeMs == -1) {
+            smoothedProcessingTimeMs = processingTimeMs;
+        } else {
+            smoothedProcessingTimeMs += (processingTimeMs - smoothedProcessingTimeMs) / 8;
+        }
+        window = Math.min(maxInFlightBatches, window + 1 / window);
+        this.batchSize = Math.min(maxBatchingSize, this.batchSize + batchSizeIncrement);
+    }
+
+    @Override
+    synchronized void registerFailure(ProcessingResult processingResult) {
+        if (processingResult == ProcessingResult.Congestion) {
+            if (window < 2) {
+                super.registerFailure(processingResult);
+            }
+            long now = System.currentTimeMillis();
+            if (lastDecreaseTime == -1 || now - lastDecreaseTime >= Math.max(0, smoothedProcessingTimeMs)) {
+                lastDecreaseTime = now;
+                window = Math.max(1, window / 2);
+                batchSize = Math.max(1, batchSize / 2);
+            }
+        } else if (processingResult == ProcessingResult.TransientError) {
+            super.registerFailure(processingResult);
+            window = 1;
+        }
+    }
+
+    @Override
+    synchronized boolean canDispatchBatch(int inFlightBatches) {
+        return inFlightBatches < (int) window;
+    }
+
+    @Override
+    synchronized int batchSize(int maxBatchingSize) {
+        return Math.min(maxBatchingSize, batchSize);
+    }
+
+    @Override
+    synchronized long batchingDelay(long maxBatchingDelay) {
+        return smoothedProcessingTimeMs == -1 ? maxBatchingDelay : Math.min(maxBatchingDelay, smoothedProcessingTimeMs);
+    }
+}
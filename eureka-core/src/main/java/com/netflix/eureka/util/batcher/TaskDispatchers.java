@@ -1,5 +1,7 @@
 package com.netflix.eureka.util.batcher;
 
+import java.util.function.Function;
+
 /**
  * See {@link TaskDispatcher} for an overview.
  *
@@ -40,8 +42,36 @@ public class TaskDispatchers {
                                                                              long congestionRetryDelayMs,
                                                                              long networkFailureRetryMs,
                                                                              TaskProcessor<T> taskProcessor) {
+        return createBatchingTaskDispatcher(id, maxBufferSize, workloadSize, workerCount, maxBatchingDelay,
+                congestionRetryDelayMs, networkFailureRetryMs, null, TrafficShapingPolicy.Fixed, taskProcessor);
+    }
+
+    /**
+     * Creates a dispatcher which processes up to {@code workerCount} batches concurrently, but never a task while a
+     * batch with a task of the same ordering key is being processed, so that such tasks are processed in the order
+     * they were dispatched in.
+     *
+     * @param orderingKeyOf maps a task id to the ordering key of the task, or {@code null} if tasks may be processed
+     *                      in any order
+     * @param trafficShapingPolicy how the batches are paced, with {@code workloadSize}, {@code workerCount} and
+     *                             {@code maxBatchingDelay} being the maximum batch size, number of batches processed
+     *                             at once, and batching delay
+     */
+    public static <ID, T> TaskDispatcher<ID, T> createBatchingTaskDispatcher(String id,
+                                                                             int maxBufferSize,
+                                                                             int workloadSize,
+                                                                             int workerCount,
+                                                                             long maxBatchingDelay,
+                                                                             long congestionRetryDelayMs,
+                                                                             long networkFailureRetryMs,
+                                                                             Function<ID, ?> orderingKeyOf,
+                                                                             TrafficShapingPolicy trafficShapingPolicy,
+                                                                             TaskProcessor<T> taskProcessor) {
+        final TrafficShaper trafficShaper = trafficShapingPolicy == TrafficShapingPolicy.Adaptive
+                ? new AdaptiveTrafficShaper(congestionRetryDelayMs, networkFailureRetryMs, workloadSize, workerCount)
+                : new TrafficShaper(congestionRetryDelayMs, networkFailureRetryMs);
         final AcceptorExecutor<ID, T> acceptorExecutor = new AcceptorExecutor<>(
-                id, maxBufferSize, workloadSize, maxBatchingDelay, congestionRetryDelayMs, networkFailureRetryMs
+                id, maxBufferSize, workloadSize, maxBatchingDelay, trafficShaper, orderingKeyOf
         );
         final TaskExecutors<ID, T> taskExecutor = TaskExecutors.batchExecutors(id, workerCount, taskProcessor, acceptorExecutor);
         return new TaskDispatcher<ID, T>() {
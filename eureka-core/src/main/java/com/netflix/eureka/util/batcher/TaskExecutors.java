@@ -1,9 +1,12 @@
 package com.netflix.eureka.util.batcher;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -95,6 +98,8 @@ class TaskExecutors<ID, T> {
 
         final StatsTimer taskWaitingTimeForProcessing;
 
+        final StatsTimer batchProcessingTime;
+
         TaskExecutorMetrics(String id) {
             final double[] percentiles = {50.0, 95.0, 99.0, 99.5};
             final StatsConfig statsConfig = new StatsConfig.Builder()
@@ -104,6 +109,8 @@ class TaskExecutors<ID, T> {
                     .build();
             final MonitorConfig config = MonitorConfig.builder(METRIC_REPLICATION_PREFIX + "executionTime").build();
             taskWaitingTimeForProcessing = new StatsTimer(config, statsConfig);
+            final MonitorConfig batchConfig = MonitorConfig.builder(METRIC_REPLICATION_PREFIX + "batchProcessingTime").build();
+            batchProcessingTime = new StatsTimer(batchConfig, statsConfig);
 
             try {
                 Monitors.registerObject(id, this);
@@ -133,6 +140,10 @@ class TaskExecutors<ID, T> {
             taskWaitingTimeForProcessing.record(System.currentTimeMillis() - holder.getSubmitTimestamp(), TimeUnit.MILLISECONDS);
         }
 
+        void registerBatchProcessingTime(long processingTime) {
+            batchProcessingTime.record(processingTime, TimeUnit.MILLISECONDS);
+        }
+
         <ID, T> void registerExpiryTimes(List<TaskHolder<ID, T>> holders) {
             long now = System.currentTimeMillis();
             for (TaskHolder<ID, T> holder : holders) {
@@ -187,18 +198,38 @@ class TaskExecutors<ID, T> {
                     metrics.registerExpiryTimes(holders);
 
                     List<T> tasks = getTasksOf(holders);
-                    ProcessingResult result = processor.process(tasks);
-                    switch (result) {
-                        case Success:
-                            break;
-                        case Congestion:
-                        case TransientError:
-                            taskDispatcher.reprocess(holders, result);
-                            break;
-                        case PermanentError:
-                            logger.warn("Discarding {} tasks of {} due to permanent error", holders.size(), workerName);
+                    long startTime = System.currentTimeMillis();
+                    // A batch the processor failed on is retried, and is always completed, as otherwise the
+                    // acceptor would hold back the later tasks with the same ordering keys for good
+                    ProcessingResult result = ProcessingResult.TransientError;
+                    List<T> failedTasks = new ArrayList<>();
+                    try {
+                        result = processor.process(tasks, failedTasks);
+                    } catch (Exception e) {
+                        logger.warn("Batch processing failure in {}; will retry the batch", workerName, e);
+                        failedTasks = tasks;
+                    } finally {
+                        long processingTime = System.currentTimeMillis() - startTime;
+                        metrics.registerBatchProcessingTime(processingTime);
+                        List<TaskHolder<ID, T>> failedHolders = result == ProcessingResult.Success
+                                ? Collections.<TaskHolder<ID, T>>emptyList()
+                                : getHoldersOf(holders, failedTasks);
+                        switch (result) {
+                            case Success:
+                                break;
+                            case Congestion:
+                            case TransientError:
+                                taskDispatcher.reprocess(failedHolders, result);
+                                break;
+                            case PermanentError:
+                                logger.warn("Discarding {} tasks of {} due to permanent error", failedHolders.size(), workerName);
+                        }
+                        taskDispatcher.complete(holders, result, processingTime);
+                        metrics.registerTaskResult(ProcessingResult.Success, tasks.size() - failedHolders.size());
+                        if (result != ProcessingResult.Success) {
+                            metrics.registerTaskResult(result, failedHolders.size());
+                        }
                     }
-                    metrics.registerTaskResult(result, tasks.size());
                 }
             } catch (InterruptedException e) {
                 // Ignore
@@ -224,6 +255,18 @@ class TaskExecutors<ID, T> {
             }
             return tasks;
         }
+
+        private List<TaskHolder<ID, T>> getHoldersOf(List<TaskHolder<ID, T>> holders, List<T> tasks) {
+            Set<T> taskSet = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+            taskSet.addAll(tasks);
+            List<TaskHolder<ID, T>> result = new ArrayList<>(taskSet.size());
+            for (TaskHolder<ID, T> holder : holders) {
+                if (taskSet.contains(holder.getTask())) {
+                    result.add(holder);
+                }
+            }
+            return result;
+        }
     }
 
     static class SingleTaskWorkerRunnable<ID, T> extends WorkerRunnable<ID, T> {
@@ -32,4 +32,18 @@ public interface TaskProcessor<T> {
      * error is transient).
      */
     ProcessingResult process(List<T> tasks);
+
+    /**
+     * For batched mode, when a collection of tasks is run in parts which succeed or fail independently, for example
+     * as they are sent in separate requests. The tasks of the parts which failed are added to {@code failedTasks},
+     * and are handled according to the result returned, while the other tasks are done with. By default, the tasks
+     * are run as a whole by {@link #process(List)}.
+     */
+    default ProcessingResult process(List<T> tasks, List<T> failedTasks) {
+        ProcessingResult result = process(tasks);
+        if (result != ProcessingResult.Success) {
+            failedTasks.addAll(tasks);
+        }
+        return result;
+    }
 }
@@ -21,7 +21,8 @@ import com.netflix.eureka.util.batcher.TaskProcessor.ProcessingResult;
 /**
  * {@link TrafficShaper} provides admission control policy prior to dispatching tasks to workers.
  * It reacts to events coming via reprocess requests (transient failures, congestion), and delays the processing
- * depending on this feedback.
+ * depending on this feedback. This is the {@link TrafficShapingPolicy#Fixed} policy, which otherwise leaves the
+ * batches and the number of them being processed as configured.
  *
  * @author Tomasz Bak
  */
@@ -43,6 +44,33 @@ class TrafficShaper {
         this.networkFailureRetryMs = Math.min(MAX_DELAY, networkFailureRetryMs);
     }
 
+    /**
+     * Called once a worker is done with a batch, whatever the result.
+     */
+    void registerBatch(int batchSize, long processingTimeMs, ProcessingResult processingResult) {
+    }
+
+    /**
+     * @return whether another batch may be dispatched while the given number of batches are being processed
+     */
+    boolean canDispatchBatch(int inFlightBatches) {
+        return true;
+    }
+
+    /**
+     * @return the number of tasks to put in the next batch
+     */
+    int batchSize(int maxBatchingSize) {
+        return maxBatchingSize;
+    }
+
+    /**
+     * @return how long to wait for a batch to fill up, before it is dispatched anyway
+     */
+    long batchingDelay(long maxBatchingDelay) {
+        return maxBatchingDelay;
+    }
+
     void registerFailure(ProcessingResult processingResult) {
         if (processingResult == ProcessingResult.Congestion) {
             lastCongestionError = System.currentTimeMillis();
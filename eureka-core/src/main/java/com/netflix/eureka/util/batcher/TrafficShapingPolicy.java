@@ -0,0 +1,19 @@
+package com.netflix.eureka.util.batcher;
+
+/**
+ * How a batching {@link TaskDispatcher} paces the batches it dispatches to the workers.
+ */
+public enum TrafficShapingPolicy {
+    /**
+     * Batches of the configured size are dispatched to all the workers, and all dispatching is paused for the
+     * configured delay after congestion or a network failure.
+     */
+    Fixed,
+    /**
+     * The number of batches processed at once is increased additively while they succeed, and halved on congestion,
+     * so that the rate at which tasks are sent follows what the receiving end can take. The batch size is adapted the
+     * same way, and partial batches are dispatched after about the time a batch takes to process, rather than after
+     * the configured delay.
+     */
+    Adaptive
+}
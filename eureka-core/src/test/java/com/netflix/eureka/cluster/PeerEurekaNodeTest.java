@@ -11,6 +11,8 @@ import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
 import com.netflix.eureka.cluster.TestableHttpReplicationClient.HandledRequest;
 import com.netflix.eureka.cluster.TestableHttpReplicationClient.RequestType;
+import com.netflix.eureka.cluster.protocol.ReplicationHeartbeat;
+import com.netflix.eureka.cluster.protocol.ReplicationHeartbeatList;
 import com.netflix.eureka.cluster.protocol.ReplicationInstance;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.resources.ASGResource.ASGStatus;
@@ -75,6 +77,17 @@ public class PeerEurekaNodeTest {
     public void testHeartbeatBatchReplication() throws Throwable {
         createPeerEurekaNode().heartbeat(instanceInfo.getAppName(), instanceInfo.getId(), instanceInfo, null, false);
 
+        ReplicationHeartbeat heartbeat = expectSingleHeartbeatBatchRequest();
+        assertThat(heartbeat.getId(), is(equalTo(instanceInfo.getId())));
+        assertThat(heartbeat.getLastDirtyTimestamp(), is(equalTo(instanceInfo.getLastDirtyTimestamp())));
+    }
+
+    @Test
+    public void testHeartbeatBatchReplicationToPeerRejectingHeartbeatLists() throws Throwable {
+        httpReplicationClient.withHeartbeatListRejected();
+        createPeerEurekaNode().heartbeat(instanceInfo.getAppName(), instanceInfo.getId(), instanceInfo, null, false);
+
+        expectRequestType(RequestType.HeartbeatBatch);
         ReplicationInstance replicationInstance = expectSingleBatchRequest();
         assertThat(replicationInstance.getAction(), is(equalTo(Action.Heartbeat)));
     }
@@ -86,11 +99,10 @@ public class PeerEurekaNodeTest {
         createPeerEurekaNode().heartbeat(instanceInfo.getAppName(), instanceInfo.getId(), instanceInfo, null, false);
 
         // Heartbeat replied with an error
-        ReplicationInstance replicationInstance = expectSingleBatchRequest();
-        assertThat(replicationInstance.getAction(), is(equalTo(Action.Heartbeat)));
+        expectSingleHeartbeatBatchRequest();
 
         // Second, registration task is scheduled
-        replicationInstance = expectSingleBatchRequest();
+        ReplicationInstance replicationInstance = expectSingleBatchRequest();
         assertThat(replicationInstance.getAction(), is(equalTo(Action.Register)));
     }
 
@@ -104,7 +116,7 @@ public class PeerEurekaNodeTest {
 
         // InstanceInfo in response from peer will trigger local registry call
         createPeerEurekaNode().heartbeat(instanceInfo.getAppName(), instanceInfo.getId(), instanceInfo, null, false);
-        expectRequestType(RequestType.Batch);
+        expectRequestType(RequestType.HeartbeatBatch);
 
         // Check that registry has instanceInfo from peer
         verify(registry, timeout(1000).times(1)).register(instanceInfoFromPeer, true);
@@ -168,4 +180,13 @@ public class PeerEurekaNodeTest {
         assertThat(replications.size(), is(equalTo(1)));
         return replications.get(0);
     }
+
+    private ReplicationHeartbeat expectSingleHeartbeatBatchRequest() throws InterruptedException {
+        Object data = expectRequestType(RequestType.HeartbeatBatch);
+        assertThat(data, is(instanceOf(ReplicationHeartbeatList.class)));
+
+        List<ReplicationHeartbeat> heartbeats = ((ReplicationHeartbeatList) data).getHeartbeats();
+        assertThat(heartbeats.size(), is(equalTo(1)));
+        return heartbeats.get(0);
+    }
 }
\ No newline at end of file
@@ -1,17 +1,31 @@
 package com.netflix.eureka.cluster;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import com.netflix.appinfo.InstanceInfo;
 import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.cluster.TestableHttpReplicationClient.HandledRequest;
+import com.netflix.eureka.cluster.TestableHttpReplicationClient.RequestType;
 import com.netflix.eureka.cluster.TestableInstanceReplicationTask.ProcessingState;
+import com.netflix.eureka.cluster.TestableInstanceReplicationTask.TestableReplicationTaskBuilder;
+import com.netflix.eureka.cluster.protocol.ReplicationInstance;
+import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
 import com.netflix.eureka.util.batcher.TaskProcessor.ProcessingResult;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import static com.netflix.eureka.cluster.TestableInstanceReplicationTask.aReplicationTask;
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -28,6 +42,11 @@ public class ReplicationTaskProcessorTest {
         replicationTaskProcessor = new ReplicationTaskProcessor("peerId#test", replicationClient);
     }
 
+    @After
+    public void tearDown() throws Exception {
+        replicationTaskProcessor.shutdown();
+    }
+
     @Test
     public void testNonBatchableTaskExecution() throws Exception {
         TestableInstanceReplicationTask task = aReplicationTask().withAction(Action.Heartbeat).withReplyStatusCode(200).build();
@@ -71,6 +90,100 @@ public class ReplicationTaskProcessorTest {
         assertThat(task.getProcessingState(), is(ProcessingState.Finished));
     }
 
+    @Test
+    public void testHeartbeatsAreSentApartFromOtherTasks() throws Exception {
+        TestableReplicationTaskBuilder taskBuilder = aReplicationTask();
+        TestableInstanceReplicationTask registerTask = taskBuilder.withAction(Action.Register).build();
+        TestableInstanceReplicationTask heartbeatTask = taskBuilder.withAction(Action.Heartbeat).build();
+
+        replicationClient.withBatchReply(200);
+        replicationClient.withNetworkStatusCode(200, 200);
+        ProcessingResult status = replicationTaskProcessor.process(Arrays.<ReplicationTask>asList(heartbeatTask, registerTask));
+
+        assertThat(status, is(ProcessingResult.Success));
+        // Both requests are sent at the same time
+        Set<RequestType> requestTypes = EnumSet.of(
+                replicationClient.nextHandledRequest(0, TimeUnit.SECONDS).getRequestType(),
+                replicationClient.nextHandledRequest(0, TimeUnit.SECONDS).getRequestType()
+        );
+        assertThat(requestTypes, is(equalTo((Set<RequestType>) EnumSet.of(RequestType.Batch, RequestType.HeartbeatBatch))));
+        assertThat(registerTask.getProcessingState(), is(ProcessingState.Finished));
+        assertThat(heartbeatTask.getProcessingState(), is(ProcessingState.Finished));
+    }
+
+    @Test
+    public void testOnlyTasksOfFailedRequestAreProcessedAgain() throws Exception {
+        TestableReplicationTaskBuilder taskBuilder = aReplicationTask();
+        TestableInstanceReplicationTask registerTask = taskBuilder.withAction(Action.Register).build();
+        TestableInstanceReplicationTask heartbeatTask = taskBuilder.withAction(Action.Heartbeat).build();
+
+        replicationClient.withBatchReply(200);
+        replicationClient.withNetworkStatusCode(200);
+        replicationClient.withHeartbeatListStatusCode(503);
+        List<ReplicationTask> failedTasks = new ArrayList<>();
+        ProcessingResult status = replicationTaskProcessor.process(
+                Arrays.<ReplicationTask>asList(registerTask, heartbeatTask), failedTasks);
+
+        assertThat(status, is(ProcessingResult.Congestion));
+        assertThat(failedTasks, is(equalTo(Collections.<ReplicationTask>singletonList(heartbeatTask))));
+        assertThat(registerTask.getProcessingState(), is(ProcessingState.Finished));
+        assertThat(heartbeatTask.getProcessingState(), is(ProcessingState.Pending));
+    }
+
+    @Test
+    public void testHeartbeatPrecededByOtherTaskForSameInstanceIsSentWithIt() throws Exception {
+        TestableInstanceReplicationTask registerTask = aReplicationTask().withAction(Action.Register).build();
+        TestableInstanceReplicationTask heartbeatTask = aReplicationTask().withAction(Action.Heartbeat).build();
+
+        replicationClient.withBatchReply(200);
+        replicationClient.withNetworkStatusCode(200);
+        ProcessingResult status = replicationTaskProcessor.process(Arrays.<ReplicationTask>asList(registerTask, heartbeatTask));
+
+        assertThat(status, is(ProcessingResult.Success));
+        HandledRequest request = replicationClient.nextHandledRequest(0, TimeUnit.SECONDS);
+        assertThat(request.getRequestType(), is(RequestType.Batch));
+        assertThat(((ReplicationList) request.getData()).getReplicationList().size(), is(2));
+        assertThat(replicationClient.nextHandledRequest(0, TimeUnit.SECONDS), is(nullValue()));
+    }
+
+    @Test
+    public void testHeartbeatFollowedByOtherTaskForSameInstanceIsSentWithIt() throws Exception {
+        TestableInstanceReplicationTask heartbeatTask = aReplicationTask().withAction(Action.Heartbeat).build();
+        TestableInstanceReplicationTask cancelTask = aReplicationTask().withAction(Action.Cancel).build();
+
+        replicationClient.withBatchReply(200);
+        replicationClient.withNetworkStatusCode(200);
+        ProcessingResult status = replicationTaskProcessor.process(Arrays.<ReplicationTask>asList(heartbeatTask, cancelTask));
+
+        assertThat(status, is(ProcessingResult.Success));
+        HandledRequest request = replicationClient.nextHandledRequest(0, TimeUnit.SECONDS);
+        assertThat(request.getRequestType(), is(RequestType.Batch));
+        List<ReplicationInstance> replicationList = ((ReplicationList) request.getData()).getReplicationList();
+        assertThat(replicationList.size(), is(2));
+        assertThat(replicationList.get(0).getAction(), is(Action.Heartbeat));
+        assertThat(replicationList.get(1).getAction(), is(Action.Cancel));
+        assertThat(replicationClient.nextHandledRequest(0, TimeUnit.SECONDS), is(nullValue()));
+    }
+
+    @Test
+    public void testHeartbeatsAreSentAsReplicationListWhenPeerRejectsHeartbeatList() throws Exception {
+        TestableInstanceReplicationTask task = aReplicationTask().withAction(Action.Heartbeat).build();
+
+        replicationClient.withHeartbeatListRejected();
+        replicationClient.withBatchReply(200);
+        replicationClient.withNetworkStatusCode(200, 200);
+        ProcessingResult status = replicationTaskProcessor.process(Collections.<ReplicationTask>singletonList(task));
+
+        assertThat(status, is(ProcessingResult.Success));
+        assertThat(task.getProcessingState(), is(ProcessingState.Finished));
+        assertThat(replicationClient.nextHandledRequest(0, TimeUnit.SECONDS).getRequestType(), is(RequestType.HeartbeatBatch));
+        assertThat(replicationClient.nextHandledRequest(0, TimeUnit.SECONDS).getRequestType(), is(RequestType.Batch));
+
+        // Until retried, later heartbeats go straight to the replication list
+        replicationTaskProcessor.process(Collections.<ReplicationTask>singletonList(aReplicationTask().build()));
+        assertThat(replicationClient.nextHandledRequest(0, TimeUnit.SECONDS).getRequestType(), is(RequestType.Batch));
+    }
+
     @Test
     public void testBatchableTaskCongestionFailureHandling() throws Exception {
         TestableInstanceReplicationTask task = aReplicationTask().build();
@@ -15,6 +15,7 @@ import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
 import com.netflix.discovery.shared.transport.EurekaHttpResponse;
+import com.netflix.eureka.cluster.protocol.ReplicationHeartbeatList;
 import com.netflix.eureka.cluster.protocol.ReplicationInstanceResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
@@ -43,7 +44,9 @@ public class TestableHttpReplicationClient implements HttpReplicationClient {
     private final AtomicInteger readTimeOutCounter = new AtomicInteger();
 
     private long processingDelayMs;
-    
+
+    private boolean heartbeatListRejected;
+    private int heartbeatListStatusCode;
 
     private final BlockingQueue<HandledRequest> handledRequests = new LinkedBlockingQueue<>();
 
@@ -71,6 +74,14 @@ public class TestableHttpReplicationClient implements HttpReplicationClient {
         this.processingDelayMs = timeUnit.toMillis(processingDelay);
     }
 
+    public void withHeartbeatListRejected() {
+        this.heartbeatListRejected = true;
+    }
+
+    public void withHeartbeatListStatusCode(int heartbeatListStatusCode) {
+        this.heartbeatListStatusCode = heartbeatListStatusCode;
+    }
+
     public HandledRequest nextHandledRequest(long timeout, TimeUnit timeUnit) throws InterruptedException {
         return handledRequests.poll(timeout, timeUnit);
     }
@@ -149,6 +160,23 @@ public class TestableHttpReplicationClient implements HttpReplicationClient {
 
     @Override
     public EurekaHttpResponse<ReplicationListResponse> submitBatchUpdates(ReplicationList replicationList) {
+        return submitBatch(RequestType.Batch, replicationList);
+    }
+
+    @Override
+    public EurekaHttpResponse<ReplicationListResponse> submitBatchHeartbeats(ReplicationHeartbeatList heartbeatList) {
+        if (heartbeatListRejected) {
+            handledRequests.add(new HandledRequest(RequestType.HeartbeatBatch, heartbeatList));
+            return anEurekaHttpResponse(404, ReplicationListResponse.class).build();
+        }
+        if (heartbeatListStatusCode > 0) {
+            handledRequests.add(new HandledRequest(RequestType.HeartbeatBatch, heartbeatList));
+            return anEurekaHttpResponse(heartbeatListStatusCode, ReplicationListResponse.class).build();
+        }
+        return submitBatch(RequestType.HeartbeatBatch, heartbeatList);
+    }
+
+    private EurekaHttpResponse<ReplicationListResponse> submitBatch(RequestType requestType, Object batch) {
     	
         if (readTimeOutCounter.get() < readtimeOutRepeatCount) {
             readTimeOutCounter.incrementAndGet();
@@ -173,7 +201,7 @@ public class TestableHttpReplicationClient implements HttpReplicationClient {
         responseList.add(new ReplicationInstanceResponse(batchStatusCode, instanceInfoFromPeer));
         ReplicationListResponse replicationListResponse = new ReplicationListResponse(responseList);
 
-        handledRequests.add(new HandledRequest(RequestType.Batch, replicationList));
+        handledRequests.add(new HandledRequest(requestType, batch));
 
         int statusCode = networkStatusCodes[callCounter.getAndIncrement()];
         return anEurekaHttpResponse(statusCode, replicationListResponse).type(MediaType.APPLICATION_JSON_TYPE).build();
@@ -183,7 +211,7 @@ public class TestableHttpReplicationClient implements HttpReplicationClient {
     public void shutdown() {
     }
 
-    public enum RequestType {Heartbeat, Register, Cancel, StatusUpdate, DeleteStatusOverride, AsgStatusUpdate, Batch}
+    public enum RequestType {Heartbeat, Register, Cancel, StatusUpdate, DeleteStatusOverride, AsgStatusUpdate, Batch, HeartbeatBatch}
 
     public static class HandledRequest {
         private final RequestType requestType;
@@ -0,0 +1,75 @@
+package com.netflix.eureka.lease;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LeaseExpiryIndexTest {
+
+    private final LeaseExpiryIndex<String> index = new LeaseExpiryIndex<>(10);
+
+    @Test
+    public void testOnlyExpiredLeasesAreReturned() throws Exception {
+        Lease<String> expiring = new Lease<>("expiring", 0);
+        Lease<String> live = new Lease<>("live", 90);
+        index.add(expiring);
+        index.add(live);
+        Thread.sleep(20);
+
+        assertEquals(Collections.singletonList(expiring), index.getExpired(0));
+    }
+
+    @Test
+    public void testAdditionalLeaseTimeIsHonoured() throws Exception {
+        Lease<String> expiring = new Lease<>("expiring", 0);
+        index.add(expiring);
+        Thread.sleep(20);
+
+        assertTrue(index.getExpired(60000).isEmpty());
+        assertEquals(1, index.getExpired(0).size());
+    }
+
+    @Test
+    public void testRemovedLeaseIsNotReturned() throws Exception {
+        Lease<String> expiring = new Lease<>("expiring", 0);
+        index.add(expiring);
+        index.remove(expiring);
+        Thread.sleep(20);
+
+        assertTrue(index.getExpired(0).isEmpty());
+
+        // Renewing a removed lease must not add it back
+        expiring.renew();
+        Thread.sleep(20);
+        assertTrue(index.getExpired(0).isEmpty());
+    }
+
+    @Test
+    public void testRenewalMovesLease() throws Exception {
+        Lease<String> lease = new Lease<>("lease", 1);
+        index.add(lease);
+        assertEquals(1, index.getExpired(-1500).size());
+
+        lease.renew();
+
+        // Renewal pushes the expiry out to now + 2 * duration
+        assertTrue(index.getExpired(-1500).isEmpty());
+        List<Lease<String>> expired = index.getExpired(-2500);
+        assertEquals(Collections.singletonList(lease), expired);
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        Lease<String> expiring = new Lease<>("expiring", 0);
+        index.add(expiring);
+        index.clear();
+        expiring.renew();
+        Thread.sleep(20);
+
+        assertTrue(index.getExpired(0).isEmpty());
+    }
+}
@@ -0,0 +1,93 @@
+package com.netflix.eureka.registry;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.converters.wrappers.CodecWrappers;
+import com.netflix.discovery.converters.wrappers.EncoderWrapper;
+import com.netflix.discovery.shared.Application;
+import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ApplicationsPayloadComposerTest {
+
+    @Test
+    public void testComposedPayloadIsIdenticalToEncodedPayload() throws Exception {
+        for (Class<? extends EncoderWrapper> encoderClass : supportedEncoders()) {
+            EncoderWrapper encoder = CodecWrappers.getEncoder(encoderClass);
+            ApplicationsPayloadComposer composer = new ApplicationsPayloadComposer(encoder);
+
+            List<Application> apps = InstanceInfoGenerator.newBuilder(10, 3).build().toApplications()
+                    .getRegisteredApplications();
+            assertArrayEquals(encode(encoder, toApplications(apps)), compose(composer, toApplications(apps)));
+
+            // Replace one application and remove another one
+            Application replacement = new Application(apps.get(0).getName());
+            for (InstanceInfo instanceInfo : apps.get(0).getInstances()) {
+                replacement.addInstance(new InstanceInfo.Builder(instanceInfo)
+                        .setStatus(InstanceInfo.InstanceStatus.DOWN).build());
+            }
+            apps.set(0, replacement);
+            apps.remove(1);
+            assertArrayEquals(encode(encoder, toApplications(apps)), compose(composer, toApplications(apps)));
+
+            apps.clear();
+            assertArrayEquals(encode(encoder, toApplications(apps)), compose(composer, toApplications(apps)));
+        }
+    }
+
+    @Test
+    public void testUnchangedApplicationsAreNotEncodedAgain() throws Exception {
+        EncoderWrapper encoder = CodecWrappers.getEncoder(CodecWrappers.LegacyJacksonJson.class);
+        ApplicationsPayloadComposer composer = new ApplicationsPayloadComposer(encoder);
+
+        List<Application> apps = InstanceInfoGenerator.newBuilder(4, 2).build().toApplications()
+                .getRegisteredApplications();
+        byte[] payload = compose(composer, toApplications(apps));
+
+        // Applications are only replaced when they change, so a modified one still has its previous payload
+        apps.get(0).removeInstance(apps.get(0).getInstances().get(0));
+        assertArrayEquals(payload, compose(composer, toApplications(apps)));
+    }
+
+    @Test
+    public void testOnlyJacksonJsonEncodersAreSupported() throws Exception {
+        for (Class<? extends EncoderWrapper> encoderClass : supportedEncoders()) {
+            assertTrue(ApplicationsPayloadComposer.supports(CodecWrappers.getEncoder(encoderClass)));
+        }
+        assertFalse(ApplicationsPayloadComposer.supports(CodecWrappers.getEncoder(CodecWrappers.XStreamJson.class)));
+        assertFalse(ApplicationsPayloadComposer.supports(CodecWrappers.getEncoder(CodecWrappers.XStreamXml.class)));
+        assertFalse(ApplicationsPayloadComposer.supports(CodecWrappers.getEncoder(CodecWrappers.JacksonXml.class)));
+    }
+
+    private static List<Class<? extends EncoderWrapper>> supportedEncoders() {
+        List<Class<? extends EncoderWrapper>> encoders = new ArrayList<>();
+        encoders.add(CodecWrappers.LegacyJacksonJson.class);
+        encoders.add(CodecWrappers.JacksonJson.class);
+        encoders.add(CodecWrappers.JacksonJsonMini.class);
+        return encoders;
+    }
+
+    private static Applications toApplications(List<Application> apps) {
+        return new Applications("UP_" + apps.size() + "_", 1L, apps);
+    }
+
+    private static byte[] encode(EncoderWrapper encoder, Applications apps) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(apps, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] compose(ApplicationsPayloadComposer composer, Applications apps) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(composer.compose(apps, out));
+        return out.toByteArray();
+    }
+}
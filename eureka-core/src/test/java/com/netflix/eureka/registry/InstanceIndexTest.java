@@ -0,0 +1,71 @@
+package com.netflix.eureka.registry;
+
+import java.util.Collections;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.lease.Lease;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InstanceIndexTest {
+
+    private final InstanceIndex index = InstanceIndex.byVipAddress(InstanceInfo::getVIPAddress);
+
+    @Test
+    public void testLeaseIsIndexedUnderEachVip() throws Exception {
+        Lease<InstanceInfo> lease = newLease("i-1", "vip1,vip2");
+        index.add(lease);
+
+        assertEquals(Collections.singleton(lease), index.get("vip1"));
+        assertEquals(Collections.singleton(lease), index.get("vip2"));
+        assertTrue(index.get("vip").isEmpty());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        Lease<InstanceInfo> first = newLease("i-1", "vip1,vip2");
+        Lease<InstanceInfo> second = newLease("i-2", "vip2");
+        index.add(first);
+        index.add(second);
+
+        index.remove(first);
+
+        assertTrue(index.get("vip1").isEmpty());
+        assertEquals(Collections.singleton(second), index.get("vip2"));
+    }
+
+    @Test
+    public void testInstanceWithoutVipIsNotIndexed() throws Exception {
+        Lease<InstanceInfo> lease = newLease("i-1", null);
+        index.add(lease);
+        index.remove(lease);
+
+        assertTrue(index.get("null").isEmpty());
+    }
+
+    @Test
+    public void testIndexById() throws Exception {
+        InstanceIndex idIndex = InstanceIndex.byId();
+        Lease<InstanceInfo> lease = newLease("i-1", "vip1");
+        Lease<InstanceInfo> replacement = newLease("i-1", "vip1");
+        idIndex.add(lease);
+        idIndex.add(replacement);
+        idIndex.remove(lease);
+
+        assertEquals(Collections.singleton(replacement), idIndex.get("i-1"));
+        assertTrue(idIndex.get("vip1").isEmpty());
+    }
+
+    private static Lease<InstanceInfo> newLease(String id, String vipAddress) {
+        InstanceInfo.Builder builder = InstanceInfo.Builder.newBuilder()
+                .setInstanceId(id)
+                .setAppName("app")
+                .setHostName(id);
+        if (vipAddress != null) {
+            builder.setVIPAddressDeser(vipAddress);
+        }
+        return new Lease<>(builder.build(), 90);
+    }
+}
@@ -256,6 +256,68 @@ public class InstanceRegistryTest extends AbstractTester {
         verifyLocalInstanceStatus(myInstance.getId(), InstanceStatus.OUT_OF_SERVICE);
     }
 
+    @Test
+    public void testAppsHashCodeTracksLocalChanges() throws Exception {
+        InstanceInfo instance1 = createLocalInstanceWithIdAndStatus(
+                LOCAL_REGION_INSTANCE_1_HOSTNAME, LOCAL_REGION_INSTANCE_1_HOSTNAME, InstanceStatus.UP);
+        InstanceInfo instance2 = createLocalInstanceWithIdAndStatus(
+                LOCAL_REGION_INSTANCE_2_HOSTNAME, LOCAL_REGION_INSTANCE_2_HOSTNAME, InstanceStatus.UP);
+        registerInstanceLocally(instance1);
+        registerInstanceLocally(instance2);
+        assertAppsHashCode("UP_2_");
+
+        // Re-registration replaces the lease, it must not be counted twice
+        registerInstanceLocally(new InstanceInfo(instance1));
+        assertAppsHashCode("UP_2_");
+
+        registry.statusUpdate(LOCAL_REGION_APP_NAME, instance1.getId(), InstanceStatus.OUT_OF_SERVICE, "0", false);
+        assertAppsHashCode("OUT_OF_SERVICE_1_UP_1_");
+
+        registry.deleteStatusOverride(LOCAL_REGION_APP_NAME, instance1.getId(), InstanceStatus.DOWN, "0", false);
+        assertAppsHashCode("DOWN_1_UP_1_");
+
+        registry.cancel(LOCAL_REGION_APP_NAME, instance2.getId(), false);
+        assertAppsHashCode("DOWN_1_");
+
+        registry.clearRegistry();
+        assertAppsHashCode("");
+    }
+
+    @Test
+    public void testRegistrySnapshotRebuildsOnlyChangedApps() throws Exception {
+        InstanceInfo localInstance = createLocalInstanceWithIdAndStatus(
+                LOCAL_REGION_INSTANCE_1_HOSTNAME, LOCAL_REGION_INSTANCE_1_HOSTNAME, InstanceStatus.UP);
+        registerInstanceLocally(localInstance);
+        InstanceInfo otherInstance = createRemoteInstance(REMOTE_REGION_INSTANCE_1_HOSTNAME);
+        registerInstanceLocally(otherInstance);
+
+        RegistrySnapshot snapshot = registry.getRegistrySnapshot();
+        Assert.assertSame(snapshot, registry.getRegistrySnapshot());
+        Assert.assertEquals(2, snapshot.getApplications().size());
+        Application otherApp = snapshot.getApplication(REMOTE_REGION_APP_NAME);
+
+        registerInstanceLocally(createLocalInstanceWithIdAndStatus(
+                LOCAL_REGION_INSTANCE_2_HOSTNAME, LOCAL_REGION_INSTANCE_2_HOSTNAME, InstanceStatus.UP));
+        RegistrySnapshot next = registry.getRegistrySnapshot();
+        Assert.assertNotSame(snapshot, next);
+        Assert.assertEquals(2, next.getApplication(LOCAL_REGION_APP_NAME).size());
+        Assert.assertSame(otherApp, next.getApplication(REMOTE_REGION_APP_NAME));
+        Assert.assertEquals(1, snapshot.getApplication(LOCAL_REGION_APP_NAME).size());
+
+        registry.statusUpdate(LOCAL_REGION_APP_NAME, localInstance.getId(), InstanceStatus.OUT_OF_SERVICE, "0", false);
+        Assert.assertEquals("OUT_OF_SERVICE_1_UP_2_", registry.getRegistrySnapshot().getApplications().getAppsHashCode());
+
+        registry.cancel(REMOTE_REGION_APP_NAME, otherInstance.getId(), false);
+        Assert.assertNull(registry.getRegistrySnapshot().getApplication(REMOTE_REGION_APP_NAME));
+        Assert.assertEquals(1, registry.getRegistrySnapshot().getApplications().size());
+    }
+
+    private void assertAppsHashCode(String expected) {
+        Applications apps = registry.getApplicationsFromLocalRegionOnly();
+        Assert.assertEquals(expected, apps.getAppsHashCode());
+        Assert.assertEquals(apps.getReconcileHashCode(), apps.getAppsHashCode());
+    }
+
     @Test
     public void testEvictionTaskCompensationTime() throws Exception {
         long evictionTaskPeriodNanos = serverConfig.getEvictionIntervalTimerInMs() * 1000000;
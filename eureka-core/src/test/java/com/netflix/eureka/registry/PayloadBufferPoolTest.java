@@ -0,0 +1,60 @@
+package com.netflix.eureka.registry;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PayloadBufferPoolTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @Test
+    public void testReplacedChunksAreRecycled() throws Exception {
+        PayloadBufferPool pool = new PayloadBufferPool(CHUNK_SIZE);
+        List<ByteBuffer> payload = acquire(pool, 10);
+
+        for (int i = 0; i < 5; i++) {
+            List<ByteBuffer> replacement = acquire(pool, 10);
+            release(pool, payload);
+            payload = replacement;
+        }
+
+        assertEquals(20 * CHUNK_SIZE, pool.getAllocatedBytes());
+        assertEquals(10 * CHUNK_SIZE, pool.getFreeBytes());
+    }
+
+    @Test
+    public void testFreeChunksAboveChunksInUseAreDropped() throws Exception {
+        PayloadBufferPool pool = new PayloadBufferPool(CHUNK_SIZE);
+        List<ByteBuffer> payload = acquire(pool, 10);
+        List<ByteBuffer> retained = acquire(pool, 30);
+
+        release(pool, retained);
+
+        assertEquals(20 * CHUNK_SIZE, pool.getAllocatedBytes());
+        assertEquals(10 * CHUNK_SIZE, pool.getFreeBytes());
+
+        release(pool, payload);
+
+        assertEquals(0, pool.getAllocatedBytes());
+        assertEquals(0, pool.getFreeBytes());
+    }
+
+    private static List<ByteBuffer> acquire(PayloadBufferPool pool, int count) {
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            chunks.add(pool.acquire());
+        }
+        return chunks;
+    }
+
+    private static void release(PayloadBufferPool pool, List<ByteBuffer> chunks) {
+        for (ByteBuffer chunk : chunks) {
+            pool.release(chunk);
+        }
+    }
+}
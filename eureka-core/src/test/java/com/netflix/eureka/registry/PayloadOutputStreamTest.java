@@ -0,0 +1,89 @@
+package com.netflix.eureka.registry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.hash.Hashing;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PayloadOutputStreamTest {
+
+    @Test
+    public void testPayloadIsCollectedAsIsAndCompressed() throws Exception {
+        byte[] payload = newPayload();
+
+        PayloadOutputStream out = new PayloadOutputStream();
+        write(out, payload);
+
+        assertArrayEquals(payload, out.getPayload().toByteArray());
+        assertArrayEquals(payload, gunzip(out.getGzippedPayload().toByteArray()));
+    }
+
+    @Test
+    public void testPayloadIsCollectedOffHeap() throws Exception {
+        byte[] payload = newPayload();
+        PayloadBufferPool pool = new PayloadBufferPool(1024);
+
+        PayloadOutputStream out = new PayloadOutputStream(pool);
+        write(out, payload);
+        PayloadBuffer raw = out.getPayload();
+        PayloadBuffer gzipped = out.getGzippedPayload();
+
+        assertTrue(raw.isDirect());
+        assertEquals(payload.length, raw.size());
+        assertArrayEquals(payload, raw.toByteArray());
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        raw.writeTo(written);
+        assertArrayEquals(payload, written.toByteArray());
+        assertArrayEquals(payload, gunzip(gzipped.toByteArray()));
+        assertEquals(Hashing.sha256().hashBytes(payload), raw.hash(Hashing.sha256()));
+
+        raw.free();
+        gzipped.free();
+        assertEquals(pool.getAllocatedBytes(), pool.getFreeBytes());
+    }
+
+    @Test
+    public void testDiscardedPayloadIsReturnedToPool() throws Exception {
+        PayloadBufferPool pool = new PayloadBufferPool(1024);
+
+        PayloadOutputStream out = new PayloadOutputStream(pool);
+        write(out, newPayload());
+        out.discard();
+
+        assertEquals(pool.getAllocatedBytes(), pool.getFreeBytes());
+    }
+
+    private static byte[] newPayload() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append("{\"instance\":\"i-").append(i).append("\",\"name\":\"\u00e9\u00e8\"}");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void write(PayloadOutputStream out, byte[] payload) throws Exception {
+        out.write(payload[0]);
+        out.write(payload, 1, payload.length - 1);
+        out.close();
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws Exception {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                result.write(buffer, 0, count);
+            }
+        }
+        return result.toByteArray();
+    }
+}
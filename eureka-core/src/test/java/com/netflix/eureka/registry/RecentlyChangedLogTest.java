@@ -0,0 +1,154 @@
+package com.netflix.eureka.registry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.eureka.lease.Lease;
+import com.netflix.eureka.registry.RecentlyChangedLog.RecentlyChangedItem;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RecentlyChangedLogTest {
+
+    private static final int[] COUNTS = new int[0];
+
+    private final RecentlyChangedLog log = new RecentlyChangedLog();
+
+    @Test
+    public void testSnapshotIsNotAffectedByLaterAppends() throws Exception {
+        Lease<InstanceInfo> first = newLease();
+        Lease<InstanceInfo> second = newLease();
+        log.append(first, COUNTS);
+        log.append(second, COUNTS);
+
+        RecentlyChangedLog.Snapshot snapshot = log.snapshot();
+        log.append(newLease(), COUNTS);
+
+        List<RecentlyChangedItem> items = toList(snapshot);
+        assertEquals(2, items.size());
+        assertEquals(2, snapshot.size());
+        assertSame(first, items.get(0).getLeaseInfo());
+        assertSame(second, items.get(1).getLeaseInfo());
+        assertEquals(1, items.get(0).getSequence());
+        assertEquals(2, snapshot.getLastSequence());
+        assertEquals(3, log.getLastSequence());
+    }
+
+    @Test
+    public void testExpireOlderThan() throws Exception {
+        log.append(newLease(), COUNTS);
+        log.append(newLease(), COUNTS);
+        Thread.sleep(5);
+        long cutoff = System.currentTimeMillis();
+        Lease<InstanceInfo> retained = newLease();
+        log.append(retained, COUNTS);
+
+        log.expireOlderThan(cutoff);
+
+        List<RecentlyChangedItem> items = toList(log.snapshot());
+        assertEquals(1, items.size());
+        assertSame(retained, items.get(0).getLeaseInfo());
+        assertEquals(3, items.get(0).getSequence());
+    }
+
+    @Test
+    public void testClearKeepsSequence() throws Exception {
+        log.append(newLease(), COUNTS);
+        log.append(newLease(), COUNTS);
+
+        int[] clearedCounts = {0};
+        log.clear(clearedCounts);
+
+        assertEquals(0, log.size());
+        RecentlyChangedLog.Snapshot snapshot = log.snapshot();
+        assertEquals(0, toList(snapshot).size());
+        assertSame(clearedCounts, snapshot.getLastStatusCounts());
+        assertEquals(3, log.append(newLease(), COUNTS).getSequence());
+    }
+
+    @Test
+    public void testSnapshotHasStatusCountsOfItsLastItem() throws Exception {
+        assertNull(log.snapshot().getLastStatusCounts());
+        int[] firstCounts = {1};
+        int[] secondCounts = {2};
+        log.append(newLease(), firstCounts);
+        RecentlyChangedLog.Snapshot first = log.snapshot();
+        log.append(newLease(), secondCounts);
+
+        assertSame(firstCounts, first.getLastStatusCounts());
+        assertSame(secondCounts, log.snapshot().getLastStatusCounts());
+        // An empty snapshot has the counts of the item it starts after
+        assertSame(secondCounts, log.snapshotSince(2).getLastStatusCounts());
+    }
+
+    @Test
+    public void testConcurrentAppendsGetConsecutiveSequences() throws Exception {
+        final int perThread = 1000;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < perThread; j++) {
+                        log.append(newLease(), COUNTS);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<RecentlyChangedItem> items = toList(log.snapshot());
+        assertEquals(4 * perThread, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(i + 1, items.get(i).getSequence());
+        }
+    }
+
+    @Test
+    public void testAwaitAppendedAfter() throws Exception {
+        log.append(newLease(), COUNTS);
+        assertTrue(log.awaitAppendedAfter(0, 0, TimeUnit.MILLISECONDS));
+        assertFalse(log.awaitAppendedAfter(1, 10, TimeUnit.MILLISECONDS));
+
+        Thread appender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                log.append(newLease(), COUNTS);
+            }
+        });
+        appender.start();
+        long startedAt = System.currentTimeMillis();
+        assertTrue(log.awaitAppendedAfter(1, 10, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - startedAt < 10000);
+        appender.join();
+    }
+
+    private static Lease<InstanceInfo> newLease() {
+        return new Lease<>(null, 90);
+    }
+
+    private static List<RecentlyChangedItem> toList(RecentlyChangedLog.Snapshot snapshot) {
+        List<RecentlyChangedItem> items = new ArrayList<>();
+        for (RecentlyChangedItem item : snapshot) {
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,82 @@
+package com.netflix.eureka.registry;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.util.InstanceInfoGenerator;
+import com.netflix.eureka.lease.Lease;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RegistryChangeStreamTest {
+
+    private final RecentlyChangedLog log = new RecentlyChangedLog();
+    private final AtomicInteger closed = new AtomicInteger();
+    private final Iterator<InstanceInfo> instances = InstanceInfoGenerator.newBuilder(10, 1).build().serviceIterator();
+
+    @Test
+    public void testChangesAreStreamedInOrder() throws Exception {
+        RegistryChangeStream stream = newStream(0, 10);
+        InstanceInfo first = append();
+        InstanceInfo second = append();
+
+        List<RegistryChangeStream.Change> changes = stream.next(0);
+        assertEquals(2, changes.size());
+        assertEquals("e.1", changes.get(0).getCursor());
+        assertEquals(first.getId(), changes.get(0).getInstanceInfo().getId());
+        assertEquals("e.2", changes.get(1).getCursor());
+        assertEquals(second.getId(), changes.get(1).getInstanceInfo().getId());
+        assertTrue(stream.next(10).isEmpty());
+
+        append();
+        assertEquals("e.3", stream.next(0).get(0).getCursor());
+    }
+
+    @Test
+    public void testSlowSubscriberCannotContinue() throws Exception {
+        RegistryChangeStream stream = newStream(0, 2);
+        append();
+        append();
+        append();
+
+        assertNull(stream.next(0));
+        append();
+        assertNull(stream.next(0));
+    }
+
+    @Test
+    public void testExpiredChangesCannotBeStreamed() throws Exception {
+        append();
+        append();
+        log.expireOlderThan(System.currentTimeMillis() + 1);
+        append();
+
+        assertNull(newStream(0, 10).next(0));
+        assertEquals(1, newStream(2, 10).next(0).size());
+        assertNull(newStream(-1, 10).next(0));
+    }
+
+    @Test
+    public void testCloseReleasesOnce() throws Exception {
+        RegistryChangeStream stream = newStream(0, 10);
+        stream.close();
+        stream.close();
+
+        assertEquals(1, closed.get());
+    }
+
+    private RegistryChangeStream newStream(long sequence, int maxBacklog) {
+        return new RegistryChangeStream(log, "e.", Lease::getHolder, sequence, maxBacklog, closed::incrementAndGet);
+    }
+
+    private InstanceInfo append() {
+        InstanceInfo instanceInfo = instances.next();
+        log.append(new Lease<>(instanceInfo, 90), new int[0]);
+        return instanceInfo;
+    }
+}
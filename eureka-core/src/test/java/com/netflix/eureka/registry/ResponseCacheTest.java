@@ -1,5 +1,7 @@
 package com.netflix.eureka.registry;
 
+import java.io.ByteArrayOutputStream;
+
 import com.netflix.appinfo.EurekaAccept;
 import com.netflix.discovery.DefaultEurekaClientConfig;
 import com.netflix.eureka.AbstractTester;
@@ -32,14 +34,7 @@ public class ResponseCacheTest extends AbstractTester {
         EurekaServerConfig serverConfig = spy(new DefaultEurekaServerConfig());
         doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
 
-        testRegistry = new PeerAwareInstanceRegistryImpl(
-                serverConfig,
-                new DefaultEurekaClientConfig(),
-                new DefaultServerCodecs(serverConfig),
-                client
-        );
-        testRegistry.init(serverContext.getPeerEurekaNodes());
-        testRegistry.syncUp();
+        testRegistry = newRegistry(serverConfig);
     }
 
     @Test
@@ -91,4 +86,142 @@ public class ResponseCacheTest extends AbstractTester {
         Assert.assertNull("Cache after invalidate did not return null.", cache.get(key1, true));
         Assert.assertNull("Cache after invalidate did not return null.", cache.get(key2, true));
     }
+
+    @Test
+    public void testReadOnlyCacheIsUpdatedOnInvalidation() throws Exception {
+        ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
+        Key key = new Key(Key.EntityType.Application, REMOTE_REGION_APP_NAME,
+                Key.KeyType.JSON, Version.V1, EurekaAccept.full);
+        Assert.assertNotNull("Cache get returned null.", cache.get(key, true));
+
+        testRegistry.cancel(REMOTE_REGION_APP_NAME, REMOTE_REGION_INSTANCE_1_HOSTNAME, true);
+
+        long timeout = System.currentTimeMillis() + 10000;
+        while (cache.get(key, true) != null && System.currentTimeMillis() < timeout) {
+            Thread.sleep(100);
+        }
+        Assert.assertNull("Read only cache was not updated after invalidate.", cache.get(key, true));
+    }
+
+    @Test
+    public void testStalePayloadIsServedWhileRegenerated() throws Exception {
+        EurekaServerConfig serverConfig = spy(new DefaultEurekaServerConfig());
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        doReturn(true).when(serverConfig).shouldServeStaleResponseCacheWhileRevalidating();
+        PeerAwareInstanceRegistry staleRegistry = newRegistry(serverConfig);
+        ResponseCacheImpl cache = (ResponseCacheImpl) staleRegistry.getResponseCache();
+        Key key = new Key(Key.EntityType.Application, REMOTE_REGION_APP_NAME,
+                Key.KeyType.JSON, Version.V1, EurekaAccept.full);
+        String response = cache.get(key, false);
+        Assert.assertNotNull("Cache get returned null.", response);
+
+        staleRegistry.cancel(REMOTE_REGION_APP_NAME, REMOTE_REGION_INSTANCE_1_HOSTNAME, true);
+        Assert.assertEquals("Stale payload was not served while regenerated.", response, cache.get(key, false));
+
+        long timeout = System.currentTimeMillis() + 10000;
+        while (cache.get(key, false) != null && System.currentTimeMillis() < timeout) {
+            Thread.sleep(100);
+        }
+        Assert.assertNull("Payload was not regenerated after invalidate.", cache.get(key, false));
+    }
+
+    @Test
+    public void testPayloadSizeIsAccountedAndBounded() throws Exception {
+        ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
+        Key key = new Key(Key.EntityType.Application, REMOTE_REGION_APP_NAME,
+                Key.KeyType.JSON, Version.V1, EurekaAccept.full);
+        Assert.assertNotNull("Cache get returned null.", cache.get(key, false));
+        Assert.assertTrue("Payload size was not accounted.", cache.getApplicationPayloadBytes() > 0);
+        Assert.assertEquals(0, cache.getVipPayloadBytes());
+
+        EurekaServerConfig serverConfig = spy(new DefaultEurekaServerConfig());
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        doReturn(1L).when(serverConfig).getResponseCacheMaxSizeInBytes();
+        ResponseCacheImpl boundedCache = (ResponseCacheImpl) newRegistry(serverConfig).getResponseCache();
+
+        Assert.assertNotNull("Cache get returned null.", boundedCache.get(key, false));
+        Assert.assertEquals("Payload larger than the cache was kept.", 0, boundedCache.getCurrentSize());
+        Assert.assertTrue("Eviction was not counted.", boundedCache.getEvictionCount() > 0);
+    }
+
+    @Test
+    public void testInvalidationsAreCoalesced() throws Exception {
+        EurekaServerConfig serverConfig = spy(new DefaultEurekaServerConfig());
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        doReturn(200L).when(serverConfig).getResponseCacheInvalidationCoalescingWindowMs();
+        ResponseCacheImpl cache = (ResponseCacheImpl) newRegistry(serverConfig).getResponseCache();
+        Key key = new Key(Key.EntityType.Application, REMOTE_REGION_APP_NAME,
+                Key.KeyType.JSON, Version.V1, EurekaAccept.full);
+        Assert.assertNotNull("Cache get returned null.", cache.get(key, false));
+
+        for (int i = 0; i < 3; i++) {
+            cache.invalidate(REMOTE_REGION_APP_NAME, null, null);
+        }
+        Assert.assertEquals("Invalidation was applied before the window closed.", 1, cache.getCurrentSize());
+
+        long timeout = System.currentTimeMillis() + 10000;
+        while (cache.getCurrentSize() > 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals("Coalesced invalidation was not applied.", 0, cache.getCurrentSize());
+    }
+
+    @Test
+    public void testPayloadsAreStoredOffHeap() throws Exception {
+        EurekaServerConfig serverConfig = spy(new DefaultEurekaServerConfig());
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        doReturn(true).when(serverConfig).shouldStoreResponseCachePayloadsOffHeap();
+        ResponseCacheImpl offHeapCache = (ResponseCacheImpl) newRegistry(serverConfig).getResponseCache();
+        ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
+        Key key = new Key(Key.EntityType.Application, REMOTE_REGION_APP_NAME,
+                Key.KeyType.JSON, Version.V1, EurekaAccept.full);
+
+        byte[] expected = cache.getBytes(key);
+        Assert.assertArrayEquals(expected, offHeapCache.getBytes(key));
+        Assert.assertArrayEquals(cache.getGZIP(key), offHeapCache.getGZIP(key));
+        Assert.assertTrue("Payload was not stored off heap.", offHeapCache.getOffHeapAllocatedBytes() > 0);
+
+        // A payload which is held stays valid after it is invalidated
+        CachedPayload payload = offHeapCache.getCachedPayload(key, false);
+        Assert.assertTrue("Payload was not stored off heap.", payload.isDirect());
+        CachedPayload heapPayload = cache.getCachedPayload(key, false);
+        Assert.assertEquals(heapPayload.getETag(), payload.getETag());
+        heapPayload.release();
+        offHeapCache.invalidate(key);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        payload.writeTo(out);
+        payload.release();
+        Assert.assertArrayEquals(expected, out.toByteArray());
+        Assert.assertArrayEquals(expected, offHeapCache.getBytes(key));
+    }
+
+    @Test
+    public void testCompressedPayloadHasItsOwnEntityTag() throws Exception {
+        ResponseCacheImpl cache = (ResponseCacheImpl) testRegistry.getResponseCache();
+        Key key = new Key(Key.EntityType.Application, REMOTE_REGION_APP_NAME,
+                Key.KeyType.JSON, Version.V1, EurekaAccept.full);
+
+        CachedPayload payload = cache.getCachedPayload(key, false);
+        CachedPayload gzipped = cache.getCachedPayload(key, true);
+        try {
+            Assert.assertNotNull(payload.getETag());
+            Assert.assertNotEquals(payload.getETag(), gzipped.getETag());
+            Assert.assertTrue(gzipped.getETag().endsWith("-gzip\""));
+        } finally {
+            payload.release();
+            gzipped.release();
+        }
+    }
+
+    private PeerAwareInstanceRegistry newRegistry(EurekaServerConfig serverConfig) throws Exception {
+        PeerAwareInstanceRegistry registry = new PeerAwareInstanceRegistryImpl(
+                serverConfig,
+                new DefaultEurekaClientConfig(),
+                new DefaultServerCodecs(serverConfig),
+                client
+        );
+        registry.init(serverContext.getPeerEurekaNodes());
+        registry.syncUp();
+        return registry;
+    }
 }
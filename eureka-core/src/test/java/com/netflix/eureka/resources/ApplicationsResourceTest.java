@@ -2,11 +2,14 @@ package com.netflix.eureka.resources;
 
 import com.netflix.appinfo.EurekaAccept;
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.converters.EurekaBinaryCodec;
 import com.netflix.discovery.util.EurekaEntityComparators;
 import com.netflix.discovery.converters.wrappers.CodecWrappers;
 import com.netflix.discovery.converters.wrappers.DecoderWrapper;
 import com.netflix.discovery.shared.Application;
 import com.netflix.discovery.shared.Applications;
+import com.netflix.discovery.shared.transport.HeartbeatBatch;
+import com.netflix.discovery.shared.transport.HeartbeatBatchResponse;
 import com.netflix.discovery.util.InstanceInfoGenerator;
 import com.netflix.eureka.AbstractTester;
 import com.netflix.eureka.Version;
@@ -15,9 +18,15 @@ import org.junit.Test;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.doReturn;
 
 /**
  * @author David Liu
@@ -50,10 +59,11 @@ public class ApplicationsResourceTest extends AbstractTester {
                 null, // encoding
                 EurekaAccept.full.name(),
                 null,  // uriInfo
-                null  // remote regions
+                null, // remote regions
+                null  // if-none-match
         );
 
-        String json = String.valueOf(response.getEntity());
+        String json = new String((byte[]) response.getEntity(), StandardCharsets.UTF_8);
         DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
 
         Applications decoded = decoder.decode(json, Applications.class);
@@ -72,7 +82,8 @@ public class ApplicationsResourceTest extends AbstractTester {
                 "gzip", // encoding
                 EurekaAccept.full.name(),
                 null,  // uriInfo
-                null  // remote regions
+                null, // remote regions
+                null  // if-none-match
         );
 
         assertThat(response.getMetadata().getFirst("Content-Encoding").toString(), is("gzip"));
@@ -87,13 +98,36 @@ public class ApplicationsResourceTest extends AbstractTester {
                 "gzip", // encoding
                 EurekaAccept.full.name(),
                 null,  // uriInfo
-                null  // remote regions
+                null, // remote regions
+                null  // if-none-match
         );
 
         assertThat(response.getMetadata().getFirst("Content-Encoding").toString(), is("gzip"));
         assertThat(response.getMetadata().getFirst("Content-Type").toString(), is(MediaType.APPLICATION_XML));
     }
 
+    @Test
+    public void testFullAppsGetBinary() throws Exception {
+        Response response = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.binary.name(),
+                null,  // uriInfo
+                null, // remote regions
+                null  // if-none-match
+        );
+
+        assertThat(response.getMetadata().getFirst("Content-Type").toString(), is(EurekaBinaryCodec.MEDIA_TYPE));
+        DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.EurekaBinary.class);
+
+        Applications decoded = decoder.decode(new ByteArrayInputStream((byte[]) response.getEntity()), Applications.class);
+        for (Application application : testApplications.getRegisteredApplications()) {
+            Application decodedApp = decoded.getRegisteredApplications(application.getName());
+            assertThat(EurekaEntityComparators.equal(application, decodedApp), is(true));
+        }
+    }
+
     @Test
     public void testMiniAppsGet() throws Exception {
         Response response = applicationsResource.getContainers(
@@ -102,10 +136,11 @@ public class ApplicationsResourceTest extends AbstractTester {
                 null, // encoding
                 EurekaAccept.compact.name(),
                 null,  // uriInfo
-                null  // remote regions
+                null, // remote regions
+                null  // if-none-match
         );
 
-        String json = String.valueOf(response.getEntity());
+        String json = new String((byte[]) response.getEntity(), StandardCharsets.UTF_8);
         DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
 
         Applications decoded = decoder.decode(json, Applications.class);
@@ -126,4 +161,213 @@ public class ApplicationsResourceTest extends AbstractTester {
             }
         }
     }
+
+    @Test
+    public void testFullAppsGetNotModified() throws Exception {
+        Response response = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null, // uriInfo
+                null, // remote regions
+                null  // if-none-match
+        );
+        String eTag = response.getMetadata().getFirst("ETag").toString();
+
+        Response notModified = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null, // uriInfo
+                null, // remote regions
+                eTag
+        );
+        assertThat(notModified.getStatus(), is(Response.Status.NOT_MODIFIED.getStatusCode()));
+        assertThat(notModified.getEntity(), is(nullValue()));
+        assertThat(notModified.getMetadata().getFirst("ETag").toString(), is(eTag));
+        assertThat(notModified.getMetadata().getFirst("Vary").toString(), is("Accept-Encoding"));
+
+        Response modified = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null, // uriInfo
+                null, // remote regions
+                "\"other\""
+        );
+        assertThat(modified.getStatus(), is(Response.Status.OK.getStatusCode()));
+    }
+
+    @Test
+    public void testFullAppsEntityTagDependsOnEncoding() throws Exception {
+        Response gzipped = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                "gzip", // encoding
+                EurekaAccept.full.name(),
+                null, // uriInfo
+                null, // remote regions
+                null  // if-none-match
+        );
+        String eTag = gzipped.getMetadata().getFirst("ETag").toString();
+        assertThat(gzipped.getMetadata().getFirst("Vary").toString(), is("Accept-Encoding"));
+
+        Response uncompressed = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null, // uriInfo
+                null, // remote regions
+                eTag
+        );
+        assertThat(uncompressed.getStatus(), is(Response.Status.OK.getStatusCode()));
+        assertThat(uncompressed.getMetadata().getFirst("ETag").toString(), is(not(eTag)));
+    }
+
+    @Test
+    public void testDeltaGetNotModified() throws Exception {
+        Response response = applicationsResource.getContainerDifferential(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                "gzip", // encoding
+                EurekaAccept.full.name(),
+                null, // uriInfo
+                null, // remote regions
+                null, // if-none-match
+                null  // since
+        );
+        String eTag = response.getMetadata().getFirst("ETag").toString();
+
+        Response notModified = applicationsResource.getContainerDifferential(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                "gzip", // encoding
+                EurekaAccept.full.name(),
+                null, // uriInfo
+                null, // remote regions
+                "\"other\", " + eTag,
+                null  // since
+        );
+        assertThat(notModified.getStatus(), is(Response.Status.NOT_MODIFIED.getStatusCode()));
+        assertThat(notModified.getEntity(), is(nullValue()));
+    }
+
+    @Test
+    public void testDeltaGetSinceCursor() throws Exception {
+        // Changes since a cursor are not served along with the applications of the remote regions
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+
+        Response full = applicationsResource.getContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null, // uriInfo
+                null, // remote regions
+                null  // if-none-match
+        );
+        String cursor = full.getMetadata().getFirst("X-Eureka-Delta-Cursor").toString();
+
+        InstanceInfo newInstance = createLocalInstance("new-host");
+        registry.register(newInstance, false);
+
+        Response response = applicationsResource.getContainerDifferential(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null, // uriInfo
+                null, // remote regions
+                null, // if-none-match
+                cursor
+        );
+        assertThat(response.getStatus(), is(Response.Status.OK.getStatusCode()));
+        assertThat(response.getMetadata().getFirst("X-Eureka-Delta-Cursor").toString(), is(not(cursor)));
+
+        DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
+        Applications delta = decoder.decode((String) response.getEntity(), Applications.class);
+        assertThat(delta.getRegisteredApplications().size(), is(1));
+        Application app = delta.getRegisteredApplications().get(0);
+        assertThat(app.getInstances().size(), is(1));
+        assertThat(app.getInstances().get(0).getId(), is(newInstance.getId()));
+
+        Response gone = applicationsResource.getContainerDifferential(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                null, // encoding
+                EurekaAccept.full.name(),
+                null, // uriInfo
+                null, // remote regions
+                null, // if-none-match
+                "unknown.1"
+        );
+        assertThat(gone.getStatus(), is(Response.Status.GONE.getStatusCode()));
+    }
+
+    @Test
+    public void testWatchReturnsChangesSinceCursor() throws Exception {
+        doReturn(true).when(serverConfig).disableTransparentFallbackToOtherRegion();
+        String cursor = registry.getDeltaCursor();
+
+        Response notModified = applicationsResource.watchContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                EurekaAccept.full.name(),
+                cursor,
+                10L  // timeoutMs
+        );
+        assertThat(notModified.getStatus(), is(Response.Status.NOT_MODIFIED.getStatusCode()));
+        assertThat(notModified.getMetadata().getFirst("X-Eureka-Delta-Cursor").toString(), is(cursor));
+
+        InstanceInfo newInstance = createLocalInstance("new-host");
+        registry.register(newInstance, false);
+
+        Response response = applicationsResource.watchContainers(
+                Version.V2.name(),
+                MediaType.APPLICATION_JSON,
+                EurekaAccept.full.name(),
+                cursor,
+                10000L  // timeoutMs
+        );
+        assertThat(response.getStatus(), is(Response.Status.OK.getStatusCode()));
+        DecoderWrapper decoder = CodecWrappers.getDecoder(CodecWrappers.LegacyJacksonJson.class);
+        Applications delta = decoder.decode((String) response.getEntity(), Applications.class);
+        assertThat(delta.getRegisteredApplications().get(0).getInstances().get(0).getId(), is(newInstance.getId()));
+    }
+
+    @Test
+    public void testBatchRenew() throws Exception {
+        InstanceInfo first = testApplications.getRegisteredApplications().get(0).getInstances().get(0);
+        InstanceInfo second = testApplications.getRegisteredApplications().get(1).getInstances().get(0);
+        HeartbeatBatch heartbeats = new HeartbeatBatch();
+        heartbeats.addHeartbeat(HeartbeatBatch.Heartbeat.of(first));
+        heartbeats.addHeartbeat(HeartbeatBatch.Heartbeat.of(second));
+        heartbeats.addHeartbeat(new HeartbeatBatch.Heartbeat(first.getAppName(), "unknown-id", null, null));
+
+        Response response = applicationsResource.renewLeases(heartbeats);
+
+        assertThat(response.getStatus(), is(Response.Status.OK.getStatusCode()));
+        HeartbeatBatchResponse batchResponse = (HeartbeatBatchResponse) response.getEntity();
+        assertThat(batchResponse.getStatusCodes(), is(Arrays.asList(200, 200, 404)));
+    }
+
+    @Test
+    public void testBatchRenewChecksLastDirtyTimestamp() throws Exception {
+        InstanceInfo instance = testApplications.getRegisteredApplications().get(0).getInstances().get(0);
+        long lastDirtyTimestamp = instance.getLastDirtyTimestamp();
+        HeartbeatBatch heartbeats = new HeartbeatBatch();
+        heartbeats.addHeartbeat(new HeartbeatBatch.Heartbeat(instance.getAppName(), instance.getId(),
+                lastDirtyTimestamp + 1, instance.getStatus()));
+        heartbeats.addHeartbeat(new HeartbeatBatch.Heartbeat(instance.getAppName(), instance.getId(),
+                lastDirtyTimestamp - 1, instance.getStatus()));
+
+        Response response = applicationsResource.renewLeases(heartbeats);
+
+        HeartbeatBatchResponse batchResponse = (HeartbeatBatchResponse) response.getEntity();
+        assertThat(batchResponse.getStatusCodes(), is(Arrays.asList(404, 200)));
+    }
 }
@@ -0,0 +1,56 @@
+package com.netflix.eureka.resources;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.netflix.eureka.registry.CachedPayload;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachedPayloadOutputTest {
+
+    @Test
+    public void testWrittenPayloadIsReleased() throws Exception {
+        CachedPayload payload = newDirectPayload();
+
+        CachedPayloadOutput output = (CachedPayloadOutput) CachedPayloadOutput.ok(payload).build().getEntity();
+        output.write(new ByteArrayOutputStream());
+
+        verify(payload).writeTo(any(OutputStream.class));
+        verify(payload).release();
+    }
+
+    @Test
+    public void testAbandonedPayloadIsReleased() throws Exception {
+        CachedPayload payload = newDirectPayload();
+        final CountDownLatch released = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            released.countDown();
+            return null;
+        }).when(payload).release();
+
+        CachedPayloadOutput.ok(payload);
+
+        for (int i = 0; i < 100 && released.getCount() > 0; i++) {
+            System.gc();
+            System.runFinalization();
+            released.await(10, TimeUnit.MILLISECONDS);
+        }
+        assertTrue("Abandoned payload was not released.", released.getCount() == 0);
+    }
+
+    private static CachedPayload newDirectPayload() {
+        CachedPayload payload = mock(CachedPayload.class);
+        when(payload.isDirect()).thenReturn(true);
+        when(payload.size()).thenReturn(1);
+        return payload;
+    }
+}
@@ -1,26 +1,39 @@
 package com.netflix.eureka.resources;
 
 import javax.ws.rs.core.Response;
-import javax.ws.rs.core.Response.Status;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.netflix.appinfo.InstanceInfo;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
 import com.netflix.discovery.shared.transport.ClusterSampleData;
 import com.netflix.eureka.EurekaServerConfig;
 import com.netflix.eureka.EurekaServerContext;
+import com.netflix.eureka.registry.PeerAwareInstanceRegistry;
 import com.netflix.eureka.registry.PeerAwareInstanceRegistryImpl.Action;
+import com.netflix.eureka.cluster.protocol.ReplicationHeartbeat;
+import com.netflix.eureka.cluster.protocol.ReplicationHeartbeatList;
 import com.netflix.eureka.cluster.protocol.ReplicationInstance;
 import com.netflix.eureka.cluster.protocol.ReplicationInstanceResponse;
 import com.netflix.eureka.cluster.protocol.ReplicationList;
 import com.netflix.eureka.cluster.protocol.ReplicationListResponse;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import static com.netflix.discovery.shared.transport.ClusterSampleData.newReplicationInstanceOf;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -31,29 +44,28 @@ import static org.mockito.Mockito.when;
  */
 public class PeerReplicationResourceTest {
 
-    private final ApplicationResource applicationResource = mock(ApplicationResource.class);
-    private final InstanceResource instanceResource = mock(InstanceResource.class);
+    private final PeerAwareInstanceRegistry registry = mock(PeerAwareInstanceRegistry.class);
+    private final EurekaServerConfig serverConfig = mock(EurekaServerConfig.class);
 
     private EurekaServerContext serverContext;
     private PeerReplicationResource peerReplicationResource;
 
     private final InstanceInfo instanceInfo = ClusterSampleData.newInstanceInfo(0);
 
+    private final ExecutorService replicationBatchExecutor = Executors.newFixedThreadPool(4);
+
     @Before
     public void setUp() {
         serverContext = mock(EurekaServerContext.class);
-        when(serverContext.getServerConfig()).thenReturn(mock(EurekaServerConfig.class));
-        peerReplicationResource = new PeerReplicationResource(serverContext) {
-            @Override
-            ApplicationResource createApplicationResource(ReplicationInstance instanceInfo) {
-                return applicationResource;
-            }
+        when(serverContext.getServerConfig()).thenReturn(serverConfig);
+        when(serverContext.getRegistry()).thenReturn(registry);
+        when(registry.getReplicationBatchExecutor()).thenReturn(replicationBatchExecutor);
+        peerReplicationResource = new PeerReplicationResource(serverContext);
+    }
 
-            @Override
-            InstanceResource createInstanceResource(ReplicationInstance instanceInfo, ApplicationResource applicationResource) {
-                return instanceResource;
-            }
-        };
+    @After
+    public void tearDown() {
+        replicationBatchExecutor.shutdownNow();
     }
 
     @Test
@@ -62,77 +74,193 @@ public class PeerReplicationResourceTest {
         Response response = peerReplicationResource.batchReplication(replicationList);
 
         assertStatusOkReply(response);
-        verify(applicationResource, times(1)).addInstance(instanceInfo, "true");
+        verify(registry, times(1)).register(instanceInfo, true);
     }
 
     @Test
     public void testCancelBatching() throws Exception {
-        when(instanceResource.cancelLease(anyString())).thenReturn(Response.ok().build());
+        when(registry.cancel(instanceInfo.getAppName(), instanceInfo.getId(), true)).thenReturn(true);
 
         ReplicationList replicationList = new ReplicationList(newReplicationInstanceOf(Action.Cancel, instanceInfo));
         Response response = peerReplicationResource.batchReplication(replicationList);
 
         assertStatusOkReply(response);
-        verify(instanceResource, times(1)).cancelLease("true");
+        verify(registry, times(1)).cancel(instanceInfo.getAppName(), instanceInfo.getId(), true);
     }
 
     @Test
     public void testHeartbeat() throws Exception {
-        when(instanceResource.renewLease(anyString(), anyString(), anyString(), anyString())).thenReturn(Response.ok().build());
+        when(registry.renew(instanceInfo.getAppName(), instanceInfo.getId(), true)).thenReturn(true);
 
         ReplicationInstance replicationInstance = newReplicationInstanceOf(Action.Heartbeat, instanceInfo);
         Response response = peerReplicationResource.batchReplication(new ReplicationList(replicationInstance));
 
         assertStatusOkReply(response);
-        verify(instanceResource, times(1)).renewLease(
-                "true",
-                replicationInstance.getOverriddenStatus(),
-                instanceInfo.getStatus().name(),
-                Long.toString(replicationInstance.getLastDirtyTimestamp())
-        );
+        verify(registry, times(1)).renew(instanceInfo.getAppName(), instanceInfo.getId(), true);
     }
-    
+
+    @Test
+    public void testHeartbeatOfUnknownInstance() throws Exception {
+        ReplicationInstance replicationInstance = newReplicationInstanceOf(Action.Heartbeat, instanceInfo);
+        Response response = peerReplicationResource.batchReplication(new ReplicationList(replicationInstance));
+
+        assertStatus(response, 404);
+    }
+
+    @Test
+    public void testHeartbeatWithNewerInstanceStoresOverriddenStatus() throws Exception {
+        withRegisteredInstance(instanceInfo.getLastDirtyTimestamp() - 1);
+
+        ReplicationInstance replicationInstance = newReplicationInstance(Action.Heartbeat, InstanceStatus.OUT_OF_SERVICE.name(), null);
+        Response response = peerReplicationResource.batchReplication(new ReplicationList(replicationInstance));
+
+        assertStatus(response, 404);
+        verify(registry, times(1)).storeOverriddenStatusIfRequired(
+                instanceInfo.getAppName(), instanceInfo.getId(), InstanceStatus.OUT_OF_SERVICE);
+    }
+
     @Test
     public void testConflictResponseReturnsTheInstanceInfoInTheResponseEntity() throws Exception {
-        when(instanceResource.renewLease(anyString(), anyString(), anyString(), anyString())).thenReturn(Response.status(Status.CONFLICT).entity(instanceInfo).build());
+        withRegisteredInstance(instanceInfo.getLastDirtyTimestamp() + 1);
 
-        ReplicationInstance replicationInstance = newReplicationInstanceOf(Action.Heartbeat, instanceInfo);
+        ReplicationInstance replicationInstance = newReplicationInstance(Action.Heartbeat, null, null);
         Response response = peerReplicationResource.batchReplication(new ReplicationList(replicationInstance));
 
         assertStatusIsConflict(response);
         assertResponseEntityExist(response);
     }
 
+    @Test
+    public void testHeartbeatList() throws Exception {
+        when(registry.renew(instanceInfo.getAppName(), instanceInfo.getId(), true)).thenReturn(true);
+
+        ReplicationHeartbeat heartbeat = new ReplicationHeartbeat(instanceInfo.getAppName(), instanceInfo.getId(),
+                instanceInfo.getLastDirtyTimestamp(), instanceInfo.getStatus(), InstanceStatus.OUT_OF_SERVICE);
+        Response response = peerReplicationResource.batchHeartbeatReplication(
+                new ReplicationHeartbeatList(Collections.singletonList(heartbeat)));
+
+        assertStatusOkReply(response);
+        verify(registry, times(1)).renew(instanceInfo.getAppName(), instanceInfo.getId(), true);
+    }
+
+    @Test
+    public void testHeartbeatListConflictResponseReturnsTheInstanceInfo() throws Exception {
+        withRegisteredInstance(instanceInfo.getLastDirtyTimestamp() + 1);
+
+        ReplicationHeartbeat heartbeat = new ReplicationHeartbeat(instanceInfo.getAppName(), instanceInfo.getId(),
+                instanceInfo.getLastDirtyTimestamp(), instanceInfo.getStatus(), null);
+        Response response = peerReplicationResource.batchHeartbeatReplication(
+                new ReplicationHeartbeatList(Collections.singletonList(heartbeat)));
+
+        assertStatusIsConflict(response);
+        assertResponseEntityExist(response);
+    }
+
     @Test
     public void testStatusUpdate() throws Exception {
-        when(instanceResource.statusUpdate(anyString(), anyString(), anyString())).thenReturn(Response.ok().build());
+        when(registry.getInstanceByAppAndId(instanceInfo.getAppName(), instanceInfo.getId())).thenReturn(instanceInfo);
+        when(registry.statusUpdate(anyString(), anyString(), any(InstanceStatus.class), anyString(), anyBoolean())).thenReturn(true);
 
-        ReplicationInstance replicationInstance = newReplicationInstanceOf(Action.StatusUpdate, instanceInfo);
+        ReplicationInstance replicationInstance = newReplicationInstance(Action.StatusUpdate, null, InstanceStatus.OUT_OF_SERVICE.name());
         Response response = peerReplicationResource.batchReplication(new ReplicationList(replicationInstance));
 
         assertStatusOkReply(response);
-        verify(instanceResource, times(1)).statusUpdate(
-                replicationInstance.getStatus(),
-                "true",
-                Long.toString(replicationInstance.getLastDirtyTimestamp())
+        verify(registry, times(1)).statusUpdate(
+                instanceInfo.getAppName(),
+                instanceInfo.getId(),
+                InstanceStatus.OUT_OF_SERVICE,
+                Long.toString(replicationInstance.getLastDirtyTimestamp()),
+                true
         );
     }
 
     @Test
     public void testDeleteStatusOverride() throws Exception {
-        when(instanceResource.deleteStatusUpdate(anyString(), anyString(), anyString())).thenReturn(Response.ok().build());
+        when(registry.getInstanceByAppAndId(instanceInfo.getAppName(), instanceInfo.getId())).thenReturn(instanceInfo);
+        when(registry.deleteStatusOverride(anyString(), anyString(), any(InstanceStatus.class), anyString(), anyBoolean())).thenReturn(true);
 
-        ReplicationInstance replicationInstance = newReplicationInstanceOf(Action.DeleteStatusOverride, instanceInfo);
+        ReplicationInstance replicationInstance = newReplicationInstance(Action.DeleteStatusOverride, null, InstanceStatus.UP.name());
         Response response = peerReplicationResource.batchReplication(new ReplicationList(replicationInstance));
 
         assertStatusOkReply(response);
-        verify(instanceResource, times(1)).deleteStatusUpdate(
-                "true",
-                replicationInstance.getStatus(),
-                Long.toString(replicationInstance.getLastDirtyTimestamp())
+        verify(registry, times(1)).deleteStatusOverride(
+                instanceInfo.getAppName(),
+                instanceInfo.getId(),
+                InstanceStatus.UP,
+                Long.toString(replicationInstance.getLastDirtyTimestamp()),
+                true
         );
     }
 
+    @Test
+    public void testLargeBatchResponsesAreInItemOrder() throws Exception {
+        List<ReplicationInstance> replicationInstances = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String id = "id" + i;
+            if (i % 3 == 0) {
+                when(registry.cancel("APP", id, true)).thenReturn(true);
+            }
+            replicationInstances.add(new ReplicationInstance("app", id, 1L, null, null, null, Action.Cancel));
+        }
+
+        Response response = peerReplicationResource.batchReplication(new ReplicationList(replicationInstances));
+
+        List<ReplicationInstanceResponse> responseList = ((ReplicationListResponse) response.getEntity()).getResponseList();
+        assertThat(responseList.size(), is(equalTo(500)));
+        for (int i = 0; i < 500; i++) {
+            assertThat(responseList.get(i).getStatusCode(), is(equalTo(i % 3 == 0 ? 200 : 404)));
+        }
+    }
+
+    @Test
+    public void testLargeBatchAppliesItemsOfSameInstanceInOrder() throws Exception {
+        List<ReplicationInstance> replicationInstances = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String id = "id" + i % 10;
+            Action action = i < 50 ? Action.Cancel : Action.Heartbeat;
+            replicationInstances.add(new ReplicationInstance("app", id, 1L, null, null, null, action));
+        }
+
+        peerReplicationResource.batchReplication(new ReplicationList(replicationInstances));
+
+        for (int i = 0; i < 10; i++) {
+            InOrder inOrder = inOrder(registry);
+            inOrder.verify(registry, times(5)).cancel("APP", "id" + i, true);
+            inOrder.verify(registry, times(5)).renew("APP", "id" + i, true);
+        }
+    }
+
+    @Test
+    public void testLargeBatchAppliesItemsOfSameInstanceInOrderRegardlessOfAppNameCase() throws Exception {
+        List<ReplicationInstance> replicationInstances = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String appName = i < 50 ? "app" : "APP";
+            Action action = i < 50 ? Action.Cancel : Action.Heartbeat;
+            replicationInstances.add(new ReplicationInstance(appName, "id" + i % 10, 1L, null, null, null, action));
+        }
+
+        peerReplicationResource.batchReplication(new ReplicationList(replicationInstances));
+
+        for (int i = 0; i < 10; i++) {
+            InOrder inOrder = inOrder(registry);
+            inOrder.verify(registry, times(5)).cancel("APP", "id" + i, true);
+            inOrder.verify(registry, times(5)).renew("APP", "id" + i, true);
+        }
+    }
+
+    private void withRegisteredInstance(long lastDirtyTimestamp) {
+        InstanceInfo registeredInstance = new InstanceInfo(instanceInfo);
+        registeredInstance.setLastDirtyTimestamp(lastDirtyTimestamp);
+        when(serverConfig.shouldSyncWhenTimestampDiffers()).thenReturn(true);
+        when(registry.renew(instanceInfo.getAppName(), instanceInfo.getId(), true)).thenReturn(true);
+        when(registry.getInstanceByAppAndId(instanceInfo.getAppName(), instanceInfo.getId(), false)).thenReturn(registeredInstance);
+    }
+
+    private ReplicationInstance newReplicationInstance(Action action, String overriddenStatus, String status) {
+        return new ReplicationInstance(instanceInfo.getAppName(), instanceInfo.getId(),
+                instanceInfo.getLastDirtyTimestamp(), overriddenStatus, status, null, action);
+    }
+
     private static void assertStatusOkReply(Response httpResponse) {
         assertStatus(httpResponse, 200);
     }
@@ -28,6 +28,7 @@ import org.junit.Test;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -130,6 +131,121 @@ public class AcceptorExecutorTest {
         assertThat(taskHolders.size(), is(equalTo(2)));
     }
 
+    @Test
+    public void testFullBatchIsDispatchedWithoutBatchingDelay() throws Exception {
+        AcceptorExecutor<Integer, String> slowBatchingExecutor = new AcceptorExecutor<>(
+                "TEST-SLOW-BATCHING", MAX_BUFFER_SIZE, WORK_LOAD_SIZE, 60 * 1000,
+                SERVER_UNAVAILABLE_SLEEP_TIME_MS, RETRY_SLEEP_TIME_MS
+        );
+        try {
+            BlockingQueue<List<TaskHolder<Integer, String>>> taskQueue = slowBatchingExecutor.requestWorkItems();
+            for (int i = 0; i < WORK_LOAD_SIZE; i++) {
+                slowBatchingExecutor.process(i, "Task" + i, System.currentTimeMillis() + 60 * 1000);
+            }
+
+            List<TaskHolder<Integer, String>> taskHolders = taskQueue.poll(5, TimeUnit.SECONDS);
+            assertThat(taskHolders, is(notNullValue()));
+            assertThat(taskHolders.size(), is(equalTo(WORK_LOAD_SIZE)));
+        } finally {
+            slowBatchingExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReprocessedTaskIsDispatchedOnceTrafficShapingDelayElapses() throws Exception {
+        acceptorExecutor.process(1, "Task1", System.currentTimeMillis() + 60 * 1000);
+        TaskHolder<Integer, String> taskHolder = acceptorExecutor.requestWorkItem().poll(5, TimeUnit.SECONDS);
+        verifyTaskHolder(taskHolder, 1, "Task1");
+
+        long failureTime = System.currentTimeMillis();
+        acceptorExecutor.reprocess(taskHolder, ProcessingResult.TransientError);
+
+        TaskHolder<Integer, String> retriedTaskHolder = acceptorExecutor.requestWorkItem().poll(5, TimeUnit.SECONDS);
+        verifyTaskHolder(retriedTaskHolder, 1, "Task1");
+        assertThat(System.currentTimeMillis() - failureTime >= RETRY_SLEEP_TIME_MS, is(true));
+    }
+
+    @Test
+    public void testTaskIsHeldBackWhileBatchWithSameOrderingKeyIsProcessed() throws Exception {
+        AcceptorExecutor<Integer, String> orderedExecutor = newOrderedExecutor();
+        try {
+            orderedExecutor.process(1, "Task1", System.currentTimeMillis() + 60 * 1000);
+            List<TaskHolder<Integer, String>> firstBatch = orderedExecutor.requestWorkItems().poll(5, TimeUnit.SECONDS);
+            assertThat(firstBatch.size(), is(equalTo(1)));
+            assertThat(orderedExecutor.getInFlightBatches(), is(equalTo(1L)));
+
+            orderedExecutor.process(11, "Task11", System.currentTimeMillis() + 60 * 1000);
+            orderedExecutor.process(2, "Task2", System.currentTimeMillis() + 60 * 1000);
+            List<TaskHolder<Integer, String>> secondBatch = orderedExecutor.requestWorkItems().poll(5, TimeUnit.SECONDS);
+            assertThat(secondBatch.size(), is(equalTo(1)));
+            verifyTaskHolder(secondBatch.get(0), 2, "Task2");
+
+            BlockingQueue<List<TaskHolder<Integer, String>>> taskQueue = orderedExecutor.requestWorkItems();
+            assertThat(taskQueue.poll(5 * MAX_BATCHING_DELAY_MS, TimeUnit.MILLISECONDS), is(nullValue()));
+
+            orderedExecutor.complete(firstBatch, ProcessingResult.Success, 1);
+            List<TaskHolder<Integer, String>> thirdBatch = taskQueue.poll(5, TimeUnit.SECONDS);
+            assertThat(thirdBatch.size(), is(equalTo(1)));
+            verifyTaskHolder(thirdBatch.get(0), 11, "Task11");
+        } finally {
+            orderedExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReprocessedTaskIsHandledBeforeHeldBackTaskWithSameOrderingKey() throws Exception {
+        AcceptorExecutor<Integer, String> orderedExecutor = newOrderedExecutor();
+        try {
+            orderedExecutor.process(1, "Task1", System.currentTimeMillis() + 60 * 1000);
+            List<TaskHolder<Integer, String>> firstBatch = orderedExecutor.requestWorkItems().poll(5, TimeUnit.SECONDS);
+            orderedExecutor.process(11, "Task11", System.currentTimeMillis() + 60 * 1000);
+
+            orderedExecutor.reprocess(firstBatch, ProcessingResult.TransientError);
+            orderedExecutor.complete(firstBatch, ProcessingResult.TransientError, 1);
+
+            List<TaskHolder<Integer, String>> secondBatch = orderedExecutor.requestWorkItems().poll(5, TimeUnit.SECONDS);
+            assertThat(secondBatch.size(), is(equalTo(2)));
+            verifyTaskHolder(secondBatch.get(0), 1, "Task1");
+            verifyTaskHolder(secondBatch.get(1), 11, "Task11");
+        } finally {
+            orderedExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchIsHeldBackWhileTrafficShaperWindowIsFull() throws Exception {
+        AdaptiveTrafficShaper trafficShaper = new AdaptiveTrafficShaper(
+                SERVER_UNAVAILABLE_SLEEP_TIME_MS, RETRY_SLEEP_TIME_MS, WORK_LOAD_SIZE, 1);
+        AcceptorExecutor<Integer, String> shapedExecutor = new AcceptorExecutor<>(
+                "TEST-SHAPED", MAX_BUFFER_SIZE, WORK_LOAD_SIZE, MAX_BATCHING_DELAY_MS, trafficShaper, null
+        );
+        try {
+            shapedExecutor.process(1, "Task1", System.currentTimeMillis() + 60 * 1000);
+            List<TaskHolder<Integer, String>> firstBatch = shapedExecutor.requestWorkItems().poll(5, TimeUnit.SECONDS);
+            verifyTaskHolder(firstBatch.get(0), 1, "Task1");
+
+            shapedExecutor.process(2, "Task2", System.currentTimeMillis() + 60 * 1000);
+            BlockingQueue<List<TaskHolder<Integer, String>>> taskQueue = shapedExecutor.requestWorkItems();
+            assertThat(taskQueue.poll(5 * MAX_BATCHING_DELAY_MS, TimeUnit.MILLISECONDS), is(nullValue()));
+
+            shapedExecutor.complete(firstBatch, ProcessingResult.Success, 1);
+            List<TaskHolder<Integer, String>> secondBatch = taskQueue.poll(5, TimeUnit.SECONDS);
+            verifyTaskHolder(secondBatch.get(0), 2, "Task2");
+        } finally {
+            shapedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Tasks whose ids have the same last digit have the same ordering key.
+     */
+    private static AcceptorExecutor<Integer, String> newOrderedExecutor() {
+        return new AcceptorExecutor<>(
+                "TEST-ORDERED", 10, WORK_LOAD_SIZE, MAX_BATCHING_DELAY_MS,
+                SERVER_UNAVAILABLE_SLEEP_TIME_MS, RETRY_SLEEP_TIME_MS, id -> id % 10
+        );
+    }
+
     private static void verifyTaskHolder(TaskHolder<Integer, String> taskHolder, int id, String task) {
         assertThat(taskHolder, is(notNullValue()));
         assertThat(taskHolder.getId(), is(equalTo(id)));
@@ -0,0 +1,80 @@
+package com.netflix.eureka.util.batcher;
+
+import com.netflix.eureka.util.batcher.TaskProcessor.ProcessingResult;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AdaptiveTrafficShaperTest {
+
+    private static final long CONGESTION_RETRY_DELAY_MS = 1000;
+    private static final long NETWORK_FAILURE_RETRY_MS = 100;
+    private static final long MAX_BATCHING_DELAY_MS = 500;
+
+    private static final int MAX_BATCHING_SIZE = 250;
+    private static final int MAX_IN_FLIGHT_BATCHES = 8;
+
+    private final AdaptiveTrafficShaper trafficShaper = new AdaptiveTrafficShaper(
+            CONGESTION_RETRY_DELAY_MS, NETWORK_FAILURE_RETRY_MS, MAX_BATCHING_SIZE, MAX_IN_FLIGHT_BATCHES);
+
+    @Test
+    public void testStartsWithConfiguredMaximums() throws Exception {
+        assertThat(trafficShaper.batchSize(MAX_BATCHING_SIZE), is(equalTo(MAX_BATCHING_SIZE)));
+        assertThat(trafficShaper.batchingDelay(MAX_BATCHING_DELAY_MS), is(equalTo(MAX_BATCHING_DELAY_MS)));
+        assertThat(trafficShaper.canDispatchBatch(MAX_IN_FLIGHT_BATCHES - 1), is(true));
+        assertThat(trafficShaper.canDispatchBatch(MAX_IN_FLIGHT_BATCHES), is(false));
+    }
+
+    @Test
+    public void testCongestionHalvesWindowAndBatchSize() throws Exception {
+        trafficShaper.registerFailure(ProcessingResult.Congestion);
+
+        assertThat(trafficShaper.batchSize(MAX_BATCHING_SIZE), is(equalTo(MAX_BATCHING_SIZE / 2)));
+        assertThat(trafficShaper.canDispatchBatch(MAX_IN_FLIGHT_BATCHES / 2 - 1), is(true));
+        assertThat(trafficShaper.canDispatchBatch(MAX_IN_FLIGHT_BATCHES / 2), is(false));
+        assertThat(trafficShaper.transmissionDelay(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void testSuccessIncreasesWindowAndBatchSizeAdditively() throws Exception {
+        trafficShaper.registerFailure(ProcessingResult.Congestion);
+        trafficShaper.registerBatch(MAX_BATCHING_SIZE / 2, 10, ProcessingResult.Success);
+
+        assertThat(trafficShaper.batchSize(MAX_BATCHING_SIZE), is(equalTo(MAX_BATCHING_SIZE / 2 + MAX_BATCHING_SIZE / 25)));
+        assertThat(trafficShaper.canDispatchBatch(MAX_IN_FLIGHT_BATCHES / 2), is(false));
+
+        for (int i = 0; i < 100; i++) {
+            trafficShaper.registerBatch(MAX_BATCHING_SIZE, 10, ProcessingResult.Success);
+        }
+        assertThat(trafficShaper.batchSize(MAX_BATCHING_SIZE), is(equalTo(MAX_BATCHING_SIZE)));
+        assertThat(trafficShaper.canDispatchBatch(MAX_IN_FLIGHT_BATCHES - 1), is(true));
+        assertThat(trafficShaper.canDispatchBatch(MAX_IN_FLIGHT_BATCHES), is(false));
+    }
+
+    @Test
+    public void testCongestionWithSingleBatchWindowPausesDispatching() throws Exception {
+        trafficShaper.registerFailure(ProcessingResult.TransientError);
+        Thread.sleep(NETWORK_FAILURE_RETRY_MS);
+        assertThat(trafficShaper.transmissionDelay(), is(equalTo(0L)));
+
+        trafficShaper.registerFailure(ProcessingResult.Congestion);
+
+        assertThat(trafficShaper.transmissionDelay() > 0, is(true));
+        assertThat(trafficShaper.canDispatchBatch(0), is(true));
+        assertThat(trafficShaper.canDispatchBatch(1), is(false));
+    }
+
+    @Test
+    public void testBatchingDelayFollowsProcessingTime() throws Exception {
+        trafficShaper.registerBatch(MAX_BATCHING_SIZE, 80, ProcessingResult.Success);
+        assertThat(trafficShaper.batchingDelay(MAX_BATCHING_DELAY_MS), is(equalTo(80L)));
+
+        trafficShaper.registerBatch(MAX_BATCHING_SIZE, 160, ProcessingResult.Success);
+        assertThat(trafficShaper.batchingDelay(MAX_BATCHING_DELAY_MS), is(equalTo(90L)));
+
+        trafficShaper.registerBatch(MAX_BATCHING_SIZE, 10000, ProcessingResult.PermanentError);
+        assertThat(trafficShaper.batchingDelay(MAX_BATCHING_DELAY_MS), is(equalTo(90L)));
+    }
+}
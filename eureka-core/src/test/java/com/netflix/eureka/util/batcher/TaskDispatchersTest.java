@@ -18,8 +18,11 @@ package com.netflix.eureka.util.batcher;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
@@ -91,6 +94,36 @@ public class TaskDispatchersTest {
         processor.expectSuccesses(2);
     }
 
+    @Test
+    public void testTaskWithSameOrderingKeyIsDispatchedAfterProcessorFailure() throws Exception {
+        FailingOnceTaskProcessor failingProcessor = new FailingOnceTaskProcessor();
+
+        TaskDispatcher<Integer, Integer> dispatcher = TaskDispatchers.createBatchingTaskDispatcher(
+                "TEST",
+                MAX_BUFFER_SIZE,
+                WORK_LOAD_SIZE,
+                1,
+                MAX_BATCHING_DELAY_MS,
+                SERVER_UNAVAILABLE_SLEEP_TIME_MS,
+                RETRY_SLEEP_TIME_MS,
+                id -> id % 10,
+                TrafficShapingPolicy.Fixed,
+                failingProcessor
+        );
+
+        try {
+            dispatcher.process(1, 1, System.currentTimeMillis() + 60 * 1000);
+            assertThat(failingProcessor.failed.await(5, TimeUnit.SECONDS), is(true));
+
+            dispatcher.process(11, 11, System.currentTimeMillis() + 60 * 1000);
+
+            assertThat(failingProcessor.processedTasks.poll(5, TimeUnit.SECONDS), is(equalTo(1)));
+            assertThat(failingProcessor.processedTasks.poll(5, TimeUnit.SECONDS), is(equalTo(11)));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
     @Test
     public void testTasksAreDistributedAcrossAllWorkerThreads() throws Exception {
         int threadCount = 3;
@@ -130,6 +163,27 @@ public class TaskDispatchersTest {
         }
     }
 
+    static class FailingOnceTaskProcessor implements TaskProcessor<Integer> {
+
+        final CountDownLatch failed = new CountDownLatch(1);
+        final BlockingQueue<Integer> processedTasks = new LinkedBlockingQueue<>();
+
+        @Override
+        public ProcessingResult process(Integer task) {
+            throw new IllegalStateException("unexpected");
+        }
+
+        @Override
+        public ProcessingResult process(List<Integer> tasks) {
+            if (failed.getCount() > 0) {
+                failed.countDown();
+                throw new IllegalStateException("simulated processing failure");
+            }
+            processedTasks.addAll(tasks);
+            return ProcessingResult.Success;
+        }
+    }
+
     static class CountingTaskProcessor implements TaskProcessor<Boolean> {
 
         final ConcurrentMap<Thread, Integer> threadHits = new ConcurrentHashMap<>();
@@ -29,6 +29,7 @@ import static com.netflix.eureka.util.batcher.RecordingProcessor.permanentErrorT
 import static com.netflix.eureka.util.batcher.RecordingProcessor.successfulTaskHolder;
 import static com.netflix.eureka.util.batcher.RecordingProcessor.transientErrorTaskHolder;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
@@ -98,6 +99,31 @@ public class TaskExecutorsTest {
         verify(acceptorExecutor, timeout(500).times(1)).reprocess(taskHolderBatch, ProcessingResult.TransientError);
     }
 
+    @Test
+    public void testBatchProcessingWithPartialTransientError() throws Exception {
+        RecordingProcessor partialProcessor = new RecordingProcessor() {
+            @Override
+            public ProcessingResult process(List<ProcessingResult> tasks, List<ProcessingResult> failedTasks) {
+                for (ProcessingResult task : tasks) {
+                    if (process(task) != ProcessingResult.Success) {
+                        failedTasks.add(task);
+                    }
+                }
+                return failedTasks.isEmpty() ? ProcessingResult.Success : ProcessingResult.TransientError;
+            }
+        };
+        taskExecutors = TaskExecutors.batchExecutors("TEST", 1, partialProcessor, acceptorExecutor);
+
+        TaskHolder<Integer, ProcessingResult> successfulHolder = successfulTaskHolder(1);
+        TaskHolder<Integer, ProcessingResult> transientErrorHolder = transientErrorTaskHolder(2);
+        taskBatchQueue.add(asList(successfulHolder, transientErrorHolder));
+
+        // Verify that only the failed task is re-scheduled
+        partialProcessor.expectSuccesses(1);
+        partialProcessor.expectTransientErrors(1);
+        verify(acceptorExecutor, timeout(500).times(1)).reprocess(singletonList(transientErrorHolder), ProcessingResult.TransientError);
+    }
+
     @Test
     public void testSingleItemProcessingWithPermanentError() throws Exception {
         taskExecutors = TaskExecutors.singleItemExecutors("TEST", 1, processor, acceptorExecutor);